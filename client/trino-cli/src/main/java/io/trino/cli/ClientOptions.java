@@ -141,6 +141,12 @@ public class ClientOptions
     @Option(names = "--output-format", paramLabel = "<format>", defaultValue = "CSV", description = "Output format for batch mode [${COMPLETION-CANDIDATES}] " + DEFAULT_VALUE)
     public OutputFormat outputFormat;
 
+    @Option(names = "--output-file", paramLabel = "<file>", description = "Write the results of batch mode to a file instead of the standard output")
+    public String outputFile;
+
+    @Option(names = "--output-compression", paramLabel = "<compression>", defaultValue = "NONE", description = "Compression of the file written with --output-file [${COMPLETION-CANDIDATES}] " + DEFAULT_VALUE)
+    public OutputCompression outputCompression;
+
     @Option(names = "--resource-estimate", paramLabel = "<estimate>", description = "Resource estimate (property can be used multiple times; format is key=value)")
     public final List<ClientResourceEstimate> resourceEstimates = new ArrayList<>();
 
@@ -171,6 +177,12 @@ public class ClientOptions
     @Option(names = "--disable-compression", description = "Disable compression of query results")
     public boolean disableCompression;
 
+    @Option(names = "--binary-results", description = "Request query results in the binary Smile encoding instead of JSON")
+    public boolean binaryResults;
+
+    @Option(names = "--spooled-results", description = "Allow the server to return large results as spooled segments that are downloaded in parallel")
+    public boolean spooledResults;
+
     public enum OutputFormat
     {
         ALIGNED,
@@ -185,6 +197,12 @@ public class ClientOptions
         NULL
     }
 
+    public enum OutputCompression
+    {
+        NONE,
+        GZIP
+    }
+
     public ClientSession toClientSession()
     {
         return new ClientSession(
@@ -207,7 +225,9 @@ public class ClientOptions
                 toExtraCredentials(extraCredentials),
                 null,
                 clientRequestTimeout,
-                disableCompression);
+                disableCompression,
+                binaryResults,
+                spooledResults);
     }
 
     public static URI parseServer(String server)
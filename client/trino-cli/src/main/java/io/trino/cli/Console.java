@@ -17,6 +17,7 @@ import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteStreams;
 import io.airlift.units.Duration;
+import io.trino.cli.ClientOptions.OutputCompression;
 import io.trino.cli.ClientOptions.OutputFormat;
 import io.trino.cli.Trino.VersionProvider;
 import io.trino.client.ClientSelectedRole;
@@ -142,6 +143,10 @@ public class Console
             }
         }
 
+        if (clientOptions.outputFile != null && !hasQuery) {
+            throw new RuntimeException("--output-file requires --execute, --file or statements from standard input");
+        }
+
         // abort any running query if the CLI is terminated
         AtomicBoolean exiting = new AtomicBoolean();
         ThreadInterruptor interruptor = new ThreadInterruptor();
@@ -184,6 +189,8 @@ public class Console
                         exiting,
                         query,
                         clientOptions.outputFormat,
+                        Optional.ofNullable(clientOptions.outputFile).map(Paths::get),
+                        clientOptions.outputCompression,
                         clientOptions.ignoreErrors,
                         clientOptions.progress);
             }
@@ -286,7 +293,7 @@ public class Console
                         outputFormat = OutputFormat.VERTICAL;
                     }
 
-                    process(queryRunner, split.statement(), outputFormat, tableNameCompleter::populateCache, true, true, reader.getTerminal(), System.out, System.out);
+                    process(queryRunner, split.statement(), outputFormat, Optional.empty(), tableNameCompleter::populateCache, true, true, reader.getTerminal(), System.out, System.out);
                 }
 
                 // replace remaining with trailing partial statement
@@ -303,6 +310,29 @@ public class Console
             AtomicBoolean exiting,
             String query,
             OutputFormat outputFormat,
+            Optional<Path> outputPath,
+            OutputCompression outputCompression,
+            boolean ignoreErrors,
+            boolean showProgress)
+    {
+        if (!outputPath.isPresent()) {
+            return executeCommand(queryRunner, exiting, query, outputFormat, Optional.empty(), ignoreErrors, showProgress);
+        }
+        try (OutputFile outputFile = OutputFile.create(outputPath.get(), outputCompression)) {
+            return executeCommand(queryRunner, exiting, query, outputFormat, Optional.of(outputFile), ignoreErrors, showProgress);
+        }
+        catch (IOException e) {
+            System.err.println(format("Error writing to file %s: %s", outputPath.get(), e.getMessage()));
+            return false;
+        }
+    }
+
+    private static boolean executeCommand(
+            QueryRunner queryRunner,
+            AtomicBoolean exiting,
+            String query,
+            OutputFormat outputFormat,
+            Optional<OutputFile> outputFile,
             boolean ignoreErrors,
             boolean showProgress)
     {
@@ -310,7 +340,7 @@ public class Console
         StatementSplitter splitter = new StatementSplitter(query);
         for (Statement split : splitter.getCompleteStatements()) {
             if (!isEmptyStatement(split.statement())) {
-                if (!process(queryRunner, split.statement(), outputFormat, () -> {}, false, showProgress, getTerminal(), System.out, System.err)) {
+                if (!process(queryRunner, split.statement(), outputFormat, outputFile, () -> {}, false, showProgress, getTerminal(), System.out, System.err)) {
                     if (!ignoreErrors) {
                         return false;
                     }
@@ -332,6 +362,7 @@ public class Console
             QueryRunner queryRunner,
             String sql,
             OutputFormat outputFormat,
+            Optional<OutputFile> outputFile,
             Runnable schemaChanged,
             boolean usePager,
             boolean showProgress,
@@ -356,7 +387,7 @@ public class Console
         }
 
         try (Query query = queryRunner.startQuery(finalSql)) {
-            boolean success = query.renderOutput(terminal, out, errorChannel, outputFormat, usePager, showProgress);
+            boolean success = query.renderOutput(terminal, out, errorChannel, outputFormat, outputFile, usePager, showProgress);
 
             ClientSession session = queryRunner.getSession();
 
@@ -13,7 +13,6 @@
  */
 package io.trino.cli;
 
-import au.com.bytecode.opencsv.CSVWriter;
 import com.google.common.collect.ImmutableList;
 import io.trino.client.Row;
 
@@ -26,13 +25,18 @@ import static io.trino.cli.AlignedTablePrinter.formatHexDump;
 import static io.trino.cli.AlignedTablePrinter.formatList;
 import static io.trino.cli.AlignedTablePrinter.formatMap;
 import static io.trino.cli.AlignedTablePrinter.formatRow;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 
 public class CsvPrinter
         implements OutputPrinter
 {
     private final List<String> fieldNames;
-    private final CSVWriter writer;
+    private final Writer writer;
+    private final boolean quoted;
+    // reused for all rows, to avoid allocating a string for every row
+    private final StringBuilder rowBuilder = new StringBuilder();
+    private char[] rowBuffer = new char[0];
 
     private boolean needHeader;
 
@@ -68,7 +72,8 @@ public class CsvPrinter
         requireNonNull(fieldNames, "fieldNames is null");
         requireNonNull(writer, "writer is null");
         this.fieldNames = ImmutableList.copyOf(fieldNames);
-        this.writer = csvOutputFormat.isQuoted() ? new CSVWriter(writer) : new CSVWriter(writer, CSVWriter.DEFAULT_SEPARATOR, CSVWriter.NO_QUOTE_CHARACTER);
+        this.writer = writer;
+        this.quoted = csvOutputFormat.isQuoted();
         this.needHeader = csvOutputFormat.showHeader();
     }
 
@@ -78,12 +83,18 @@ public class CsvPrinter
     {
         if (needHeader) {
             needHeader = false;
-            writer.writeNext(toStrings(fieldNames));
+            printRows(ImmutableList.of(fieldNames), false);
         }
 
         for (List<?> row : rows) {
-            writer.writeNext(toStrings(row));
-            checkError();
+            rowBuilder.setLength(0);
+            formatCsvRow(rowBuilder, row);
+            int length = rowBuilder.length();
+            if (rowBuffer.length < length) {
+                rowBuffer = new char[max(length, rowBuffer.length * 2)];
+            }
+            rowBuilder.getChars(0, length, rowBuffer, 0);
+            writer.write(rowBuffer, 0, length);
         }
     }
 
@@ -93,24 +104,36 @@ public class CsvPrinter
     {
         printRows(ImmutableList.of(), true);
         writer.flush();
-        checkError();
     }
 
-    private void checkError()
-            throws IOException
-    {
-        if (writer.checkError()) {
-            throw new IOException("error writing to output");
-        }
-    }
-
-    private static String[] toStrings(List<?> values)
+    private void formatCsvRow(StringBuilder sb, List<?> row)
     {
-        String[] array = new String[values.size()];
-        for (int i = 0; i < values.size(); i++) {
-            array[i] = formatValue(values.get(i));
+        for (int i = 0; i < row.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            if (quoted) {
+                sb.append('"');
+            }
+            // quotes within a value are doubled, with and without the quotes around the values
+            String value = formatValue(row.get(i));
+            if (value.indexOf('"') >= 0) {
+                for (int j = 0; j < value.length(); j++) {
+                    char c = value.charAt(j);
+                    if (c == '"') {
+                        sb.append('"');
+                    }
+                    sb.append(c);
+                }
+            }
+            else {
+                sb.append(value);
+            }
+            if (quoted) {
+                sb.append('"');
+            }
         }
-        return array;
+        sb.append('\n');
     }
 
     static String formatValue(Object o)
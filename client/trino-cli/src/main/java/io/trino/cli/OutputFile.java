@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cli;
+
+import com.google.common.io.CountingOutputStream;
+import io.trino.cli.ClientOptions.OutputCompression;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * File that the results of the statements executed in batch mode are exported to,
+ * instead of the standard output. Keeps track of the number of rows and bytes written,
+ * so that the throughput of the export can be reported.
+ */
+public final class OutputFile
+        implements Closeable
+{
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final CountingOutputStream fileStream;
+    private final PrintStream printStream;
+    private long rowCount;
+
+    private OutputFile(CountingOutputStream fileStream, OutputStream outputStream)
+    {
+        this.fileStream = requireNonNull(fileStream, "fileStream is null");
+        this.printStream = new PrintStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+    }
+
+    public static OutputFile create(Path path, OutputCompression compression)
+            throws IOException
+    {
+        CountingOutputStream fileStream = new CountingOutputStream(Files.newOutputStream(path));
+        switch (compression) {
+            case NONE:
+                return new OutputFile(fileStream, fileStream);
+            case GZIP:
+                // flush the compressed data when the output of a statement is finished, so that the written size is accurate
+                return new OutputFile(fileStream, new GZIPOutputStream(fileStream, BUFFER_SIZE, true));
+        }
+        throw new IllegalArgumentException(compression + " not supported");
+    }
+
+    public PrintStream getPrintStream()
+    {
+        return printStream;
+    }
+
+    public void addRows(long rows)
+    {
+        rowCount += rows;
+    }
+
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    public long getByteCount()
+    {
+        return fileStream.getCount();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        printStream.close();
+        if (printStream.checkError()) {
+            throw new IOException("Failed to write output file");
+        }
+    }
+}
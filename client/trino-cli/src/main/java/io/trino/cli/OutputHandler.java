@@ -43,6 +43,7 @@ public final class OutputHandler
 
     private final AtomicBoolean closed = new AtomicBoolean();
     private final OutputPrinter printer;
+    private long rowCount;
 
     public OutputHandler(OutputPrinter printer)
     {
@@ -86,6 +87,7 @@ public final class OutputHandler
                 // Flush if needed
                 if (rowBuffer.size() >= MAX_BUFFERED_ROWS || nanosSince(bufferStart).compareTo(MAX_BUFFER_TIME) >= 0) {
                     printer.printRows(unmodifiableList(rowBuffer), false);
+                    rowCount += rowBuffer.size();
                     rowBuffer.clear();
                     bufferStart = System.nanoTime();
                 }
@@ -102,6 +104,7 @@ public final class OutputHandler
                 drainDetectingEnd(rowQueue, rowBuffer, Integer.MAX_VALUE, END_TOKEN);
             }
             printer.printRows(unmodifiableList(rowBuffer), true);
+            rowCount += rowBuffer.size();
             readerFuture.get(); // propagate any exceptions
         }
         catch (InterruptedException e) {
@@ -114,6 +117,11 @@ public final class OutputHandler
         }
     }
 
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
     private static <E> boolean drainDetectingEnd(BlockingQueue<E> blockingQueue, List<E> buffer, int maxBufferSize, E endToken)
     {
         int drained = blockingQueue.drainTo(buffer, maxBufferSize - buffer.size());
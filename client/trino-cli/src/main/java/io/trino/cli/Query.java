@@ -127,6 +127,11 @@ public class Query
     }
 
     public boolean renderOutput(Terminal terminal, PrintStream out, PrintStream errorChannel, OutputFormat outputFormat, boolean usePager, boolean showProgress)
+    {
+        return renderOutput(terminal, out, errorChannel, outputFormat, Optional.empty(), usePager, showProgress);
+    }
+
+    public boolean renderOutput(Terminal terminal, PrintStream out, PrintStream errorChannel, OutputFormat outputFormat, Optional<OutputFile> outputFile, boolean usePager, boolean showProgress)
     {
         Thread clientThread = Thread.currentThread();
         SignalHandler oldHandler = terminal.handle(Signal.INT, signal -> {
@@ -137,7 +142,7 @@ public class Query
             clientThread.interrupt();
         });
         try {
-            return renderQueryOutput(terminal, out, errorChannel, outputFormat, usePager, showProgress);
+            return renderQueryOutput(terminal, out, errorChannel, outputFormat, outputFile, usePager, showProgress);
         }
         finally {
             terminal.handle(Signal.INT, oldHandler);
@@ -145,13 +150,13 @@ public class Query
         }
     }
 
-    private boolean renderQueryOutput(Terminal terminal, PrintStream out, PrintStream errorChannel, OutputFormat outputFormat, boolean usePager, boolean showProgress)
+    private boolean renderQueryOutput(Terminal terminal, PrintStream out, PrintStream errorChannel, OutputFormat outputFormat, Optional<OutputFile> outputFile, boolean usePager, boolean showProgress)
     {
         StatusPrinter statusPrinter = null;
         WarningsPrinter warningsPrinter = new PrintStreamWarningsPrinter(errorChannel);
 
         if (showProgress) {
-            statusPrinter = new StatusPrinter(client, errorChannel, debug);
+            statusPrinter = new StatusPrinter(client, errorChannel, debug, outputFile);
             statusPrinter.printInitialStatusUpdates(terminal);
         }
         else {
@@ -168,6 +173,9 @@ public class Query
                 errorChannel.printf("Query %s has no columns\n", results.getId());
                 return false;
             }
+            else if (outputFile.isPresent()) {
+                exportResults(outputFile.get(), outputFormat, results.getColumns());
+            }
             else {
                 renderResults(out, outputFormat, usePager, results.getColumns());
             }
@@ -255,6 +263,21 @@ public class Query
         }
     }
 
+    private void exportResults(OutputFile outputFile, OutputFormat format, List<Column> columns)
+    {
+        try (OutputHandler handler = createOutputHandler(format, createWriter(outputFile.getPrintStream()), columns)) {
+            handler.processRows(client);
+            outputFile.addRows(handler.getRowCount());
+        }
+        catch (QueryAbortedException e) {
+            System.out.println("(query aborted by user)");
+            client.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private void doRenderResults(PrintStream out, OutputFormat format, boolean interactive, List<Column> columns)
             throws IOException
     {
@@ -27,6 +27,7 @@ import org.jline.terminal.Terminal;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -61,14 +62,26 @@ public class StatusPrinter
     private final PrintStream out;
     private final ConsolePrinter console;
 
+    private final Optional<OutputFile> outputFile;
+    private final long initialOutputRows;
+    private final long initialOutputBytes;
+
     private boolean debug;
 
     public StatusPrinter(StatementClient client, PrintStream out, boolean debug)
+    {
+        this(client, out, debug, Optional.empty());
+    }
+
+    public StatusPrinter(StatementClient client, PrintStream out, boolean debug, Optional<OutputFile> outputFile)
     {
         this.client = client;
         this.out = out;
         this.console = new ConsolePrinter(out);
         this.debug = debug;
+        this.outputFile = requireNonNull(outputFile, "outputFile is null");
+        this.initialOutputRows = outputFile.map(OutputFile::getRowCount).orElse(0L);
+        this.initialOutputBytes = outputFile.map(OutputFile::getByteCount).orElse(0L);
     }
 
 /*
@@ -226,6 +239,18 @@ Spilled: 20GB
 
         out.println(statsLine);
 
+        if (outputFile.isPresent()) {
+            // Output: 15M rows, 1.02GB written [463K rows/s, 32.1MB/s]
+            long outputRows = outputFile.get().getRowCount() - initialOutputRows;
+            long outputBytes = outputFile.get().getByteCount() - initialOutputBytes;
+            String outputSummary = format("Output: %s rows, %s written [%s rows/s, %s]",
+                    formatCount(outputRows),
+                    formatDataSize(bytes(outputBytes), true),
+                    formatCountRate(outputRows, wallTime, false),
+                    formatDataRate(bytes(outputBytes), wallTime, true));
+            out.println(outputSummary);
+        }
+
         // blank line
         out.println();
     }
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import static io.trino.cli.CsvPrinter.formatValue;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 
 public class TsvPrinter
@@ -28,6 +29,9 @@ public class TsvPrinter
 {
     private final List<String> fieldNames;
     private final Writer writer;
+    // reused for all rows, to avoid allocating a string for every row
+    private final StringBuilder rowBuilder = new StringBuilder();
+    private char[] rowBuffer = new char[0];
 
     private boolean needHeader;
 
@@ -48,7 +52,14 @@ public class TsvPrinter
         }
 
         for (List<?> row : rows) {
-            writer.write(formatRow(row));
+            rowBuilder.setLength(0);
+            formatRow(rowBuilder, row);
+            int length = rowBuilder.length();
+            if (rowBuffer.length < length) {
+                rowBuffer = new char[max(length, rowBuffer.length * 2)];
+            }
+            rowBuilder.getChars(0, length, rowBuffer, 0);
+            writer.write(rowBuffer, 0, length);
         }
     }
 
@@ -60,15 +71,19 @@ public class TsvPrinter
         writer.flush();
     }
 
-    private static String formatRow(List<?> row)
+    private static void formatRow(StringBuilder sb, List<?> row)
     {
-        StringBuilder sb = new StringBuilder();
         Iterator<?> iter = row.iterator();
         while (iter.hasNext()) {
             String s = formatValue(iter.next());
 
-            for (int i = 0; i < s.length(); i++) {
-                escapeCharacter(sb, s.charAt(i));
+            if (needsEscaping(s)) {
+                for (int i = 0; i < s.length(); i++) {
+                    escapeCharacter(sb, s.charAt(i));
+                }
+            }
+            else {
+                sb.append(s);
             }
 
             if (iter.hasNext()) {
@@ -76,7 +91,17 @@ public class TsvPrinter
             }
         }
         sb.append('\n');
-        return sb.toString();
+    }
+
+    private static boolean needsEscaping(String s)
+    {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\0' || c == '\b' || c == '\f' || c == '\n' || c == '\r' || c == '\t' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static void escapeCharacter(StringBuilder sb, char c)
@@ -18,6 +18,7 @@ import com.google.common.net.HostAndPort;
 import io.airlift.units.Duration;
 import io.trino.cli.ClientOptions.ClientResourceEstimate;
 import io.trino.cli.ClientOptions.ClientSessionProperty;
+import io.trino.cli.ClientOptions.OutputCompression;
 import io.trino.cli.ClientOptions.OutputFormat;
 import io.trino.client.ClientSession;
 import org.testng.annotations.Test;
@@ -107,6 +108,15 @@ public class TestClientOptions
         assertEquals(options.outputFormat, OutputFormat.JSON);
     }
 
+    @Test
+    public void testOutputFile()
+    {
+        Console console = createConsole("--output-file=/tmp/results.csv.gz", "--output-compression=GZIP");
+        ClientOptions options = console.clientOptions;
+        assertEquals(options.outputFile, "/tmp/results.csv.gz");
+        assertEquals(options.outputCompression, OutputCompression.GZIP);
+    }
+
     @Test
     public void testSocksProxy()
     {
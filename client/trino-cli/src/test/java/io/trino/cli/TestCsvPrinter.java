@@ -170,6 +170,23 @@ public class TestCsvPrinter
         assertEquals(writer.getBuffer().toString(), expected);
     }
 
+    @Test
+    public void testCsvPrintingQuotesInValues()
+            throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        OutputPrinter printer = new CsvPrinter(ImmutableList.of("first", "last"), writer, NO_HEADER);
+        printRows(printer, row("say \"hello\"", "a,b"));
+        printer.finish();
+        assertEquals(writer.getBuffer().toString(), "\"say \"\"hello\"\"\",\"a,b\"\n");
+
+        writer = new StringWriter();
+        printer = new CsvPrinter(ImmutableList.of("first", "last"), writer, NO_HEADER_AND_QUOTES);
+        printRows(printer, row("say \"hello\"", "a,b"));
+        printer.finish();
+        assertEquals(writer.getBuffer().toString(), "say \"\"hello\"\",a,b\n");
+    }
+
     @Test
     public void testCsvVarbinaryPrinting()
             throws IOException
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cli;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static io.trino.cli.ClientOptions.OutputCompression.GZIP;
+import static io.trino.cli.ClientOptions.OutputCompression.NONE;
+import static io.trino.cli.TestAlignedTablePrinter.row;
+import static io.trino.cli.TestAlignedTablePrinter.rows;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+public class TestOutputFile
+{
+    private static final String EXPECTED = "" +
+            "hello\tworld\t123\n" +
+            "a\t\t4.5\n";
+
+    @Test
+    public void testUncompressed()
+            throws IOException
+    {
+        Path path = Files.createTempFile("output", ".tsv");
+        try {
+            try (OutputFile outputFile = OutputFile.create(path, NONE)) {
+                writeRows(outputFile);
+                assertEquals(outputFile.getRowCount(), 2);
+                assertEquals(outputFile.getByteCount(), EXPECTED.length());
+            }
+            assertEquals(new String(Files.readAllBytes(path), UTF_8), EXPECTED);
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testGzip()
+            throws IOException
+    {
+        Path path = Files.createTempFile("output", ".tsv.gz");
+        try {
+            try (OutputFile outputFile = OutputFile.create(path, GZIP)) {
+                writeRows(outputFile);
+                assertEquals(outputFile.getRowCount(), 2);
+                // the compressed rows are flushed with the output of the statement
+                assertEquals(outputFile.getByteCount(), Files.size(path));
+            }
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(path))) {
+                assertEquals(new String(toByteArray(input), UTF_8), EXPECTED);
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void writeRows(OutputFile outputFile)
+            throws IOException
+    {
+        Writer writer = new OutputStreamWriter(outputFile.getPrintStream(), UTF_8);
+        List<List<?>> rows = rows(
+                row("hello", "world", 123),
+                row("a", null, 4.5));
+        OutputPrinter printer = new TsvPrinter(ImmutableList.of("first", "last", "quantity"), writer, false);
+        printer.printRows(rows, true);
+        printer.finish();
+        outputFile.addRows(rows.size());
+    }
+}
@@ -121,7 +121,9 @@ public class TestQueryRunner
                 ImmutableMap.of(),
                 null,
                 new Duration(2, MINUTES),
-                true);
+                true,
+                false,
+                false);
     }
 
     static String createResults(MockWebServer server)
@@ -133,6 +135,7 @@ public class TestQueryRunner
                 null,
                 ImmutableList.of(new Column("_col0", BIGINT, new ClientTypeSignature(BIGINT))),
                 ImmutableList.of(ImmutableList.of(123)),
+                null,
                 StatementStats.builder().setState("FINISHED").build(),
                 //new StatementStats("FINISHED", false, true, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null),
                 null,
@@ -23,5 +23,8 @@ public enum ClientCapabilities
     //   time(p) without time zone
     //   interval X(p1) to Y(p2)
     // When this capability is not set, the server returns datetime types with precision = 3
-    PARAMETRIC_DATETIME;
+    PARAMETRIC_DATETIME,
+    // Whether clients can download results spooled by the server from the segment URIs
+    // returned instead of inline data. Only sent when enabled for the client session.
+    SPOOLED_RESULTS;
 }
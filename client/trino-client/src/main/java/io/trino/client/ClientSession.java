@@ -53,6 +53,8 @@ public class ClientSession
     private final String transactionId;
     private final Duration clientRequestTimeout;
     private final boolean compressionDisabled;
+    private final boolean binaryResultsEnabled;
+    private final boolean spooledResultsEnabled;
 
     public static Builder builder(ClientSession clientSession)
     {
@@ -86,7 +88,9 @@ public class ClientSession
             Map<String, String> extraCredentials,
             String transactionId,
             Duration clientRequestTimeout,
-            boolean compressionDisabled)
+            boolean compressionDisabled,
+            boolean binaryResultsEnabled,
+            boolean spooledResultsEnabled)
     {
         this.server = requireNonNull(server, "server is null");
         this.principal = principal;
@@ -108,6 +112,8 @@ public class ClientSession
         this.extraCredentials = ImmutableMap.copyOf(requireNonNull(extraCredentials, "extraCredentials is null"));
         this.clientRequestTimeout = clientRequestTimeout;
         this.compressionDisabled = compressionDisabled;
+        this.binaryResultsEnabled = binaryResultsEnabled;
+        this.spooledResultsEnabled = spooledResultsEnabled;
 
         for (String clientTag : clientTags) {
             checkArgument(!clientTag.contains(","), "client tag cannot contain ','");
@@ -246,6 +252,24 @@ public class ClientSession
         return compressionDisabled;
     }
 
+    /**
+     * Whether query results are requested in the binary Smile encoding instead of JSON.
+     * Servers that do not support the binary encoding return JSON.
+     */
+    public boolean isBinaryResultsEnabled()
+    {
+        return binaryResultsEnabled;
+    }
+
+    /**
+     * Whether large results may be returned as segments spooled by the server,
+     * which the client downloads in parallel.
+     */
+    public boolean isSpooledResultsEnabled()
+    {
+        return spooledResultsEnabled;
+    }
+
     @Override
     public String toString()
     {
@@ -289,6 +313,8 @@ public class ClientSession
         private String transactionId;
         private Duration clientRequestTimeout;
         private boolean compressionDisabled;
+        private boolean binaryResultsEnabled;
+        private boolean spooledResultsEnabled;
 
         private Builder(ClientSession clientSession)
         {
@@ -313,6 +339,8 @@ public class ClientSession
             transactionId = clientSession.getTransactionId();
             clientRequestTimeout = clientSession.getClientRequestTimeout();
             compressionDisabled = clientSession.isCompressionDisabled();
+            binaryResultsEnabled = clientSession.isBinaryResultsEnabled();
+            spooledResultsEnabled = clientSession.isSpooledResultsEnabled();
         }
 
         public Builder withCatalog(String catalog)
@@ -375,6 +403,18 @@ public class ClientSession
             return this;
         }
 
+        public Builder withBinaryResultsEnabled(boolean binaryResultsEnabled)
+        {
+            this.binaryResultsEnabled = binaryResultsEnabled;
+            return this;
+        }
+
+        public Builder withSpooledResultsEnabled(boolean spooledResultsEnabled)
+        {
+            this.spooledResultsEnabled = spooledResultsEnabled;
+            return this;
+        }
+
         public ClientSession build()
         {
             return new ClientSession(
@@ -397,7 +437,9 @@ public class ClientSession
                     credentials,
                     transactionId,
                     clientRequestTimeout,
-                    compressionDisabled);
+                    compressionDisabled,
+                    binaryResultsEnabled,
+                    spooledResultsEnabled);
         }
     }
 }
@@ -18,8 +18,10 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.function.Supplier;
 
@@ -27,32 +29,41 @@ import static java.util.Objects.requireNonNull;
 
 public class JsonCodec<T>
 {
+    static final Supplier<ObjectMapper> OBJECT_MAPPER_SUPPLIER = () -> configure(new ObjectMapper());
+
+    private static final Supplier<ObjectMapper> SMILE_OBJECT_MAPPER_SUPPLIER = () -> configure(new ObjectMapper(new SmileFactory()));
+
     // copy of https://github.com/airlift/airlift/blob/master/json/src/main/java/io/airlift/json/ObjectMapperProvider.java
-    static final Supplier<ObjectMapper> OBJECT_MAPPER_SUPPLIER = () -> new ObjectMapper()
-            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-            .disable(MapperFeature.AUTO_DETECT_CREATORS)
-            .disable(MapperFeature.AUTO_DETECT_FIELDS)
-            .disable(MapperFeature.AUTO_DETECT_SETTERS)
-            .disable(MapperFeature.AUTO_DETECT_GETTERS)
-            .disable(MapperFeature.AUTO_DETECT_IS_GETTERS)
-            .disable(MapperFeature.USE_GETTERS_AS_SETTERS)
-            .disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS)
-            .disable(MapperFeature.INFER_PROPERTY_MUTATORS)
-            .disable(MapperFeature.ALLOW_FINAL_FIELDS_AS_MUTATORS)
-            .registerModule(new Jdk8Module());
+    private static ObjectMapper configure(ObjectMapper mapper)
+    {
+        return mapper
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(MapperFeature.AUTO_DETECT_CREATORS)
+                .disable(MapperFeature.AUTO_DETECT_FIELDS)
+                .disable(MapperFeature.AUTO_DETECT_SETTERS)
+                .disable(MapperFeature.AUTO_DETECT_GETTERS)
+                .disable(MapperFeature.AUTO_DETECT_IS_GETTERS)
+                .disable(MapperFeature.USE_GETTERS_AS_SETTERS)
+                .disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS)
+                .disable(MapperFeature.INFER_PROPERTY_MUTATORS)
+                .disable(MapperFeature.ALLOW_FINAL_FIELDS_AS_MUTATORS)
+                .registerModule(new Jdk8Module());
+    }
 
     public static <T> JsonCodec<T> jsonCodec(Class<T> type)
     {
-        return new JsonCodec<>(OBJECT_MAPPER_SUPPLIER.get(), type);
+        return new JsonCodec<>(OBJECT_MAPPER_SUPPLIER.get(), SMILE_OBJECT_MAPPER_SUPPLIER.get(), type);
     }
 
     private final ObjectMapper mapper;
+    private final ObjectMapper smileMapper;
     private final Type type;
     private final JavaType javaType;
 
-    private JsonCodec(ObjectMapper mapper, Type type)
+    private JsonCodec(ObjectMapper mapper, ObjectMapper smileMapper, Type type)
     {
         this.mapper = requireNonNull(mapper, "mapper is null");
+        this.smileMapper = requireNonNull(smileMapper, "smileMapper is null");
         this.type = requireNonNull(type, "type is null");
         this.javaType = mapper.getTypeFactory().constructType(type);
     }
@@ -67,4 +78,10 @@ public class JsonCodec<T>
     {
         return mapper.readerFor(javaType).readValue(json);
     }
+
+    public T fromSmile(byte[] smile)
+            throws IOException
+    {
+        return smileMapper.readerFor(javaType).readValue(smile);
+    }
 }
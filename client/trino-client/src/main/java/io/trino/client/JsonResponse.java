@@ -73,6 +73,27 @@ public final class JsonResponse<T>
         this.exception = exception;
     }
 
+    private JsonResponse(int statusCode, String statusMessage, Headers headers, byte[] responseBytes, JsonCodec<T> jsonCodec)
+    {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.headers = requireNonNull(headers, "headers is null");
+        // the binary body is not meaningful as text, so only its size is kept for error messages
+        this.responseBody = format("<%s bytes of Smile data>", responseBytes.length);
+
+        T value = null;
+        IllegalArgumentException exception = null;
+        try {
+            value = jsonCodec.fromSmile(responseBytes);
+        }
+        catch (IOException e) {
+            exception = new IllegalArgumentException(format("Unable to create %s from Smile response", jsonCodec.getType()), e);
+        }
+        this.hasValue = (exception == null);
+        this.value = value;
+        this.exception = exception;
+    }
+
     public int getStatusCode()
     {
         return statusCode;
@@ -138,6 +159,9 @@ public final class JsonResponse<T>
             }
 
             ResponseBody responseBody = requireNonNull(response.body());
+            if (isSmile(responseBody.contentType())) {
+                return new JsonResponse<>(response.code(), response.message(), response.headers(), responseBody.bytes(), codec);
+            }
             String body = responseBody.string();
             if (isJson(responseBody.contentType())) {
                 return new JsonResponse<>(response.code(), response.message(), response.headers(), body, codec);
@@ -153,4 +177,9 @@ public final class JsonResponse<T>
     {
         return (type != null) && "application".equals(type.type()) && "json".equals(type.subtype());
     }
+
+    private static boolean isSmile(MediaType type)
+    {
+        return (type != null) && "application".equals(type.type()) && "x-jackson-smile".equals(type.subtype());
+    }
 }
@@ -40,6 +40,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final List<URI> segments;
     private final StatementStats stats;
     private final QueryError error;
     private final List<Warning> warnings;
@@ -54,6 +55,7 @@ public class QueryResults
             @JsonProperty("nextUri") URI nextUri,
             @JsonProperty("columns") List<Column> columns,
             @JsonProperty("data") List<List<Object>> data,
+            @JsonProperty("segments") List<URI> segments,
             @JsonProperty("stats") StatementStats stats,
             @JsonProperty("error") QueryError error,
             @JsonProperty("warnings") List<Warning> warnings,
@@ -67,6 +69,7 @@ public class QueryResults
                 nextUri,
                 columns,
                 fixData(columns, data),
+                segments,
                 stats,
                 error,
                 firstNonNull(warnings, ImmutableList.of()),
@@ -81,6 +84,7 @@ public class QueryResults
             URI nextUri,
             List<Column> columns,
             Iterable<List<Object>> data,
+            List<URI> segments,
             StatementStats stats,
             QueryError error,
             List<Warning> warnings,
@@ -93,7 +97,10 @@ public class QueryResults
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.segments = (segments != null) ? ImmutableList.copyOf(segments) : null;
         checkArgument(data == null || columns != null, "data present without columns");
+        checkArgument(segments == null || columns != null, "segments present without columns");
+        checkArgument(data == null || segments == null, "both data and segments present");
         this.stats = requireNonNull(stats, "stats is null");
         this.error = error;
         this.warnings = ImmutableList.copyOf(requireNonNull(warnings, "warnings is null"));
@@ -147,6 +154,17 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Locations of the spooled segments holding the data of this result, which
+     * is returned instead of the inline data when the server spools results.
+     */
+    @Nullable
+    @JsonProperty
+    public List<URI> getSegments()
+    {
+        return segments;
+    }
+
     @JsonProperty
     @Override
     public StatementStats getStats()
@@ -195,6 +213,7 @@ public class QueryResults
                 .add("nextUri", nextUri)
                 .add("columns", columns)
                 .add("hasData", data != null)
+                .add("segments", segments)
                 .add("stats", stats)
                 .add("error", error)
                 .add("updateType", updateType)
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import okhttp3.Authenticator;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.CookieJar;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static io.trino.client.FixJsonDataUtils.fixData;
+import static io.trino.client.JsonCodec.OBJECT_MAPPER_SUPPLIER;
+import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Downloads the segments of a result spooled by the server. All segments of a
+ * result are requested at once, so they are transferred in parallel, up to the
+ * limit of concurrent requests per host of the HTTP client.
+ * <p>
+ * The segments are served by other nodes than the coordinator, and their URIs hold
+ * the token that authorizes the download, so they are requested without the
+ * credentials that the HTTP client adds to the requests to the coordinator.
+ */
+final class SpooledSegmentLoader
+{
+    private static final ObjectReader ROWS_READER = OBJECT_MAPPER_SUPPLIER.get().readerFor(new TypeReference<List<List<Object>>>() {});
+
+    private static final Callback IGNORE_RESPONSE = new Callback()
+    {
+        @Override
+        public void onFailure(Call call, IOException e) {}
+
+        @Override
+        public void onResponse(Call call, Response response)
+        {
+            response.close();
+        }
+    };
+
+    private final OkHttpClient httpClient;
+    private final Function<HttpUrl, Request.Builder> requestFactory;
+
+    public SpooledSegmentLoader(OkHttpClient httpClient, Function<HttpUrl, Request.Builder> requestFactory)
+    {
+        this.httpClient = withoutCredentials(requireNonNull(httpClient, "httpClient is null"));
+        this.requestFactory = requireNonNull(requestFactory, "requestFactory is null");
+    }
+
+    public Iterable<List<Object>> load(List<Column> columns, List<URI> segments)
+    {
+        List<Call> calls = new ArrayList<>(segments.size());
+        List<CompletableFuture<List<List<Object>>>> futures = new ArrayList<>(segments.size());
+        for (URI segment : segments) {
+            Call call = httpClient.newCall(requestFactory.apply(HttpUrl.get(segment)).build());
+            calls.add(call);
+            futures.add(fetch(call));
+        }
+
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                rows.addAll(futures.get(i).get());
+            }
+            catch (InterruptedException e) {
+                calls.forEach(Call::cancel);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while fetching spooled result segments", e);
+            }
+            catch (ExecutionException e) {
+                calls.forEach(Call::cancel);
+                throw new RuntimeException(format("Error fetching spooled result segment %s", segments.get(i)), e.getCause());
+            }
+        }
+
+        // the server keeps the segments until they are acknowledged or the query is purged
+        for (URI segment : segments) {
+            httpClient.newCall(requestFactory.apply(HttpUrl.get(segment)).delete().build()).enqueue(IGNORE_RESPONSE);
+        }
+
+        return fixData(columns, rows);
+    }
+
+    private static OkHttpClient withoutCredentials(OkHttpClient httpClient)
+    {
+        // the interceptors add the authentication headers, and the cookies may hold a session
+        OkHttpClient.Builder builder = httpClient.newBuilder()
+                .authenticator(Authenticator.NONE)
+                .cookieJar(CookieJar.NO_COOKIES);
+        builder.interceptors().clear();
+        builder.networkInterceptors().clear();
+        return builder.build();
+    }
+
+    private static CompletableFuture<List<List<Object>>> fetch(Call call)
+    {
+        CompletableFuture<List<List<Object>>> future = new CompletableFuture<>();
+        call.enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (ResponseBody body = response.body()) {
+                    if (response.code() != HTTP_OK) {
+                        throw new IOException(format("Unexpected response code %s: %s", response.code(), body.string()));
+                    }
+                    future.complete(ROWS_READER.readValue(body.byteStream()));
+                }
+                catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+}
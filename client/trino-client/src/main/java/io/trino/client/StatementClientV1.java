@@ -35,6 +35,7 @@ import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.time.ZoneId;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,8 +47,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static io.trino.client.ClientCapabilities.SPOOLED_RESULTS;
 import static io.trino.client.JsonCodec.jsonCodec;
 import static io.trino.client.ProtocolHeaders.TRINO_HEADERS;
 import static java.lang.String.format;
@@ -63,6 +66,7 @@ class StatementClientV1
 {
     private static final MediaType MEDIA_TYPE_TEXT = MediaType.parse("text/plain; charset=utf-8");
     private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final String BINARY_RESULTS_ACCEPT = "application/x-jackson-smile, application/json;q=0.5";
 
     private static final Splitter SESSION_HEADER_SPLITTER = Splitter.on('=').limit(2).trimResults();
     private static final String USER_AGENT_VALUE = StatementClientV1.class.getSimpleName() +
@@ -87,6 +91,8 @@ class StatementClientV1
     private final String user;
     private final String clientCapabilities;
     private final boolean compressionDisabled;
+    private final boolean binaryResultsEnabled;
+    private final SpooledSegmentLoader spooledSegmentLoader;
 
     private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
 
@@ -101,8 +107,14 @@ class StatementClientV1
         this.query = query;
         this.requestTimeoutNanos = session.getClientRequestTimeout();
         this.user = session.getUser().orElse(session.getPrincipal());
-        this.clientCapabilities = Joiner.on(",").join(ClientCapabilities.values());
+        Set<ClientCapabilities> capabilities = EnumSet.allOf(ClientCapabilities.class);
+        if (!session.isSpooledResultsEnabled()) {
+            capabilities.remove(SPOOLED_RESULTS);
+        }
+        this.clientCapabilities = Joiner.on(",").join(capabilities);
         this.compressionDisabled = session.isCompressionDisabled();
+        this.binaryResultsEnabled = session.isBinaryResultsEnabled();
+        this.spooledSegmentLoader = new SpooledSegmentLoader(httpClient, this::prepareSegmentRequest);
 
         Request request = buildQueryRequest(session, query);
 
@@ -316,6 +328,22 @@ class StatementClientV1
         if (compressionDisabled) {
             builder.header(ACCEPT_ENCODING, "identity");
         }
+        if (binaryResultsEnabled) {
+            // servers that do not support the binary encoding fall back to JSON
+            builder.header(ACCEPT, BINARY_RESULTS_ACCEPT);
+        }
+        return builder;
+    }
+
+    private Request.Builder prepareSegmentRequest(HttpUrl url)
+    {
+        // the segment is not requested from the coordinator, so the request does not identify the user
+        Request.Builder builder = new Request.Builder()
+                .addHeader(USER_AGENT, USER_AGENT_VALUE)
+                .url(url);
+        if (compressionDisabled) {
+            builder.header(ACCEPT_ENCODING, "identity");
+        }
         return builder;
     }
 
@@ -390,6 +418,10 @@ class StatementClientV1
 
     private void processResponse(Headers headers, QueryResults results)
     {
+        if (results.getSegments() != null) {
+            results = loadSpooledSegments(results);
+        }
+
         setCatalog.set(headers.get(TRINO_HEADERS.responseSetCatalog()));
         setSchema.set(headers.get(TRINO_HEADERS.responseSetSchema()));
         setPath.set(headers.get(TRINO_HEADERS.responseSetPath()));
@@ -433,6 +465,31 @@ class StatementClientV1
         currentResults.set(results);
     }
 
+    private QueryResults loadSpooledSegments(QueryResults results)
+    {
+        Iterable<List<Object>> data;
+        try {
+            data = spooledSegmentLoader.load(results.getColumns(), results.getSegments());
+        }
+        catch (RuntimeException e) {
+            state.compareAndSet(State.RUNNING, State.CLIENT_ERROR);
+            throw e;
+        }
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                data,
+                null,
+                results.getStats(),
+                results.getError(),
+                results.getWarnings(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
     private RuntimeException requestFailedException(String task, Request request, JsonResponse<QueryResults> response)
     {
         if (!response.hasValue()) {
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static io.trino.client.JsonCodec.jsonCodec;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+
+public class TestJsonCodec
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    private static final String QUERY_RESULTS = "{\n" +
+            "  \"id\" : \"20160128_214710_00012_rk68b\",\n" +
+            "  \"infoUri\" : \"http://localhost:54855/query.html?20160128_214710_00012_rk68b\",\n" +
+            "  \"columns\" : [ {\n" +
+            "    \"name\" : \"_col0\",\n" +
+            "    \"type\" : \"bigint\",\n" +
+            "    \"typeSignature\" : {\n" +
+            "      \"rawType\" : \"bigint\",\n" +
+            "      \"arguments\" : [ ]\n" +
+            "    }\n" +
+            "  }, {\n" +
+            "    \"name\" : \"_col1\",\n" +
+            "    \"type\" : \"varbinary\",\n" +
+            "    \"typeSignature\" : {\n" +
+            "      \"rawType\" : \"varbinary\",\n" +
+            "      \"arguments\" : [ ]\n" +
+            "    }\n" +
+            "  } ],\n" +
+            "  \"data\" : [ [ 123, \"" + Base64.getEncoder().encodeToString("abc".getBytes(UTF_8)) + "\" ] ],\n" +
+            "  \"stats\" : {\n" +
+            "    \"state\" : \"FINISHED\",\n" +
+            "    \"queued\" : false,\n" +
+            "    \"scheduled\" : false,\n" +
+            "    \"nodes\" : 0,\n" +
+            "    \"totalSplits\" : 0,\n" +
+            "    \"queuedSplits\" : 0,\n" +
+            "    \"runningSplits\" : 0,\n" +
+            "    \"completedSplits\" : 0,\n" +
+            "    \"cpuTimeMillis\" : 0,\n" +
+            "    \"wallTimeMillis\" : 0,\n" +
+            "    \"queuedTimeMillis\" : 0,\n" +
+            "    \"elapsedTimeMillis\" : 0,\n" +
+            "    \"processedRows\" : 0,\n" +
+            "    \"processedBytes\" : 0,\n" +
+            "    \"peakMemoryBytes\" : 0\n" +
+            "  }\n" +
+            "}";
+
+    @Test
+    public void testSmileMatchesJson()
+            throws Exception
+    {
+        QueryResults fromJson = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS);
+
+        // the server writes varbinary values as native binary in Smile
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> tree = new ObjectMapper().readValue(QUERY_RESULTS, Map.class);
+        tree.put("data", ImmutableList.of(ImmutableList.of(123, "abc".getBytes(UTF_8))));
+        QueryResults fromSmile = QUERY_RESULTS_CODEC.fromSmile(smileMapper.writeValueAsBytes(tree));
+
+        assertEquals(fromSmile.getId(), fromJson.getId());
+        assertEquals(fromSmile.getColumns(), fromJson.getColumns());
+        List<Object> jsonRow = fromJson.getData().iterator().next();
+        List<Object> smileRow = fromSmile.getData().iterator().next();
+        assertEquals(smileRow.get(0), 123L);
+        assertEquals(smileRow.get(0), jsonRow.get(0));
+        assertEquals((byte[]) smileRow.get(1), "abc".getBytes(UTF_8));
+        assertEquals((byte[]) smileRow.get(1), (byte[]) jsonRow.get(1));
+    }
+}
@@ -55,6 +55,9 @@ final class ConnectionProperties
     public static final ConnectionProperty<HostAndPort> HTTP_PROXY = new HttpProxy();
     public static final ConnectionProperty<String> APPLICATION_NAME_PREFIX = new ApplicationNamePrefix();
     public static final ConnectionProperty<Boolean> DISABLE_COMPRESSION = new DisableCompression();
+    public static final ConnectionProperty<Boolean> BINARY_RESULTS = new BinaryResults();
+    public static final ConnectionProperty<Boolean> SPOOLED_RESULTS = new SpooledResults();
+    public static final ConnectionProperty<Integer> MAX_BUFFERED_ROWS = new MaxBufferedRows();
     public static final ConnectionProperty<Boolean> ASSUME_LITERAL_NAMES_IN_METADATA_CALLS_FOR_NON_CONFORMING_CLIENTS = new AssumeLiteralNamesInMetadataCallsForNonConformingClients();
     public static final ConnectionProperty<Boolean> SSL = new Ssl();
     public static final ConnectionProperty<SslVerificationMode> SSL_VERIFICATION = new SslVerification();
@@ -91,6 +94,9 @@ final class ConnectionProperties
             .add(HTTP_PROXY)
             .add(APPLICATION_NAME_PREFIX)
             .add(DISABLE_COMPRESSION)
+            .add(BINARY_RESULTS)
+            .add(SPOOLED_RESULTS)
+            .add(MAX_BUFFERED_ROWS)
             .add(ASSUME_LITERAL_NAMES_IN_METADATA_CALLS_FOR_NON_CONFORMING_CLIENTS)
             .add(SSL)
             .add(SSL_VERIFICATION)
@@ -277,6 +283,37 @@ final class ConnectionProperties
         }
     }
 
+    private static class BinaryResults
+            extends AbstractConnectionProperty<Boolean>
+    {
+        public BinaryResults()
+        {
+            super("binaryResults", NOT_REQUIRED, ALLOWED, BOOLEAN_CONVERTER);
+        }
+    }
+
+    private static class SpooledResults
+            extends AbstractConnectionProperty<Boolean>
+    {
+        public SpooledResults()
+        {
+            super("spooledResults", NOT_REQUIRED, ALLOWED, BOOLEAN_CONVERTER);
+        }
+    }
+
+    private static class MaxBufferedRows
+            extends AbstractConnectionProperty<Integer>
+    {
+        public MaxBufferedRows()
+        {
+            super("maxBufferedRows", NOT_REQUIRED, ALLOWED, value -> {
+                int rows = Integer.parseInt(value);
+                checkArgument(rows > 0, "value must be positive");
+                return rows;
+            });
+        }
+    }
+
     private static class AssumeLiteralNamesInMetadataCallsForNonConformingClients
             extends AbstractConnectionProperty<Boolean>
     {
@@ -96,6 +96,9 @@ public class TrinoConnection
     private final String user;
     private final Optional<String> sessionUser;
     private final boolean compressionDisabled;
+    private final boolean binaryResultsEnabled;
+    private final boolean spooledResultsEnabled;
+    private final int maxBufferedRows;
     private final boolean assumeLiteralNamesInMetadataCallsForNonConformingClients;
     private final Map<String, String> extraCredentials;
     private final Optional<String> applicationNamePrefix;
@@ -122,6 +125,9 @@ public class TrinoConnection
         this.source = uri.getSource();
         this.extraCredentials = uri.getExtraCredentials();
         this.compressionDisabled = uri.isCompressionDisabled();
+        this.binaryResultsEnabled = uri.isBinaryResultsEnabled();
+        this.spooledResultsEnabled = uri.isSpooledResultsEnabled();
+        this.maxBufferedRows = uri.getMaxBufferedRows();
         this.assumeLiteralNamesInMetadataCallsForNonConformingClients = uri.isAssumeLiteralNamesInMetadataCallsForNonConformingClients();
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
         uri.getClientInfo().ifPresent(tags -> clientInfo.put(CLIENT_INFO, tags));
@@ -685,6 +691,11 @@ public class TrinoConnection
         return user;
     }
 
+    int getMaxBufferedRows()
+    {
+        return maxBufferedRows;
+    }
+
     @VisibleForTesting
     Map<String, String> getExtraCredentials()
     {
@@ -745,7 +756,9 @@ public class TrinoConnection
                 extraCredentials,
                 transactionId.get(),
                 timeout,
-                compressionDisabled);
+                compressionDisabled,
+                binaryResultsEnabled,
+                spooledResultsEnabled);
 
         return newStatementClient(httpClient, session, sql);
     }
@@ -54,6 +54,7 @@ import static io.trino.client.OkHttpUtil.tokenAuth;
 import static io.trino.jdbc.ConnectionProperties.ACCESS_TOKEN;
 import static io.trino.jdbc.ConnectionProperties.APPLICATION_NAME_PREFIX;
 import static io.trino.jdbc.ConnectionProperties.ASSUME_LITERAL_NAMES_IN_METADATA_CALLS_FOR_NON_CONFORMING_CLIENTS;
+import static io.trino.jdbc.ConnectionProperties.BINARY_RESULTS;
 import static io.trino.jdbc.ConnectionProperties.CLIENT_INFO;
 import static io.trino.jdbc.ConnectionProperties.CLIENT_TAGS;
 import static io.trino.jdbc.ConnectionProperties.DISABLE_COMPRESSION;
@@ -69,12 +70,14 @@ import static io.trino.jdbc.ConnectionProperties.KERBEROS_PRINCIPAL;
 import static io.trino.jdbc.ConnectionProperties.KERBEROS_REMOTE_SERVICE_NAME;
 import static io.trino.jdbc.ConnectionProperties.KERBEROS_SERVICE_PRINCIPAL_PATTERN;
 import static io.trino.jdbc.ConnectionProperties.KERBEROS_USE_CANONICAL_HOSTNAME;
+import static io.trino.jdbc.ConnectionProperties.MAX_BUFFERED_ROWS;
 import static io.trino.jdbc.ConnectionProperties.PASSWORD;
 import static io.trino.jdbc.ConnectionProperties.ROLES;
 import static io.trino.jdbc.ConnectionProperties.SESSION_PROPERTIES;
 import static io.trino.jdbc.ConnectionProperties.SESSION_USER;
 import static io.trino.jdbc.ConnectionProperties.SOCKS_PROXY;
 import static io.trino.jdbc.ConnectionProperties.SOURCE;
+import static io.trino.jdbc.ConnectionProperties.SPOOLED_RESULTS;
 import static io.trino.jdbc.ConnectionProperties.SSL;
 import static io.trino.jdbc.ConnectionProperties.SSL_KEY_STORE_PASSWORD;
 import static io.trino.jdbc.ConnectionProperties.SSL_KEY_STORE_PATH;
@@ -102,6 +105,7 @@ public final class TrinoDriverUri
 
     private static final Splitter QUERY_SPLITTER = Splitter.on('&').omitEmptyStrings();
     private static final Splitter ARG_SPLITTER = Splitter.on('=').limit(2);
+    private static final int DEFAULT_MAX_BUFFERED_ROWS = 50_000;
     private static final AtomicReference<RedirectHandler> REDIRECT_HANDLER = new AtomicReference<>(new DesktopBrowserRedirectHandler());
 
     private final HostAndPort address;
@@ -237,6 +241,24 @@ public final class TrinoDriverUri
         return DISABLE_COMPRESSION.getValue(properties).orElse(false);
     }
 
+    public boolean isBinaryResultsEnabled()
+            throws SQLException
+    {
+        return BINARY_RESULTS.getValue(properties).orElse(false);
+    }
+
+    public boolean isSpooledResultsEnabled()
+            throws SQLException
+    {
+        return SPOOLED_RESULTS.getValue(properties).orElse(false);
+    }
+
+    public int getMaxBufferedRows()
+            throws SQLException
+    {
+        return MAX_BUFFERED_ROWS.getValue(properties).orElse(DEFAULT_MAX_BUFFERED_ROWS);
+    }
+
     public boolean isAssumeLiteralNamesInMetadataCallsForNonConformingClients()
             throws SQLException
     {
@@ -14,7 +14,7 @@
 package io.trino.jdbc;
 
 import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.Streams;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.trino.client.Column;
 import io.trino.client.QueryStatusInfo;
@@ -25,18 +25,21 @@ import java.sql.Statement;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verify;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 
@@ -46,21 +49,21 @@ public class TrinoResultSet
     private final StatementClient client;
     private final String queryId;
 
-    static TrinoResultSet create(Statement statement, StatementClient client, long maxRows, Consumer<QueryStats> progressCallback, WarningsManager warningsManager)
+    static TrinoResultSet create(Statement statement, StatementClient client, long maxRows, int maxBufferedRows, Consumer<QueryStats> progressCallback, WarningsManager warningsManager)
             throws SQLException
     {
         requireNonNull(client, "client is null");
         List<Column> columns = getColumns(client, progressCallback);
-        return new TrinoResultSet(statement, client, columns, maxRows, progressCallback, warningsManager);
+        return new TrinoResultSet(statement, client, columns, maxRows, maxBufferedRows, progressCallback, warningsManager);
     }
 
-    private TrinoResultSet(Statement statement, StatementClient client, List<Column> columns, long maxRows, Consumer<QueryStats> progressCallback, WarningsManager warningsManager)
+    private TrinoResultSet(Statement statement, StatementClient client, List<Column> columns, long maxRows, int maxBufferedRows, Consumer<QueryStats> progressCallback, WarningsManager warningsManager)
             throws SQLException
     {
         super(
                 Optional.of(requireNonNull(statement, "statement is null")),
                 columns,
-                new AsyncIterator<>(flatten(new ResultsPageIterator(requireNonNull(client, "client is null"), progressCallback, warningsManager), maxRows), client));
+                new AsyncIterator<>(limit(new ResultsPageIterator(requireNonNull(client, "client is null"), progressCallback, warningsManager), maxRows), client, maxBufferedRows));
 
         this.client = requireNonNull(client, "client is null");
         requireNonNull(progressCallback, "progressCallback is null");
@@ -92,38 +95,68 @@ public class TrinoResultSet
         client.cancelLeafStage();
     }
 
-    private static <T> Iterator<T> flatten(Iterator<Iterable<T>> iterator, long maxRows)
+    private static <T> Iterator<List<T>> limit(Iterator<Iterable<T>> pages, long maxRows)
     {
-        Stream<T> stream = Streams.stream(iterator)
-                .flatMap(Streams::stream);
-        if (maxRows > 0) {
-            stream = stream.limit(maxRows);
-        }
-        return stream.iterator();
+        return new AbstractIterator<>()
+        {
+            private long remainingRows = (maxRows > 0) ? maxRows : Long.MAX_VALUE;
+
+            @Override
+            protected List<T> computeNext()
+            {
+                while (remainingRows > 0 && pages.hasNext()) {
+                    List<T> page = ImmutableList.copyOf(pages.next());
+                    if (page.size() > remainingRows) {
+                        page = page.subList(0, toIntExact(remainingRows));
+                    }
+                    if (!page.isEmpty()) {
+                        remainingRows -= page.size();
+                        return page;
+                    }
+                }
+                return endOfData();
+            }
+        };
     }
 
+    /**
+     * Fetches and decodes the pages of the result on a background thread, so that the
+     * next page is transferred while the current one is read. Whole pages are handed
+     * over to the reading thread, and at most {@code maxBufferedRows} rows are held,
+     * except for pages that are larger than that, which are buffered on their own.
+     */
     private static class AsyncIterator<T>
             extends AbstractIterator<T>
     {
-        private static final int MAX_QUEUED_ROWS = 50_000;
         private static final ExecutorService executorService = newCachedThreadPool(
                 new ThreadFactoryBuilder().setNameFormat("Trino JDBC worker-%s").setDaemon(true).build());
 
         private final StatementClient client;
-        private final BlockingQueue<T> rowQueue = new ArrayBlockingQueue<>(MAX_QUEUED_ROWS);
+        private final int maxBufferedRows;
+        private final BlockingQueue<List<T>> pageQueue = new LinkedBlockingQueue<>();
         // Semaphore to indicate that some data is ready.
-        // Each permit represents a row of data (or that the underlying iterator is exhausted).
+        // Each permit represents a page of data (or that the underlying iterator is exhausted).
         private final Semaphore semaphore = new Semaphore(0);
+        // Each permit represents a row that can be buffered before the background thread waits for the reader.
+        private final Semaphore bufferCapacity;
         private final CompletableFuture<Void> future;
 
-        public AsyncIterator(Iterator<T> dataIterator, StatementClient client)
+        private Iterator<T> currentPage = emptyIterator();
+        private int currentPagePermits;
+
+        public AsyncIterator(Iterator<List<T>> pages, StatementClient client, int maxBufferedRows)
         {
-            requireNonNull(dataIterator, "dataIterator is null");
+            requireNonNull(pages, "pages is null");
+            checkArgument(maxBufferedRows > 0, "maxBufferedRows must be positive");
             this.client = client;
+            this.maxBufferedRows = maxBufferedRows;
+            this.bufferCapacity = new Semaphore(maxBufferedRows);
             this.future = CompletableFuture.runAsync(() -> {
                 try {
-                    while (dataIterator.hasNext()) {
-                        rowQueue.put(dataIterator.next());
+                    while (pages.hasNext()) {
+                        List<T> page = pages.next();
+                        bufferCapacity.acquire(permits(page));
+                        pageQueue.put(page);
                         semaphore.release();
                     }
                 }
@@ -148,31 +181,45 @@ public class TrinoResultSet
             throw new RuntimeException(new SQLException("ResultSet thread was interrupted", e));
         }
 
+        private int permits(List<T> page)
+        {
+            return min(page.size(), maxBufferedRows);
+        }
+
         @Override
         protected T computeNext()
         {
-            try {
-                semaphore.acquire();
-            }
-            catch (InterruptedException e) {
-                interrupt(e);
-            }
-            if (rowQueue.isEmpty()) {
-                // If we got here and the queue is empty the thread fetching from the underlying iterator is done.
-                // Wait for Future to marked done and check status.
+            while (!currentPage.hasNext()) {
+                // the current page has been read completely
+                bufferCapacity.release(currentPagePermits);
+                currentPagePermits = 0;
+
                 try {
-                    future.get();
+                    semaphore.acquire();
                 }
                 catch (InterruptedException e) {
                     interrupt(e);
                 }
-                catch (ExecutionException e) {
-                    throwIfUnchecked(e.getCause());
-                    throw new RuntimeException(e.getCause());
+                List<T> page = pageQueue.poll();
+                if (page == null) {
+                    // If we got here and the queue is empty the thread fetching from the underlying iterator is done.
+                    // Wait for Future to marked done and check status.
+                    try {
+                        future.get();
+                    }
+                    catch (InterruptedException e) {
+                        interrupt(e);
+                    }
+                    catch (ExecutionException e) {
+                        throwIfUnchecked(e.getCause());
+                        throw new RuntimeException(e.getCause());
+                    }
+                    return endOfData();
                 }
-                return endOfData();
+                currentPage = page.iterator();
+                currentPagePermits = permits(page);
             }
-            return rowQueue.poll();
+            return currentPage.next();
         }
     }
 
@@ -259,7 +259,7 @@ public class TrinoStatement
             executingClient.set(client);
             WarningsManager warningsManager = new WarningsManager();
             currentWarningsManager.set(Optional.of(warningsManager));
-            resultSet = TrinoResultSet.create(this, client, maxRows.get(), progressConsumer, warningsManager);
+            resultSet = TrinoResultSet.create(this, client, maxRows.get(), connection().getMaxBufferedRows(), progressConsumer, warningsManager);
 
             // check if this is a query
             if (client.currentStatusInfo().getUpdateType() == null) {
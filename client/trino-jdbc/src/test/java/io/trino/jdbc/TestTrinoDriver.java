@@ -361,6 +361,32 @@ public class TestTrinoDriver
         }
     }
 
+    @Test
+    public void testMaxBufferedRows()
+            throws Exception
+    {
+        String url = format("jdbc:trino://%s/%s/tiny?maxBufferedRows=10", server.getAddress(), TEST_CATALOG);
+        try (Connection connection = DriverManager.getConnection(url, "test", null);
+                Statement statement = connection.createStatement()) {
+            assertEquals(countRows(statement, "SELECT orderkey FROM orders"), 15000);
+
+            statement.setMaxRows(12345);
+            assertEquals(countRows(statement, "SELECT orderkey FROM orders"), 12345);
+        }
+    }
+
+    private static long countRows(Statement statement, String sql)
+            throws SQLException
+    {
+        long rows = 0;
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
     @Test
     public void testNullUrl()
             throws Exception
@@ -23,6 +23,7 @@ import static io.trino.jdbc.ConnectionProperties.CLIENT_TAGS;
 import static io.trino.jdbc.ConnectionProperties.DISABLE_COMPRESSION;
 import static io.trino.jdbc.ConnectionProperties.EXTRA_CREDENTIALS;
 import static io.trino.jdbc.ConnectionProperties.HTTP_PROXY;
+import static io.trino.jdbc.ConnectionProperties.MAX_BUFFERED_ROWS;
 import static io.trino.jdbc.ConnectionProperties.SOCKS_PROXY;
 import static io.trino.jdbc.ConnectionProperties.SSL_TRUST_STORE_PASSWORD;
 import static io.trino.jdbc.ConnectionProperties.SSL_TRUST_STORE_PATH;
@@ -235,6 +236,22 @@ public class TestTrinoDriverUri
         assertEquals(properties.getProperty(DISABLE_COMPRESSION.getKey()), "true");
     }
 
+    @Test
+    public void testUriWithMaxBufferedRows()
+            throws SQLException
+    {
+        assertEquals(createDriverUri("jdbc:trino://localhost:8080").getMaxBufferedRows(), 50_000);
+
+        TrinoDriverUri parameters = createDriverUri("jdbc:trino://localhost:8080?maxBufferedRows=1000");
+        assertEquals(parameters.getMaxBufferedRows(), 1000);
+
+        Properties properties = parameters.getProperties();
+        assertEquals(properties.getProperty(MAX_BUFFERED_ROWS.getKey()), "1000");
+
+        assertInvalid("jdbc:trino://localhost:8080?maxBufferedRows=0", "Connection property 'maxBufferedRows' value is invalid: 0");
+        assertInvalid("jdbc:trino://localhost:8080?maxBufferedRows=many", "Connection property 'maxBufferedRows' value is invalid: many");
+    }
+
     @Test
     public void testUriWithoutSsl()
             throws SQLException
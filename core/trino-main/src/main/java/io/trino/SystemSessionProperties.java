@@ -19,6 +19,7 @@ import io.airlift.units.Duration;
 import io.trino.execution.DynamicFilterConfig;
 import io.trino.execution.QueryManagerConfig;
 import io.trino.execution.TaskManagerConfig;
+import io.trino.execution.resultcache.LeafResultCacheConfig;
 import io.trino.execution.scheduler.NodeSchedulerConfig;
 import io.trino.memory.MemoryManagerConfig;
 import io.trino.memory.NodeMemoryConfig;
@@ -27,6 +28,7 @@ import io.trino.spi.session.PropertyMetadata;
 import io.trino.sql.analyzer.FeaturesConfig;
 import io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import io.trino.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
+import io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy;
 
 import javax.inject.Inject;
 
@@ -54,6 +56,7 @@ public final class SystemSessionProperties
     public static final String OPTIMIZE_HASH_GENERATION = "optimize_hash_generation";
     public static final String JOIN_DISTRIBUTION_TYPE = "join_distribution_type";
     public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String JOIN_SIZE_HISTORY_ENABLED = "join_size_history_enabled";
     public static final String DISTRIBUTED_INDEX_JOIN = "distributed_index_join";
     public static final String HASH_PARTITION_COUNT = "hash_partition_count";
     public static final String GROUPED_EXECUTION = "grouped_execution";
@@ -71,6 +74,9 @@ public final class SystemSessionProperties
     public static final String QUERY_MAX_CPU_TIME = "query_max_cpu_time";
     public static final String QUERY_MAX_SCAN_PHYSICAL_BYTES = "query_max_scan_physical_bytes";
     public static final String QUERY_MAX_STAGE_COUNT = "query_max_stage_count";
+    public static final String QUERY_RESULT_CACHE_ENABLED = "query_result_cache_enabled";
+    public static final String PLAN_CACHE_ENABLED = "plan_cache_enabled";
+    public static final String LEAF_RESULT_CACHE_ENABLED = "leaf_result_cache_enabled";
     public static final String REDISTRIBUTE_WRITES = "redistribute_writes";
     public static final String USE_PREFERRED_WRITE_PARTITIONING = "use_preferred_write_partitioning";
     public static final String PREFERRED_WRITE_PARTITIONING_MIN_NUMBER_OF_PARTITIONS = "preferred_write_partitioning_min_number_of_partitions";
@@ -86,7 +92,10 @@ public final class SystemSessionProperties
     public static final String COLOCATED_JOIN = "colocated_join";
     public static final String CONCURRENT_LIFESPANS_PER_NODE = "concurrent_lifespans_per_task";
     public static final String JOIN_REORDERING_STRATEGY = "join_reordering_strategy";
+    public static final String MERGE_JOIN_STRATEGY = "merge_join_strategy";
+    public static final String MERGE_JOIN_MAX_RUN_SIZE = "merge_join_max_run_size";
     public static final String MAX_REORDERED_JOINS = "max_reordered_joins";
+    public static final String MAX_GREEDY_REORDERED_JOINS = "max_greedy_reordered_joins";
     public static final String INITIAL_SPLITS_PER_NODE = "initial_splits_per_node";
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
@@ -129,8 +138,10 @@ public final class SystemSessionProperties
     public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
     public static final String ENABLE_COORDINATOR_DYNAMIC_FILTERS_DISTRIBUTION = "enable_coordinator_dynamic_filters_distribution";
     public static final String ENABLE_LARGE_DYNAMIC_FILTERS = "enable_large_dynamic_filters";
+    public static final String ENABLE_DYNAMIC_ROW_FILTERING = "enable_dynamic_row_filtering";
     public static final String QUERY_MAX_MEMORY_PER_NODE = "query_max_memory_per_node";
     public static final String QUERY_MAX_TOTAL_MEMORY_PER_NODE = "query_max_total_memory_per_node";
+    public static final String QUERY_MEMORY_GUARANTEE_PER_NODE = "query_memory_guarantee_per_node";
     public static final String IGNORE_DOWNSTREAM_PREFERENCES = "ignore_downstream_preferences";
     public static final String ITERATIVE_COLUMN_PRUNING = "iterative_rule_based_column_pruning";
     public static final String FILTERING_SEMI_JOIN_TO_INNER = "rewrite_filtering_semi_join_to_inner_join";
@@ -142,13 +153,14 @@ public final class SystemSessionProperties
     public static final String USE_LEGACY_WINDOW_FILTER_PUSHDOWN = "use_legacy_window_filter_pushdown";
     public static final String MAX_UNACKNOWLEDGED_SPLITS_PER_TASK = "max_unacknowledged_splits_per_task";
     public static final String MERGE_PROJECT_WITH_VALUES = "merge_project_with_values";
+    public static final String MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED = "materialized_view_query_rewrite_enabled";
     public static final String TIME_ZONE_ID = "time_zone_id";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
     public SystemSessionProperties()
     {
-        this(new QueryManagerConfig(), new TaskManagerConfig(), new MemoryManagerConfig(), new FeaturesConfig(), new NodeMemoryConfig(), new DynamicFilterConfig(), new NodeSchedulerConfig());
+        this(new QueryManagerConfig(), new TaskManagerConfig(), new MemoryManagerConfig(), new FeaturesConfig(), new NodeMemoryConfig(), new DynamicFilterConfig(), new NodeSchedulerConfig(), new LeafResultCacheConfig());
     }
 
     @Inject
@@ -159,7 +171,8 @@ public final class SystemSessionProperties
             FeaturesConfig featuresConfig,
             NodeMemoryConfig nodeMemoryConfig,
             DynamicFilterConfig dynamicFilterConfig,
-            NodeSchedulerConfig nodeSchedulerConfig)
+            NodeSchedulerConfig nodeSchedulerConfig,
+            LeafResultCacheConfig leafResultCacheConfig)
     {
         sessionProperties = ImmutableList.of(
                 stringProperty(
@@ -183,6 +196,11 @@ public final class SystemSessionProperties
                         "Maximum estimated size of a table that can be broadcast when using automatic join type selection",
                         featuresConfig.getJoinMaxBroadcastTableSize(),
                         false),
+                booleanProperty(
+                        JOIN_SIZE_HISTORY_ENABLED,
+                        "Use the join input sizes observed in previous queries when the size of a join input cannot be estimated",
+                        featuresConfig.isJoinSizeHistoryEnabled(),
+                        false),
                 booleanProperty(
                         DISTRIBUTED_INDEX_JOIN,
                         "Distribute index joins on join keys instead of executing inline",
@@ -295,6 +313,21 @@ public final class SystemSessionProperties
                         "Maximum scan physical bytes of a query",
                         queryManagerConfig.getQueryMaxScanPhysicalBytes().orElse(null),
                         false),
+                booleanProperty(
+                        QUERY_RESULT_CACHE_ENABLED,
+                        "Serve results of repeated queries over unchanged tables from the coordinator result cache",
+                        queryManagerConfig.isResultCacheEnabled(),
+                        false),
+                booleanProperty(
+                        PLAN_CACHE_ENABLED,
+                        "Reuse optimized plans of repeated queries over tables with unchanged metadata",
+                        queryManagerConfig.isPlanCacheEnabled(),
+                        false),
+                booleanProperty(
+                        LEAF_RESULT_CACHE_ENABLED,
+                        "Reuse the output of leaf pipelines for splits that were processed before",
+                        leafResultCacheConfig.isEnabled(),
+                        false),
                 booleanProperty(
                         RESOURCE_OVERCOMMIT,
                         "Use resources which are not guaranteed to be available to the query",
@@ -346,6 +379,17 @@ public final class SystemSessionProperties
                         JoinReorderingStrategy.class,
                         featuresConfig.getJoinReorderingStrategy(),
                         false),
+                enumProperty(
+                        MERGE_JOIN_STRATEGY,
+                        "Merge join strategy",
+                        MergeJoinStrategy.class,
+                        featuresConfig.getMergeJoinStrategy(),
+                        false),
+                dataSizeProperty(
+                        MERGE_JOIN_MAX_RUN_SIZE,
+                        "Maximum size of the right rows sharing a single join key that a merge join keeps in memory",
+                        featuresConfig.getMergeJoinMaxRunSize(),
+                        false),
                 new PropertyMetadata<>(
                         MAX_REORDERED_JOINS,
                         "The maximum number of joins to reorder as one group in cost-based join reordering",
@@ -361,6 +405,21 @@ public final class SystemSessionProperties
                             return intValue;
                         },
                         value -> value),
+                new PropertyMetadata<>(
+                        MAX_GREEDY_REORDERED_JOINS,
+                        "The maximum number of joins to reorder as one group using greedy enumeration, when there are more joins than max_reordered_joins",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getMaxGreedyReorderedJoins(),
+                        false,
+                        value -> {
+                            int intValue = (int) value;
+                            if (intValue < 0) {
+                                throw new TrinoException(INVALID_SESSION_PROPERTY, format("%s must be greater than or equal to 0: %s", MAX_GREEDY_REORDERED_JOINS, intValue));
+                            }
+                            return intValue;
+                        },
+                        value -> value),
                 booleanProperty(
                         COLOCATED_JOIN,
                         "Experimental: Use a colocated join when possible",
@@ -582,6 +641,11 @@ public final class SystemSessionProperties
                         "Enable collection of large dynamic filters",
                         dynamicFilterConfig.isEnableLargeDynamicFilters(),
                         false),
+                booleanProperty(
+                        ENABLE_DYNAMIC_ROW_FILTERING,
+                        "Apply dynamic filters to rows of sources other than table scans",
+                        dynamicFilterConfig.isEnableDynamicRowFiltering(),
+                        false),
                 dataSizeProperty(
                         QUERY_MAX_MEMORY_PER_NODE,
                         "Maximum amount of memory a query can use per node",
@@ -592,6 +656,11 @@ public final class SystemSessionProperties
                         "Maximum amount of total memory a query can use per node",
                         nodeMemoryConfig.getMaxQueryTotalMemoryPerNode(),
                         true),
+                dataSizeProperty(
+                        QUERY_MEMORY_GUARANTEE_PER_NODE,
+                        "Amount of memory per node guaranteed to a query",
+                        nodeMemoryConfig.getQueryMemoryGuaranteePerNode(),
+                        false),
                 booleanProperty(
                         IGNORE_DOWNSTREAM_PREFERENCES,
                         "Ignore Parent's PreferredProperties in AddExchange optimizer",
@@ -651,6 +720,11 @@ public final class SystemSessionProperties
                         "Inline project expressions into values",
                         featuresConfig.isMergeProjectWithValues(),
                         false),
+                booleanProperty(
+                        MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED,
+                        "Rewrite queries to read fresh materialized views, which contain the result of the query",
+                        featuresConfig.isMaterializedViewQueryRewriteEnabled(),
+                        false),
                 stringProperty(
                         TIME_ZONE_ID,
                         "Time Zone Id for the current session",
@@ -689,6 +763,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
     }
 
+    public static boolean isJoinSizeHistoryEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_SIZE_HISTORY_ENABLED, Boolean.class);
+    }
+
     public static boolean isDistributedIndexJoinEnabled(Session session)
     {
         return session.getSystemProperty(DISTRIBUTED_INDEX_JOIN, Boolean.class);
@@ -819,11 +898,26 @@ public final class SystemSessionProperties
         return session.getSystemProperty(JOIN_REORDERING_STRATEGY, JoinReorderingStrategy.class);
     }
 
+    public static MergeJoinStrategy getMergeJoinStrategy(Session session)
+    {
+        return session.getSystemProperty(MERGE_JOIN_STRATEGY, MergeJoinStrategy.class);
+    }
+
+    public static DataSize getMergeJoinMaxRunSize(Session session)
+    {
+        return session.getSystemProperty(MERGE_JOIN_MAX_RUN_SIZE, DataSize.class);
+    }
+
     public static int getMaxReorderedJoins(Session session)
     {
         return session.getSystemProperty(MAX_REORDERED_JOINS, Integer.class);
     }
 
+    public static int getMaxGreedyReorderedJoins(Session session)
+    {
+        return session.getSystemProperty(MAX_GREEDY_REORDERED_JOINS, Integer.class);
+    }
+
     public static boolean isColocatedJoinEnabled(Session session)
     {
         return session.getSystemProperty(COLOCATED_JOIN, Boolean.class);
@@ -876,6 +970,21 @@ public final class SystemSessionProperties
         return Optional.ofNullable(session.getSystemProperty(QUERY_MAX_SCAN_PHYSICAL_BYTES, DataSize.class));
     }
 
+    public static boolean isQueryResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(QUERY_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isPlanCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(PLAN_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isLeafResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(LEAF_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
     public static boolean isSpillEnabled(Session session)
     {
         return session.getSystemProperty(SPILL_ENABLED, Boolean.class);
@@ -1104,6 +1213,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(ENABLE_LARGE_DYNAMIC_FILTERS, Boolean.class);
     }
 
+    public static boolean isEnableDynamicRowFiltering(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_ROW_FILTERING, Boolean.class);
+    }
+
     public static DataSize getQueryMaxMemoryPerNode(Session session)
     {
         return session.getSystemProperty(QUERY_MAX_MEMORY_PER_NODE, DataSize.class);
@@ -1114,6 +1228,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(QUERY_MAX_TOTAL_MEMORY_PER_NODE, DataSize.class);
     }
 
+    public static DataSize getQueryMemoryGuaranteePerNode(Session session)
+    {
+        return session.getSystemProperty(QUERY_MEMORY_GUARANTEE_PER_NODE, DataSize.class);
+    }
+
     public static boolean ignoreDownStreamPreferences(Session session)
     {
         return session.getSystemProperty(IGNORE_DOWNSTREAM_PREFERENCES, Boolean.class);
@@ -1169,6 +1288,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MERGE_PROJECT_WITH_VALUES, Boolean.class);
     }
 
+    public static boolean isMaterializedViewQueryRewriteEnabled(Session session)
+    {
+        return session.getSystemProperty(MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED, Boolean.class);
+    }
+
     public static Optional<String> getTimeZoneId(Session session)
     {
         return Optional.ofNullable(session.getSystemProperty(TIME_ZONE_ID, String.class));
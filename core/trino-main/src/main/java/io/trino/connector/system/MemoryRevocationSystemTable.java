@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.connector.system;
+
+import io.airlift.node.NodeInfo;
+import io.trino.execution.MemoryRevocationInfo;
+import io.trino.execution.MemoryRevokingScheduler;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTableMetadata;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.InMemoryRecordSet;
+import io.trino.spi.connector.InMemoryRecordSet.Builder;
+import io.trino.spi.connector.RecordCursor;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.connector.SystemTable;
+import io.trino.spi.predicate.TupleDomain;
+
+import javax.inject.Inject;
+
+import static io.trino.metadata.MetadataUtil.TableMetadataBuilder.tableMetadataBuilder;
+import static io.trino.spi.connector.SystemTable.Distribution.ALL_NODES;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DateTimeEncoding.packDateTimeWithZone;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MILLIS;
+import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.util.Objects.requireNonNull;
+
+public class MemoryRevocationSystemTable
+        implements SystemTable
+{
+    public static final SchemaTableName MEMORY_REVOCATION_TABLE_NAME = new SchemaTableName("runtime", "memory_revocations");
+
+    public static final ConnectorTableMetadata MEMORY_REVOCATION_TABLE = tableMetadataBuilder(MEMORY_REVOCATION_TABLE_NAME)
+            .column("node_id", createUnboundedVarcharType())
+            .column("time", TIMESTAMP_TZ_MILLIS)
+            .column("memory_pool", createUnboundedVarcharType())
+            .column("strategy", createUnboundedVarcharType())
+
+            .column("query_id", createUnboundedVarcharType())
+            .column("task_id", createUnboundedVarcharType())
+            .column("pipeline_id", BIGINT)
+            .column("operator_id", BIGINT)
+            .column("operator_type", createUnboundedVarcharType())
+            .column("query_memory_guarantee", BIGINT)
+
+            .column("revocable_bytes", BIGINT)
+            .column("remaining_input_fraction", DOUBLE)
+            .column("estimated_spill_bytes", BIGINT)
+            .build();
+
+    private final MemoryRevokingScheduler memoryRevokingScheduler;
+    private final String nodeId;
+
+    @Inject
+    public MemoryRevocationSystemTable(MemoryRevokingScheduler memoryRevokingScheduler, NodeInfo nodeInfo)
+    {
+        this.memoryRevokingScheduler = requireNonNull(memoryRevokingScheduler, "memoryRevokingScheduler is null");
+        this.nodeId = nodeInfo.getNodeId();
+    }
+
+    @Override
+    public Distribution getDistribution()
+    {
+        return ALL_NODES;
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata()
+    {
+        return MEMORY_REVOCATION_TABLE;
+    }
+
+    @Override
+    public RecordCursor cursor(ConnectorTransactionHandle transactionHandle, ConnectorSession session, TupleDomain<Integer> constraint)
+    {
+        Builder table = InMemoryRecordSet.builder(MEMORY_REVOCATION_TABLE);
+        for (MemoryRevocationInfo revocation : memoryRevokingScheduler.getRecentRevocations()) {
+            table.addRow(
+                    nodeId,
+                    packDateTimeWithZone(revocation.getTime().getMillis(), UTC_KEY),
+                    revocation.getMemoryPoolId().toString(),
+                    revocation.getStrategy().toString(),
+
+                    revocation.getTaskId().getQueryId().toString(),
+                    revocation.getTaskId().toString(),
+                    (long) revocation.getPipelineId(),
+                    (long) revocation.getOperatorId(),
+                    revocation.getOperatorType(),
+                    revocation.getQueryMemoryGuarantee(),
+
+                    revocation.getRevocableBytes(),
+                    revocation.getRemainingInputFraction(),
+                    revocation.getEstimatedSpillBytes());
+        }
+        return table.build().cursor();
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.cost;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.jmx.CacheStatsMBean;
+import io.airlift.units.Duration;
+import io.trino.Session;
+import io.trino.execution.StageInfo;
+import io.trino.metadata.Metadata;
+import io.trino.metadata.TableHandle;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.sql.analyzer.FeaturesConfig;
+import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.iterative.Lookup;
+import io.trino.sql.planner.plan.ExchangeNode;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.planner.plan.ProjectNode;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.SymbolReference;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.trino.execution.StageState.FINISHED;
+import static io.trino.sql.DynamicFilters.extractDynamicFilters;
+import static io.trino.sql.planner.ExpressionSymbolInliner.inlineSymbols;
+import static io.trino.sql.planner.SymbolsExtractor.extractAll;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.sql.planner.plan.ExchangeNode.Scope.REMOTE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+
+/**
+ * Remembers the sizes of join inputs observed when executing queries, so that the join distribution
+ * can be chosen from actual sizes when the next query reads the same data and the size of the
+ * input cannot be estimated from table statistics.
+ * <p>
+ * Only join inputs that scan a single table and are transferred through a remote exchange are recorded.
+ * Inputs are identified by the table handle, the version of the table data reported by the connector,
+ * the scanned columns and the filters applied on top of the scan. Sizes expire after a configured time,
+ * because most connectors do not report the version of the data.
+ * Inputs pruned by dynamic filters are not recorded, because their size depends on the other side of the join.
+ */
+@ThreadSafe
+public class JoinSizeHistory
+{
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final TableVersionProvider tableVersionProvider;
+    private final Cache<JoinInputKey, Long> observedSizes;
+    private final CacheStatsMBean cacheStats;
+
+    @Inject
+    public JoinSizeHistory(Metadata metadata, FeaturesConfig featuresConfig)
+    {
+        this(metadata::getTableVersionToken, featuresConfig.getJoinSizeHistoryTtl(), Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    public JoinSizeHistory(TableVersionProvider tableVersionProvider, Duration ttl, Ticker ticker)
+    {
+        this.tableVersionProvider = requireNonNull(tableVersionProvider, "tableVersionProvider is null");
+        this.observedSizes = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(ttl.toMillis(), MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.cacheStats = new CacheStatsMBean(observedSizes);
+    }
+
+    /**
+     * Returns the size of the join input observed in a previous query, or empty if the input was not observed.
+     */
+    public OptionalDouble getObservedSizeInBytes(Session session, PlanNode node, Lookup lookup)
+    {
+        Optional<JoinInputKey> key = createKey(session, node, lookup);
+        if (key.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        Long size = observedSizes.getIfPresent(key.get());
+        if (size == null) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(size);
+    }
+
+    /**
+     * Identifies the join inputs of a query that can be recorded once the query finishes. The inputs are
+     * identified when the query is planned, because the versions of the tables are read in the transaction of the query.
+     */
+    public List<JoinInput> getJoinInputs(Session session, PlanNode root)
+    {
+        ImmutableList.Builder<JoinInput> joinInputs = ImmutableList.builder();
+        List<JoinNode> joins = searchFrom(root)
+                .where(JoinNode.class::isInstance)
+                .findAll();
+        for (JoinNode join : joins) {
+            for (PlanNode input : ImmutableList.of(join.getLeft(), join.getRight())) {
+                Optional<ExchangeNode> exchange = findRemoteExchange(input);
+                if (exchange.isEmpty() || exchange.get().getSources().size() != 1) {
+                    continue;
+                }
+                createRecordableKey(session, input)
+                        .ifPresent(key -> joinInputs.add(new JoinInput(exchange.get().getSources().get(0).getId(), key)));
+            }
+        }
+        return joinInputs.build();
+    }
+
+    /**
+     * Records the sizes of the join inputs of a query from the statistics of the stages that produced them.
+     */
+    public void recordQuery(List<JoinInput> joinInputs, List<StageInfo> stages)
+    {
+        Map<PlanNodeId, StageInfo> stagesByRootNode = stages.stream()
+                .filter(stage -> stage.getPlan() != null && stage.getState() == FINISHED)
+                .collect(toImmutableMap(stage -> stage.getPlan().getRoot().getId(), identity()));
+
+        for (JoinInput joinInput : joinInputs) {
+            StageInfo stage = stagesByRootNode.get(joinInput.getStageRoot());
+            if (stage != null) {
+                observedSizes.put(joinInput.getKey(), stage.getStageStats().getOutputDataSize().toBytes());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    public void recordInputSize(Session session, PlanNode input, long sizeInBytes)
+    {
+        createRecordableKey(session, input)
+                .ifPresent(key -> observedSizes.put(key, sizeInBytes));
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        observedSizes.invalidateAll();
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return cacheStats;
+    }
+
+    private Optional<JoinInputKey> createRecordableKey(Session session, PlanNode input)
+    {
+        // the observed size depends on the rows pruned by the dynamic filters, which are not part of the key
+        if (hasDynamicFilters(input)) {
+            return Optional.empty();
+        }
+        return createKey(session, input, Lookup.noLookup());
+    }
+
+    private static boolean hasDynamicFilters(PlanNode input)
+    {
+        return searchFrom(input)
+                .where(node -> node instanceof FilterNode && !extractDynamicFilters(((FilterNode) node).getPredicate()).getDynamicConjuncts().isEmpty())
+                .matches();
+    }
+
+    private static Optional<ExchangeNode> findRemoteExchange(PlanNode node)
+    {
+        while (true) {
+            if (node instanceof ExchangeNode) {
+                ExchangeNode exchange = (ExchangeNode) node;
+                if (exchange.getScope() == REMOTE) {
+                    return Optional.of(exchange);
+                }
+                if (exchange.getSources().size() != 1) {
+                    return Optional.empty();
+                }
+                node = exchange.getSources().get(0);
+            }
+            else if (node instanceof ProjectNode) {
+                node = ((ProjectNode) node).getSource();
+            }
+            else {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private Optional<JoinInputKey> createKey(Session session, PlanNode node, Lookup lookup)
+    {
+        return canonicalize(session, node, lookup)
+                .map(CanonicalInput::getKey);
+    }
+
+    /**
+     * Describes the input in terms of the table scan, so that the description does not depend on the
+     * symbols allocated for the query. Projections and exchanges do not change the rows, and are skipped.
+     */
+    private Optional<CanonicalInput> canonicalize(Session session, PlanNode node, Lookup lookup)
+    {
+        node = lookup.resolve(node);
+
+        if (node instanceof TableScanNode) {
+            TableScanNode tableScan = (TableScanNode) node;
+            ImmutableMap.Builder<Symbol, ColumnHandle> columns = ImmutableMap.builder();
+            ImmutableMap.Builder<Symbol, Expression> symbols = ImmutableMap.builder();
+            int columnIndex = 0;
+            for (Map.Entry<Symbol, ColumnHandle> assignment : tableScan.getAssignments().entrySet()) {
+                Symbol column = new Symbol("column_" + columnIndex);
+                columnIndex++;
+                columns.put(column, assignment.getValue());
+                symbols.put(assignment.getKey(), column.toSymbolReference());
+            }
+            List<Object> table = ImmutableList.of(
+                    tableScan.getTable().getCatalogName(),
+                    tableScan.getTable().getConnectorHandle(),
+                    tableVersionProvider.getTableVersionToken(session, tableScan.getTable()),
+                    ImmutableSet.copyOf(tableScan.getAssignments().values()));
+            return Optional.of(new CanonicalInput(new JoinInputKey(table, ImmutableSet.of()), columns.build(), symbols.build()));
+        }
+
+        if (node instanceof FilterNode) {
+            FilterNode filter = (FilterNode) node;
+            return canonicalize(session, filter.getSource(), lookup)
+                    .flatMap(source -> source.withFilter(extractDynamicFilters(filter.getPredicate()).getStaticConjuncts()));
+        }
+
+        if (node instanceof ProjectNode) {
+            ProjectNode project = (ProjectNode) node;
+            return canonicalize(session, project.getSource(), lookup)
+                    .map(source -> source.withSymbols(project.getAssignments().entrySet().stream()
+                            .collect(toImmutableMap(Map.Entry::getKey, entry -> source.inline(entry.getValue())))));
+        }
+
+        if (node instanceof ExchangeNode && node.getSources().size() == 1) {
+            ExchangeNode exchange = (ExchangeNode) node;
+            List<Symbol> inputs = exchange.getInputs().get(0);
+            List<Symbol> outputs = exchange.getOutputSymbols();
+            return canonicalize(session, exchange.getSources().get(0), lookup)
+                    .map(source -> {
+                        ImmutableMap.Builder<Symbol, Expression> symbols = ImmutableMap.builder();
+                        for (int i = 0; i < outputs.size(); i++) {
+                            symbols.put(outputs.get(i), source.inline(inputs.get(i).toSymbolReference()));
+                        }
+                        return source.withSymbols(symbols.build());
+                    });
+        }
+
+        return Optional.empty();
+    }
+
+    public interface TableVersionProvider
+    {
+        Optional<String> getTableVersionToken(Session session, TableHandle tableHandle);
+    }
+
+    /**
+     * Join input of a planned query, and the stage which produces it.
+     */
+    public static final class JoinInput
+    {
+        private final PlanNodeId stageRoot;
+        private final JoinInputKey key;
+
+        private JoinInput(PlanNodeId stageRoot, JoinInputKey key)
+        {
+            this.stageRoot = requireNonNull(stageRoot, "stageRoot is null");
+            this.key = requireNonNull(key, "key is null");
+        }
+
+        public PlanNodeId getStageRoot()
+        {
+            return stageRoot;
+        }
+
+        private JoinInputKey getKey()
+        {
+            return key;
+        }
+    }
+
+    private static class CanonicalInput
+    {
+        private final JoinInputKey key;
+        // columns of the table scan, named independently of the symbols of the query
+        private final Map<Symbol, ColumnHandle> columns;
+        // expressions over the columns, which produce the symbols of the query
+        private final Map<Symbol, Expression> symbols;
+
+        public CanonicalInput(JoinInputKey key, Map<Symbol, ColumnHandle> columns, Map<Symbol, Expression> symbols)
+        {
+            this.key = requireNonNull(key, "key is null");
+            this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+            this.symbols = ImmutableMap.copyOf(requireNonNull(symbols, "symbols is null"));
+        }
+
+        public JoinInputKey getKey()
+        {
+            return key;
+        }
+
+        public Expression inline(Expression expression)
+        {
+            return inlineSymbols(symbol -> symbols.getOrDefault(symbol, symbol.toSymbolReference()), expression);
+        }
+
+        public CanonicalInput withSymbols(Map<Symbol, Expression> symbols)
+        {
+            return new CanonicalInput(key, columns, symbols);
+        }
+
+        public Optional<CanonicalInput> withFilter(List<Expression> conjuncts)
+        {
+            ImmutableSet.Builder<FilterConjunct> filter = ImmutableSet.<FilterConjunct>builder()
+                    .addAll(key.getFilter());
+            for (Expression conjunct : conjuncts) {
+                Optional<FilterConjunct> canonicalConjunct = canonicalizeConjunct(inline(conjunct));
+                if (canonicalConjunct.isEmpty()) {
+                    return Optional.empty();
+                }
+                filter.add(canonicalConjunct.get());
+            }
+            return Optional.of(new CanonicalInput(new JoinInputKey(key.getTable(), filter.build()), columns, symbols));
+        }
+
+        /**
+         * Names the columns referenced by the conjunct in the order in which they appear in the conjunct,
+         * because the names of the columns of the scan depend on the order of the assignments.
+         */
+        private Optional<FilterConjunct> canonicalizeConjunct(Expression conjunct)
+        {
+            List<Symbol> referencedColumns = extractAll(conjunct).stream()
+                    .distinct()
+                    .collect(toImmutableList());
+            if (!columns.keySet().containsAll(referencedColumns)) {
+                return Optional.empty();
+            }
+            Map<Symbol, Expression> names = new HashMap<>();
+            for (Symbol column : referencedColumns) {
+                names.put(column, new SymbolReference("$" + names.size()));
+            }
+            return Optional.of(new FilterConjunct(
+                    inlineSymbols(names, conjunct),
+                    referencedColumns.stream()
+                            .map(columns::get)
+                            .collect(toImmutableList())));
+        }
+    }
+
+    private static final class JoinInputKey
+    {
+        private final List<Object> table;
+        private final ImmutableSet<FilterConjunct> filter;
+
+        public JoinInputKey(List<Object> table, ImmutableSet<FilterConjunct> filter)
+        {
+            this.table = ImmutableList.copyOf(requireNonNull(table, "table is null"));
+            this.filter = requireNonNull(filter, "filter is null");
+        }
+
+        public List<Object> getTable()
+        {
+            return table;
+        }
+
+        public ImmutableSet<FilterConjunct> getFilter()
+        {
+            return filter;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            JoinInputKey that = (JoinInputKey) o;
+            return table.equals(that.table) &&
+                    filter.equals(that.filter);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(table, filter);
+        }
+    }
+
+    private static final class FilterConjunct
+    {
+        private final Expression expression;
+        private final List<ColumnHandle> columns;
+
+        public FilterConjunct(Expression expression, List<ColumnHandle> columns)
+        {
+            this.expression = requireNonNull(expression, "expression is null");
+            this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FilterConjunct that = (FilterConjunct) o;
+            return expression.equals(that.expression) &&
+                    columns.equals(that.columns);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(expression, columns);
+        }
+    }
+}
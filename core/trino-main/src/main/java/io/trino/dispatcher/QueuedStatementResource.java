@@ -291,6 +291,7 @@ public class QueuedStatementResource
                 nextUri,
                 null,
                 null,
+                null,
                 StatementStats.builder()
                         .setState(state.toString())
                         .setQueued(state == QUEUED)
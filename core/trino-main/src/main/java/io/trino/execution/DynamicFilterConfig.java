@@ -37,6 +37,7 @@ public class DynamicFilterConfig
     private boolean enableDynamicFiltering = true;
     private boolean enableCoordinatorDynamicFiltersDistribution = true;
     private boolean enableLargeDynamicFilters;
+    private boolean enableDynamicRowFiltering;
     private int serviceThreadCount = 2;
 
     private int smallBroadcastMaxDistinctValuesPerDriver = 200;
@@ -91,6 +92,19 @@ public class DynamicFilterConfig
         return this;
     }
 
+    public boolean isEnableDynamicRowFiltering()
+    {
+        return enableDynamicRowFiltering;
+    }
+
+    @Config("enable-dynamic-row-filtering")
+    @ConfigDescription("Apply dynamic filters to rows of sources other than table scans, such as remote exchanges and aggregations")
+    public DynamicFilterConfig setEnableDynamicRowFiltering(boolean enableDynamicRowFiltering)
+    {
+        this.enableDynamicRowFiltering = enableDynamicRowFiltering;
+        return this;
+    }
+
     @Min(1)
     public int getServiceThreadCount()
     {
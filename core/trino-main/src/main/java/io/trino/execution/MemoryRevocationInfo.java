@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import io.trino.spi.memory.MemoryPoolId;
+import io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy;
+import org.joda.time.DateTime;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes a single request to revoke memory from an operator, issued by {@link MemoryRevokingScheduler}.
+ */
+public class MemoryRevocationInfo
+{
+    private final DateTime time;
+    private final MemoryPoolId memoryPoolId;
+    private final MemoryRevokingStrategy strategy;
+    private final TaskId taskId;
+    private final int pipelineId;
+    private final int operatorId;
+    private final String operatorType;
+    private final long queryMemoryGuarantee;
+    private final long revocableBytes;
+    private final double remainingInputFraction;
+    private final long estimatedSpillBytes;
+
+    public MemoryRevocationInfo(
+            DateTime time,
+            MemoryPoolId memoryPoolId,
+            MemoryRevokingStrategy strategy,
+            TaskId taskId,
+            int pipelineId,
+            int operatorId,
+            String operatorType,
+            long queryMemoryGuarantee,
+            long revocableBytes,
+            double remainingInputFraction,
+            long estimatedSpillBytes)
+    {
+        this.time = requireNonNull(time, "time is null");
+        this.memoryPoolId = requireNonNull(memoryPoolId, "memoryPoolId is null");
+        this.strategy = requireNonNull(strategy, "strategy is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.pipelineId = pipelineId;
+        this.operatorId = operatorId;
+        this.operatorType = requireNonNull(operatorType, "operatorType is null");
+        this.queryMemoryGuarantee = queryMemoryGuarantee;
+        this.revocableBytes = revocableBytes;
+        this.remainingInputFraction = remainingInputFraction;
+        this.estimatedSpillBytes = estimatedSpillBytes;
+    }
+
+    public DateTime getTime()
+    {
+        return time;
+    }
+
+    public MemoryPoolId getMemoryPoolId()
+    {
+        return memoryPoolId;
+    }
+
+    public MemoryRevokingStrategy getStrategy()
+    {
+        return strategy;
+    }
+
+    public TaskId getTaskId()
+    {
+        return taskId;
+    }
+
+    public int getPipelineId()
+    {
+        return pipelineId;
+    }
+
+    public int getOperatorId()
+    {
+        return operatorId;
+    }
+
+    public String getOperatorType()
+    {
+        return operatorType;
+    }
+
+    /**
+     * Memory per node guaranteed to the query owning the operator.
+     */
+    public long getQueryMemoryGuarantee()
+    {
+        return queryMemoryGuarantee;
+    }
+
+    public long getRevocableBytes()
+    {
+        return revocableBytes;
+    }
+
+    /**
+     * Fraction of the pipeline's drivers which have not finished yet at the time of revocation.
+     */
+    public double getRemainingInputFraction()
+    {
+        return remainingInputFraction;
+    }
+
+    /**
+     * Bytes which are expected to be written to and read back from spill as a result of the revocation.
+     */
+    public long getEstimatedSpillBytes()
+    {
+        return estimatedSpillBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("time", time)
+                .add("memoryPoolId", memoryPoolId)
+                .add("strategy", strategy)
+                .add("taskId", taskId)
+                .add("pipelineId", pipelineId)
+                .add("operatorId", operatorId)
+                .add("operatorType", operatorType)
+                .add("queryMemoryGuarantee", queryMemoryGuarantee)
+                .add("revocableBytes", revocableBytes)
+                .add("remainingInputFraction", remainingInputFraction)
+                .add("estimatedSpillBytes", estimatedSpillBytes)
+                .toString();
+    }
+}
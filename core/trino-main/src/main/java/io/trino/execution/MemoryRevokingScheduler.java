@@ -14,6 +14,7 @@
 package io.trino.execution;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.EvictingQueue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import io.airlift.log.Logger;
@@ -22,19 +23,27 @@ import io.trino.memory.MemoryPool;
 import io.trino.memory.MemoryPoolListener;
 import io.trino.memory.TraversingQueryContextVisitor;
 import io.trino.memory.VoidTraversingQueryContextVisitor;
+import io.trino.operator.DriverContext;
 import io.trino.operator.OperatorContext;
 import io.trino.operator.PipelineContext;
+import io.trino.operator.PipelineStatus;
 import io.trino.operator.TaskContext;
 import io.trino.spi.memory.MemoryPoolId;
 import io.trino.sql.analyzer.FeaturesConfig;
+import io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy;
+import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -44,19 +53,31 @@ import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy.COST_BASED;
+import static io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy.ORDER_BY_CREATE_TIME;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.partitioningBy;
 
 public class MemoryRevokingScheduler
 {
     private static final Logger log = Logger.get(MemoryRevokingScheduler.class);
 
-    private static final Ordering<SqlTask> ORDER_BY_CREATE_TIME = Ordering.natural().onResultOf(SqlTask::getTaskCreatedTime);
+    private static final Ordering<SqlTask> TASKS_BY_CREATE_TIME = Ordering.natural().onResultOf(SqlTask::getTaskCreatedTime);
+    private static final int MAX_RECENT_REVOCATIONS = 1000;
+    private static final double MIN_REMAINING_INPUT_FRACTION = 0.01;
+
     private final List<MemoryPool> memoryPools;
     private final Supplier<? extends Collection<SqlTask>> currentTasksSupplier;
     private final ScheduledExecutorService taskManagementExecutor;
     private final double memoryRevokingThreshold;
     private final double memoryRevokingTarget;
+    private final MemoryRevokingStrategy memoryRevokingStrategy;
+
+    @GuardedBy("recentRevocations")
+    private final EvictingQueue<MemoryRevocationInfo> recentRevocations = EvictingQueue.create(MAX_RECENT_REVOCATIONS);
 
     private final MemoryPoolListener memoryPoolListener = MemoryPoolListener.onMemoryReserved(this::onMemoryReserved);
 
@@ -77,7 +98,8 @@ public class MemoryRevokingScheduler
                 requireNonNull(sqlTaskManager, "sqlTaskManager cannot be null")::getAllTasks,
                 requireNonNull(taskManagementExecutor, "taskManagementExecutor cannot be null").getExecutor(),
                 config.getMemoryRevokingThreshold(),
-                config.getMemoryRevokingTarget());
+                config.getMemoryRevokingTarget(),
+                config.getMemoryRevokingStrategy());
     }
 
     @VisibleForTesting
@@ -87,6 +109,18 @@ public class MemoryRevokingScheduler
             ScheduledExecutorService taskManagementExecutor,
             double memoryRevokingThreshold,
             double memoryRevokingTarget)
+    {
+        this(memoryPools, currentTasksSupplier, taskManagementExecutor, memoryRevokingThreshold, memoryRevokingTarget, ORDER_BY_CREATE_TIME);
+    }
+
+    @VisibleForTesting
+    MemoryRevokingScheduler(
+            List<MemoryPool> memoryPools,
+            Supplier<? extends Collection<SqlTask>> currentTasksSupplier,
+            ScheduledExecutorService taskManagementExecutor,
+            double memoryRevokingThreshold,
+            double memoryRevokingTarget,
+            MemoryRevokingStrategy memoryRevokingStrategy)
     {
         this.memoryPools = ImmutableList.copyOf(requireNonNull(memoryPools, "memoryPools is null"));
         this.currentTasksSupplier = requireNonNull(currentTasksSupplier, "currentTasksSupplier is null");
@@ -97,6 +131,7 @@ public class MemoryRevokingScheduler
                 memoryRevokingTarget <= memoryRevokingThreshold,
                 "memoryRevokingTarget should be less than or equal memoryRevokingThreshold, but got %s and %s respectively",
                 memoryRevokingTarget, memoryRevokingThreshold);
+        this.memoryRevokingStrategy = requireNonNull(memoryRevokingStrategy, "memoryRevokingStrategy is null");
     }
 
     private static double checkFraction(double value, String valueName)
@@ -145,6 +180,16 @@ public class MemoryRevokingScheduler
         memoryPools.forEach(memoryPool -> memoryPool.removeListener(memoryPoolListener));
     }
 
+    /**
+     * Returns the most recent revocation requests issued by this scheduler, oldest first.
+     */
+    public List<MemoryRevocationInfo> getRecentRevocations()
+    {
+        synchronized (recentRevocations) {
+            return ImmutableList.copyOf(recentRevocations);
+        }
+    }
+
     @VisibleForTesting
     void registerPoolListeners()
     {
@@ -211,8 +256,24 @@ public class MemoryRevokingScheduler
         long remainingBytesToRevoke = (long) (-memoryPool.getFreeBytes() + (memoryPool.getMaxBytes() * (1.0 - memoryRevokingTarget)));
         List<SqlTask> runningTasksInPool = findRunningTasksInMemoryPool(allTasks, memoryPool);
         remainingBytesToRevoke -= getMemoryAlreadyBeingRevoked(runningTasksInPool, remainingBytesToRevoke);
-        if (remainingBytesToRevoke > 0) {
-            requestRevoking(memoryPool.getId(), runningTasksInPool, remainingBytesToRevoke);
+        if (remainingBytesToRevoke <= 0) {
+            return;
+        }
+
+        // Revoke memory from queries which use more memory than they are guaranteed first,
+        // so that queries using their guaranteed memory are spilled only as a last resort
+        Map<Boolean, List<SqlTask>> tasksByExceedingGuarantee = runningTasksInPool.stream()
+                .collect(partitioningBy(task -> memoryPool.isQueryExceedingMemoryGuarantee(task.getQueryContext().getQueryId()), toImmutableList()));
+        for (List<SqlTask> tasks : ImmutableList.of(tasksByExceedingGuarantee.get(true), tasksByExceedingGuarantee.get(false))) {
+            if (memoryRevokingStrategy == COST_BASED) {
+                remainingBytesToRevoke = requestCostBasedRevoking(memoryPool.getId(), tasks, remainingBytesToRevoke);
+            }
+            else {
+                remainingBytesToRevoke = requestRevoking(memoryPool.getId(), tasks, remainingBytesToRevoke);
+            }
+            if (remainingBytesToRevoke <= 0) {
+                return;
+            }
         }
     }
 
@@ -257,7 +318,7 @@ public class MemoryRevokingScheduler
         return currentRevoking;
     }
 
-    private void requestRevoking(MemoryPoolId memoryPoolId, List<SqlTask> sqlTasks, long remainingBytesToRevoke)
+    private long requestRevoking(MemoryPoolId memoryPoolId, List<SqlTask> sqlTasks, long remainingBytesToRevoke)
     {
         VoidTraversingQueryContextVisitor<AtomicLong> visitor = new VoidTraversingQueryContextVisitor<>()
         {
@@ -278,6 +339,7 @@ public class MemoryRevokingScheduler
                     long revokedBytes = operatorContext.requestMemoryRevoking();
                     if (revokedBytes > 0) {
                         remainingBytesToRevoke.addAndGet(-revokedBytes);
+                        recordRevocation(memoryPoolId, operatorContext, revokedBytes, getRemainingInputFraction(operatorContext.getDriverContext().getPipelineContext()));
                         log.debug("memoryPool=%s: requested revoking %s; remaining %s", memoryPoolId, revokedBytes, remainingBytesToRevoke.get());
                     }
                 }
@@ -292,17 +354,156 @@ public class MemoryRevokingScheduler
                 taskContext.get().accept(visitor, remainingBytesToRevokeAtomic);
                 if (remainingBytesToRevokeAtomic.get() <= 0) {
                     // No further revoking required
-                    return;
+                    break;
+                }
+            }
+        }
+        return remainingBytesToRevokeAtomic.get();
+    }
+
+    private long requestCostBasedRevoking(MemoryPoolId memoryPoolId, List<SqlTask> sqlTasks, long remainingBytesToRevoke)
+    {
+        List<RevocationCandidate> candidates = findRevocationCandidates(sqlTasks);
+        while (remainingBytesToRevoke > 0 && !candidates.isEmpty()) {
+            RevocationCandidate candidate = removeCheapestCandidate(candidates, remainingBytesToRevoke);
+            long revokedBytes = candidate.getOperatorContext().requestMemoryRevoking();
+            if (revokedBytes > 0) {
+                remainingBytesToRevoke -= revokedBytes;
+                recordRevocation(memoryPoolId, candidate.getOperatorContext(), revokedBytes, candidate.getRemainingInputFraction());
+                log.debug("memoryPool=%s: requested revoking %s (remaining input fraction %s); remaining %s", memoryPoolId, revokedBytes, candidate.getRemainingInputFraction(), remainingBytesToRevoke);
+            }
+        }
+        return remainingBytesToRevoke;
+    }
+
+    private static List<RevocationCandidate> findRevocationCandidates(List<SqlTask> sqlTasks)
+    {
+        Map<PipelineContext, Double> remainingInputFractions = new IdentityHashMap<>();
+        List<RevocationCandidate> candidates = new ArrayList<>();
+        VoidTraversingQueryContextVisitor<Void> visitor = new VoidTraversingQueryContextVisitor<>()
+        {
+            @Override
+            public Void visitOperatorContext(OperatorContext operatorContext, Void context)
+            {
+                long revocableBytes = operatorContext.getReservedRevocableBytes();
+                if (revocableBytes > 0 && !operatorContext.isMemoryRevokingRequested()) {
+                    double remainingInputFraction = remainingInputFractions.computeIfAbsent(
+                            operatorContext.getDriverContext().getPipelineContext(),
+                            MemoryRevokingScheduler::getRemainingInputFraction);
+                    candidates.add(new RevocationCandidate(operatorContext, revocableBytes, remainingInputFraction));
                 }
+                return null;
+            }
+        };
+
+        for (SqlTask task : sqlTasks) {
+            task.getTaskContext().ifPresent(taskContext -> taskContext.accept(visitor, null));
+        }
+        return candidates;
+    }
+
+    private static RevocationCandidate removeCheapestCandidate(List<RevocationCandidate> candidates, long remainingBytesToRevoke)
+    {
+        int cheapest = 0;
+        double cheapestCost = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            RevocationCandidate candidate = candidates.get(i);
+            double cost = revocationCost(candidate.getRevocableBytes(), candidate.getRemainingInputFraction(), remainingBytesToRevoke);
+            // on equal cost prefer bigger operators, so that fewer operators need to spill
+            if (cost < cheapestCost || (cost == cheapestCost && candidate.getRevocableBytes() > candidates.get(cheapest).getRevocableBytes())) {
+                cheapest = i;
+                cheapestCost = cost;
             }
         }
+        return candidates.remove(cheapest);
+    }
+
+    /**
+     * Spilling an operator writes all of its revocable memory to disk and reads it back later, while
+     * the freed memory is only useful for the part of the input the operator has yet to process and only
+     * up to the number of bytes which still need to be revoked. The cost is the spill I/O per useful freed byte.
+     */
+    @VisibleForTesting
+    static double revocationCost(long revocableBytes, double remainingInputFraction, long remainingBytesToRevoke)
+    {
+        checkArgument(revocableBytes > 0, "revocableBytes must be positive");
+        checkArgument(remainingBytesToRevoke > 0, "remainingBytesToRevoke must be positive");
+        double spillBytes = estimateSpillBytes(revocableBytes);
+        double usefulFreedBytes = min(revocableBytes, remainingBytesToRevoke) * max(remainingInputFraction, MIN_REMAINING_INPUT_FRACTION);
+        return spillBytes / usefulFreedBytes;
+    }
+
+    private static long estimateSpillBytes(long revocableBytes)
+    {
+        // spilled data is written once and read back once
+        return 2 * revocableBytes;
+    }
+
+    private static double getRemainingInputFraction(PipelineContext pipelineContext)
+    {
+        PipelineStatus pipelineStatus = pipelineContext.getPipelineStatus();
+        long remainingDrivers = (long) pipelineStatus.getQueuedDrivers() + pipelineStatus.getRunningDrivers() + pipelineStatus.getBlockedDrivers();
+        long totalDrivers = remainingDrivers + pipelineContext.getCompletedDrivers();
+        if (totalDrivers == 0) {
+            return 1.0;
+        }
+        return (double) remainingDrivers / totalDrivers;
+    }
+
+    private void recordRevocation(MemoryPoolId memoryPoolId, OperatorContext operatorContext, long revokedBytes, double remainingInputFraction)
+    {
+        DriverContext driverContext = operatorContext.getDriverContext();
+        MemoryRevocationInfo revocation = new MemoryRevocationInfo(
+                DateTime.now(),
+                memoryPoolId,
+                memoryRevokingStrategy,
+                driverContext.getTaskId(),
+                driverContext.getPipelineContext().getPipelineId(),
+                operatorContext.getOperatorId(),
+                operatorContext.getOperatorType(),
+                driverContext.getPipelineContext().getTaskContext().getQueryContext().getMemoryGuarantee(),
+                revokedBytes,
+                remainingInputFraction,
+                estimateSpillBytes(revokedBytes));
+        synchronized (recentRevocations) {
+            recentRevocations.add(revocation);
+        }
     }
 
     private static List<SqlTask> findRunningTasksInMemoryPool(Collection<SqlTask> allCurrentTasks, MemoryPool memoryPool)
     {
         return allCurrentTasks.stream()
                 .filter(task -> task.getTaskState() == TaskState.RUNNING && task.getQueryContext().getMemoryPool() == memoryPool)
-                .sorted(ORDER_BY_CREATE_TIME)
+                .sorted(TASKS_BY_CREATE_TIME)
                 .collect(toImmutableList());
     }
+
+    private static class RevocationCandidate
+    {
+        private final OperatorContext operatorContext;
+        private final long revocableBytes;
+        private final double remainingInputFraction;
+
+        public RevocationCandidate(OperatorContext operatorContext, long revocableBytes, double remainingInputFraction)
+        {
+            this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+            this.revocableBytes = revocableBytes;
+            this.remainingInputFraction = remainingInputFraction;
+        }
+
+        public OperatorContext getOperatorContext()
+        {
+            return operatorContext;
+        }
+
+        public long getRevocableBytes()
+        {
+            return revocableBytes;
+        }
+
+        public double getRemainingInputFraction()
+        {
+            return remainingInputFraction;
+        }
+    }
 }
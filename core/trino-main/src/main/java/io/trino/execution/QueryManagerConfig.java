@@ -28,6 +28,8 @@ import javax.validation.constraints.NotNull;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 @DefunctConfig({
         "query.max-pending-splits-per-node",
         "query.queue-config-file",
@@ -68,6 +70,14 @@ public class QueryManagerConfig
     private int requiredWorkers = 1;
     private Duration requiredWorkersMaxWait = new Duration(5, TimeUnit.MINUTES);
 
+    private boolean resultCacheEnabled;
+    private DataSize resultCacheMaxSize = DataSize.of(256, MEGABYTE);
+    private DataSize resultCacheMaxEntrySize = DataSize.of(1, MEGABYTE);
+    private Duration resultCacheTtl = new Duration(10, TimeUnit.MINUTES);
+
+    private boolean planCacheEnabled;
+    private int planCacheMaxEntries = 1000;
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -378,4 +388,86 @@ public class QueryManagerConfig
         this.requiredWorkersMaxWait = requiredWorkersMaxWait;
         return this;
     }
+
+    public boolean isResultCacheEnabled()
+    {
+        return resultCacheEnabled;
+    }
+
+    @Config("query.result-cache.enabled")
+    @ConfigDescription("Serve results of repeated queries over unchanged tables from a coordinator cache")
+    public QueryManagerConfig setResultCacheEnabled(boolean resultCacheEnabled)
+    {
+        this.resultCacheEnabled = resultCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxSize()
+    {
+        return resultCacheMaxSize;
+    }
+
+    @Config("query.result-cache.max-size")
+    @ConfigDescription("Maximum total size of results held in the query result cache")
+    public QueryManagerConfig setResultCacheMaxSize(DataSize resultCacheMaxSize)
+    {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxEntrySize()
+    {
+        return resultCacheMaxEntrySize;
+    }
+
+    @Config("query.result-cache.max-entry-size")
+    @ConfigDescription("Maximum size of the results of a single query that can be cached")
+    public QueryManagerConfig setResultCacheMaxEntrySize(DataSize resultCacheMaxEntrySize)
+    {
+        this.resultCacheMaxEntrySize = resultCacheMaxEntrySize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getResultCacheTtl()
+    {
+        return resultCacheTtl;
+    }
+
+    @Config("query.result-cache.ttl")
+    @ConfigDescription("Maximum time a cached query result is served after it was computed")
+    public QueryManagerConfig setResultCacheTtl(Duration resultCacheTtl)
+    {
+        this.resultCacheTtl = resultCacheTtl;
+        return this;
+    }
+
+    public boolean isPlanCacheEnabled()
+    {
+        return planCacheEnabled;
+    }
+
+    @Config("query.plan-cache.enabled")
+    @ConfigDescription("Reuse optimized plans of repeated queries and executions of prepared statements")
+    public QueryManagerConfig setPlanCacheEnabled(boolean planCacheEnabled)
+    {
+        this.planCacheEnabled = planCacheEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getPlanCacheMaxEntries()
+    {
+        return planCacheMaxEntries;
+    }
+
+    @Config("query.plan-cache.max-entries")
+    @ConfigDescription("Maximum number of plans held in the plan cache")
+    public QueryManagerConfig setPlanCacheMaxEntries(int planCacheMaxEntries)
+    {
+        this.planCacheMaxEntries = planCacheMaxEntries;
+        return this;
+    }
 }
@@ -27,6 +27,8 @@ import io.airlift.units.Duration;
 import io.trino.Session;
 import io.trino.execution.QueryExecution.QueryOutputInfo;
 import io.trino.execution.StateMachine.StateChangeListener;
+import io.trino.execution.resultcache.CachedQueryResult;
+import io.trino.execution.resultcache.QueryResultCacheKey;
 import io.trino.execution.warnings.WarningCollector;
 import io.trino.memory.VersionedMemoryPoolId;
 import io.trino.metadata.Metadata;
@@ -41,6 +43,7 @@ import io.trino.spi.TrinoException;
 import io.trino.spi.eventlistener.RoutineInfo;
 import io.trino.spi.eventlistener.StageGcStatistics;
 import io.trino.spi.eventlistener.TableInfo;
+import io.trino.spi.memory.MemoryPoolId;
 import io.trino.spi.resourcegroups.QueryType;
 import io.trino.spi.resourcegroups.ResourceGroupId;
 import io.trino.spi.security.SelectedRole;
@@ -67,6 +70,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -157,6 +161,8 @@ public class QueryStateMachine
     private final AtomicReference<List<TableInfo>> referencedTables = new AtomicReference<>(ImmutableList.of());
     private final AtomicReference<List<RoutineInfo>> routines = new AtomicReference<>(ImmutableList.of());
     private final StateMachine<Optional<QueryInfo>> finalQueryInfo;
+    // number of final query info listeners, which did not receive the final query info with the task infos yet
+    private final AtomicInteger pendingQueryInfoListeners = new AtomicInteger();
 
     private final WarningCollector warningCollector;
 
@@ -649,6 +655,21 @@ public class QueryStateMachine
         outputManager.setColumns(columnNames, columnTypes);
     }
 
+    public void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+    {
+        outputManager.setResultCacheKey(resultCacheKey);
+    }
+
+    public void setSpooledResults()
+    {
+        outputManager.setSpooledResults();
+    }
+
+    public void setCachedResult(CachedQueryResult cachedResult)
+    {
+        outputManager.setCachedResult(cachedResult);
+    }
+
     public void updateOutputLocations(Set<URI> newExchangeLocations, boolean noMoreExchangeLocations)
     {
         outputManager.updateOutputLocations(newExchangeLocations, noMoreExchangeLocations);
@@ -974,10 +995,18 @@ public class QueryStateMachine
     public void addQueryInfoStateChangeListener(StateChangeListener<QueryInfo> stateChangeListener)
     {
         AtomicBoolean done = new AtomicBoolean();
+        pendingQueryInfoListeners.incrementAndGet();
         StateChangeListener<Optional<QueryInfo>> fireOnceStateChangeListener = finalQueryInfo -> {
             // QueryInfo.isPresent() does not mean this is a terminal state for finalQueryInfo state machine
             if (finalQueryInfo.isPresent() && done.compareAndSet(false, true)) {
-                stateChangeListener.stateChanged(finalQueryInfo.get());
+                try {
+                    stateChangeListener.stateChanged(finalQueryInfo.get());
+                }
+                finally {
+                    if (pendingQueryInfoListeners.decrementAndGet() == 0) {
+                        compactFinalQueryInfo();
+                    }
+                }
             }
         };
         finalQueryInfo.addStateChangeListener(fireOnceStateChangeListener);
@@ -1057,11 +1086,33 @@ public class QueryStateMachine
     {
         QueryInfo queryInfo = getQueryInfo(stageInfo);
         if (queryInfo.isFinalQueryInfo()) {
-            finalQueryInfo.compareAndSet(Optional.empty(), Optional.of(queryInfo));
+            if (finalQueryInfo.compareAndSet(Optional.empty(), Optional.of(queryInfo)) && pendingQueryInfoListeners.get() == 0) {
+                compactFinalQueryInfo();
+            }
         }
         return queryInfo;
     }
 
+    /**
+     * Drops the task infos from the retained final query info, once all listeners received them.
+     * The stages keep their stats and the nodes the tasks ran on.
+     */
+    private void compactFinalQueryInfo()
+    {
+        Optional<QueryInfo> finalInfo = finalQueryInfo.get();
+        if (finalInfo.isEmpty() || finalInfo.get().getOutputStage().isEmpty()) {
+            return;
+        }
+
+        QueryInfo queryInfo = finalInfo.get();
+        QueryInfo compactQueryInfo = withOutputStage(
+                queryInfo,
+                queryInfo.getMemoryPool(),
+                queryInfo.getQueryStats(),
+                queryInfo.getOutputStage().map(StageInfo::withoutTasks));
+        finalQueryInfo.compareAndSet(finalInfo, Optional.of(compactQueryInfo));
+    }
+
     public void pruneQueryInfo()
     {
         Optional<QueryInfo> finalInfo = finalQueryInfo.get();
@@ -1077,21 +1128,32 @@ public class QueryStateMachine
                 outputStage.getTypes(),
                 outputStage.getStageStats(),
                 ImmutableList.of(), // Remove the tasks
+                outputStage.getNodes(),
                 ImmutableList.of(), // Remove the substages
                 ImmutableMap.of(), // Remove tables
                 outputStage.getFailureCause()));
 
-        QueryInfo prunedQueryInfo = new QueryInfo(
+        QueryInfo prunedQueryInfo = withOutputStage(
+                queryInfo,
+                getMemoryPool().getId(),
+                pruneQueryStats(queryInfo.getQueryStats()),
+                prunedOutputStage);
+        finalQueryInfo.compareAndSet(finalInfo, Optional.of(prunedQueryInfo));
+    }
+
+    private static QueryInfo withOutputStage(QueryInfo queryInfo, MemoryPoolId memoryPool, QueryStats queryStats, Optional<StageInfo> outputStage)
+    {
+        return new QueryInfo(
                 queryInfo.getQueryId(),
                 queryInfo.getSession(),
                 queryInfo.getState(),
-                getMemoryPool().getId(),
+                memoryPool,
                 queryInfo.isScheduled(),
                 queryInfo.getSelf(),
                 queryInfo.getFieldNames(),
                 queryInfo.getQuery(),
                 queryInfo.getPreparedQuery(),
-                pruneQueryStats(queryInfo.getQueryStats()),
+                queryStats,
                 queryInfo.getSetCatalog(),
                 queryInfo.getSetSchema(),
                 queryInfo.getSetPath(),
@@ -1103,7 +1165,7 @@ public class QueryStateMachine
                 queryInfo.getStartedTransactionId(),
                 queryInfo.isClearTransactionId(),
                 queryInfo.getUpdateType(),
-                prunedOutputStage,
+                outputStage,
                 queryInfo.getFailureInfo(),
                 queryInfo.getErrorCode(),
                 queryInfo.getWarnings(),
@@ -1114,7 +1176,6 @@ public class QueryStateMachine
                 queryInfo.isCompleteInfo(),
                 queryInfo.getResourceGroupId(),
                 queryInfo.getQueryType());
-        finalQueryInfo.compareAndSet(finalInfo, Optional.of(prunedQueryInfo));
     }
 
     private static QueryStats pruneQueryStats(QueryStats queryStats)
@@ -1190,6 +1251,12 @@ public class QueryStateMachine
         private final Set<URI> exchangeLocations = new LinkedHashSet<>();
         @GuardedBy("this")
         private boolean noMoreExchangeLocations;
+        @GuardedBy("this")
+        private Optional<QueryResultCacheKey> resultCacheKey = Optional.empty();
+        @GuardedBy("this")
+        private Optional<CachedQueryResult> cachedResult = Optional.empty();
+        @GuardedBy("this")
+        private boolean spooledResults;
 
         public QueryOutputManager(Executor executor)
         {
@@ -1227,6 +1294,40 @@ public class QueryStateMachine
             queryOutputInfo.ifPresent(info -> fireStateChanged(info, outputInfoListeners));
         }
 
+        public synchronized void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+        {
+            requireNonNull(resultCacheKey, "resultCacheKey is null");
+            checkState(columnNames == null, "result cache key must be set before output fields");
+            this.resultCacheKey = Optional.of(resultCacheKey);
+        }
+
+        public synchronized void setSpooledResults()
+        {
+            checkState(columnNames == null, "spooled results must be set before output fields");
+            this.spooledResults = true;
+        }
+
+        public void setCachedResult(CachedQueryResult cachedResult)
+        {
+            requireNonNull(cachedResult, "cachedResult is null");
+
+            Optional<QueryOutputInfo> queryOutputInfo;
+            List<Consumer<QueryOutputInfo>> outputInfoListeners;
+            synchronized (this) {
+                checkState(this.columnNames == null && this.columnTypes == null, "output fields already set");
+                checkState(exchangeLocations.isEmpty(), "cached result set after exchange locations");
+                checkState(!spooledResults, "cached result set for spooled results");
+                this.cachedResult = Optional.of(cachedResult);
+                this.columnNames = cachedResult.getColumnNames();
+                this.columnTypes = cachedResult.getColumnTypes();
+                this.noMoreExchangeLocations = true;
+
+                queryOutputInfo = getQueryOutputInfo();
+                outputInfoListeners = ImmutableList.copyOf(this.outputInfoListeners);
+            }
+            queryOutputInfo.ifPresent(info -> fireStateChanged(info, outputInfoListeners));
+        }
+
         public void updateOutputLocations(Set<URI> newExchangeLocations, boolean noMoreExchangeLocations)
         {
             requireNonNull(newExchangeLocations, "newExchangeLocations is null");
@@ -1252,7 +1353,7 @@ public class QueryStateMachine
             if (columnNames == null || columnTypes == null) {
                 return Optional.empty();
             }
-            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations));
+            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations, resultCacheKey, cachedResult, spooledResults));
         }
 
         private void fireStateChanged(QueryOutputInfo queryOutputInfo, List<Consumer<QueryOutputInfo>> outputInfoListeners)
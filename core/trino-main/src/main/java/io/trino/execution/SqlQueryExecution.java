@@ -20,13 +20,21 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.trino.Session;
 import io.trino.SystemSessionProperties;
+import io.trino.client.ClientCapabilities;
 import io.trino.connector.CatalogName;
 import io.trino.cost.CostCalculator;
+import io.trino.cost.JoinSizeHistory;
+import io.trino.cost.JoinSizeHistory.JoinInput;
 import io.trino.cost.StatsCalculator;
 import io.trino.execution.QueryPreparer.PreparedQuery;
 import io.trino.execution.StateMachine.StateChangeListener;
 import io.trino.execution.buffer.OutputBuffers;
 import io.trino.execution.buffer.OutputBuffers.OutputBufferId;
+import io.trino.execution.plancache.PlanCache;
+import io.trino.execution.plancache.PlanCacheKey;
+import io.trino.execution.resultcache.CachedQueryResult;
+import io.trino.execution.resultcache.QueryResultCache;
+import io.trino.execution.resultcache.QueryResultCacheKey;
 import io.trino.execution.scheduler.ExecutionPolicy;
 import io.trino.execution.scheduler.NodeScheduler;
 import io.trino.execution.scheduler.SplitSchedulerStats;
@@ -40,6 +48,7 @@ import io.trino.operator.ForScheduler;
 import io.trino.security.AccessControl;
 import io.trino.server.BasicQueryInfo;
 import io.trino.server.DynamicFilterService;
+import io.trino.server.protocol.ResultSpool;
 import io.trino.server.protocol.Slug;
 import io.trino.spi.QueryId;
 import io.trino.spi.TrinoException;
@@ -64,6 +73,7 @@ import io.trino.sql.planner.StageExecutionPlan;
 import io.trino.sql.planner.SubPlan;
 import io.trino.sql.planner.TypeAnalyzer;
 import io.trino.sql.planner.optimizations.PlanOptimizer;
+import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.tree.ExplainAnalyze;
 import io.trino.sql.tree.Query;
 import io.trino.sql.tree.Statement;
@@ -86,9 +96,13 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.units.DataSize.succinctBytes;
+import static io.airlift.units.Duration.nanosSince;
 import static io.trino.SystemSessionProperties.isEnableDynamicFiltering;
+import static io.trino.SystemSessionProperties.isJoinSizeHistoryEnabled;
 import static io.trino.execution.QueryState.FAILED;
+import static io.trino.execution.QueryState.FINISHED;
 import static io.trino.execution.QueryState.PLANNING;
+import static io.trino.execution.StageInfo.getAllStages;
 import static io.trino.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
 import static io.trino.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.trino.execution.scheduler.SqlQueryScheduler.createSqlQueryScheduler;
@@ -125,6 +139,7 @@ public class SqlQueryExecution
 
     private final AtomicReference<SqlQueryScheduler> queryScheduler = new AtomicReference<>();
     private final AtomicReference<Plan> queryPlan = new AtomicReference<>();
+    private final AtomicReference<List<JoinInput>> joinInputs = new AtomicReference<>();
     private final NodeTaskMap nodeTaskMap;
     private final ExecutionPolicy executionPolicy;
     private final SplitSchedulerStats schedulerStats;
@@ -132,6 +147,10 @@ public class SqlQueryExecution
     private final StatsCalculator statsCalculator;
     private final CostCalculator costCalculator;
     private final DynamicFilterService dynamicFilterService;
+    private final QueryResultCache queryResultCache;
+    private final PlanCache planCache;
+    private final JoinSizeHistory joinSizeHistory;
+    private final ResultSpool resultSpool;
 
     private SqlQueryExecution(
             PreparedQuery preparedQuery,
@@ -159,6 +178,10 @@ public class SqlQueryExecution
             StatsCalculator statsCalculator,
             CostCalculator costCalculator,
             DynamicFilterService dynamicFilterService,
+            QueryResultCache queryResultCache,
+            PlanCache planCache,
+            JoinSizeHistory joinSizeHistory,
+            ResultSpool resultSpool,
             WarningCollector warningCollector)
     {
         try (SetThreadName ignored = new SetThreadName("Query-%s", stateMachine.getQueryId())) {
@@ -180,6 +203,10 @@ public class SqlQueryExecution
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
             this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
+            this.joinSizeHistory = requireNonNull(joinSizeHistory, "joinSizeHistory is null");
+            this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
 
             checkArgument(scheduleSplitBatchSize > 0, "scheduleSplitBatchSize must be greater than 0");
             this.scheduleSplitBatchSize = scheduleSplitBatchSize;
@@ -197,6 +224,16 @@ public class SqlQueryExecution
                         dynamicFilterService.getDynamicFilteringStats(stateMachine.getQueryId(), stateMachine.getSession()));
             });
 
+            // remember the sizes of join inputs, for planning the next queries that read the same data
+            if (isJoinSizeHistoryEnabled(stateMachine.getSession())) {
+                stateMachine.addQueryInfoStateChangeListener(queryInfo -> {
+                    List<JoinInput> inputs = joinInputs.get();
+                    if (queryInfo.getState() == FINISHED && inputs != null) {
+                        joinSizeHistory.recordQuery(inputs, getAllStages(queryInfo.getOutputStage()));
+                    }
+                });
+            }
+
             // when the query finishes cache the final query info, and clear the reference to the output stage
             AtomicReference<SqlQueryScheduler> queryScheduler = this.queryScheduler;
             stateMachine.addStateChangeListener(state -> {
@@ -407,12 +444,20 @@ public class SqlQueryExecution
                     }
                 }, directExecutor());
 
+                Optional<CachedQueryResult> cachedResult;
                 try {
                     PlanRoot plan = planQuery();
-                    // DynamicFilterService needs plan for query to be registered.
-                    // Query should be registered before dynamic filter suppliers are requested in distribution planning.
-                    registerDynamicFilteringQuery(plan);
-                    planDistribution(plan);
+                    cachedResult = plan.getResultCacheKey().flatMap(queryResultCache::get);
+                    if (cachedResult.isEmpty()) {
+                        plan.getResultCacheKey().ifPresent(stateMachine::setResultCacheKey);
+                        if (plan.isSpooledResults()) {
+                            stateMachine.setSpooledResults();
+                        }
+                        // DynamicFilterService needs plan for query to be registered.
+                        // Query should be registered before dynamic filter suppliers are requested in distribution planning.
+                        registerDynamicFilteringQuery(plan);
+                        planDistribution(plan);
+                    }
                 }
                 finally {
                     synchronized (this) {
@@ -428,6 +473,14 @@ public class SqlQueryExecution
                     return;
                 }
 
+                if (cachedResult.isPresent()) {
+                    // the output is served by the coordinator, so no stage is scheduled
+                    stateMachine.setCachedResult(cachedResult.get());
+                    stateMachine.transitionToRunning();
+                    stateMachine.transitionToFinishing();
+                    return;
+                }
+
                 // if query is not finished, start the scheduler, otherwise cancel it
                 SqlQueryScheduler scheduler = queryScheduler.get();
 
@@ -485,8 +538,29 @@ public class SqlQueryExecution
                 statsCalculator,
                 costCalculator,
                 stateMachine.getWarningCollector());
-        Plan plan = logicalPlanner.plan(analysis);
+        Session session = stateMachine.getSession();
+        Optional<PlanCacheKey> planCacheKey = planCache.createCacheKey(session, analysis);
+        Optional<Plan> cachedPlan = planCacheKey.flatMap(key -> planCache.get(key, session));
+        Plan plan;
+        if (cachedPlan.isPresent()) {
+            plan = cachedPlan.get();
+        }
+        else {
+            long planningStart = System.nanoTime();
+            plan = logicalPlanner.plan(analysis);
+            if (planCacheKey.isPresent()) {
+                planCache.put(planCacheKey.get(), plan, nanosSince(planningStart), session);
+            }
+        }
+        // the plan is cached without the spooling of the results, which depends on the client
+        boolean spooledResults = isSpooledResults(session, plan);
+        if (spooledResults) {
+            plan = new Plan(((OutputNode) plan.getRoot()).withSpooledResults(), plan.getTypes(), plan.getStatsAndCosts());
+        }
         queryPlan.set(plan);
+        if (isJoinSizeHistoryEnabled(session)) {
+            joinInputs.set(joinSizeHistory.getJoinInputs(session, plan.getRoot()));
+        }
 
         // fragment the plan
         SubPlan fragmentedPlan = planFragmenter.createSubPlans(stateMachine.getSession(), plan, false, stateMachine.getWarningCollector());
@@ -498,7 +572,18 @@ public class SqlQueryExecution
         stateMachine.setOutput(analysis.getTarget());
 
         boolean explainAnalyze = analysis.getStatement() instanceof ExplainAnalyze;
-        return new PlanRoot(fragmentedPlan, !explainAnalyze);
+        Optional<QueryResultCacheKey> resultCacheKey = queryResultCache.createCacheKey(stateMachine.getSession(), analysis.getStatement(), plan);
+        return new PlanRoot(fragmentedPlan, !explainAnalyze, resultCacheKey, spooledResults);
+    }
+
+    private boolean isSpooledResults(Session session, Plan plan)
+    {
+        // the rows of statements which update data are the update count, which the coordinator needs
+        return resultSpool.isEnabled() &&
+                session.getClientCapabilities().contains(ClientCapabilities.SPOOLED_RESULTS.toString()) &&
+                analysis.getUpdateType() == null &&
+                plan.getRoot() instanceof OutputNode &&
+                !plan.getRoot().getOutputSymbols().isEmpty();
     }
 
     private void planDistribution(PlanRoot plan)
@@ -698,11 +783,15 @@ public class SqlQueryExecution
     {
         private final SubPlan root;
         private final boolean summarizeTaskInfos;
+        private final Optional<QueryResultCacheKey> resultCacheKey;
+        private final boolean spooledResults;
 
-        public PlanRoot(SubPlan root, boolean summarizeTaskInfos)
+        public PlanRoot(SubPlan root, boolean summarizeTaskInfos, Optional<QueryResultCacheKey> resultCacheKey, boolean spooledResults)
         {
             this.root = requireNonNull(root, "root is null");
             this.summarizeTaskInfos = summarizeTaskInfos;
+            this.resultCacheKey = requireNonNull(resultCacheKey, "resultCacheKey is null");
+            this.spooledResults = spooledResults;
         }
 
         public SubPlan getRoot()
@@ -714,6 +803,16 @@ public class SqlQueryExecution
         {
             return summarizeTaskInfos;
         }
+
+        public Optional<QueryResultCacheKey> getResultCacheKey()
+        {
+            return resultCacheKey;
+        }
+
+        public boolean isSpooledResults()
+        {
+            return spooledResults;
+        }
     }
 
     public static class SqlQueryExecutionFactory
@@ -741,6 +840,10 @@ public class SqlQueryExecution
         private final StatsCalculator statsCalculator;
         private final CostCalculator costCalculator;
         private final DynamicFilterService dynamicFilterService;
+        private final QueryResultCache queryResultCache;
+        private final PlanCache planCache;
+        private final JoinSizeHistory joinSizeHistory;
+        private final ResultSpool resultSpool;
 
         @Inject
         SqlQueryExecutionFactory(
@@ -765,7 +868,11 @@ public class SqlQueryExecution
                 SplitSchedulerStats schedulerStats,
                 StatsCalculator statsCalculator,
                 CostCalculator costCalculator,
-                DynamicFilterService dynamicFilterService)
+                DynamicFilterService dynamicFilterService,
+                QueryResultCache queryResultCache,
+                PlanCache planCache,
+                JoinSizeHistory joinSizeHistory,
+                ResultSpool resultSpool)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -790,6 +897,10 @@ public class SqlQueryExecution
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
             this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
+            this.joinSizeHistory = requireNonNull(joinSizeHistory, "joinSizeHistory is null");
+            this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
         }
 
         @Override
@@ -829,6 +940,10 @@ public class SqlQueryExecution
                     statsCalculator,
                     costCalculator,
                     dynamicFilterService,
+                    queryResultCache,
+                    planCache,
+                    joinSizeHistory,
+                    resultSpool,
                     warningCollector);
         }
     }
@@ -564,6 +564,7 @@ public final class SqlStageExecution
 
     private synchronized void updateFinalTaskInfo(TaskInfo finalTaskInfo)
     {
+        stateMachine.addFinalTaskInfo(finalTaskInfo);
         tasksWithFinalInfo.add(finalTaskInfo.getTaskStatus().getTaskId());
         checkAllTaskFinal();
     }
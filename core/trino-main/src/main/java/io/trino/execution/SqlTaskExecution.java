@@ -29,14 +29,17 @@ import io.trino.execution.buffer.BufferState;
 import io.trino.execution.buffer.OutputBuffer;
 import io.trino.execution.executor.TaskExecutor;
 import io.trino.execution.executor.TaskHandle;
+import io.trino.execution.resultcache.LeafResultCacheKey;
 import io.trino.operator.Driver;
 import io.trino.operator.DriverContext;
 import io.trino.operator.DriverFactory;
 import io.trino.operator.DriverStats;
+import io.trino.operator.LeafResultCacheOperator.LeafResultCacheOperatorFactory;
 import io.trino.operator.PipelineContext;
 import io.trino.operator.PipelineExecutionStrategy;
 import io.trino.operator.StageExecutionDescriptor;
 import io.trino.operator.TaskContext;
+import io.trino.spi.Page;
 import io.trino.sql.planner.LocalExecutionPlanner.LocalExecutionPlan;
 import io.trino.sql.planner.plan.PlanNodeId;
 
@@ -939,7 +942,7 @@ public class SqlTaskExecution
 
         public Driver createDriver(DriverContext driverContext, @Nullable ScheduledSplit partitionedSplit)
         {
-            Driver driver = driverFactory.createDriver(driverContext);
+            Driver driver = createDriverForSplit(driverContext, partitionedSplit);
 
             // record driver so other threads add unpartitioned sources can see the driver
             // NOTE: this MUST be done before reading unpartitionedSources, so we see a consistent view of the unpartitioned sources
@@ -965,6 +968,27 @@ public class SqlTaskExecution
             return driver;
         }
 
+        private Driver createDriverForSplit(DriverContext driverContext, @Nullable ScheduledSplit partitionedSplit)
+        {
+            Optional<LeafResultCacheOperatorFactory> cacheOperatorFactory = driverFactory.getLeafResultCacheOperatorFactory();
+            if (partitionedSplit == null || cacheOperatorFactory.isEmpty()) {
+                return driverFactory.createDriver(driverContext);
+            }
+            Optional<LeafResultCacheKey> cacheKey = cacheOperatorFactory.get().createCacheKey(partitionedSplit.getSplit());
+            if (cacheKey.isEmpty()) {
+                return driverFactory.createDriver(driverContext);
+            }
+
+            TaskContext taskContext = pipelineContext.getTaskContext();
+            Optional<List<Page>> cachedPages = cacheOperatorFactory.get().getCache().get(cacheKey.get());
+            if (cachedPages.isPresent()) {
+                taskContext.recordLeafResultCacheHit();
+                return driverFactory.createDriverFromCachedPages(driverContext, cachedPages.get());
+            }
+            taskContext.recordLeafResultCacheMiss();
+            return driverFactory.createDriver(driverContext, cacheKey.get());
+        }
+
         public void noMoreDriverRunner(Iterable<Lifespan> lifespans)
         {
             for (Lifespan lifespan : lifespans) {
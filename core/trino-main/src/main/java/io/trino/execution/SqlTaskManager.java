@@ -76,6 +76,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.trino.SystemSessionProperties.getQueryMaxMemoryPerNode;
 import static io.trino.SystemSessionProperties.getQueryMaxTotalMemoryPerNode;
+import static io.trino.SystemSessionProperties.getQueryMemoryGuaranteePerNode;
 import static io.trino.SystemSessionProperties.resourceOvercommit;
 import static io.trino.execution.SqlTask.createSqlTask;
 import static io.trino.memory.LocalMemoryManager.GENERAL_POOL;
@@ -112,6 +113,7 @@ public class SqlTaskManager
 
     private final long queryMaxMemoryPerNode;
     private final long queryMaxTotalMemoryPerNode;
+    private final long queryMemoryGuaranteePerNode;
 
     @GuardedBy("this")
     private long currentMemoryPoolAssignmentVersion;
@@ -160,9 +162,12 @@ public class SqlTaskManager
 
         queryMaxMemoryPerNode = maxQueryMemoryPerNode.toBytes();
         queryMaxTotalMemoryPerNode = maxQueryTotalMemoryPerNode.toBytes();
+        queryMemoryGuaranteePerNode = nodeMemoryConfig.getQueryMemoryGuaranteePerNode().toBytes();
+
+        DataSize memoryAccountingQuantum = nodeMemoryConfig.getMemoryAccountingQuantum();
 
         queryContexts = CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(
-                queryId -> createQueryContext(queryId, localMemoryManager, localSpillManager, gcMonitor, maxQueryMemoryPerNode, maxQueryTotalMemoryPerNode, maxQuerySpillPerNode)));
+                queryId -> createQueryContext(queryId, localMemoryManager, localSpillManager, gcMonitor, maxQueryMemoryPerNode, maxQueryTotalMemoryPerNode, maxQuerySpillPerNode, memoryAccountingQuantum)));
 
         tasks = CacheBuilder.newBuilder().build(CacheLoader.from(
                 taskId -> createSqlTask(
@@ -172,12 +177,27 @@ public class SqlTaskManager
                         queryContexts.getUnchecked(taskId.getQueryId()),
                         sqlTaskExecutionFactory,
                         taskNotificationExecutor,
-                        sqlTask -> finishedTaskStats.merge(sqlTask.getIoStats()),
+                        sqlTask -> {
+                            finishedTaskStats.merge(sqlTask.getIoStats());
+                            releaseMemoryGuaranteeIfQueryDone(sqlTask.getQueryContext());
+                        },
                         maxBufferSize,
                         maxBroadcastBufferSize,
                         failedTasks)));
     }
 
+    private void releaseMemoryGuaranteeIfQueryDone(QueryContext queryContext)
+    {
+        if (queryContext.getMemoryGuarantee() == 0) {
+            return;
+        }
+        boolean hasRunningTasks = tasks.asMap().values().stream()
+                .anyMatch(task -> task.getQueryContext() == queryContext && !task.getTaskState().isDone());
+        if (!hasRunningTasks) {
+            queryContext.setMemoryGuaranteeActive(false);
+        }
+    }
+
     private QueryContext createQueryContext(
             QueryId queryId,
             LocalMemoryManager localMemoryManager,
@@ -185,7 +205,8 @@ public class SqlTaskManager
             GcMonitor gcMonitor,
             DataSize maxQueryUserMemoryPerNode,
             DataSize maxQueryTotalMemoryPerNode,
-            DataSize maxQuerySpillPerNode)
+            DataSize maxQuerySpillPerNode,
+            DataSize memoryAccountingQuantum)
     {
         return new QueryContext(
                 queryId,
@@ -196,7 +217,8 @@ public class SqlTaskManager
                 taskNotificationExecutor,
                 driverYieldExecutor,
                 maxQuerySpillPerNode,
-                localSpillManager.getSpillSpaceTracker());
+                localSpillManager.getSpillSpaceTracker(),
+                memoryAccountingQuantum);
     }
 
     @Override
@@ -410,10 +432,15 @@ public class SqlTaskManager
             long sessionQueryMaxMemoryPerNode = getQueryMaxMemoryPerNode(session).toBytes();
             long sessionQueryTotalMaxMemoryPerNode = getQueryMaxTotalMemoryPerNode(session).toBytes();
             // Session properties are only allowed to decrease memory limits, not increase them
+            long sessionQueryMemoryGuaranteePerNode = getQueryMemoryGuaranteePerNode(session).toBytes();
             queryContext.initializeMemoryLimits(
                     resourceOvercommit(session),
                     min(sessionQueryMaxMemoryPerNode, queryMaxMemoryPerNode),
-                    min(sessionQueryTotalMaxMemoryPerNode, queryMaxTotalMemoryPerNode));
+                    min(sessionQueryTotalMaxMemoryPerNode, queryMaxTotalMemoryPerNode),
+                    min(min(sessionQueryMemoryGuaranteePerNode, queryMemoryGuaranteePerNode), min(sessionQueryMaxMemoryPerNode, queryMaxMemoryPerNode)));
+        }
+        if (!sqlTask.getTaskState().isDone()) {
+            queryContext.setMemoryGuaranteeActive(true);
         }
 
         sqlTask.recordHeartbeat();
@@ -17,6 +17,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.trino.spi.type.Type;
 import io.trino.sql.planner.PlanFragment;
 import io.trino.sql.planner.plan.PlanNodeId;
@@ -27,8 +28,10 @@ import javax.annotation.concurrent.Immutable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 @Immutable
@@ -40,6 +43,7 @@ public class StageInfo
     private final List<Type> types;
     private final StageStats stageStats;
     private final List<TaskInfo> tasks;
+    private final Set<String> nodes;
     private final List<StageInfo> subStages;
     private final ExecutionFailureInfo failureCause;
     private final Map<PlanNodeId, TableInfo> tables;
@@ -52,6 +56,7 @@ public class StageInfo
             @JsonProperty("types") List<Type> types,
             @JsonProperty("stageStats") StageStats stageStats,
             @JsonProperty("tasks") List<TaskInfo> tasks,
+            @JsonProperty("nodes") Set<String> nodes,
             @JsonProperty("subStages") List<StageInfo> subStages,
             @JsonProperty("tables") Map<PlanNodeId, TableInfo> tables,
             @JsonProperty("failureCause") ExecutionFailureInfo failureCause)
@@ -60,6 +65,7 @@ public class StageInfo
         requireNonNull(state, "state is null");
         requireNonNull(stageStats, "stageStats is null");
         requireNonNull(tasks, "tasks is null");
+        requireNonNull(nodes, "nodes is null");
         requireNonNull(subStages, "subStages is null");
         requireNonNull(tables, "tables is null");
 
@@ -69,6 +75,7 @@ public class StageInfo
         this.types = types;
         this.stageStats = stageStats;
         this.tasks = ImmutableList.copyOf(tasks);
+        this.nodes = ImmutableSet.copyOf(nodes);
         this.subStages = subStages;
         this.failureCause = failureCause;
         this.tables = ImmutableMap.copyOf(tables);
@@ -111,6 +118,15 @@ public class StageInfo
         return tasks;
     }
 
+    /**
+     * Identifiers of the nodes the tasks of the stage ran on, which are kept when the tasks are removed.
+     */
+    @JsonProperty
+    public Set<String> getNodes()
+    {
+        return nodes;
+    }
+
     @JsonProperty
     public List<StageInfo> getSubStages()
     {
@@ -134,6 +150,27 @@ public class StageInfo
         return state.isDone() && tasks.stream().allMatch(taskInfo -> taskInfo.getTaskStatus().getState().isDone());
     }
 
+    /**
+     * Returns the information of the stage and its sub stages without the information of the tasks,
+     * which takes most of the memory retained for a finished query with many tasks.
+     */
+    public StageInfo withoutTasks()
+    {
+        return new StageInfo(
+                stageId,
+                state,
+                plan,
+                types,
+                stageStats,
+                ImmutableList.of(),
+                nodes,
+                subStages.stream()
+                        .map(StageInfo::withoutTasks)
+                        .collect(toImmutableList()),
+                tables,
+                failureCause);
+    }
+
     @Override
     public String toString()
     {
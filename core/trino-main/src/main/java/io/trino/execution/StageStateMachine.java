@@ -22,19 +22,16 @@ import io.trino.Session;
 import io.trino.execution.StateMachine.StateChangeListener;
 import io.trino.execution.scheduler.SplitSchedulerStats;
 import io.trino.operator.BlockedReason;
-import io.trino.operator.OperatorStats;
-import io.trino.operator.PipelineStats;
 import io.trino.operator.TaskStats;
-import io.trino.spi.eventlistener.StageGcStatistics;
 import io.trino.sql.planner.PlanFragment;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.sql.planner.plan.TableScanNode;
 import io.trino.util.Failures;
 import org.joda.time.DateTime;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -50,8 +47,9 @@ import java.util.function.Supplier;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static io.airlift.units.DataSize.succinctBytes;
-import static io.airlift.units.Duration.succinctDuration;
 import static io.trino.execution.StageState.ABORTED;
 import static io.trino.execution.StageState.CANCELED;
 import static io.trino.execution.StageState.FAILED;
@@ -64,11 +62,8 @@ import static io.trino.execution.StageState.SCHEDULING;
 import static io.trino.execution.StageState.SCHEDULING_SPLITS;
 import static io.trino.execution.StageState.TERMINAL_STAGE_STATES;
 import static java.lang.Math.max;
-import static java.lang.Math.min;
-import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
-import static java.util.concurrent.TimeUnit.SECONDS;
 
 @ThreadSafe
 public class StageStateMachine
@@ -94,6 +89,11 @@ public class StageStateMachine
     private final AtomicLong currentRevocableMemory = new AtomicLong();
     private final AtomicLong currentTotalMemory = new AtomicLong();
 
+    @GuardedBy("this")
+    private final StageStatsAccumulator finalTaskStats = new StageStatsAccumulator();
+    @GuardedBy("this")
+    private final Set<TaskId> tasksWithFinalStats = new HashSet<>();
+
     public StageStateMachine(
             StageId stageId,
             Session session,
@@ -226,6 +226,18 @@ public class StageStateMachine
         finalStageInfo.compareAndSet(Optional.empty(), Optional.of(stageInfo));
     }
 
+    /**
+     * Adds the statistics of a task that received its final information to the statistics
+     * of the stage, so that they are not summed again every time the stage information is built.
+     */
+    public synchronized void addFinalTaskInfo(TaskInfo finalTaskInfo)
+    {
+        checkArgument(finalTaskInfo.getTaskStatus().getState().isDone(), "task is not done");
+        if (tasksWithFinalStats.add(finalTaskInfo.getTaskStatus().getTaskId())) {
+            finalTaskStats.add(finalTaskInfo);
+        }
+    }
+
     public long getUserMemoryReservation()
     {
         return currentUserMemory.get();
@@ -379,181 +391,25 @@ public class StageStateMachine
 
         List<TaskInfo> taskInfos = ImmutableList.copyOf(taskInfosSupplier.get());
 
-        int totalTasks = taskInfos.size();
-        int runningTasks = 0;
-        int completedTasks = 0;
-
-        int totalDrivers = 0;
-        int queuedDrivers = 0;
-        int runningDrivers = 0;
-        int blockedDrivers = 0;
-        int completedDrivers = 0;
-
-        long cumulativeUserMemory = 0;
-        long cumulativeSystemMemory = 0;
-        long userMemoryReservation = 0;
-        long revocableMemoryReservation = 0;
-        long totalMemoryReservation = 0;
-        long peakUserMemoryReservation = peakUserMemory.get();
-        long peakRevocableMemoryReservation = peakRevocableMemory.get();
-
-        long totalScheduledTime = 0;
-        long totalCpuTime = 0;
-        long totalBlockedTime = 0;
-
-        long physicalInputDataSize = 0;
-        long physicalInputPositions = 0;
-        long physicalInputReadTime = 0;
-
-        long internalNetworkInputDataSize = 0;
-        long internalNetworkInputPositions = 0;
-
-        long rawInputDataSize = 0;
-        long rawInputPositions = 0;
-
-        long processedInputDataSize = 0;
-        long processedInputPositions = 0;
-
-        long bufferedDataSize = 0;
-        long outputDataSize = 0;
-        long outputPositions = 0;
-
-        long physicalWrittenDataSize = 0;
-
-        int fullGcCount = 0;
-        int fullGcTaskCount = 0;
-        int minFullGcSec = 0;
-        int maxFullGcSec = 0;
-        int totalFullGcSec = 0;
-
-        boolean fullyBlocked = true;
-        Set<BlockedReason> blockedReasons = new HashSet<>();
-
-        Map<String, OperatorStats> operatorToStats = new HashMap<>();
-        for (TaskInfo taskInfo : taskInfos) {
-            TaskState taskState = taskInfo.getTaskStatus().getState();
-            if (taskState.isDone()) {
-                completedTasks++;
-            }
-            else {
-                runningTasks++;
-            }
-
-            TaskStats taskStats = taskInfo.getStats();
-
-            totalDrivers += taskStats.getTotalDrivers();
-            queuedDrivers += taskStats.getQueuedDrivers();
-            runningDrivers += taskStats.getRunningDrivers();
-            blockedDrivers += taskStats.getBlockedDrivers();
-            completedDrivers += taskStats.getCompletedDrivers();
-
-            cumulativeUserMemory += taskStats.getCumulativeUserMemory();
-            cumulativeSystemMemory += taskStats.getCumulativeSystemMemory();
-
-            long taskUserMemory = taskStats.getUserMemoryReservation().toBytes();
-            long taskSystemMemory = taskStats.getSystemMemoryReservation().toBytes();
-            long taskRevocableMemory = taskStats.getRevocableMemoryReservation().toBytes();
-            userMemoryReservation += taskUserMemory;
-            revocableMemoryReservation += taskRevocableMemory;
-            totalMemoryReservation += taskUserMemory + taskSystemMemory + taskRevocableMemory;
-
-            totalScheduledTime += taskStats.getTotalScheduledTime().roundTo(NANOSECONDS);
-            totalCpuTime += taskStats.getTotalCpuTime().roundTo(NANOSECONDS);
-            totalBlockedTime += taskStats.getTotalBlockedTime().roundTo(NANOSECONDS);
-            if (!taskState.isDone()) {
-                fullyBlocked &= taskStats.isFullyBlocked();
-                blockedReasons.addAll(taskStats.getBlockedReasons());
-            }
-
-            physicalInputDataSize += taskStats.getPhysicalInputDataSize().toBytes();
-            physicalInputPositions += taskStats.getPhysicalInputPositions();
-            physicalInputReadTime += taskStats.getPhysicalInputReadTime().roundTo(NANOSECONDS);
-
-            internalNetworkInputDataSize += taskStats.getInternalNetworkInputDataSize().toBytes();
-            internalNetworkInputPositions += taskStats.getInternalNetworkInputPositions();
-
-            rawInputDataSize += taskStats.getRawInputDataSize().toBytes();
-            rawInputPositions += taskStats.getRawInputPositions();
-
-            processedInputDataSize += taskStats.getProcessedInputDataSize().toBytes();
-            processedInputPositions += taskStats.getProcessedInputPositions();
-
-            bufferedDataSize += taskInfo.getOutputBuffers().getTotalBufferedBytes();
-            outputDataSize += taskStats.getOutputDataSize().toBytes();
-            outputPositions += taskStats.getOutputPositions();
-
-            physicalWrittenDataSize += taskStats.getPhysicalWrittenDataSize().toBytes();
-
-            fullGcCount += taskStats.getFullGcCount();
-            fullGcTaskCount += taskStats.getFullGcCount() > 0 ? 1 : 0;
-
-            int gcSec = toIntExact(taskStats.getFullGcTime().roundTo(SECONDS));
-            totalFullGcSec += gcSec;
-            minFullGcSec = min(minFullGcSec, gcSec);
-            maxFullGcSec = max(maxFullGcSec, gcSec);
-
-            for (PipelineStats pipeline : taskStats.getPipelines()) {
-                for (OperatorStats operatorStats : pipeline.getOperatorSummaries()) {
-                    String id = pipeline.getPipelineId() + "." + operatorStats.getOperatorId();
-                    operatorToStats.compute(id, (k, v) -> v == null ? operatorStats : v.add(operatorStats));
-                }
-            }
+        // the stats of the tasks with final information are already summed, only add the others
+        StageStatsAccumulator accumulator;
+        List<TaskInfo> pendingTaskInfos;
+        synchronized (this) {
+            accumulator = new StageStatsAccumulator(finalTaskStats);
+            pendingTaskInfos = taskInfos.stream()
+                    .filter(taskInfo -> !tasksWithFinalStats.contains(taskInfo.getTaskStatus().getTaskId()))
+                    .collect(toImmutableList());
+        }
+        for (TaskInfo taskInfo : pendingTaskInfos) {
+            accumulator.add(taskInfo);
         }
 
-        StageStats stageStats = new StageStats(
+        StageStats stageStats = accumulator.toStageStats(
+                stageId,
                 schedulingComplete.get(),
                 getSplitDistribution.snapshot(),
-
-                totalTasks,
-                runningTasks,
-                completedTasks,
-
-                totalDrivers,
-                queuedDrivers,
-                runningDrivers,
-                blockedDrivers,
-                completedDrivers,
-
-                cumulativeUserMemory,
-                cumulativeSystemMemory,
-                succinctBytes(userMemoryReservation),
-                succinctBytes(revocableMemoryReservation),
-                succinctBytes(totalMemoryReservation),
-                succinctBytes(peakUserMemoryReservation),
-                succinctBytes(peakRevocableMemoryReservation),
-                succinctDuration(totalScheduledTime, NANOSECONDS),
-                succinctDuration(totalCpuTime, NANOSECONDS),
-                succinctDuration(totalBlockedTime, NANOSECONDS),
-                fullyBlocked && runningTasks > 0,
-                blockedReasons,
-
-                succinctBytes(physicalInputDataSize),
-                physicalInputPositions,
-                succinctDuration(physicalInputReadTime, NANOSECONDS),
-
-                succinctBytes(internalNetworkInputDataSize),
-                internalNetworkInputPositions,
-
-                succinctBytes(rawInputDataSize),
-                rawInputPositions,
-
-                succinctBytes(processedInputDataSize),
-                processedInputPositions,
-                succinctBytes(bufferedDataSize),
-                succinctBytes(outputDataSize),
-                outputPositions,
-                succinctBytes(physicalWrittenDataSize),
-
-                new StageGcStatistics(
-                        stageId.getId(),
-                        totalTasks,
-                        fullGcTaskCount,
-                        minFullGcSec,
-                        maxFullGcSec,
-                        totalFullGcSec,
-                        (int) (1.0 * totalFullGcSec / fullGcCount)),
-
-                ImmutableList.copyOf(operatorToStats.values()));
+                peakUserMemory.get(),
+                peakRevocableMemory.get());
 
         ExecutionFailureInfo failureInfo = null;
         if (state == FAILED) {
@@ -565,6 +421,9 @@ public class StageStateMachine
                 fragment.getTypes(),
                 stageStats,
                 taskInfos,
+                taskInfos.stream()
+                        .map(taskInfo -> taskInfo.getTaskStatus().getNodeId())
+                        .collect(toImmutableSet()),
                 ImmutableList.of(),
                 tables,
                 failureInfo);
@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.Distribution.DistributionSnapshot;
+import io.trino.operator.BlockedReason;
+import io.trino.operator.OperatorStats;
+import io.trino.operator.PipelineStats;
+import io.trino.operator.TaskStats;
+import io.trino.spi.eventlistener.StageGcStatistics;
+import org.joda.time.DateTime;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static io.airlift.units.DataSize.succinctBytes;
+import static io.airlift.units.Duration.succinctDuration;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Sums the statistics of the tasks of a stage. The statistics of the tasks that are
+ * done do not change anymore, so they are added once, when the final information of
+ * the task is received, instead of every time the information of the stage is built.
+ */
+@NotThreadSafe
+class StageStatsAccumulator
+{
+    private int runningTasks;
+    private int completedTasks;
+
+    private int totalDrivers;
+    private int queuedDrivers;
+    private int runningDrivers;
+    private int blockedDrivers;
+    private int completedDrivers;
+
+    private long cumulativeUserMemory;
+    private long cumulativeSystemMemory;
+    private long userMemoryReservation;
+    private long revocableMemoryReservation;
+    private long totalMemoryReservation;
+
+    private long totalScheduledTime;
+    private long totalCpuTime;
+    private long totalBlockedTime;
+
+    private long physicalInputDataSize;
+    private long physicalInputPositions;
+    private long physicalInputReadTime;
+
+    private long internalNetworkInputDataSize;
+    private long internalNetworkInputPositions;
+
+    private long rawInputDataSize;
+    private long rawInputPositions;
+
+    private long processedInputDataSize;
+    private long processedInputPositions;
+
+    private long bufferedDataSize;
+    private long outputDataSize;
+    private long outputPositions;
+
+    private long physicalWrittenDataSize;
+
+    private int fullGcCount;
+    private int fullGcTaskCount;
+    private int minFullGcSec;
+    private int maxFullGcSec;
+    private int totalFullGcSec;
+
+    private boolean fullyBlocked = true;
+    private final Set<BlockedReason> blockedReasons = new HashSet<>();
+
+    private final Map<String, OperatorStats> operatorToStats = new HashMap<>();
+
+    public StageStatsAccumulator() {}
+
+    public StageStatsAccumulator(StageStatsAccumulator other)
+    {
+        runningTasks = other.runningTasks;
+        completedTasks = other.completedTasks;
+
+        totalDrivers = other.totalDrivers;
+        queuedDrivers = other.queuedDrivers;
+        runningDrivers = other.runningDrivers;
+        blockedDrivers = other.blockedDrivers;
+        completedDrivers = other.completedDrivers;
+
+        cumulativeUserMemory = other.cumulativeUserMemory;
+        cumulativeSystemMemory = other.cumulativeSystemMemory;
+        userMemoryReservation = other.userMemoryReservation;
+        revocableMemoryReservation = other.revocableMemoryReservation;
+        totalMemoryReservation = other.totalMemoryReservation;
+
+        totalScheduledTime = other.totalScheduledTime;
+        totalCpuTime = other.totalCpuTime;
+        totalBlockedTime = other.totalBlockedTime;
+
+        physicalInputDataSize = other.physicalInputDataSize;
+        physicalInputPositions = other.physicalInputPositions;
+        physicalInputReadTime = other.physicalInputReadTime;
+
+        internalNetworkInputDataSize = other.internalNetworkInputDataSize;
+        internalNetworkInputPositions = other.internalNetworkInputPositions;
+
+        rawInputDataSize = other.rawInputDataSize;
+        rawInputPositions = other.rawInputPositions;
+
+        processedInputDataSize = other.processedInputDataSize;
+        processedInputPositions = other.processedInputPositions;
+
+        bufferedDataSize = other.bufferedDataSize;
+        outputDataSize = other.outputDataSize;
+        outputPositions = other.outputPositions;
+
+        physicalWrittenDataSize = other.physicalWrittenDataSize;
+
+        fullGcCount = other.fullGcCount;
+        fullGcTaskCount = other.fullGcTaskCount;
+        minFullGcSec = other.minFullGcSec;
+        maxFullGcSec = other.maxFullGcSec;
+        totalFullGcSec = other.totalFullGcSec;
+
+        fullyBlocked = other.fullyBlocked;
+        blockedReasons.addAll(other.blockedReasons);
+
+        operatorToStats.putAll(other.operatorToStats);
+    }
+
+    public void add(TaskInfo taskInfo)
+    {
+        boolean taskDone = taskInfo.getTaskStatus().getState().isDone();
+        if (taskDone) {
+            completedTasks++;
+        }
+        else {
+            runningTasks++;
+        }
+
+        TaskStats taskStats = taskInfo.getStats();
+
+        totalDrivers += taskStats.getTotalDrivers();
+        queuedDrivers += taskStats.getQueuedDrivers();
+        runningDrivers += taskStats.getRunningDrivers();
+        blockedDrivers += taskStats.getBlockedDrivers();
+        completedDrivers += taskStats.getCompletedDrivers();
+
+        cumulativeUserMemory += taskStats.getCumulativeUserMemory();
+        cumulativeSystemMemory += taskStats.getCumulativeSystemMemory();
+
+        long taskUserMemory = taskStats.getUserMemoryReservation().toBytes();
+        long taskSystemMemory = taskStats.getSystemMemoryReservation().toBytes();
+        long taskRevocableMemory = taskStats.getRevocableMemoryReservation().toBytes();
+        userMemoryReservation += taskUserMemory;
+        revocableMemoryReservation += taskRevocableMemory;
+        totalMemoryReservation += taskUserMemory + taskSystemMemory + taskRevocableMemory;
+
+        totalScheduledTime += taskStats.getTotalScheduledTime().roundTo(NANOSECONDS);
+        totalCpuTime += taskStats.getTotalCpuTime().roundTo(NANOSECONDS);
+        totalBlockedTime += taskStats.getTotalBlockedTime().roundTo(NANOSECONDS);
+        if (!taskDone) {
+            fullyBlocked &= taskStats.isFullyBlocked();
+            blockedReasons.addAll(taskStats.getBlockedReasons());
+        }
+
+        physicalInputDataSize += taskStats.getPhysicalInputDataSize().toBytes();
+        physicalInputPositions += taskStats.getPhysicalInputPositions();
+        physicalInputReadTime += taskStats.getPhysicalInputReadTime().roundTo(NANOSECONDS);
+
+        internalNetworkInputDataSize += taskStats.getInternalNetworkInputDataSize().toBytes();
+        internalNetworkInputPositions += taskStats.getInternalNetworkInputPositions();
+
+        rawInputDataSize += taskStats.getRawInputDataSize().toBytes();
+        rawInputPositions += taskStats.getRawInputPositions();
+
+        processedInputDataSize += taskStats.getProcessedInputDataSize().toBytes();
+        processedInputPositions += taskStats.getProcessedInputPositions();
+
+        bufferedDataSize += taskInfo.getOutputBuffers().getTotalBufferedBytes();
+        outputDataSize += taskStats.getOutputDataSize().toBytes();
+        outputPositions += taskStats.getOutputPositions();
+
+        physicalWrittenDataSize += taskStats.getPhysicalWrittenDataSize().toBytes();
+
+        fullGcCount += taskStats.getFullGcCount();
+        fullGcTaskCount += taskStats.getFullGcCount() > 0 ? 1 : 0;
+
+        int gcSec = toIntExact(taskStats.getFullGcTime().roundTo(SECONDS));
+        totalFullGcSec += gcSec;
+        minFullGcSec = min(minFullGcSec, gcSec);
+        maxFullGcSec = max(maxFullGcSec, gcSec);
+
+        for (PipelineStats pipeline : taskStats.getPipelines()) {
+            for (OperatorStats operatorStats : pipeline.getOperatorSummaries()) {
+                String id = pipeline.getPipelineId() + "." + operatorStats.getOperatorId();
+                operatorToStats.merge(id, operatorStats, (current, added) -> current.add(added));
+            }
+        }
+    }
+
+    public StageStats toStageStats(
+            StageId stageId,
+            DateTime schedulingComplete,
+            DistributionSnapshot getSplitDistribution,
+            long peakUserMemoryReservation,
+            long peakRevocableMemoryReservation)
+    {
+        int totalTasks = runningTasks + completedTasks;
+        return new StageStats(
+                schedulingComplete,
+                getSplitDistribution,
+
+                totalTasks,
+                runningTasks,
+                completedTasks,
+
+                totalDrivers,
+                queuedDrivers,
+                runningDrivers,
+                blockedDrivers,
+                completedDrivers,
+
+                cumulativeUserMemory,
+                cumulativeSystemMemory,
+                succinctBytes(userMemoryReservation),
+                succinctBytes(revocableMemoryReservation),
+                succinctBytes(totalMemoryReservation),
+                succinctBytes(peakUserMemoryReservation),
+                succinctBytes(peakRevocableMemoryReservation),
+                succinctDuration(totalScheduledTime, NANOSECONDS),
+                succinctDuration(totalCpuTime, NANOSECONDS),
+                succinctDuration(totalBlockedTime, NANOSECONDS),
+                fullyBlocked && runningTasks > 0,
+                blockedReasons,
+
+                succinctBytes(physicalInputDataSize),
+                physicalInputPositions,
+                succinctDuration(physicalInputReadTime, NANOSECONDS),
+
+                succinctBytes(internalNetworkInputDataSize),
+                internalNetworkInputPositions,
+
+                succinctBytes(rawInputDataSize),
+                rawInputPositions,
+
+                succinctBytes(processedInputDataSize),
+                processedInputPositions,
+                succinctBytes(bufferedDataSize),
+                succinctBytes(outputDataSize),
+                outputPositions,
+                succinctBytes(physicalWrittenDataSize),
+
+                new StageGcStatistics(
+                        stageId.getId(),
+                        totalTasks,
+                        fullGcTaskCount,
+                        minFullGcSec,
+                        maxFullGcSec,
+                        totalFullGcSec,
+                        (int) (1.0 * totalFullGcSec / fullGcCount)),
+
+                ImmutableList.copyOf(operatorToStats.values()));
+    }
+}
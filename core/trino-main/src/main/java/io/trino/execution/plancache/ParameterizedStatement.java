@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.trino.Session;
+import io.trino.metadata.Metadata;
+import io.trino.spi.predicate.NullableValue;
+import io.trino.spi.type.CharType;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+import io.trino.sql.analyzer.Analysis;
+import io.trino.sql.parser.ParsingException;
+import io.trino.sql.parser.SqlParser;
+import io.trino.sql.planner.LiteralInterpreter;
+import io.trino.sql.tree.CharLiteral;
+import io.trino.sql.tree.DecimalLiteral;
+import io.trino.sql.tree.DoubleLiteral;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.FetchFirst;
+import io.trino.sql.tree.GenericLiteral;
+import io.trino.sql.tree.Limit;
+import io.trino.sql.tree.Literal;
+import io.trino.sql.tree.LongLiteral;
+import io.trino.sql.tree.Node;
+import io.trino.sql.tree.NodeLocation;
+import io.trino.sql.tree.NodeRef;
+import io.trino.sql.tree.Offset;
+import io.trino.sql.tree.Parameter;
+import io.trino.sql.tree.SampledRelation;
+import io.trino.sql.tree.Statement;
+import io.trino.sql.tree.StringLiteral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DateType.DATE;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.RealType.REAL;
+import static io.trino.spi.type.SmallintType.SMALLINT;
+import static io.trino.spi.type.TinyintType.TINYINT;
+import static io.trino.sql.ExpressionFormatter.formatExpression;
+import static io.trino.sql.ParsingUtil.createParsingOptions;
+import static io.trino.sql.SqlFormatter.formatSql;
+import static io.trino.sql.util.AstUtils.preOrder;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Text of a statement in which the literals and the parameters are replaced by placeholders,
+ * and the values bound to the placeholders, so that executions of the statement with different
+ * values can share a plan.
+ * <p>
+ * Only literals and parameter values of types which the planner encodes as plain constants are bound.
+ * The other literals and parameter values are kept in the text, and the values of the parameters
+ * that are not bound are part of the identity of the statement.
+ */
+final class ParameterizedStatement
+{
+    private static final String PLACEHOLDER = "?";
+    private static final Set<Type> BINDABLE_TYPES = ImmutableSet.of(TINYINT, SMALLINT, INTEGER, BIGINT, REAL, DOUBLE, DATE);
+
+    private final String statement;
+    private final List<String> parameters;
+    private final List<NullableValue> values;
+
+    private ParameterizedStatement(String statement, List<String> parameters, List<NullableValue> values)
+    {
+        this.statement = requireNonNull(statement, "statement is null");
+        this.parameters = ImmutableList.copyOf(requireNonNull(parameters, "parameters is null"));
+        this.values = ImmutableList.copyOf(requireNonNull(values, "values is null"));
+    }
+
+    /**
+     * Text of the statement, with the bound literals replaced by placeholders.
+     */
+    public String getStatement()
+    {
+        return statement;
+    }
+
+    /**
+     * Values of the parameters in the order in which they appear in the statement, with the
+     * bound parameters replaced by placeholders.
+     */
+    public List<String> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Values bound to the placeholders, in the order in which they appear in the statement.
+     */
+    public List<NullableValue> getValues()
+    {
+        return values;
+    }
+
+    public static ParameterizedStatement create(Session session, Metadata metadata, SqlParser sqlParser, Analysis analysis, boolean bindValues)
+    {
+        Statement statement = analysis.getStatement();
+        String sql = formatSql(statement);
+        List<Node> nodes = findLiteralsAndParameters(statement);
+        if (!bindValues) {
+            return unbound(sql, nodes, analysis);
+        }
+
+        // the location of the literals in the formatted text is known from parsing the text again
+        Statement reparsed;
+        try {
+            reparsed = sqlParser.createStatement(sql, createParsingOptions(session));
+        }
+        catch (ParsingException e) {
+            return unbound(sql, nodes, analysis);
+        }
+        if (!reparsed.equals(statement)) {
+            return unbound(sql, nodes, analysis);
+        }
+        List<Node> reparsedNodes = findLiteralsAndParameters(reparsed);
+        verify(reparsedNodes.size() == nodes.size(), "statements are equal, but have different literals");
+
+        Set<Node> notBindable = findNotBindableExpressions(statement);
+        List<Integer> lineOffsets = getLineOffsets(sql);
+        List<Integer> placeholderOffsets = new ArrayList<>();
+        List<Integer> placeholderLengths = new ArrayList<>();
+        ImmutableList.Builder<String> parameters = ImmutableList.builder();
+        ImmutableList.Builder<NullableValue> values = ImmutableList.builder();
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node instanceof Parameter) {
+                Expression parameterValue = analysis.getParameters().get(NodeRef.of((Parameter) node));
+                Optional<NullableValue> value = notBindable.contains(node) ? Optional.empty() : getBindableValue(session, metadata, analysis, parameterValue);
+                if (value.isPresent()) {
+                    parameters.add(PLACEHOLDER);
+                    values.add(value.get());
+                }
+                else {
+                    parameters.add(formatExpression(parameterValue));
+                }
+                continue;
+            }
+
+            Expression literal = (Expression) node;
+            Optional<NullableValue> value = notBindable.contains(node) ? Optional.empty() : getBindableValue(session, metadata, analysis, literal);
+            if (value.isEmpty()) {
+                continue;
+            }
+            Optional<NodeLocation> location = reparsedNodes.get(i).getLocation();
+            if (location.isEmpty()) {
+                return unbound(sql, nodes, analysis);
+            }
+            int offset = lineOffsets.get(location.get().getLineNumber() - 1) + location.get().getColumnNumber() - 1;
+            String text = formatExpression(literal);
+            if (!sql.startsWith(text, offset)) {
+                return unbound(sql, nodes, analysis);
+            }
+            placeholderOffsets.add(offset);
+            placeholderLengths.add(text.length());
+            values.add(value.get());
+        }
+
+        StringBuilder parameterizedSql = new StringBuilder(sql);
+        for (int i = placeholderOffsets.size() - 1; i >= 0; i--) {
+            int offset = placeholderOffsets.get(i);
+            parameterizedSql.replace(offset, offset + placeholderLengths.get(i), PLACEHOLDER);
+        }
+        return new ParameterizedStatement(parameterizedSql.toString(), parameters.build(), values.build());
+    }
+
+    private static ParameterizedStatement unbound(String sql, List<Node> nodes, Analysis analysis)
+    {
+        List<String> parameters = nodes.stream()
+                .filter(Parameter.class::isInstance)
+                .map(parameter -> formatExpression(analysis.getParameters().get(NodeRef.of((Parameter) parameter))))
+                .collect(toImmutableList());
+        return new ParameterizedStatement(sql, parameters, ImmutableList.of());
+    }
+
+    private static List<Node> findLiteralsAndParameters(Statement statement)
+    {
+        return preOrder(statement)
+                .filter(node -> node instanceof Literal || node instanceof Parameter)
+                .collect(toImmutableList());
+    }
+
+    /**
+     * The planner stores the row counts and the sample ratio in the plan nodes, and not as expressions.
+     */
+    private static Set<Node> findNotBindableExpressions(Statement statement)
+    {
+        return preOrder(statement)
+                .flatMap(node -> {
+                    if (node instanceof Limit) {
+                        return Stream.of(((Limit) node).getRowCount());
+                    }
+                    if (node instanceof Offset) {
+                        return Stream.of(((Offset) node).getRowCount());
+                    }
+                    if (node instanceof FetchFirst) {
+                        return ((FetchFirst) node).getRowCount().stream();
+                    }
+                    if (node instanceof SampledRelation) {
+                        return Stream.of(((SampledRelation) node).getSamplePercentage());
+                    }
+                    return Stream.empty();
+                })
+                .collect(toImmutableSet());
+    }
+
+    private static Optional<NullableValue> getBindableValue(Session session, Metadata metadata, Analysis analysis, Expression expression)
+    {
+        if (!(expression instanceof LongLiteral ||
+                expression instanceof DoubleLiteral ||
+                expression instanceof DecimalLiteral ||
+                expression instanceof StringLiteral ||
+                expression instanceof CharLiteral ||
+                expression instanceof GenericLiteral)) {
+            return Optional.empty();
+        }
+        Type type = analysis.getTypes().get(NodeRef.of(expression));
+        if (type == null || !isBindableType(type)) {
+            return Optional.empty();
+        }
+        Object value = LiteralInterpreter.evaluate(metadata, session.toConnectorSession(), analysis.getTypes(), expression);
+        if (value == null) {
+            return Optional.empty();
+        }
+        return Optional.of(NullableValue.of(type, value));
+    }
+
+    /**
+     * Types of the values which the planner encodes as literals, or as casts of literals.
+     */
+    public static boolean isBindableType(Type type)
+    {
+        return BINDABLE_TYPES.contains(type) ||
+                type instanceof DecimalType ||
+                type instanceof VarcharType ||
+                type instanceof CharType;
+    }
+
+    private static List<Integer> getLineOffsets(String sql)
+    {
+        ImmutableList.Builder<Integer> offsets = ImmutableList.builder();
+        offsets.add(0);
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '\n') {
+                offsets.add(i + 1);
+            }
+        }
+        return offsets.build();
+    }
+}
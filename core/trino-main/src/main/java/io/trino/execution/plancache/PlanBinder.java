@@ -0,0 +1,452 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import io.trino.Session;
+import io.trino.cost.StatsAndCosts;
+import io.trino.execution.plancache.PlanTemplate.BoundConstant;
+import io.trino.metadata.Metadata;
+import io.trino.metadata.QualifiedObjectName;
+import io.trino.metadata.TableHandle;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.NullableValue;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.SortedRangeSet;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.Type;
+import io.trino.sql.InterpretedFunctionInvoker;
+import io.trino.sql.planner.ExpressionInterpreter;
+import io.trino.sql.planner.LiteralEncoder;
+import io.trino.sql.planner.Plan;
+import io.trino.sql.planner.TypeAnalyzer;
+import io.trino.sql.planner.plan.FilterNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.planner.plan.ProjectNode;
+import io.trino.sql.planner.plan.SimplePlanRewriter;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.sql.planner.plan.ValuesNode;
+import io.trino.sql.tree.Cast;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.ExpressionRewriter;
+import io.trino.sql.tree.ExpressionTreeRewriter;
+import io.trino.sql.tree.Literal;
+import io.trino.sql.tree.Node;
+import io.trino.sql.tree.NodeRef;
+import io.trino.sql.tree.NullLiteral;
+import io.trino.transaction.TransactionManager;
+import io.trino.type.TypeCoercion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.execution.plancache.ParameterizedStatement.isBindableType;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.sql.planner.planprinter.PlanPrinter.textLogicalPlan;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates templates from optimized plans, and binds the templates to the values of other executions
+ * of the same statement. The values appear in the plan as constants of filter, projection and values
+ * expressions, and as bounds of the constraints enforced by the connectors of the scanned tables.
+ */
+final class PlanBinder
+{
+    private final Metadata metadata;
+    private final TypeAnalyzer typeAnalyzer;
+    private final TransactionManager transactionManager;
+    private final TypeCoercion typeCoercion;
+    private final InterpretedFunctionInvoker functionInvoker;
+    private final LiteralEncoder literalEncoder;
+
+    public PlanBinder(Metadata metadata, TypeAnalyzer typeAnalyzer, TransactionManager transactionManager)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.typeAnalyzer = requireNonNull(typeAnalyzer, "typeAnalyzer is null");
+        this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
+        this.typeCoercion = new TypeCoercion(metadata::getType);
+        this.functionInvoker = new InterpretedFunctionInvoker(metadata);
+        this.literalEncoder = new LiteralEncoder(metadata);
+    }
+
+    /**
+     * Returns the template of the plan, or empty if some of the values do not appear in the plan,
+     * or if a constant of the plan matches more than one of the values.
+     */
+    public Optional<PlanTemplate> createTemplate(Session session, Plan plan, Duration planningTime, List<NullableValue> values)
+    {
+        boolean[] bound = new boolean[values.size()];
+        Map<NodeRef<Expression>, BoundConstant> constants = new HashMap<>();
+        for (Expression expression : getExpressions(plan.getRoot())) {
+            Map<NodeRef<Expression>, Type> types = typeAnalyzer.getTypes(session, plan.getTypes(), expression);
+            for (Expression constant : findConstants(expression, types)) {
+                Type type = types.get(NodeRef.of(constant));
+                Object value;
+                try {
+                    value = new ExpressionInterpreter(constant, metadata, session, types).evaluate();
+                }
+                catch (RuntimeException e) {
+                    continue;
+                }
+                List<Integer> matches = findMatches(session, values, type, value);
+                if (matches.size() > 1) {
+                    return Optional.empty();
+                }
+                if (matches.size() == 1) {
+                    bound[matches.get(0)] = true;
+                    constants.put(NodeRef.of(constant), new BoundConstant(matches.get(0), type));
+                }
+            }
+        }
+
+        ImmutableMap.Builder<PlanNodeId, QualifiedObjectName> reboundTableScans = ImmutableMap.builder();
+        for (TableScanNode tableScan : searchFrom(plan.getRoot()).where(TableScanNode.class::isInstance).<TableScanNode>findAll()) {
+            boolean rebound = false;
+            for (Domain domain : tableScan.getEnforcedConstraint().getDomains().orElse(ImmutableMap.of()).values()) {
+                for (Object value : getRangeBounds(domain)) {
+                    List<Integer> matches = findMatches(session, values, domain.getType(), value);
+                    if (matches.size() > 1) {
+                        return Optional.empty();
+                    }
+                    if (matches.size() == 1) {
+                        bound[matches.get(0)] = true;
+                        rebound = true;
+                    }
+                }
+            }
+            if (rebound) {
+                if (metadata.usesLegacyTableLayouts(session, tableScan.getTable())) {
+                    return Optional.empty();
+                }
+                reboundTableScans.put(tableScan.getId(), metadata.getTableMetadata(session, tableScan.getTable()).getQualifiedName());
+            }
+        }
+
+        for (boolean valueBound : bound) {
+            if (!valueBound) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new PlanTemplate(plan, planningTime, values, constants, reboundTableScans.build(), false));
+    }
+
+    /**
+     * Returns the plan of the template with the values replaced by the given values, and with the table
+     * handles bound to the transaction of the session, or empty if the values cannot be bound.
+     */
+    public Optional<Plan> bind(Session session, PlanTemplate template, List<NullableValue> values)
+    {
+        Plan plan = template.getPlan();
+        try {
+            PlanNode root = SimplePlanRewriter.rewriteWith(new Binder(session, Optional.of(template), values), plan.getRoot());
+            return Optional.of(new Plan(root, plan.getTypes(), plan.getStatsAndCosts()));
+        }
+        catch (BindingException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the plan with the table handles bound to the transaction of the session.
+     */
+    public Plan bindTransaction(Session session, Plan plan)
+    {
+        PlanNode root = SimplePlanRewriter.rewriteWith(new Binder(session, Optional.empty(), ImmutableList.of()), plan.getRoot());
+        return new Plan(root, plan.getTypes(), plan.getStatsAndCosts());
+    }
+
+    public boolean isSamePlan(Session session, Plan left, Plan right)
+    {
+        return textLogicalPlan(left.getRoot(), left.getTypes(), metadata, StatsAndCosts.empty(), session, 0, true)
+                .equals(textLogicalPlan(right.getRoot(), right.getTypes(), metadata, StatsAndCosts.empty(), session, 0, true)) &&
+                getTableScans(left).equals(getTableScans(right));
+    }
+
+    private static List<List<Object>> getTableScans(Plan plan)
+    {
+        return searchFrom(plan.getRoot())
+                .where(TableScanNode.class::isInstance)
+                .<TableScanNode>findAll().stream()
+                .map(tableScan -> ImmutableList.<Object>of(
+                        tableScan.getTable().getCatalogName(),
+                        tableScan.getTable().getConnectorHandle(),
+                        tableScan.getTable().getLayout(),
+                        tableScan.getEnforcedConstraint()))
+                .collect(toImmutableList());
+    }
+
+    private static List<Expression> getExpressions(PlanNode root)
+    {
+        ImmutableList.Builder<Expression> expressions = ImmutableList.builder();
+        for (PlanNode node : searchFrom(root).findAll()) {
+            if (node instanceof FilterNode) {
+                expressions.add(((FilterNode) node).getPredicate());
+            }
+            else if (node instanceof ProjectNode) {
+                expressions.addAll(((ProjectNode) node).getAssignments().getExpressions());
+            }
+            else if (node instanceof ValuesNode) {
+                ((ValuesNode) node).getRows().ifPresent(expressions::addAll);
+            }
+        }
+        return expressions.build();
+    }
+
+    /**
+     * The planner encodes values as literals, or as casts of literals.
+     */
+    private static List<Expression> findConstants(Expression expression, Map<NodeRef<Expression>, Type> types)
+    {
+        List<Expression> constants = new ArrayList<>();
+        findConstants(expression, types, constants);
+        return constants;
+    }
+
+    private static void findConstants(Expression expression, Map<NodeRef<Expression>, Type> types, List<Expression> constants)
+    {
+        if (isConstant(expression) && isBindableType(types.get(NodeRef.of(expression)))) {
+            constants.add(expression);
+            return;
+        }
+        for (Node child : expression.getChildren()) {
+            if (child instanceof Expression) {
+                findConstants((Expression) child, types, constants);
+            }
+        }
+    }
+
+    private static boolean isConstant(Expression expression)
+    {
+        if (expression instanceof Cast) {
+            expression = ((Cast) expression).getExpression();
+        }
+        return expression instanceof Literal && !(expression instanceof NullLiteral);
+    }
+
+    private static List<Object> getRangeBounds(Domain domain)
+    {
+        if (!(domain.getValues() instanceof SortedRangeSet) || !isBindableType(domain.getType())) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<Object> bounds = ImmutableList.builder();
+        for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
+            range.getLowValue().ifPresent(bounds::add);
+            range.getHighValue().ifPresent(bounds::add);
+        }
+        return bounds.build();
+    }
+
+    private List<Integer> findMatches(Session session, List<NullableValue> values, Type type, Object value)
+    {
+        NullableValue constant = new NullableValue(type, value);
+        ImmutableList.Builder<Integer> matches = ImmutableList.builder();
+        for (int i = 0; i < values.size(); i++) {
+            Optional<Object> coerced = coerce(session, values.get(i), type);
+            if (coerced.isPresent() && constant.equals(new NullableValue(type, coerced.get()))) {
+                matches.add(i);
+            }
+        }
+        return matches.build();
+    }
+
+    private Optional<Object> coerce(Session session, NullableValue value, Type type)
+    {
+        if (value.getType().equals(type)) {
+            return Optional.of(value.getValue());
+        }
+        if (!typeCoercion.canCoerce(value.getType(), type)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(functionInvoker.invoke(metadata.getCoercion(value.getType(), type), session.toConnectorSession(), value.getValue()));
+        }
+        catch (TrinoException e) {
+            return Optional.empty();
+        }
+    }
+
+    private class Binder
+            extends SimplePlanRewriter<Void>
+    {
+        private final Session session;
+        private final Optional<PlanTemplate> template;
+        private final List<NullableValue> values;
+        private final Map<List<Object>, Object> boundValues = new HashMap<>();
+
+        public Binder(Session session, Optional<PlanTemplate> template, List<NullableValue> values)
+        {
+            this.session = requireNonNull(session, "session is null");
+            this.template = requireNonNull(template, "template is null");
+            this.values = requireNonNull(values, "values is null");
+        }
+
+        @Override
+        public PlanNode visitFilter(FilterNode node, RewriteContext<Void> context)
+        {
+            return new FilterNode(node.getId(), context.rewrite(node.getSource()), bindExpression(node.getPredicate()));
+        }
+
+        @Override
+        public PlanNode visitProject(ProjectNode node, RewriteContext<Void> context)
+        {
+            return new ProjectNode(node.getId(), context.rewrite(node.getSource()), node.getAssignments().rewrite(this::bindExpression));
+        }
+
+        @Override
+        public PlanNode visitValues(ValuesNode node, RewriteContext<Void> context)
+        {
+            if (node.getRows().isEmpty()) {
+                return node;
+            }
+            List<Expression> rows = node.getRows().get().stream()
+                    .map(this::bindExpression)
+                    .collect(toImmutableList());
+            return new ValuesNode(node.getId(), node.getOutputSymbols(), node.getRowCount(), Optional.of(rows));
+        }
+
+        @Override
+        public PlanNode visitTableScan(TableScanNode node, RewriteContext<Void> context)
+        {
+            Optional<QualifiedObjectName> reboundTable = template.map(PlanTemplate::getReboundTableScans)
+                    .map(tables -> tables.get(node.getId()));
+            if (reboundTable.isEmpty()) {
+                TableHandle table = node.getTable();
+                TableHandle boundTable = new TableHandle(
+                        table.getCatalogName(),
+                        table.getConnectorHandle(),
+                        transactionManager.getConnectorTransaction(session.getRequiredTransactionId(), table.getCatalogName()),
+                        table.getLayout());
+                return new TableScanNode(
+                        node.getId(),
+                        boundTable,
+                        node.getOutputSymbols(),
+                        node.getAssignments(),
+                        node.getEnforcedConstraint(),
+                        node.getStatistics(),
+                        node.isUpdateTarget(),
+                        node.getUseConnectorNodePartitioning());
+            }
+
+            // the connector may hold the enforced constraint in the table handle, so the constraint is applied to the table again
+            Map<ColumnHandle, Domain> domains = new HashMap<>();
+            node.getEnforcedConstraint().getDomains().orElseThrow().forEach((column, domain) -> domains.put(column, bindDomain(domain)));
+            TupleDomain<ColumnHandle> boundConstraint = TupleDomain.withColumnDomains(domains);
+
+            TableHandle table = metadata.getTableHandle(session, reboundTable.get())
+                    .orElseThrow(BindingException::new);
+            Optional<ConstraintApplicationResult<TableHandle>> result = metadata.applyFilter(session, table, new Constraint(boundConstraint));
+            if (result.isEmpty() || !result.get().getRemainingFilter().isAll()) {
+                throw new BindingException();
+            }
+            return new TableScanNode(
+                    node.getId(),
+                    result.get().getHandle(),
+                    node.getOutputSymbols(),
+                    node.getAssignments(),
+                    boundConstraint,
+                    node.getStatistics(),
+                    node.isUpdateTarget(),
+                    node.getUseConnectorNodePartitioning());
+        }
+
+        private Expression bindExpression(Expression expression)
+        {
+            if (template.isEmpty()) {
+                return expression;
+            }
+            Map<NodeRef<Expression>, BoundConstant> constants = template.get().getConstants();
+            return ExpressionTreeRewriter.rewriteWith(new ExpressionRewriter<Void>()
+            {
+                @Override
+                public Expression rewriteExpression(Expression node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+                {
+                    BoundConstant constant = constants.get(NodeRef.of(node));
+                    if (constant == null) {
+                        return null;
+                    }
+                    return literalEncoder.toExpression(bindValue(constant.getValueIndex(), constant.getType()), constant.getType());
+                }
+            }, expression);
+        }
+
+        private Domain bindDomain(Domain domain)
+        {
+            List<Object> bounds = getRangeBounds(domain);
+            if (bounds.isEmpty()) {
+                return domain;
+            }
+            Type type = domain.getType();
+            ImmutableList.Builder<Range> ranges = ImmutableList.builder();
+            try {
+                for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
+                    Optional<Object> low = range.getLowValue().map(value -> bindRangeBound(type, value));
+                    Optional<Object> high = range.getHighValue().map(value -> bindRangeBound(type, value));
+                    if (low.isPresent() && high.isPresent()) {
+                        ranges.add(Range.range(type, low.get(), range.isLowInclusive(), high.get(), range.isHighInclusive()));
+                    }
+                    else if (low.isPresent()) {
+                        ranges.add(range.isLowInclusive() ? Range.greaterThanOrEqual(type, low.get()) : Range.greaterThan(type, low.get()));
+                    }
+                    else if (high.isPresent()) {
+                        ranges.add(range.isHighInclusive() ? Range.lessThanOrEqual(type, high.get()) : Range.lessThan(type, high.get()));
+                    }
+                    else {
+                        ranges.add(Range.all(type));
+                    }
+                }
+            }
+            catch (IllegalArgumentException e) {
+                // bounds of a range are out of order for the new values
+                throw new BindingException();
+            }
+            return Domain.create(ValueSet.ofRanges(ranges.build()), domain.isNullAllowed());
+        }
+
+        private Object bindRangeBound(Type type, Object value)
+        {
+            List<Integer> matches = findMatches(session, template.get().getValues(), type, value);
+            if (matches.isEmpty()) {
+                return value;
+            }
+            return bindValue(matches.get(0), type);
+        }
+
+        private Object bindValue(int index, Type type)
+        {
+            return boundValues.computeIfAbsent(ImmutableList.of(index, type), ignored -> coerce(session, values.get(index), type)
+                    .orElseThrow(BindingException::new));
+        }
+    }
+
+    private static class BindingException
+            extends RuntimeException
+    {
+        public BindingException()
+        {
+            super(null, null, false, false);
+        }
+    }
+}
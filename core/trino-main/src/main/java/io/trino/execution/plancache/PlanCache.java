@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.plancache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.jmx.CacheStatsMBean;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import io.trino.Session;
+import io.trino.execution.QueryManagerConfig;
+import io.trino.execution.resultcache.TableVersion;
+import io.trino.metadata.Metadata;
+import io.trino.metadata.TableHandle;
+import io.trino.spi.eventlistener.TableInfo;
+import io.trino.sql.analyzer.Analysis;
+import io.trino.sql.parser.SqlParser;
+import io.trino.sql.planner.Plan;
+import io.trino.sql.planner.TypeAnalyzer;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.sql.planner.plan.ValuesNode;
+import io.trino.sql.tree.CurrentTime;
+import io.trino.sql.tree.FunctionCall;
+import io.trino.sql.tree.NodeRef;
+import io.trino.sql.tree.Query;
+import io.trino.transaction.TransactionManager;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.SystemSessionProperties.isPlanCacheEnabled;
+import static io.trino.execution.resultcache.DeterministicPlans.isSessionTimeFunction;
+import static io.trino.metadata.ResolvedFunction.extractFunctionName;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Coordinator side cache of optimized plans, so that repeated queries and repeated executions
+ * of prepared statements skip logical planning and optimization. Statements are still analyzed,
+ * so access control is checked for every execution.
+ * <p>
+ * Plans are cached for the exact values of the literals and parameters of the statement, and as
+ * templates shared by all executions of the statement with values of the same types. A template is
+ * only used after binding it to the values of a second execution produced the same plan as planning
+ * that execution.
+ */
+@ThreadSafe
+public class PlanCache
+{
+    private final Metadata metadata;
+    private final SqlParser sqlParser;
+    private final PlanBinder planBinder;
+    private final Cache<PlanCacheKey, CachedPlan> cache;
+    // empty for statements whose plans cannot be shared by different values
+    private final Cache<PlanCacheKey, Optional<PlanTemplate>> templates;
+    private final CacheStatsMBean cacheStats;
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat templateHits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat planningTimeSavedMillis = new CounterStat();
+
+    @Inject
+    public PlanCache(QueryManagerConfig config, Metadata metadata, SqlParser sqlParser, TypeAnalyzer typeAnalyzer, TransactionManager transactionManager)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.sqlParser = requireNonNull(sqlParser, "sqlParser is null");
+        this.planBinder = new PlanBinder(metadata, typeAnalyzer, transactionManager);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(requireNonNull(config, "config is null").getPlanCacheMaxEntries())
+                .recordStats()
+                .build();
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(config.getPlanCacheMaxEntries())
+                .build();
+        this.cacheStats = new CacheStatsMBean(cache);
+    }
+
+    /**
+     * Returns the key under which the plan of the analyzed statement can be cached, or empty if the
+     * plan must not be reused.
+     */
+    public Optional<PlanCacheKey> createCacheKey(Session session, Analysis analysis)
+    {
+        if (!isPlanCacheEnabled(session) || !(analysis.getStatement() instanceof Query)) {
+            return Optional.empty();
+        }
+        // the planner folds the time of the query start into the plan
+        if (dependsOnQueryStartTime(analysis)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<TableVersion> tableVersions = ImmutableList.builder();
+        for (TableHandle table : analysis.getTables()) {
+            Optional<String> versionToken = metadata.getTableVersionToken(session, table);
+            if (versionToken.isEmpty()) {
+                return Optional.empty();
+            }
+            tableVersions.add(new TableVersion(table.getCatalogName(), table.getConnectorHandle(), ImmutableMap.of(), versionToken.get()));
+        }
+
+        List<String> rowFiltersAndColumnMasks = getRowFiltersAndColumnMasks(analysis);
+        // constants of row filters, column masks and views are part of the plan, but not of the statement
+        boolean bindValues = rowFiltersAndColumnMasks.isEmpty() &&
+                analysis.getReferencedTables().stream().allMatch(TableInfo::isDirectlyReferenced);
+        ParameterizedStatement statement = ParameterizedStatement.create(session, metadata, sqlParser, analysis, bindValues);
+        return Optional.of(new PlanCacheKey(
+                session,
+                statement.getStatement(),
+                statement.getParameters(),
+                statement.getValues(),
+                rowFiltersAndColumnMasks,
+                tableVersions.build()));
+    }
+
+    /**
+     * Returns the cached plan, with the values of the key bound to it and with table handles bound
+     * to the transaction of the session.
+     */
+    public Optional<Plan> get(PlanCacheKey key, Session session)
+    {
+        CachedPlan cachedPlan = cache.getIfPresent(key);
+        if (cachedPlan != null) {
+            hits.update(1);
+            planningTimeSavedMillis.update(cachedPlan.getPlanningTime().toMillis());
+            return Optional.of(planBinder.bindTransaction(session, cachedPlan.getPlan()));
+        }
+
+        if (!key.getBindValues().isEmpty()) {
+            Optional<PlanTemplate> template = templates.asMap().getOrDefault(key.getTemplateKey(), Optional.empty())
+                    .filter(PlanTemplate::isVerified);
+            Optional<Plan> plan = template.flatMap(value -> planBinder.bind(session, value, key.getBindValues()));
+            if (plan.isPresent()) {
+                hits.update(1);
+                templateHits.update(1);
+                planningTimeSavedMillis.update(template.get().getPlanningTime().toMillis());
+                return plan;
+            }
+        }
+        misses.update(1);
+        return Optional.empty();
+    }
+
+    public void put(PlanCacheKey key, Plan plan, Duration planningTime, Session session)
+    {
+        // plans are only rebound for table scans, other table references are tied to the transaction they were planned in
+        boolean onlyTableScans = searchFrom(plan.getRoot())
+                .where(node -> node.getSources().isEmpty())
+                .findAll().stream()
+                .allMatch(node -> node instanceof TableScanNode || node instanceof ValuesNode);
+        if (!onlyTableScans) {
+            return;
+        }
+        cache.put(key, new CachedPlan(plan, planningTime));
+
+        if (key.getBindValues().isEmpty()) {
+            return;
+        }
+        PlanCacheKey templateKey = key.getTemplateKey();
+        Optional<PlanTemplate> template = templates.getIfPresent(templateKey);
+        if (template == null) {
+            // the values of the first execution may be ambiguous in the plan, so a candidate is created by a later execution
+            planBinder.createTemplate(session, plan, planningTime, key.getBindValues())
+                    .ifPresent(candidate -> templates.asMap().putIfAbsent(templateKey, Optional.of(candidate)));
+            return;
+        }
+        if (template.isEmpty() || template.get().isVerified() || template.get().getValues().equals(key.getBindValues())) {
+            return;
+        }
+
+        // the plan of the candidate bound to the values of this execution must be the plan the planner created for them
+        PlanTemplate candidate = template.get();
+        boolean verified = planBinder.bind(session, candidate, key.getBindValues())
+                .map(boundPlan -> planBinder.isSamePlan(session, boundPlan, plan))
+                .orElse(false);
+        templates.asMap().replace(templateKey, template, verified ? Optional.of(candidate.verified()) : Optional.empty());
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+        templates.invalidateAll();
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return cacheStats;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getTemplateHits()
+    {
+        return templateHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPlanningTimeSavedMillis()
+    {
+        return planningTimeSavedMillis;
+    }
+
+    /**
+     * The analyzer inlines the row filters and column masks resolved for the identity of the session
+     * into the plan, and access control may resolve them differently for the same statement later.
+     */
+    private static List<String> getRowFiltersAndColumnMasks(Analysis analysis)
+    {
+        return analysis.getReferencedTables().stream()
+                .flatMap(table -> Stream.concat(
+                        table.getFilters().stream()
+                                .map(filter -> format("%s WHERE %s", getTableName(table), filter)),
+                        table.getColumns().stream()
+                                .flatMap(column -> column.getMasks().stream()
+                                        .map(mask -> format("%s.%s AS %s", getTableName(table), column.getColumn(), mask)))))
+                .collect(toImmutableList());
+    }
+
+    private static String getTableName(TableInfo table)
+    {
+        return format("%s.%s.%s", table.getCatalog(), table.getSchema(), table.getTable());
+    }
+
+    private static boolean dependsOnQueryStartTime(Analysis analysis)
+    {
+        return analysis.getTypes().keySet().stream()
+                .map(NodeRef::getNode)
+                .anyMatch(expression -> expression instanceof CurrentTime ||
+                        (expression instanceof FunctionCall && isSessionTimeFunction(extractFunctionName(((FunctionCall) expression).getName()))));
+    }
+
+    private static class CachedPlan
+    {
+        private final Plan plan;
+        private final Duration planningTime;
+
+        public CachedPlan(Plan plan, Duration planningTime)
+        {
+            this.plan = requireNonNull(plan, "plan is null");
+            this.planningTime = requireNonNull(planningTime, "planningTime is null");
+        }
+
+        public Plan getPlan()
+        {
+            return plan;
+        }
+
+        public Duration getPlanningTime()
+        {
+            return planningTime;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.Session;
+import io.trino.execution.resultcache.CacheKeySession;
+import io.trino.execution.resultcache.TableVersion;
+import io.trino.spi.predicate.NullableValue;
+import io.trino.spi.type.Type;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies an optimized plan by the text of the statement with the literals and parameters
+ * abstracted, the types and values bound to them, the session state the planner depends on, the row filters and column masks
+ * the analyzer resolved for the identity of the session, and the versions of the tables
+ * the statement reads, so that a plan is not reused after the metadata of a table changed.
+ */
+public final class PlanCacheKey
+{
+    private final CacheKeySession session;
+    private final String statement;
+    private final List<String> parameters;
+    private final List<Type> bindTypes;
+    private final List<NullableValue> bindValues;
+    private final List<String> rowFiltersAndColumnMasks;
+    private final List<TableVersion> tableVersions;
+
+    public PlanCacheKey(
+            Session session,
+            String statement,
+            List<String> parameters,
+            List<NullableValue> bindValues,
+            List<String> rowFiltersAndColumnMasks,
+            List<TableVersion> tableVersions)
+    {
+        this(
+                new CacheKeySession(requireNonNull(session, "session is null")),
+                statement,
+                parameters,
+                requireNonNull(bindValues, "bindValues is null").stream()
+                        .map(NullableValue::getType)
+                        .collect(toImmutableList()),
+                bindValues,
+                rowFiltersAndColumnMasks,
+                tableVersions);
+    }
+
+    private PlanCacheKey(
+            CacheKeySession session,
+            String statement,
+            List<String> parameters,
+            List<Type> bindTypes,
+            List<NullableValue> bindValues,
+            List<String> rowFiltersAndColumnMasks,
+            List<TableVersion> tableVersions)
+    {
+        this.session = requireNonNull(session, "session is null");
+        this.statement = requireNonNull(statement, "statement is null");
+        this.parameters = ImmutableList.copyOf(requireNonNull(parameters, "parameters is null"));
+        this.bindTypes = ImmutableList.copyOf(requireNonNull(bindTypes, "bindTypes is null"));
+        this.bindValues = ImmutableList.copyOf(requireNonNull(bindValues, "bindValues is null"));
+        this.rowFiltersAndColumnMasks = ImmutableList.copyOf(requireNonNull(rowFiltersAndColumnMasks, "rowFiltersAndColumnMasks is null"));
+        this.tableVersions = ImmutableList.copyOf(requireNonNull(tableVersions, "tableVersions is null"));
+    }
+
+    /**
+     * Values bound to the abstracted literals and parameters of the statement.
+     */
+    public List<NullableValue> getBindValues()
+    {
+        return bindValues;
+    }
+
+    /**
+     * Returns the key shared by the executions of the statement with any values of the bound types.
+     */
+    public PlanCacheKey getTemplateKey()
+    {
+        return new PlanCacheKey(session, statement, parameters, bindTypes, ImmutableList.of(), rowFiltersAndColumnMasks, tableVersions);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PlanCacheKey that = (PlanCacheKey) o;
+        return session.equals(that.session) &&
+                statement.equals(that.statement) &&
+                parameters.equals(that.parameters) &&
+                bindTypes.equals(that.bindTypes) &&
+                bindValues.equals(that.bindValues) &&
+                rowFiltersAndColumnMasks.equals(that.rowFiltersAndColumnMasks) &&
+                tableVersions.equals(that.tableVersions);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(session, statement, parameters, bindTypes, bindValues, rowFiltersAndColumnMasks, tableVersions);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("user", session.getUser())
+                .add("parameters", parameters)
+                .add("bindTypes", bindTypes)
+                .add("tableVersions", tableVersions)
+                .toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import io.trino.metadata.QualifiedObjectName;
+import io.trino.spi.predicate.NullableValue;
+import io.trino.spi.type.Type;
+import io.trino.sql.planner.Plan;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.NodeRef;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Optimized plan of a statement together with the places in the plan, which hold the values
+ * bound to the placeholders of the statement. A template is only used, once binding it to the
+ * values of another execution of the statement produced the same plan as planning that execution.
+ */
+final class PlanTemplate
+{
+    private final Plan plan;
+    private final Duration planningTime;
+    private final List<NullableValue> values;
+    private final Map<NodeRef<Expression>, BoundConstant> constants;
+    private final Map<PlanNodeId, QualifiedObjectName> reboundTableScans;
+    private final boolean verified;
+
+    public PlanTemplate(
+            Plan plan,
+            Duration planningTime,
+            List<NullableValue> values,
+            Map<NodeRef<Expression>, BoundConstant> constants,
+            Map<PlanNodeId, QualifiedObjectName> reboundTableScans,
+            boolean verified)
+    {
+        this.plan = requireNonNull(plan, "plan is null");
+        this.planningTime = requireNonNull(planningTime, "planningTime is null");
+        this.values = ImmutableList.copyOf(requireNonNull(values, "values is null"));
+        this.constants = ImmutableMap.copyOf(requireNonNull(constants, "constants is null"));
+        this.reboundTableScans = ImmutableMap.copyOf(requireNonNull(reboundTableScans, "reboundTableScans is null"));
+        this.verified = verified;
+    }
+
+    public Plan getPlan()
+    {
+        return plan;
+    }
+
+    public Duration getPlanningTime()
+    {
+        return planningTime;
+    }
+
+    /**
+     * Values of the execution the plan was created for.
+     */
+    public List<NullableValue> getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Constants of the expressions of the plan, which hold one of the values.
+     */
+    public Map<NodeRef<Expression>, BoundConstant> getConstants()
+    {
+        return constants;
+    }
+
+    /**
+     * Table scans, whose enforced constraint holds one of the values, so that the constraint must
+     * be applied to the table again.
+     */
+    public Map<PlanNodeId, QualifiedObjectName> getReboundTableScans()
+    {
+        return reboundTableScans;
+    }
+
+    public boolean isVerified()
+    {
+        return verified;
+    }
+
+    public PlanTemplate verified()
+    {
+        return new PlanTemplate(plan, planningTime, values, constants, reboundTableScans, true);
+    }
+
+    public static class BoundConstant
+    {
+        private final int valueIndex;
+        private final Type type;
+
+        public BoundConstant(int valueIndex, Type type)
+        {
+            this.valueIndex = valueIndex;
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        public int getValueIndex()
+        {
+            return valueIndex;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+    }
+}
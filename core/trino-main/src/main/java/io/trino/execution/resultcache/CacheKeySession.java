@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.trino.Session;
+import io.trino.spi.security.SelectedRole;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The part of a session that planning may depend on, shared by the keys of the plan and
+ * result caches. The groups and roles of the identity are included, because access control
+ * decisions, row filters and column masks may depend on them.
+ */
+public final class CacheKeySession
+{
+    private final String user;
+    private final Set<String> groups;
+    private final Map<String, SelectedRole> roles;
+    private final Map<String, Object> sessionState;
+
+    public CacheKeySession(Session session)
+    {
+        requireNonNull(session, "session is null");
+        this.user = session.getUser();
+        this.groups = ImmutableSet.copyOf(session.getIdentity().getGroups());
+        this.roles = ImmutableMap.copyOf(session.getIdentity().getRoles());
+        this.sessionState = ImmutableMap.<String, Object>builder()
+                .put("catalog", session.getCatalog())
+                .put("schema", session.getSchema())
+                .put("path", session.getPath())
+                .put("timeZoneKey", session.getTimeZoneKey())
+                .put("locale", session.getLocale())
+                .put("systemProperties", ImmutableMap.copyOf(session.getSystemProperties()))
+                .put("catalogProperties", session.getConnectorProperties().entrySet().stream()
+                        .collect(toImmutableMap(entry -> entry.getKey().getCatalogName(), entry -> ImmutableMap.copyOf(entry.getValue()))))
+                .build();
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheKeySession that = (CacheKeySession) o;
+        return user.equals(that.user) &&
+                groups.equals(that.groups) &&
+                roles.equals(that.roles) &&
+                sessionState.equals(that.sessionState);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(user, groups, roles, sessionState);
+    }
+
+    @Override
+    public String toString()
+    {
+        return user;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.execution.buffer.SerializedPage;
+import io.trino.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Complete output of a finished query, as it was received from the output stage.
+ */
+public final class CachedQueryResult
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(CachedQueryResult.class).instanceSize();
+
+    private final List<String> columnNames;
+    private final List<Type> columnTypes;
+    private final List<SerializedPage> pages;
+    private final long retainedSizeInBytes;
+
+    public CachedQueryResult(List<String> columnNames, List<Type> columnTypes, List<SerializedPage> pages)
+    {
+        this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+        this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
+        this.pages = ImmutableList.copyOf(requireNonNull(pages, "pages is null"));
+        checkArgument(columnNames.size() == columnTypes.size(), "columnNames and columnTypes must be the same size");
+        this.retainedSizeInBytes = INSTANCE_SIZE + getRetainedSizeInBytes(pages);
+    }
+
+    public List<String> getColumnNames()
+    {
+        return columnNames;
+    }
+
+    public List<Type> getColumnTypes()
+    {
+        return columnTypes;
+    }
+
+    public List<SerializedPage> getPages()
+    {
+        return pages;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    private static long getRetainedSizeInBytes(List<SerializedPage> pages)
+    {
+        long retainedSizeInBytes = 0;
+        for (SerializedPage page : pages) {
+            retainedSizeInBytes += page.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnNames", columnNames)
+                .add("pages", pages.size())
+                .add("retainedSizeInBytes", retainedSizeInBytes)
+                .toString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.trino.metadata.Metadata;
+import io.trino.metadata.ResolvedFunction;
+import io.trino.sql.planner.plan.AggregationNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.WindowNode;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.FunctionCall;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.metadata.ResolvedFunction.extractFunctionName;
+import static io.trino.sql.analyzer.ExpressionTreeUtils.extractExpressions;
+import static io.trino.sql.planner.DeterminismEvaluator.isDeterministic;
+import static io.trino.sql.planner.ExpressionExtractor.forEachExpression;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+
+public final class DeterministicPlans
+{
+    // functions that are deterministic within a query, but return a different value for each query
+    private static final Set<String> SESSION_TIME_FUNCTIONS = ImmutableSet.of(
+            "now",
+            "current_date",
+            "$current_time",
+            "$current_timestamp",
+            "$localtime",
+            "$localtimestamp",
+            "current_groups");
+
+    private DeterministicPlans() {}
+
+    /**
+     * Returns true if executing the plan again over the same data produces the same result.
+     */
+    public static boolean isDeterministicPlan(PlanNode root, Metadata metadata)
+    {
+        AtomicBoolean deterministic = new AtomicBoolean(true);
+        forEachExpression(root, expression -> {
+            if (deterministic.get() && !isDeterministicExpression(expression, metadata)) {
+                deterministic.set(false);
+            }
+        });
+        if (!deterministic.get()) {
+            return false;
+        }
+
+        List<ResolvedFunction> functions = searchFrom(root)
+                .where(node -> node instanceof AggregationNode || node instanceof WindowNode)
+                .findAll().stream()
+                .flatMap(node -> {
+                    if (node instanceof AggregationNode) {
+                        return ((AggregationNode) node).getAggregations().values().stream()
+                                .map(AggregationNode.Aggregation::getResolvedFunction);
+                    }
+                    return ((WindowNode) node).getWindowFunctions().values().stream()
+                            .map(WindowNode.Function::getResolvedFunction);
+                })
+                .collect(toImmutableList());
+        return functions.stream()
+                .allMatch(function -> metadata.getFunctionMetadata(function).isDeterministic() &&
+                        !SESSION_TIME_FUNCTIONS.contains(function.getSignature().getName()));
+    }
+
+    /**
+     * Returns true if the function returns the same value for the whole query, but a different value for each query.
+     */
+    public static boolean isSessionTimeFunction(String functionName)
+    {
+        return SESSION_TIME_FUNCTIONS.contains(functionName);
+    }
+
+    private static boolean isDeterministicExpression(Expression expression, Metadata metadata)
+    {
+        if (!isDeterministic(expression, metadata)) {
+            return false;
+        }
+        return extractExpressions(ImmutableList.of(expression), FunctionCall.class).stream()
+                .map(call -> extractFunctionName(call.getName()))
+                .noneMatch(SESSION_TIME_FUNCTIONS::contains);
+    }
+}
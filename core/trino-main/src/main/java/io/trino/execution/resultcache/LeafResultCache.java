@@ -0,0 +1,393 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.trino.execution.buffer.PagesSerde;
+import io.trino.execution.buffer.PagesSerdeFactory;
+import io.trino.metadata.Metadata;
+import io.trino.spi.Page;
+import io.trino.spi.block.BlockEncodingSerde;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.execution.buffer.PagesSerdeUtil.readPages;
+import static io.trino.execution.buffer.PagesSerdeUtil.writePages;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.size;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
+/**
+ * Worker side cache of the output of leaf pipelines, per split. Results are kept in memory, and
+ * when a disk path is configured, results evicted from memory are moved to local disk, from where
+ * they are evicted in least recently used order as well.
+ */
+@ThreadSafe
+public class LeafResultCache
+{
+    private static final Logger log = Logger.get(LeafResultCache.class);
+
+    private static final String FILE_PREFIX = "leaf-result-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private final long maxMemoryBytes;
+    private final long maxEntryBytes;
+    private final Optional<Path> diskPath;
+    private final long maxDiskBytes;
+    private final PagesSerdeFactory serdeFactory;
+    private final ExecutorService diskWriter;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<LeafResultCacheKey, MemoryEntry> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long memoryBytes;
+    @GuardedBy("this")
+    private final LinkedHashMap<LeafResultCacheKey, DiskEntry> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+
+    @Inject
+    public LeafResultCache(LeafResultCacheConfig config, Metadata metadata)
+    {
+        this(config, requireNonNull(metadata, "metadata is null").getBlockEncodingSerde(), newSingleThreadExecutor(daemonThreadsNamed("leaf-result-cache-writer")));
+    }
+
+    @VisibleForTesting
+    public LeafResultCache(LeafResultCacheConfig config, BlockEncodingSerde blockEncodingSerde, ExecutorService diskWriter)
+    {
+        requireNonNull(config, "config is null");
+        this.maxMemoryBytes = config.getMaxMemorySize().toBytes();
+        this.maxEntryBytes = config.getMaxEntrySize().toBytes();
+        this.diskPath = Optional.ofNullable(config.getDiskPath()).map(Paths::get);
+        this.maxDiskBytes = config.getMaxDiskSize().toBytes();
+        this.serdeFactory = new PagesSerdeFactory(requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"), true);
+        this.diskWriter = requireNonNull(diskWriter, "diskWriter is null");
+
+        diskPath.ifPresent(path -> {
+            try {
+                createDirectories(path);
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException("Could not create leaf result cache directory: " + path, e);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void cleanupOldFiles()
+    {
+        // cached results do not survive a restart, as the index is kept in memory
+        diskPath.ifPresent(path -> {
+            try (DirectoryStream<Path> stream = newDirectoryStream(path, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+                stream.forEach(LeafResultCache::deleteQuietly);
+            }
+            catch (IOException e) {
+                log.warn(e, "Error cleaning leaf result cache files");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        diskWriter.shutdownNow();
+    }
+
+    public long getMaxEntrySizeInBytes()
+    {
+        return maxEntryBytes;
+    }
+
+    public Optional<List<Page>> get(LeafResultCacheKey key)
+    {
+        DiskEntry diskEntry;
+        synchronized (this) {
+            MemoryEntry memoryEntry = memoryEntries.get(key);
+            if (memoryEntry != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(memoryEntry.getPages());
+            }
+            diskEntry = diskEntries.get(key);
+        }
+        if (diskEntry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        Optional<List<Page>> pages = readFromDisk(diskEntry.getFile());
+        if (pages.isEmpty()) {
+            synchronized (this) {
+                removeDiskEntry(key, diskEntry);
+            }
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        diskHits.incrementAndGet();
+        // promote the result back into memory, it is likely to be requested again soon
+        put(key, pages.get());
+        return pages;
+    }
+
+    /**
+     * Stores the output of a split and returns the number of bytes evicted from memory to make room for it.
+     */
+    public long put(LeafResultCacheKey key, List<Page> pages)
+    {
+        long sizeInBytes = getRetainedSizeInBytes(pages);
+        if (sizeInBytes > maxEntryBytes || sizeInBytes > maxMemoryBytes) {
+            return 0;
+        }
+
+        long evicted = 0;
+        synchronized (this) {
+            MemoryEntry previous = memoryEntries.put(key, new MemoryEntry(ImmutableList.copyOf(pages), sizeInBytes));
+            if (previous != null) {
+                memoryBytes -= previous.getSizeInBytes();
+            }
+            memoryBytes += sizeInBytes;
+
+            Iterator<Map.Entry<LeafResultCacheKey, MemoryEntry>> iterator = memoryEntries.entrySet().iterator();
+            while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+                Map.Entry<LeafResultCacheKey, MemoryEntry> eldest = iterator.next();
+                iterator.remove();
+                memoryBytes -= eldest.getValue().getSizeInBytes();
+                evicted += eldest.getValue().getSizeInBytes();
+                if (diskPath.isPresent() && !diskEntries.containsKey(eldest.getKey())) {
+                    LeafResultCacheKey evictedKey = eldest.getKey();
+                    List<Page> evictedPages = eldest.getValue().getPages();
+                    diskWriter.execute(() -> writeToDisk(evictedKey, evictedPages));
+                }
+            }
+        }
+        evictedBytes.addAndGet(evicted);
+        return evicted;
+    }
+
+    @Managed
+    public synchronized void invalidateAll()
+    {
+        memoryEntries.clear();
+        memoryBytes = 0;
+        diskEntries.values().forEach(entry -> deleteQuietly(entry.getFile()));
+        diskEntries.clear();
+        diskBytes = 0;
+    }
+
+    @Managed
+    public synchronized long getMemoryBytes()
+    {
+        return memoryBytes;
+    }
+
+    @Managed
+    public synchronized long getDiskBytes()
+    {
+        return diskBytes;
+    }
+
+    @Managed
+    public synchronized int getMemoryEntries()
+    {
+        return memoryEntries.size();
+    }
+
+    @Managed
+    public synchronized int getDiskEntries()
+    {
+        return diskEntries.size();
+    }
+
+    @Managed
+    public long getMemoryHits()
+    {
+        return memoryHits.get();
+    }
+
+    @Managed
+    public long getDiskHits()
+    {
+        return diskHits.get();
+    }
+
+    @Managed
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Managed
+    public long getEvictedBytes()
+    {
+        return evictedBytes.get();
+    }
+
+    private void writeToDisk(LeafResultCacheKey key, List<Page> pages)
+    {
+        checkState(diskPath.isPresent(), "disk path is not set");
+        Path file = diskPath.get().resolve(FILE_PREFIX + UUID.randomUUID() + FILE_SUFFIX);
+        long fileSize;
+        try {
+            PagesSerde serde = serdeFactory.createPagesSerde();
+            try (SliceOutput output = new OutputStreamSliceOutput(newOutputStream(file), BUFFER_SIZE)) {
+                writePages(serde, output, pages.iterator());
+            }
+            fileSize = size(file);
+        }
+        catch (IOException | UncheckedIOException e) {
+            log.warn(e, "Could not write leaf result cache file %s", file);
+            deleteQuietly(file);
+            return;
+        }
+
+        synchronized (this) {
+            DiskEntry previous = diskEntries.put(key, new DiskEntry(file, fileSize));
+            if (previous != null) {
+                diskBytes -= previous.getSizeInBytes();
+                deleteQuietly(previous.getFile());
+            }
+            diskBytes += fileSize;
+
+            Iterator<Map.Entry<LeafResultCacheKey, DiskEntry>> iterator = diskEntries.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                DiskEntry eldest = iterator.next().getValue();
+                iterator.remove();
+                diskBytes -= eldest.getSizeInBytes();
+                deleteQuietly(eldest.getFile());
+            }
+        }
+    }
+
+    private Optional<List<Page>> readFromDisk(Path file)
+    {
+        PagesSerde serde = serdeFactory.createPagesSerde();
+        try (InputStream input = newInputStream(file)) {
+            return Optional.of(ImmutableList.copyOf(readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE))));
+        }
+        catch (IOException | UncheckedIOException e) {
+            // the file may have been evicted concurrently
+            log.debug(e, "Could not read leaf result cache file %s", file);
+            return Optional.empty();
+        }
+    }
+
+    @GuardedBy("this")
+    private void removeDiskEntry(LeafResultCacheKey key, DiskEntry entry)
+    {
+        if (diskEntries.remove(key, entry)) {
+            diskBytes -= entry.getSizeInBytes();
+            deleteQuietly(entry.getFile());
+        }
+    }
+
+    private static long getRetainedSizeInBytes(List<Page> pages)
+    {
+        long sizeInBytes = 0;
+        for (Page page : pages) {
+            sizeInBytes += page.getRetainedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try {
+            deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not delete leaf result cache file %s", file);
+        }
+    }
+
+    private static class MemoryEntry
+    {
+        private final List<Page> pages;
+        private final long sizeInBytes;
+
+        public MemoryEntry(List<Page> pages, long sizeInBytes)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+
+    private static class DiskEntry
+    {
+        private final Path file;
+        private final long sizeInBytes;
+
+        public DiskEntry(Path file, long sizeInBytes)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public Path getFile()
+        {
+            return file;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class LeafResultCacheConfig
+{
+    private boolean enabled;
+    private DataSize maxMemorySize = DataSize.of(256, MEGABYTE);
+    private DataSize maxEntrySize = DataSize.of(16, MEGABYTE);
+    private String diskPath;
+    private DataSize maxDiskSize = DataSize.of(10, GIGABYTE);
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("leaf-result-cache.enabled")
+    @ConfigDescription("Cache the output of deterministic leaf pipelines for each split on workers")
+    public LeafResultCacheConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxMemorySize()
+    {
+        return maxMemorySize;
+    }
+
+    @Config("leaf-result-cache.max-memory-size")
+    @ConfigDescription("Maximum memory used by cached leaf pipeline results on a worker")
+    public LeafResultCacheConfig setMaxMemorySize(DataSize maxMemorySize)
+    {
+        this.maxMemorySize = maxMemorySize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxEntrySize()
+    {
+        return maxEntrySize;
+    }
+
+    @Config("leaf-result-cache.max-entry-size")
+    @ConfigDescription("Maximum size of the cached result of a single split")
+    public LeafResultCacheConfig setMaxEntrySize(DataSize maxEntrySize)
+    {
+        this.maxEntrySize = maxEntrySize;
+        return this;
+    }
+
+    public String getDiskPath()
+    {
+        return diskPath;
+    }
+
+    @Config("leaf-result-cache.disk-path")
+    @ConfigDescription("Local directory that results evicted from memory are moved to. Results are only kept in memory when not set")
+    public LeafResultCacheConfig setDiskPath(String diskPath)
+    {
+        this.diskPath = diskPath;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxDiskSize()
+    {
+        return maxDiskSize;
+    }
+
+    @Config("leaf-result-cache.max-disk-size")
+    @ConfigDescription("Maximum size of cached leaf pipeline results stored on local disk")
+    public LeafResultCacheConfig setMaxDiskSize(DataSize maxDiskSize)
+    {
+        this.maxDiskSize = maxDiskSize;
+        return this;
+    }
+}
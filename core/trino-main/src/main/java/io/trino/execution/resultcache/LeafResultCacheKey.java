@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.connector.CatalogName;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the output of a leaf pipeline for a single split: the canonical form of the
+ * operations of the pipeline together with the identity of the data read by the split.
+ */
+public final class LeafResultCacheKey
+{
+    private final List<Object> pipelineSignature;
+    private final CatalogName catalogName;
+    private final String splitIdentifier;
+    private final int hashCode;
+
+    public LeafResultCacheKey(List<Object> pipelineSignature, CatalogName catalogName, String splitIdentifier)
+    {
+        this.pipelineSignature = ImmutableList.copyOf(requireNonNull(pipelineSignature, "pipelineSignature is null"));
+        this.catalogName = requireNonNull(catalogName, "catalogName is null");
+        this.splitIdentifier = requireNonNull(splitIdentifier, "splitIdentifier is null");
+        this.hashCode = Objects.hash(this.pipelineSignature, catalogName, splitIdentifier);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LeafResultCacheKey that = (LeafResultCacheKey) o;
+        return hashCode == that.hashCode &&
+                catalogName.equals(that.catalogName) &&
+                splitIdentifier.equals(that.splitIdentifier) &&
+                pipelineSignature.equals(that.pipelineSignature);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("catalogName", catalogName)
+                .add("splitIdentifier", splitIdentifier)
+                .toString();
+    }
+}
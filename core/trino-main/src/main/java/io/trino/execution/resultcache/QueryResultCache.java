@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import io.airlift.jmx.CacheStatsMBean;
+import io.trino.Session;
+import io.trino.cost.StatsAndCosts;
+import io.trino.execution.QueryManagerConfig;
+import io.trino.metadata.Metadata;
+import io.trino.sql.planner.Plan;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.TableScanNode;
+import io.trino.sql.planner.plan.ValuesNode;
+import io.trino.sql.tree.Query;
+import io.trino.sql.tree.Statement;
+import io.trino.transaction.TransactionManager;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.Optional;
+
+import static io.trino.SystemSessionProperties.isQueryResultCacheEnabled;
+import static io.trino.execution.resultcache.DeterministicPlans.isDeterministicPlan;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.trino.sql.planner.planprinter.PlanPrinter.textLogicalPlan;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Coordinator side cache of complete query results. Results are only cached for read-only,
+ * deterministic queries over tables whose connector can report a version of the data, so
+ * that a changed table produces a different key instead of a stale result.
+ */
+@ThreadSafe
+public class QueryResultCache
+{
+    private final Metadata metadata;
+    private final TransactionManager transactionManager;
+    private final long maxEntrySizeInBytes;
+    private final Cache<QueryResultCacheKey, CachedQueryResult> cache;
+    private final CacheStatsMBean cacheStats;
+
+    @Inject
+    public QueryResultCache(QueryManagerConfig config, Metadata metadata, TransactionManager transactionManager)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
+        requireNonNull(config, "config is null");
+        this.maxEntrySizeInBytes = config.getResultCacheMaxEntrySize().toBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(config.getResultCacheMaxSize().toBytes())
+                .weigher((Weigher<QueryResultCacheKey, CachedQueryResult>) (key, value) -> (int) min(Integer.MAX_VALUE, key.getRetainedSizeInBytes() + value.getRetainedSizeInBytes()))
+                .expireAfterWrite(config.getResultCacheTtl().toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+        this.cacheStats = new CacheStatsMBean(cache);
+    }
+
+    /**
+     * Returns the key under which the result of the planned query can be cached, or empty if the
+     * result of the query must not be cached.
+     */
+    public Optional<QueryResultCacheKey> createCacheKey(Session session, Statement statement, Plan plan)
+    {
+        if (!isQueryResultCacheEnabled(session) || !(statement instanceof Query)) {
+            return Optional.empty();
+        }
+        if (session.getTransactionId().isEmpty() || !transactionManager.isAutoCommit(session.getTransactionId().get())) {
+            return Optional.empty();
+        }
+
+        PlanNode root = plan.getRoot();
+        if (!isDeterministicPlan(root, metadata)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<TableVersion> tableVersions = ImmutableList.builder();
+        for (PlanNode leaf : searchFrom(root).where(node -> node.getSources().isEmpty()).findAll()) {
+            if (leaf instanceof ValuesNode) {
+                continue;
+            }
+            if (!(leaf instanceof TableScanNode)) {
+                return Optional.empty();
+            }
+            TableScanNode tableScan = (TableScanNode) leaf;
+            Optional<String> versionToken = metadata.getTableVersionToken(session, tableScan.getTable());
+            if (versionToken.isEmpty()) {
+                return Optional.empty();
+            }
+            tableVersions.add(new TableVersion(
+                    tableScan.getTable().getCatalogName(),
+                    tableScan.getTable().getConnectorHandle(),
+                    tableScan.getAssignments(),
+                    versionToken.get()));
+        }
+
+        String planText = textLogicalPlan(root, plan.getTypes(), metadata, StatsAndCosts.empty(), session, 0, true);
+        return Optional.of(new QueryResultCacheKey(session, planText, tableVersions.build()));
+    }
+
+    public Optional<CachedQueryResult> get(QueryResultCacheKey key)
+    {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(QueryResultCacheKey key, CachedQueryResult result)
+    {
+        if (result.getRetainedSizeInBytes() > maxEntrySizeInBytes) {
+            return;
+        }
+        cache.put(key, result);
+    }
+
+    public long getMaxEntrySizeInBytes()
+    {
+        return maxEntrySizeInBytes;
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return cacheStats;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.Session;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.slice.SizeOf.estimatedSizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the result of a query by the optimized plan, the session state the plan
+ * may depend on, and the versions of the data of all tables the plan reads.
+ */
+public final class QueryResultCacheKey
+{
+    private final CacheKeySession session;
+    private final String plan;
+    private final List<TableVersion> tableVersions;
+
+    public QueryResultCacheKey(Session session, String plan, List<TableVersion> tableVersions)
+    {
+        this.session = new CacheKeySession(requireNonNull(session, "session is null"));
+        this.plan = requireNonNull(plan, "plan is null");
+        this.tableVersions = ImmutableList.copyOf(requireNonNull(tableVersions, "tableVersions is null"));
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        // the plan text dominates the size of the key
+        return estimatedSizeOf(plan);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryResultCacheKey that = (QueryResultCacheKey) o;
+        return session.equals(that.session) &&
+                plan.equals(that.plan) &&
+                tableVersions.equals(that.tableVersions);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(session, plan, tableVersions);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("user", session.getUser())
+                .add("tableVersions", tableVersions)
+                .toString();
+    }
+}
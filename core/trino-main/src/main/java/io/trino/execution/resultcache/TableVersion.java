@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.connector.CatalogName;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.sql.planner.Symbol;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Version of the data of a table, as part of the key of the plan and result caches. The connector
+ * handle is part of the version, because it carries pushed down predicates and projections that
+ * the plan text may omit. The assignments are empty when the table is read as analyzed rather than
+ * by a single table scan.
+ */
+public final class TableVersion
+{
+    private final CatalogName catalogName;
+    private final ConnectorTableHandle tableHandle;
+    private final Map<Symbol, ColumnHandle> assignments;
+    private final String versionToken;
+
+    public TableVersion(CatalogName catalogName, ConnectorTableHandle tableHandle, Map<Symbol, ColumnHandle> assignments, String versionToken)
+    {
+        this.catalogName = requireNonNull(catalogName, "catalogName is null");
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.assignments = ImmutableMap.copyOf(requireNonNull(assignments, "assignments is null"));
+        this.versionToken = requireNonNull(versionToken, "versionToken is null");
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TableVersion that = (TableVersion) o;
+        return catalogName.equals(that.catalogName) &&
+                tableHandle.equals(that.tableHandle) &&
+                assignments.equals(that.assignments) &&
+                versionToken.equals(that.versionToken);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(catalogName, tableHandle, assignments, versionToken);
+    }
+
+    @Override
+    public String toString()
+    {
+        return catalogName + ":" + tableHandle + "@" + versionToken;
+    }
+}
@@ -28,14 +28,12 @@ import static java.util.Objects.requireNonNull;
 public final class NodeAssignmentStats
 {
     private final NodeTaskMap nodeTaskMap;
-    private final Map<InternalNode, Integer> nodeTotalSplitCount;
     private final Map<String, PendingSplitInfo> stageQueuedSplitInfo;
 
     public NodeAssignmentStats(NodeTaskMap nodeTaskMap, NodeMap nodeMap, List<RemoteTask> existingTasks)
     {
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         int nodeMapSize = requireNonNull(nodeMap, "nodeMap is null").getNodesByHostAndPort().size();
-        this.nodeTotalSplitCount = new HashMap<>(nodeMapSize);
         this.stageQueuedSplitInfo = new HashMap<>(nodeMapSize);
 
         for (RemoteTask task : existingTasks) {
@@ -53,9 +51,12 @@ public final class NodeAssignmentStats
 
     public int getTotalSplitCount(InternalNode node)
     {
-        int nodeTotalSplits = nodeTotalSplitCount.computeIfAbsent(node, nodeTaskMap::getPartitionedSplitsOnNode);
-        PendingSplitInfo stageInfo = stageQueuedSplitInfo.get(node.getNodeIdentifier());
-        return nodeTotalSplits + (stageInfo == null ? 0 : stageInfo.getAssignedSplitCount());
+        // the splits of the node and of the stage are kept in the same entry, so that a single lookup is needed for every split that is assigned
+        PendingSplitInfo stageInfo = getOrCreateStageSplitInfo(node);
+        if (!stageInfo.hasNodeSplitCount()) {
+            stageInfo.setNodeSplitCount(nodeTaskMap.getPartitionedSplitsOnNode(node));
+        }
+        return stageInfo.getNodeSplitCount() + stageInfo.getAssignedSplitCount();
     }
 
     public int getQueuedSplitCountForStage(InternalNode node)
@@ -97,6 +98,8 @@ public final class NodeAssignmentStats
         private final int queuedSplitCount;
         private final int unacknowledgedSplitCount;
         private int assignedSplits;
+        // splits of all stages on the node when the assignment started, or -1 if not yet known
+        private int nodeSplitCount = -1;
 
         private PendingSplitInfo(int queuedSplitCount, int unacknowledgedSplitCount)
         {
@@ -109,6 +112,21 @@ public final class NodeAssignmentStats
             return assignedSplits;
         }
 
+        public boolean hasNodeSplitCount()
+        {
+            return nodeSplitCount >= 0;
+        }
+
+        public int getNodeSplitCount()
+        {
+            return nodeSplitCount;
+        }
+
+        public void setNodeSplitCount(int nodeSplitCount)
+        {
+            this.nodeSplitCount = nodeSplitCount;
+        }
+
         public int getQueuedSplitCount()
         {
             return queuedSplitCount + assignedSplits;
@@ -21,6 +21,8 @@ import io.airlift.configuration.LegacyConfig;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.util.Optional;
+
 import static java.util.Locale.ENGLISH;
 
 @DefunctConfig({"node-scheduler.location-aware-scheduling-enabled", "node-scheduler.multiple-tasks-per-node-enabled"})
@@ -35,6 +37,7 @@ public class NodeSchedulerConfig
     private boolean includeCoordinator = true;
     private int maxSplitsPerNode = 100;
     private int maxPendingSplitsPerTask = 10;
+    private Optional<Integer> maxAdjustedPendingSplitsPerTask = Optional.empty();
     private NodeSchedulerPolicy nodeSchedulerPolicy = NodeSchedulerPolicy.UNIFORM;
     private boolean optimizedLocalScheduling = true;
     private int maxUnacknowledgedSplitsPerTask = 500;
@@ -106,6 +109,20 @@ public class NodeSchedulerConfig
         return maxPendingSplitsPerTask;
     }
 
+    @NotNull
+    public Optional<@Min(1) Integer> getMaxAdjustedPendingSplitsPerTask()
+    {
+        return maxAdjustedPendingSplitsPerTask;
+    }
+
+    @Config("node-scheduler.max-adjusted-pending-splits-per-task")
+    @ConfigDescription("Maximum number of splits queued for a task, to which the pending splits limit is raised for tasks that run out of splits")
+    public NodeSchedulerConfig setMaxAdjustedPendingSplitsPerTask(Integer maxAdjustedPendingSplitsPerTask)
+    {
+        this.maxAdjustedPendingSplitsPerTask = Optional.ofNullable(maxAdjustedPendingSplitsPerTask);
+        return this;
+    }
+
     public int getMaxSplitsPerNode()
     {
         return maxSplitsPerNode;
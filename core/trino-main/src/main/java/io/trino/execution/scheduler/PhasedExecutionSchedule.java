@@ -22,6 +22,7 @@ import io.trino.sql.planner.PlanFragment;
 import io.trino.sql.planner.plan.ExchangeNode;
 import io.trino.sql.planner.plan.IndexJoinNode;
 import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.PlanFragmentId;
 import io.trino.sql.planner.plan.PlanNode;
 import io.trino.sql.planner.plan.PlanVisitor;
@@ -213,6 +214,16 @@ public class PhasedExecutionSchedule
             return processJoin(node.getRight(), node.getLeft(), currentFragmentId);
         }
 
+        @Override
+        public Set<PlanFragmentId> visitMergeJoin(MergeJoinNode node, PlanFragmentId currentFragmentId)
+        {
+            // both inputs of a merge join are consumed concurrently, so they must be scheduled together
+            return ImmutableSet.<PlanFragmentId>builder()
+                    .addAll(node.getRight().accept(this, currentFragmentId))
+                    .addAll(node.getLeft().accept(this, currentFragmentId))
+                    .build();
+        }
+
         @Override
         public Set<PlanFragmentId> visitSemiJoin(SemiJoinNode node, PlanFragmentId currentFragmentId)
         {
@@ -501,6 +501,7 @@ public class SqlQueryScheduler
                 parent.getTypes(),
                 parent.getStageStats(),
                 parent.getTasks(),
+                parent.getNodes(),
                 childStages,
                 parent.getTables(),
                 parent.getFailureCause());
@@ -15,6 +15,7 @@ package io.trino.execution.scheduler;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
@@ -32,13 +33,17 @@ import io.trino.spi.TrinoException;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -51,8 +56,11 @@ import static io.trino.execution.scheduler.NodeScheduler.selectExactNodes;
 import static io.trino.execution.scheduler.NodeScheduler.selectNodes;
 import static io.trino.execution.scheduler.NodeScheduler.toWhenHasSplitQueueSpaceFuture;
 import static io.trino.spi.StandardErrorCode.NO_NODES_AVAILABLE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Comparator.comparingInt;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class UniformNodeSelector
         implements NodeSelector
@@ -68,6 +76,7 @@ public class UniformNodeSelector
     private final int maxPendingSplitsPerTask;
     private final int maxUnacknowledgedSplitsPerTask;
     private final boolean optimizedLocalScheduling;
+    private final QueueSizeAdjuster queueSizeAdjuster;
 
     public UniformNodeSelector(
             InternalNodeManager nodeManager,
@@ -77,6 +86,7 @@ public class UniformNodeSelector
             int minCandidates,
             int maxSplitsPerNode,
             int maxPendingSplitsPerTask,
+            int maxAdjustedPendingSplitsPerTask,
             int maxUnacknowledgedSplitsPerTask,
             boolean optimizedLocalScheduling)
     {
@@ -90,6 +100,7 @@ public class UniformNodeSelector
         this.maxUnacknowledgedSplitsPerTask = maxUnacknowledgedSplitsPerTask;
         checkArgument(maxUnacknowledgedSplitsPerTask > 0, "maxUnacknowledgedSplitsPerTask must be > 0, found: %s", maxUnacknowledgedSplitsPerTask);
         this.optimizedLocalScheduling = optimizedLocalScheduling;
+        this.queueSizeAdjuster = new QueueSizeAdjuster(maxPendingSplitsPerTask, maxAdjustedPendingSplitsPerTask, Ticker.systemTicker());
     }
 
     @Override
@@ -123,6 +134,7 @@ public class UniformNodeSelector
         Multimap<InternalNode, Split> assignment = HashMultimap.create();
         NodeMap nodeMap = this.nodeMap.get().get();
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
+        queueSizeAdjuster.update(existingTasks);
 
         ResettableRandomizedIterator<InternalNode> randomCandidates = randomizedNodes(nodeMap, includeCoordinator, ImmutableSet.of());
         Set<InternalNode> blockedExactNodes = new HashSet<>();
@@ -130,12 +142,16 @@ public class UniformNodeSelector
         // splitsToBeRedistributed becomes true only when splits go through locality-based assignment
         boolean splitsToBeRedistributed = false;
         Set<Split> remainingSplits = new HashSet<>();
+        // splits of the same file usually have the same addresses, so the nodes for a list of addresses are only selected once per batch
+        Map<List<HostAddress>, List<InternalNode>> exactNodesByAddresses = new HashMap<>();
+        Function<List<HostAddress>, List<InternalNode>> exactNodesSelector = addresses -> selectExactNodes(nodeMap, addresses, includeCoordinator);
+        List<InternalNode> randomCandidateNodes = new ArrayList<>(minCandidates);
 
         // optimizedLocalScheduling enables prioritized assignment of splits to local nodes when splits contain locality information
         if (optimizedLocalScheduling) {
             for (Split split : splits) {
                 if (split.isRemotelyAccessible() && !split.getAddresses().isEmpty()) {
-                    List<InternalNode> candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
+                    List<InternalNode> candidateNodes = exactNodesByAddresses.computeIfAbsent(split.getAddresses(), exactNodesSelector);
 
                     Optional<InternalNode> chosenNode = candidateNodes.stream()
                             .filter(ownerNode -> assignmentStats.getTotalSplitCount(ownerNode) < maxSplitsPerNode && assignmentStats.getUnacknowledgedSplitCountForStage(ownerNode) < maxUnacknowledgedSplitsPerTask)
@@ -160,10 +176,15 @@ public class UniformNodeSelector
 
             List<InternalNode> candidateNodes;
             if (!split.isRemotelyAccessible()) {
-                candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
+                candidateNodes = exactNodesByAddresses.computeIfAbsent(split.getAddresses(), exactNodesSelector);
             }
             else {
-                candidateNodes = selectNodes(minCandidates, randomCandidates);
+                // reuse the list of candidates, instead of allocating one for every split
+                randomCandidateNodes.clear();
+                while (randomCandidateNodes.size() < minCandidates && randomCandidates.hasNext()) {
+                    randomCandidateNodes.add(randomCandidates.next());
+                }
+                candidateNodes = randomCandidateNodes;
             }
             if (candidateNodes.isEmpty()) {
                 log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
@@ -184,7 +205,10 @@ public class UniformNodeSelector
                 // min is guaranteed to be MAX_VALUE at this line
                 for (InternalNode node : candidateNodes) {
                     int totalSplitCount = assignmentStats.getQueuedSplitCountForStage(node);
-                    if (totalSplitCount < min && totalSplitCount < maxPendingSplitsPerTask && assignmentStats.getUnacknowledgedSplitCountForStage(node) < maxUnacknowledgedSplitsPerTask) {
+                    if (totalSplitCount >= queueSizeAdjuster.getMaxPendingSplitsPerTask(node)) {
+                        queueSizeAdjuster.markFull(node);
+                    }
+                    else if (totalSplitCount < min && assignmentStats.getUnacknowledgedSplitCountForStage(node) < maxUnacknowledgedSplitsPerTask) {
                         chosenNode = node;
                         min = totalSplitCount;
                     }
@@ -322,6 +346,80 @@ public class UniformNodeSelector
         assignment.put(toNode, splitToBeRedistributed);
     }
 
+    /**
+     * Sizes the queue of pending splits of the task on each node based on how fast the task processes the splits.
+     * When the queue of a task was full and is found empty the next time splits are assigned, the task finished
+     * its splits faster than the scheduler refilled the queue, and the limit of the node is doubled, up to the
+     * maximum. The limit is reduced again, down to the configured number of pending splits per task, while the
+     * task does not run out of splits, so that slow splits are not piled up on a single node.
+     */
+    private static class QueueSizeAdjuster
+    {
+        private static final long SCALE_DOWN_INTERVAL = SECONDS.toNanos(1);
+
+        private final int minPendingSplitsPerTask;
+        private final int maxPendingSplitsPerTask;
+        private final Ticker ticker;
+        private final Map<String, TaskQueueSize> queueSizes = new HashMap<>();
+
+        public QueueSizeAdjuster(int minPendingSplitsPerTask, int maxPendingSplitsPerTask, Ticker ticker)
+        {
+            checkArgument(maxPendingSplitsPerTask >= minPendingSplitsPerTask, "maxPendingSplitsPerTask must be >= minPendingSplitsPerTask");
+            this.minPendingSplitsPerTask = minPendingSplitsPerTask;
+            this.maxPendingSplitsPerTask = maxPendingSplitsPerTask;
+            this.ticker = requireNonNull(ticker, "ticker is null");
+        }
+
+        public void update(List<RemoteTask> existingTasks)
+        {
+            if (queueSizes.isEmpty()) {
+                return;
+            }
+            long now = ticker.read();
+            for (RemoteTask task : existingTasks) {
+                TaskQueueSize queueSize = queueSizes.get(task.getNodeId());
+                if (queueSize == null) {
+                    continue;
+                }
+                if (queueSize.full && task.getQueuedPartitionedSplitCount() == 0) {
+                    queueSize.maxPendingSplits = min(maxPendingSplitsPerTask, queueSize.maxPendingSplits * 2);
+                    queueSize.lastAdjustmentNanos = now;
+                }
+                else if (queueSize.maxPendingSplits > minPendingSplitsPerTask && now - queueSize.lastAdjustmentNanos >= SCALE_DOWN_INTERVAL) {
+                    queueSize.maxPendingSplits = max(minPendingSplitsPerTask, (int) (queueSize.maxPendingSplits / 1.5));
+                    queueSize.lastAdjustmentNanos = now;
+                }
+                queueSize.full = false;
+            }
+        }
+
+        public int getMaxPendingSplitsPerTask(InternalNode node)
+        {
+            TaskQueueSize queueSize = queueSizes.get(node.getNodeIdentifier());
+            return queueSize == null ? minPendingSplitsPerTask : queueSize.maxPendingSplits;
+        }
+
+        public void markFull(InternalNode node)
+        {
+            if (maxPendingSplitsPerTask == minPendingSplitsPerTask) {
+                return;
+            }
+            queueSizes.computeIfAbsent(node.getNodeIdentifier(), ignored -> new TaskQueueSize(minPendingSplitsPerTask)).full = true;
+        }
+
+        private static class TaskQueueSize
+        {
+            private int maxPendingSplits;
+            private long lastAdjustmentNanos;
+            private boolean full;
+
+            public TaskQueueSize(int maxPendingSplits)
+            {
+                this.maxPendingSplits = maxPendingSplits;
+            }
+        }
+    }
+
     /**
      * Helper method to determine if a split is local to a node irrespective of whether splitAddresses contain port information or not
      */
@@ -95,10 +95,12 @@ public final class LocalMemoryManager
     public MemoryInfo getInfo()
     {
         ImmutableMap.Builder<MemoryPoolId, MemoryPoolInfo> builder = ImmutableMap.builder();
+        ImmutableMap.Builder<MemoryPoolId, MemoryArbitrationInfo> arbitration = ImmutableMap.builder();
         for (Map.Entry<MemoryPoolId, MemoryPool> entry : pools.entrySet()) {
             builder.put(entry.getKey(), entry.getValue().getInfo());
+            arbitration.put(entry.getKey(), entry.getValue().getArbitrationInfo());
         }
-        return new MemoryInfo(OPERATING_SYSTEM_MX_BEAN.getAvailableProcessors(), maxMemory, builder.build());
+        return new MemoryInfo(OPERATING_SYSTEM_MX_BEAN.getAvailableProcessors(), maxMemory, builder.build(), arbitration.build());
     }
 
     public List<MemoryPool> getPools()
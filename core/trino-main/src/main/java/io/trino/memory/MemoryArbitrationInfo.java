@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.memory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+import io.trino.spi.QueryId;
+
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+public class MemoryArbitrationInfo
+{
+    private final Map<QueryId, Long> queryMemoryGuarantees;
+    private final long unusedGuaranteedBytes;
+    private final long borrowedBytes;
+    private final long blockedBorrowerReservations;
+
+    @JsonCreator
+    public MemoryArbitrationInfo(
+            @JsonProperty("queryMemoryGuarantees") Map<QueryId, Long> queryMemoryGuarantees,
+            @JsonProperty("unusedGuaranteedBytes") long unusedGuaranteedBytes,
+            @JsonProperty("borrowedBytes") long borrowedBytes,
+            @JsonProperty("blockedBorrowerReservations") long blockedBorrowerReservations)
+    {
+        this.queryMemoryGuarantees = ImmutableMap.copyOf(requireNonNull(queryMemoryGuarantees, "queryMemoryGuarantees is null"));
+        this.unusedGuaranteedBytes = unusedGuaranteedBytes;
+        this.borrowedBytes = borrowedBytes;
+        this.blockedBorrowerReservations = blockedBorrowerReservations;
+    }
+
+    @JsonProperty
+    public Map<QueryId, Long> getQueryMemoryGuarantees()
+    {
+        return queryMemoryGuarantees;
+    }
+
+    /**
+     * Memory guaranteed to queries which they do not use, and which is only lent to other queries as revocable memory.
+     */
+    @JsonProperty
+    public long getUnusedGuaranteedBytes()
+    {
+        return unusedGuaranteedBytes;
+    }
+
+    /**
+     * Memory reserved by queries in excess of their guarantees.
+     */
+    @JsonProperty
+    public long getBorrowedBytes()
+    {
+        return borrowedBytes;
+    }
+
+    /**
+     * Number of times a reservation of a query was blocked, because it would use memory guaranteed to other queries.
+     */
+    @JsonProperty
+    public long getBlockedBorrowerReservations()
+    {
+        return blockedBorrowerReservations;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("queryMemoryGuarantees", queryMemoryGuarantees)
+                .add("unusedGuaranteedBytes", unusedGuaranteedBytes)
+                .add("borrowedBytes", borrowedBytes)
+                .add("blockedBorrowerReservations", blockedBorrowerReservations)
+                .toString();
+    }
+}
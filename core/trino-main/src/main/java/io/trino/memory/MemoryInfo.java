@@ -30,15 +30,18 @@ public class MemoryInfo
     private final int availableProcessors;
     private final DataSize totalNodeMemory;
     private final Map<MemoryPoolId, MemoryPoolInfo> pools;
+    private final Map<MemoryPoolId, MemoryArbitrationInfo> arbitration;
 
     @JsonCreator
     public MemoryInfo(
             @JsonProperty("availableProcessors") int availableProcessors,
             @JsonProperty("totalNodeMemory") DataSize totalNodeMemory,
-            @JsonProperty("pools") Map<MemoryPoolId, MemoryPoolInfo> pools)
+            @JsonProperty("pools") Map<MemoryPoolId, MemoryPoolInfo> pools,
+            @JsonProperty("arbitration") Map<MemoryPoolId, MemoryArbitrationInfo> arbitration)
     {
         this.totalNodeMemory = requireNonNull(totalNodeMemory, "totalNodeMemory is null");
         this.pools = ImmutableMap.copyOf(requireNonNull(pools, "pools is null"));
+        this.arbitration = ImmutableMap.copyOf(requireNonNull(arbitration, "arbitration is null"));
         this.availableProcessors = availableProcessors;
     }
 
@@ -60,6 +63,12 @@ public class MemoryInfo
         return pools;
     }
 
+    @JsonProperty
+    public Map<MemoryPoolId, MemoryArbitrationInfo> getArbitration()
+    {
+        return arbitration;
+    }
+
     @Override
     public String toString()
     {
@@ -67,6 +76,7 @@ public class MemoryInfo
                 .add("availableProcessors", availableProcessors)
                 .add("totalNodeMemory", totalNodeMemory)
                 .add("pools", pools)
+                .add("arbitration", arbitration)
                 .toString();
     }
 }
@@ -29,6 +29,8 @@ import javax.annotation.concurrent.GuardedBy;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -57,6 +59,11 @@ public class MemoryPool
     @GuardedBy("this")
     private NonCancellableMemoryFuture<Void> future;
 
+    // Borrowers of guaranteed memory are only unblocked once memory which is not guaranteed to other queries is free
+    @Nullable
+    @GuardedBy("this")
+    private NonCancellableMemoryFuture<Void> borrowerFuture;
+
     @GuardedBy("this")
     // TODO: It would be better if we just tracked QueryContexts, but their lifecycle is managed by a weak reference, so we can't do that
     private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
@@ -68,6 +75,26 @@ public class MemoryPool
     @GuardedBy("this")
     private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
 
+    // Memory guaranteed to a query which the query does not use is only lent to other queries as revocable memory,
+    // so that the owner can get it back by spilling the borrowers
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryGuarantees = new HashMap<>();
+
+    // Guarantees which do not fit in the part of the pool that is not guaranteed yet, in the order they were requested
+    @GuardedBy("this")
+    private final Map<QueryId, Long> pendingQueryMemoryGuarantees = new LinkedHashMap<>();
+
+    // Sum of queryMemoryGuarantees
+    @GuardedBy("this")
+    private long guaranteedBytes;
+
+    // Sum of the guaranteed memory which is not reserved by the queries it is guaranteed to
+    @GuardedBy("this")
+    private long unusedGuaranteedBytes;
+
+    @GuardedBy("this")
+    private long blockedBorrowerReservations;
+
     private final List<MemoryPoolListener> listeners = new CopyOnWriteArrayList<>();
 
     public MemoryPool(MemoryPoolId id, DataSize size)
@@ -95,6 +122,15 @@ public class MemoryPool
         return new MemoryPoolInfo(maxBytes, reservedBytes, reservedRevocableBytes, queryMemoryReservations, memoryAllocations, queryMemoryRevocableReservations);
     }
 
+    public synchronized MemoryArbitrationInfo getArbitrationInfo()
+    {
+        long borrowedBytes = 0;
+        for (Entry<QueryId, Long> entry : queryMemoryReservations.entrySet()) {
+            borrowedBytes += Math.max(0, entry.getValue() - queryMemoryGuarantees.getOrDefault(entry.getKey(), 0L));
+        }
+        return new MemoryArbitrationInfo(queryMemoryGuarantees, unusedGuaranteedBytes, borrowedBytes, blockedBorrowerReservations);
+    }
+
     public void addListener(MemoryPoolListener listener)
     {
         listeners.add(requireNonNull(listener, "listener cannot be null"));
@@ -115,11 +151,21 @@ public class MemoryPool
         ListenableFuture<Void> result;
         synchronized (this) {
             if (bytes != 0) {
+                long unusedGuarantee = getUnusedGuarantee(queryId);
                 queryMemoryReservations.merge(queryId, bytes, Long::sum);
+                unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
                 updateTaggedMemoryAllocations(queryId, allocationTag, bytes);
             }
             reservedBytes += bytes;
-            if (getFreeBytes() <= 0) {
+            if (isBorrowingGuaranteedMemory(queryId)) {
+                if (borrowerFuture == null) {
+                    borrowerFuture = NonCancellableMemoryFuture.create();
+                }
+                checkState(!borrowerFuture.isDone(), "borrowerFuture is already completed");
+                result = borrowerFuture;
+                blockedBorrowerReservations++;
+            }
+            else if (getFreeBytes() <= 0) {
                 if (future == null) {
                     future = NonCancellableMemoryFuture.create();
                 }
@@ -135,6 +181,118 @@ public class MemoryPool
         return result;
     }
 
+    /**
+     * Sets the amount of memory guaranteed to the query. Guaranteed memory which is not used by the query
+     * can only be reserved by other queries as revocable memory. Setting the guarantee to zero releases it.
+     * A guarantee which does not fit in the part of the pool that is not guaranteed to other queries is
+     * queued, and granted once enough guaranteed memory is released, in the order of the requests.
+     */
+    public synchronized void setQueryMemoryGuarantee(QueryId queryId, long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        // a guarantee larger than the pool could never be granted
+        long guarantee = Math.min(bytes, maxBytes);
+        pendingQueryMemoryGuarantees.remove(queryId);
+        Long previous = queryMemoryGuarantees.get(queryId);
+        if (previous != null) {
+            updateQueryMemoryGuarantee(queryId, 0);
+        }
+        if (guarantee != 0) {
+            if (pendingQueryMemoryGuarantees.isEmpty() && guaranteedBytes + guarantee <= maxBytes) {
+                updateQueryMemoryGuarantee(queryId, guarantee);
+            }
+            else {
+                pendingQueryMemoryGuarantees.put(queryId, guarantee);
+            }
+        }
+        grantPendingQueryMemoryGuarantees();
+        if (previous != null && previous > getQueryMemoryGuarantee(queryId)) {
+            // memory lent by this query can be used by borrowers again
+            onMemoryFreed();
+        }
+    }
+
+    @GuardedBy("this")
+    private void grantPendingQueryMemoryGuarantees()
+    {
+        Iterator<Entry<QueryId, Long>> iterator = pendingQueryMemoryGuarantees.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<QueryId, Long> entry = iterator.next();
+            if (guaranteedBytes + entry.getValue() > maxBytes) {
+                return;
+            }
+            updateQueryMemoryGuarantee(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    @GuardedBy("this")
+    private void updateQueryMemoryGuarantee(QueryId queryId, long bytes)
+    {
+        long unusedGuarantee = getUnusedGuarantee(queryId);
+        Long previous = (bytes == 0) ? queryMemoryGuarantees.remove(queryId) : queryMemoryGuarantees.put(queryId, bytes);
+        guaranteedBytes += bytes - ((previous == null) ? 0 : previous);
+        unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
+    }
+
+    public synchronized long getQueryMemoryGuarantee(QueryId queryId)
+    {
+        return queryMemoryGuarantees.getOrDefault(queryId, 0L);
+    }
+
+    public synchronized boolean isQueryMemoryGuaranteePending(QueryId queryId)
+    {
+        return pendingQueryMemoryGuarantees.containsKey(queryId);
+    }
+
+    /**
+     * Returns true if the query uses more memory than it is guaranteed, while the free memory is needed to honor
+     * the guarantees of other queries. A query which exceeds its guarantee does not have unused guaranteed memory,
+     * so all unused guaranteed memory belongs to other queries.
+     */
+    @GuardedBy("this")
+    private boolean isBorrowingGuaranteedMemory(QueryId queryId)
+    {
+        return unusedGuaranteedBytes > 0 && getFreeBytes() <= unusedGuaranteedBytes && isQueryExceedingMemoryGuarantee(queryId);
+    }
+
+    /**
+     * Returns the amount of memory guaranteed to the query, which it does not use.
+     */
+    @GuardedBy("this")
+    private long getUnusedGuarantee(QueryId queryId)
+    {
+        Long guarantee = queryMemoryGuarantees.get(queryId);
+        if (guarantee == null) {
+            return 0;
+        }
+        long queryReservation = queryMemoryReservations.getOrDefault(queryId, 0L) + queryMemoryRevocableReservations.getOrDefault(queryId, 0L);
+        return Math.max(0, guarantee - queryReservation);
+    }
+
+    @GuardedBy("this")
+    private void onMemoryFreed()
+    {
+        long freeBytes = getFreeBytes();
+        if (freeBytes > 0 && future != null) {
+            future.set(null);
+            future = null;
+        }
+        if (freeBytes > unusedGuaranteedBytes && borrowerFuture != null) {
+            borrowerFuture.set(null);
+            borrowerFuture = null;
+        }
+    }
+
+    /**
+     * Returns true if the query reserves more memory than it is guaranteed in this pool.
+     */
+    public synchronized boolean isQueryExceedingMemoryGuarantee(QueryId queryId)
+    {
+        long queryReservation = queryMemoryReservations.getOrDefault(queryId, 0L) + queryMemoryRevocableReservations.getOrDefault(queryId, 0L);
+        return queryReservation > queryMemoryGuarantees.getOrDefault(queryId, 0L);
+    }
+
     private void onMemoryReserved()
     {
         listeners.forEach(listener -> listener.onMemoryReserved(this));
@@ -147,7 +305,9 @@ public class MemoryPool
         ListenableFuture<Void> result;
         synchronized (this) {
             if (bytes != 0) {
+                long unusedGuarantee = getUnusedGuarantee(queryId);
                 queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
+                unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
             }
             reservedRevocableBytes += bytes;
             if (getFreeBytes() <= 0) {
@@ -178,7 +338,9 @@ public class MemoryPool
             }
             reservedBytes += bytes;
             if (bytes != 0) {
+                long unusedGuarantee = getUnusedGuarantee(queryId);
                 queryMemoryReservations.merge(queryId, bytes, Long::sum);
+                unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
                 updateTaggedMemoryAllocations(queryId, allocationTag, bytes);
             }
         }
@@ -199,6 +361,7 @@ public class MemoryPool
         Long queryReservation = queryMemoryReservations.get(queryId);
         requireNonNull(queryReservation, "queryReservation is null");
         checkArgument(queryReservation - bytes >= 0, "tried to free more memory than is reserved by query");
+        long unusedGuarantee = getUnusedGuarantee(queryId);
         queryReservation -= bytes;
         if (queryReservation == 0) {
             queryMemoryReservations.remove(queryId);
@@ -208,11 +371,9 @@ public class MemoryPool
             queryMemoryReservations.put(queryId, queryReservation);
             updateTaggedMemoryAllocations(queryId, allocationTag, -bytes);
         }
+        unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
         reservedBytes -= bytes;
-        if (getFreeBytes() > 0 && future != null) {
-            future.set(null);
-            future = null;
-        }
+        onMemoryFreed();
     }
 
     public synchronized void freeRevocable(QueryId queryId, long bytes)
@@ -227,6 +388,7 @@ public class MemoryPool
         Long queryReservation = queryMemoryRevocableReservations.get(queryId);
         requireNonNull(queryReservation, "queryReservation is null");
         checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
+        long unusedGuarantee = getUnusedGuarantee(queryId);
         queryReservation -= bytes;
         if (queryReservation == 0) {
             queryMemoryRevocableReservations.remove(queryId);
@@ -234,11 +396,9 @@ public class MemoryPool
         else {
             queryMemoryRevocableReservations.put(queryId, queryReservation);
         }
+        unusedGuaranteedBytes += getUnusedGuarantee(queryId) - unusedGuarantee;
         reservedRevocableBytes -= bytes;
-        if (getFreeBytes() > 0 && future != null) {
-            future.set(null);
-            future = null;
-        }
+        onMemoryFreed();
     }
 
     // When this method returns the MOVE_QUERY_TAG won't be visible in the tagged memory allocations map.
@@ -249,6 +409,14 @@ public class MemoryPool
     {
         long originalReserved = getQueryMemoryReservation(queryId);
         long originalRevocableReserved = getQueryRevocableMemoryReservation(queryId);
+        Long memoryGuarantee = queryMemoryGuarantees.get(queryId);
+        if (memoryGuarantee == null) {
+            memoryGuarantee = pendingQueryMemoryGuarantees.get(queryId);
+        }
+        if (memoryGuarantee != null) {
+            setQueryMemoryGuarantee(queryId, 0);
+            targetMemoryPool.setQueryMemoryGuarantee(queryId, memoryGuarantee);
+        }
         // Get the tags before we call free() as that would remove the tags and we will lose the tags.
         Map<String, Long> taggedAllocations = taggedMemoryAllocations.remove(queryId);
         if (taggedAllocations == null) {
@@ -290,6 +458,24 @@ public class MemoryPool
         return reservedRevocableBytes;
     }
 
+    @Managed
+    public synchronized long getGuaranteedBytes()
+    {
+        return guaranteedBytes;
+    }
+
+    @Managed
+    public synchronized long getUnusedGuaranteedBytes()
+    {
+        return unusedGuaranteedBytes;
+    }
+
+    @Managed
+    public synchronized long getBlockedBorrowerReservations()
+    {
+        return blockedBorrowerReservations;
+    }
+
     synchronized long getQueryMemoryReservation(QueryId queryId)
     {
         return queryMemoryReservations.getOrDefault(queryId, 0L);
@@ -310,6 +496,7 @@ public class MemoryPool
                 .add("reservedBytes", reservedBytes)
                 .add("reservedRevocableBytes", reservedRevocableBytes)
                 .add("future", future)
+                .add("borrowerFuture", borrowerFuture)
                 .toString();
     }
 
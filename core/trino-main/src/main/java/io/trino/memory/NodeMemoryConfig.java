@@ -36,6 +36,8 @@ public class NodeMemoryConfig
     // This is a per-query limit for the user plus system allocations.
     private DataSize maxQueryTotalMemoryPerNode = DataSize.ofBytes(Math.round(AVAILABLE_HEAP_MEMORY * 0.3));
     private DataSize heapHeadroom = DataSize.ofBytes(Math.round(AVAILABLE_HEAP_MEMORY * 0.3));
+    private DataSize queryMemoryGuaranteePerNode = DataSize.ofBytes(0);
+    private DataSize memoryAccountingQuantum = DataSize.ofBytes(0);
 
     @NotNull
     public DataSize getMaxQueryMemoryPerNode()
@@ -97,4 +99,32 @@ public class NodeMemoryConfig
         this.heapHeadroom = heapHeadroom;
         return this;
     }
+
+    @NotNull
+    public DataSize getQueryMemoryGuaranteePerNode()
+    {
+        return queryMemoryGuaranteePerNode;
+    }
+
+    @Config("query.memory-guarantee-per-node")
+    @ConfigDescription("Amount of memory per node guaranteed to a query; memory which is guaranteed but not used is only lent to other queries as revocable memory")
+    public NodeMemoryConfig setQueryMemoryGuaranteePerNode(DataSize queryMemoryGuaranteePerNode)
+    {
+        this.queryMemoryGuaranteePerNode = queryMemoryGuaranteePerNode;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMemoryAccountingQuantum()
+    {
+        return memoryAccountingQuantum;
+    }
+
+    @Config("memory.accounting-quantum")
+    @ConfigDescription("Granularity in which operators reserve memory from the query memory pool; zero reports every change of operator memory usage")
+    public NodeMemoryConfig setMemoryAccountingQuantum(DataSize memoryAccountingQuantum)
+    {
+        this.memoryAccountingQuantum = memoryAccountingQuantum;
+        return this;
+    }
 }
@@ -79,6 +79,10 @@ public class QueryContext
     private long maxUserMemory;
     @GuardedBy("this")
     private long maxTotalMemory;
+    @GuardedBy("this")
+    private long memoryGuarantee;
+    @GuardedBy("this")
+    private boolean memoryGuaranteeActive;
 
     private final MemoryTrackingContext queryMemoryContext;
 
@@ -98,6 +102,21 @@ public class QueryContext
             ScheduledExecutorService yieldExecutor,
             DataSize maxSpill,
             SpillSpaceTracker spillSpaceTracker)
+    {
+        this(queryId, maxUserMemory, maxTotalMemory, memoryPool, gcMonitor, notificationExecutor, yieldExecutor, maxSpill, spillSpaceTracker, DataSize.ofBytes(0));
+    }
+
+    public QueryContext(
+            QueryId queryId,
+            DataSize maxUserMemory,
+            DataSize maxTotalMemory,
+            MemoryPool memoryPool,
+            GcMonitor gcMonitor,
+            Executor notificationExecutor,
+            ScheduledExecutorService yieldExecutor,
+            DataSize maxSpill,
+            SpillSpaceTracker spillSpaceTracker,
+            DataSize memoryAccountingQuantum)
     {
         this.queryId = requireNonNull(queryId, "queryId is null");
         this.maxUserMemory = requireNonNull(maxUserMemory, "maxUserMemory is null").toBytes();
@@ -108,10 +127,11 @@ public class QueryContext
         this.yieldExecutor = requireNonNull(yieldExecutor, "yieldExecutor is null");
         this.maxSpill = requireNonNull(maxSpill, "maxSpill is null").toBytes();
         this.spillSpaceTracker = requireNonNull(spillSpaceTracker, "spillSpaceTracker is null");
+        long accountingQuantum = requireNonNull(memoryAccountingQuantum, "memoryAccountingQuantum is null").toBytes();
         this.queryMemoryContext = new MemoryTrackingContext(
-                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateUserMemory, this::tryUpdateUserMemory), GUARANTEED_MEMORY),
-                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateRevocableMemory, this::tryReserveMemoryNotSupported), 0L),
-                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateSystemMemory, this::tryReserveMemoryNotSupported), 0L));
+                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateUserMemory, this::tryUpdateUserMemory), GUARANTEED_MEMORY, accountingQuantum),
+                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateRevocableMemory, this::tryReserveMemoryNotSupported), 0L, accountingQuantum),
+                newRootAggregatedMemoryContext(new QueryMemoryReservationHandler(this::updateSystemMemory, this::tryReserveMemoryNotSupported), 0L, accountingQuantum));
     }
 
     public boolean isMemoryLimitsInitialized()
@@ -120,10 +140,12 @@ public class QueryContext
     }
 
     // TODO: This method should be removed, and the correct limit set in the constructor. However, due to the way QueryContext is constructed the memory limit is not known in advance
-    public synchronized void initializeMemoryLimits(boolean resourceOverCommit, long maxUserMemory, long maxTotalMemory)
+    public synchronized void initializeMemoryLimits(boolean resourceOverCommit, long maxUserMemory, long maxTotalMemory, long memoryGuarantee)
     {
         checkArgument(maxUserMemory >= 0, "maxUserMemory must be >= 0, found: %s", maxUserMemory);
         checkArgument(maxTotalMemory >= 0, "maxTotalMemory must be >= 0, found: %s", maxTotalMemory);
+        checkArgument(memoryGuarantee >= 0, "memoryGuarantee must be >= 0, found: %s", memoryGuarantee);
+        this.memoryGuarantee = memoryGuarantee;
         this.resourceOverCommit = resourceOverCommit;
         if (resourceOverCommit) {
             // Allow the query to use the entire pool. This way the worker will kill the query, if it uses the entire local memory pool.
@@ -138,6 +160,24 @@ public class QueryContext
         memoryLimitsInitialized = true;
     }
 
+    /**
+     * Registers the memory guarantee of the query with its memory pool while the query has running tasks on this node,
+     * and releases it otherwise, so that the memory can be used by other queries.
+     */
+    public synchronized void setMemoryGuaranteeActive(boolean active)
+    {
+        if (memoryGuarantee == 0 || memoryGuaranteeActive == active) {
+            return;
+        }
+        memoryGuaranteeActive = active;
+        memoryPool.setQueryMemoryGuarantee(queryId, active ? memoryGuarantee : 0);
+    }
+
+    public synchronized long getMemoryGuarantee()
+    {
+        return memoryGuarantee;
+    }
+
     @VisibleForTesting
     MemoryTrackingContext getQueryMemoryContext()
     {
@@ -140,6 +140,11 @@ public interface Metadata
      */
     TableStatistics getTableStatistics(Session session, TableHandle tableHandle, Constraint constraint);
 
+    /**
+     * Returns a token identifying the current version of the data in the table, if the connector can provide one.
+     */
+    Optional<String> getTableVersionToken(Session session, TableHandle tableHandle);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
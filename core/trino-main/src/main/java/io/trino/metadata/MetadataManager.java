@@ -582,6 +582,14 @@ public final class MetadataManager
         return tableStatistics;
     }
 
+    @Override
+    public Optional<String> getTableVersionToken(Session session, TableHandle tableHandle)
+    {
+        CatalogName catalogName = tableHandle.getCatalogName();
+        ConnectorMetadata metadata = getMetadata(session, catalogName);
+        return metadata.getTableVersionToken(session.toConnectorSession(catalogName), tableHandle.getConnectorHandle());
+    }
+
     @Override
     public Map<String, ColumnHandle> getColumnHandles(Session session, TableHandle tableHandle)
     {
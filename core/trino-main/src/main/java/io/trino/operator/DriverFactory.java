@@ -16,6 +16,9 @@ package io.trino.operator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import io.trino.execution.Lifespan;
+import io.trino.execution.resultcache.LeafResultCacheKey;
+import io.trino.operator.LeafResultCacheOperator.LeafResultCacheOperatorFactory;
+import io.trino.spi.Page;
 import io.trino.sql.planner.plan.PlanNodeId;
 
 import java.util.HashSet;
@@ -23,6 +26,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -39,6 +43,7 @@ public class DriverFactory
     private final Optional<PlanNodeId> sourceId;
     private final OptionalInt driverInstances;
     private final PipelineExecutionStrategy pipelineExecutionStrategy;
+    private final OptionalInt leafResultCacheOperatorIndex;
 
     private boolean closed;
     private final Set<Lifespan> encounteredLifespans = new HashSet<>();
@@ -61,6 +66,14 @@ public class DriverFactory
                 .collect(toImmutableList());
         checkArgument(sourceIds.size() <= 1, "Expected at most one source operator in driver factory, but found %s", sourceIds);
         this.sourceId = sourceIds.isEmpty() ? Optional.empty() : Optional.of(sourceIds.get(0));
+
+        List<Integer> cacheOperatorIndexes = IntStream.range(0, this.operatorFactories.size())
+                .filter(index -> this.operatorFactories.get(index) instanceof LeafResultCacheOperatorFactory)
+                .boxed()
+                .collect(toImmutableList());
+        checkArgument(cacheOperatorIndexes.size() <= 1, "Expected at most one leaf result cache operator in driver factory");
+        checkArgument(cacheOperatorIndexes.isEmpty() || this.sourceId.isPresent(), "Leaf result cache operator requires a source operator");
+        this.leafResultCacheOperatorIndex = cacheOperatorIndexes.isEmpty() ? OptionalInt.empty() : OptionalInt.of(cacheOperatorIndexes.get(0));
     }
 
     public int getPipelineId()
@@ -103,12 +116,17 @@ public class DriverFactory
         return operatorFactories;
     }
 
+    public Optional<LeafResultCacheOperatorFactory> getLeafResultCacheOperatorFactory()
+    {
+        if (leafResultCacheOperatorIndex.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of((LeafResultCacheOperatorFactory) operatorFactories.get(leafResultCacheOperatorIndex.getAsInt()));
+    }
+
     public synchronized Driver createDriver(DriverContext driverContext)
     {
-        checkState(!closed, "DriverFactory is already closed");
-        requireNonNull(driverContext, "driverContext is null");
-        checkState(!closedLifespans.contains(driverContext.getLifespan()), "DriverFactory is already closed for driver group %s", driverContext.getLifespan());
-        encounteredLifespans.add(driverContext.getLifespan());
+        checkDriverCreation(driverContext);
         ImmutableList.Builder<Operator> operators = ImmutableList.builder();
         for (OperatorFactory operatorFactory : operatorFactories) {
             Operator operator = operatorFactory.createOperator(driverContext);
@@ -117,6 +135,50 @@ public class DriverFactory
         return Driver.createDriver(driverContext, operators.build());
     }
 
+    /**
+     * Creates a driver which stores the output of the leaf operators in the leaf result cache under the given key.
+     */
+    public synchronized Driver createDriver(DriverContext driverContext, LeafResultCacheKey cacheKey)
+    {
+        checkDriverCreation(driverContext);
+        requireNonNull(cacheKey, "cacheKey is null");
+        int cacheOperatorIndex = leafResultCacheOperatorIndex.orElseThrow(() -> new IllegalStateException("DriverFactory has no leaf result cache operator"));
+        ImmutableList.Builder<Operator> operators = ImmutableList.builder();
+        for (int index = 0; index < operatorFactories.size(); index++) {
+            OperatorFactory operatorFactory = operatorFactories.get(index);
+            if (index == cacheOperatorIndex) {
+                operators.add(((LeafResultCacheOperatorFactory) operatorFactory).createCollectingOperator(driverContext, cacheKey));
+            }
+            else {
+                operators.add(operatorFactory.createOperator(driverContext));
+            }
+        }
+        return Driver.createDriver(driverContext, operators.build());
+    }
+
+    /**
+     * Creates a driver which replaces the leaf operators with the cached output for the split.
+     */
+    public synchronized Driver createDriverFromCachedPages(DriverContext driverContext, List<Page> cachedPages)
+    {
+        checkDriverCreation(driverContext);
+        int cacheOperatorIndex = leafResultCacheOperatorIndex.orElseThrow(() -> new IllegalStateException("DriverFactory has no leaf result cache operator"));
+        ImmutableList.Builder<Operator> operators = ImmutableList.builder();
+        operators.add(((LeafResultCacheOperatorFactory) operatorFactories.get(cacheOperatorIndex)).createCachedPagesOperator(driverContext, cachedPages));
+        for (OperatorFactory operatorFactory : operatorFactories.subList(cacheOperatorIndex + 1, operatorFactories.size())) {
+            operators.add(operatorFactory.createOperator(driverContext));
+        }
+        return Driver.createDriver(driverContext, operators.build());
+    }
+
+    private void checkDriverCreation(DriverContext driverContext)
+    {
+        checkState(!closed, "DriverFactory is already closed");
+        requireNonNull(driverContext, "driverContext is null");
+        checkState(!closedLifespans.contains(driverContext.getLifespan()), "DriverFactory is already closed for driver group %s", driverContext.getLifespan());
+        encounteredLifespans.add(driverContext.getLifespan());
+    }
+
     public synchronized void noMoreDrivers(Lifespan lifespan)
     {
         if (closedLifespans.contains(lifespan)) {
@@ -0,0 +1,396 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.RunLengthEncodedBlock;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.SortedRangeSet;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.DecimalType;
+import io.trino.spi.type.Type;
+import io.trino.sql.planner.plan.PlanNodeId;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DateType.DATE;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.SmallintType.SMALLINT;
+import static io.trino.spi.type.TinyintType.TINYINT;
+import static io.trino.spi.type.TypeUtils.readNativeValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Drops the rows which do not match the dynamic filters collected so far. It is used for
+ * dynamic filters which are consumed by a filter over a source other than a table scan,
+ * e.g. a remote exchange or an aggregation, and which therefore cannot be pushed into
+ * a connector. The rows are passed through unchanged until the dynamic filters arrive.
+ */
+public class DynamicRowFilterOperator
+        implements Operator
+{
+    public static class DynamicRowFilterOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final DynamicFilter dynamicFilter;
+        private final List<Type> types;
+        private boolean closed;
+
+        public DynamicRowFilterOperatorFactory(int operatorId, PlanNodeId planNodeId, DynamicFilter dynamicFilter, List<Type> types)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, DynamicRowFilterOperator.class.getSimpleName());
+            return new DynamicRowFilterOperator(operatorContext, dynamicFilter, types);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new DynamicRowFilterOperatorFactory(operatorId, planNodeId, dynamicFilter, types);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final DynamicFilter dynamicFilter;
+    private final List<Type> types;
+
+    private TupleDomain<ColumnHandle> currentPredicate = TupleDomain.all();
+    // empty when all rows are matched, null when no rows are matched
+    private List<ChannelFilter> channelFilters = ImmutableList.of();
+
+    private Page nextPage;
+    private boolean finishing;
+
+    public DynamicRowFilterOperator(OperatorContext operatorContext, DynamicFilter dynamicFilter, List<Type> types)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finishing && nextPage == null;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && nextPage == null;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        checkState(needsInput());
+        nextPage = filter(page);
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        Page page = nextPage;
+        nextPage = null;
+        return page;
+    }
+
+    private Page filter(Page page)
+    {
+        updateChannelFilters();
+        if (channelFilters == null) {
+            return null;
+        }
+        if (channelFilters.isEmpty()) {
+            return page;
+        }
+
+        int positionCount = page.getPositionCount();
+        int[] positions = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
+        // every channel is only tested on the positions selected by the previous channels
+        int selectedPositionCount = positionCount;
+        for (ChannelFilter channelFilter : channelFilters) {
+            selectedPositionCount = channelFilter.filter(page.getBlock(channelFilter.getChannel()), positions, selectedPositionCount);
+            if (selectedPositionCount == 0) {
+                return null;
+            }
+        }
+
+        if (selectedPositionCount == positionCount) {
+            return page;
+        }
+        return page.getPositions(positions, 0, selectedPositionCount);
+    }
+
+    private void updateChannelFilters()
+    {
+        TupleDomain<ColumnHandle> predicate = dynamicFilter.getCurrentPredicate();
+        if (predicate == currentPredicate) {
+            return;
+        }
+        currentPredicate = predicate;
+
+        Map<ColumnHandle, Domain> domains = predicate.getDomains().orElse(null);
+        if (domains == null) {
+            channelFilters = null;
+            return;
+        }
+        channelFilters = domains.entrySet().stream()
+                .filter(entry -> !entry.getValue().isAll())
+                .map(entry -> {
+                    int channel = ((ChannelHandle) entry.getKey()).getChannel();
+                    return createChannelFilter(channel, types.get(channel), entry.getValue());
+                })
+                .collect(toImmutableList());
+    }
+
+    private static ChannelFilter createChannelFilter(int channel, Type type, Domain domain)
+    {
+        ValueSet values = domain.getValues();
+        if (isLongComparable(type)) {
+            if (values.isDiscreteSet()) {
+                LongSet longValues = new LongOpenHashSet();
+                for (Object value : values.getDiscreteSet()) {
+                    longValues.add((long) value);
+                }
+                return new LongValuesFilter(channel, domain.isNullAllowed(), type, longValues);
+            }
+            if (values instanceof SortedRangeSet && ((SortedRangeSet) values).getRangeCount() == 1) {
+                return new LongRangeFilter(channel, domain.isNullAllowed(), type, ((SortedRangeSet) values).getSpan());
+            }
+        }
+        return new ValueSetFilter(channel, domain.isNullAllowed(), type, values);
+    }
+
+    /**
+     * Types for which two values are equal only when their long representations are equal, and are
+     * ordered as their long representations.
+     */
+    private static boolean isLongComparable(Type type)
+    {
+        return type.equals(BIGINT)
+                || type.equals(INTEGER)
+                || type.equals(SMALLINT)
+                || type.equals(TINYINT)
+                || type.equals(DATE)
+                || (type instanceof DecimalType && ((DecimalType) type).isShort());
+    }
+
+    /**
+     * Identifies an input channel of the operator in the predicate of the dynamic filter.
+     */
+    public static final class ChannelHandle
+            implements ColumnHandle
+    {
+        private final String name;
+        private final int channel;
+
+        public ChannelHandle(String name, int channel)
+        {
+            this.name = requireNonNull(name, "name is null");
+            this.channel = channel;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ChannelHandle that = (ChannelHandle) o;
+            return channel == that.channel &&
+                    name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(name, channel);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("name", name)
+                    .add("channel", channel)
+                    .toString();
+        }
+    }
+
+    private abstract static class ChannelFilter
+    {
+        private final int channel;
+        private final boolean nullAllowed;
+
+        protected ChannelFilter(int channel, boolean nullAllowed)
+        {
+            this.channel = channel;
+            this.nullAllowed = nullAllowed;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        /**
+         * Moves the matching positions to the front of the positions array, and returns their count.
+         */
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            if (block instanceof RunLengthEncodedBlock) {
+                return test(((RunLengthEncodedBlock) block).getValue(), 0) ? positionCount : 0;
+            }
+            int selectedPositionCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if (test(block, position)) {
+                    positions[selectedPositionCount] = position;
+                    selectedPositionCount++;
+                }
+            }
+            return selectedPositionCount;
+        }
+
+        private boolean test(Block block, int position)
+        {
+            if (block.isNull(position)) {
+                return nullAllowed;
+            }
+            return testNonNull(block, position);
+        }
+
+        protected abstract boolean testNonNull(Block block, int position);
+    }
+
+    private static class LongValuesFilter
+            extends ChannelFilter
+    {
+        private final Type type;
+        private final LongSet values;
+
+        public LongValuesFilter(int channel, boolean nullAllowed, Type type, LongSet values)
+        {
+            super(channel, nullAllowed);
+            this.type = requireNonNull(type, "type is null");
+            this.values = requireNonNull(values, "values is null");
+        }
+
+        @Override
+        protected boolean testNonNull(Block block, int position)
+        {
+            return values.contains(type.getLong(block, position));
+        }
+    }
+
+    private static class LongRangeFilter
+            extends ChannelFilter
+    {
+        private final Type type;
+        private final long low;
+        private final long high;
+
+        public LongRangeFilter(int channel, boolean nullAllowed, Type type, Range range)
+        {
+            super(channel, nullAllowed);
+            this.type = requireNonNull(type, "type is null");
+            // the values are integral, so the exclusive bounds are made inclusive; a bound which overflows
+            // keeps more rows than necessary, which the join removes
+            this.low = range.isLowUnbounded() ? Long.MIN_VALUE : (long) range.getLowBoundedValue() + (range.isLowInclusive() ? 0 : 1);
+            this.high = range.isHighUnbounded() ? Long.MAX_VALUE : (long) range.getHighBoundedValue() - (range.isHighInclusive() ? 0 : 1);
+        }
+
+        @Override
+        protected boolean testNonNull(Block block, int position)
+        {
+            long value = type.getLong(block, position);
+            return value >= low && value <= high;
+        }
+    }
+
+    private static class ValueSetFilter
+            extends ChannelFilter
+    {
+        private final Type type;
+        private final ValueSet values;
+
+        public ValueSetFilter(int channel, boolean nullAllowed, Type type, ValueSet values)
+        {
+            super(channel, nullAllowed);
+            this.type = requireNonNull(type, "type is null");
+            this.values = requireNonNull(values, "values is null");
+        }
+
+        @Override
+        protected boolean testNonNull(Block block, int position)
+        {
+            return values.containsValue(readNativeValue(type, block, position));
+        }
+    }
+}
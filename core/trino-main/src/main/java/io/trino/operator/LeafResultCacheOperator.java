@@ -0,0 +1,284 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.execution.resultcache.LeafResultCache;
+import io.trino.execution.resultcache.LeafResultCacheKey;
+import io.trino.memory.context.LocalMemoryContext;
+import io.trino.metadata.Split;
+import io.trino.spi.Page;
+import io.trino.spi.connector.UpdatablePageSource;
+import io.trino.sql.planner.plan.PlanNodeId;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Passes pages through unchanged while collecting them, so that the output of the leaf pipeline
+ * for the current split can be stored in the {@link LeafResultCache} once the split is complete.
+ */
+public class LeafResultCacheOperator
+        implements Operator
+{
+    public static class LeafResultCacheOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final PlanNodeId sourceId;
+        private final List<Object> pipelineSignature;
+        private final LeafResultCache cache;
+        private boolean closed;
+
+        public LeafResultCacheOperatorFactory(int operatorId, PlanNodeId planNodeId, PlanNodeId sourceId, List<Object> pipelineSignature, LeafResultCache cache)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.sourceId = requireNonNull(sourceId, "sourceId is null");
+            this.pipelineSignature = ImmutableList.copyOf(requireNonNull(pipelineSignature, "pipelineSignature is null"));
+            this.cache = requireNonNull(cache, "cache is null");
+        }
+
+        public PlanNodeId getSourceId()
+        {
+            return sourceId;
+        }
+
+        public LeafResultCache getCache()
+        {
+            return cache;
+        }
+
+        public Optional<LeafResultCacheKey> createCacheKey(Split split)
+        {
+            return split.getConnectorSplit().getCacheIdentifier()
+                    .map(identifier -> new LeafResultCacheKey(pipelineSignature, split.getCatalogName(), identifier));
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, LeafResultCacheOperator.class.getSimpleName());
+            return new LeafResultCacheOperator(operatorContext, Optional.empty(), cache);
+        }
+
+        public Operator createCollectingOperator(DriverContext driverContext, LeafResultCacheKey key)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, LeafResultCacheOperator.class.getSimpleName());
+            return new LeafResultCacheOperator(operatorContext, Optional.of(key), cache);
+        }
+
+        public SourceOperator createCachedPagesOperator(DriverContext driverContext, List<Page> pages)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, CachedPagesSourceOperator.class.getSimpleName());
+            return new CachedPagesSourceOperator(operatorContext, sourceId, pages);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new LeafResultCacheOperatorFactory(operatorId, planNodeId, sourceId, pipelineSignature, cache);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final LeafResultCache cache;
+    private final LocalMemoryContext memoryContext;
+
+    private Optional<LeafResultCacheKey> key;
+    private List<Page> collectedPages = new ArrayList<>();
+    private long collectedBytes;
+
+    private Page outputPage;
+    private boolean finishing;
+
+    public LeafResultCacheOperator(OperatorContext operatorContext, Optional<LeafResultCacheKey> key, LeafResultCache cache)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.key = requireNonNull(key, "key is null");
+        this.cache = requireNonNull(cache, "cache is null");
+        this.memoryContext = operatorContext.newLocalSystemMemoryContext(LeafResultCacheOperator.class.getSimpleName());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && outputPage == null;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        checkState(needsInput(), "Operator is already finishing or has pending output");
+        requireNonNull(page, "page is null");
+
+        if (key.isPresent()) {
+            page = page.getLoadedPage();
+            collectedPages.add(page);
+            collectedBytes += page.getRetainedSizeInBytes();
+            if (collectedBytes > cache.getMaxEntrySizeInBytes()) {
+                // result is too large to be cached, stop collecting
+                discardCollectedPages();
+            }
+            else {
+                memoryContext.setBytes(collectedBytes);
+            }
+        }
+        outputPage = page;
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        Page page = outputPage;
+        outputPage = null;
+        return page;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finishing) {
+            return;
+        }
+        finishing = true;
+        if (key.isPresent()) {
+            long evictedBytes = cache.put(key.get(), collectedPages);
+            operatorContext.getDriverContext().getPipelineContext().getTaskContext().recordLeafResultCacheEviction(evictedBytes);
+            discardCollectedPages();
+        }
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finishing && outputPage == null;
+    }
+
+    @Override
+    public void close()
+    {
+        discardCollectedPages();
+    }
+
+    private void discardCollectedPages()
+    {
+        key = Optional.empty();
+        collectedPages = ImmutableList.of();
+        collectedBytes = 0;
+        memoryContext.close();
+    }
+
+    /**
+     * Replaces the operators of the leaf pipeline up to and including the cache operator when
+     * the output for the split is already cached.
+     */
+    public static class CachedPagesSourceOperator
+            implements SourceOperator
+    {
+        private final OperatorContext operatorContext;
+        private final PlanNodeId sourceId;
+        private final Iterator<Page> pages;
+
+        public CachedPagesSourceOperator(OperatorContext operatorContext, PlanNodeId sourceId, List<Page> pages)
+        {
+            this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+            this.sourceId = requireNonNull(sourceId, "sourceId is null");
+            this.pages = ImmutableList.copyOf(requireNonNull(pages, "pages is null")).iterator();
+        }
+
+        @Override
+        public PlanNodeId getSourceId()
+        {
+            return sourceId;
+        }
+
+        @Override
+        public Supplier<Optional<UpdatablePageSource>> addSplit(Split split)
+        {
+            // the output for the split is already known
+            return Optional::empty;
+        }
+
+        @Override
+        public void noMoreSplits()
+        {
+        }
+
+        @Override
+        public OperatorContext getOperatorContext()
+        {
+            return operatorContext;
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return false;
+        }
+
+        @Override
+        public void addInput(Page page)
+        {
+            throw new UnsupportedOperationException(getClass().getName() + " cannot take input");
+        }
+
+        @Override
+        public Page getOutput()
+        {
+            if (!pages.hasNext()) {
+                return null;
+            }
+            Page page = pages.next();
+            operatorContext.recordProcessedInput(page.getSizeInBytes(), page.getPositionCount());
+            return page;
+        }
+
+        @Override
+        public void finish()
+        {
+            while (pages.hasNext()) {
+                pages.next();
+            }
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return !pages.hasNext();
+        }
+    }
+}
@@ -317,6 +317,11 @@ public class PipelineContext
                 .sum();
     }
 
+    public int getCompletedDrivers()
+    {
+        return completedDrivers.get();
+    }
+
     public PipelineStatus getPipelineStatus()
     {
         return getPipelineStatus(drivers.iterator(), totalSplits.get(), completedDrivers.get(), partitioned);
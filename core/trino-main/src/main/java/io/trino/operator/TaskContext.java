@@ -83,6 +83,10 @@ public class TaskContext
     private final AtomicLong endFullGcCount = new AtomicLong(-1);
     private final AtomicLong endFullGcTimeNanos = new AtomicLong(-1);
 
+    private final AtomicLong leafResultCacheHits = new AtomicLong();
+    private final AtomicLong leafResultCacheMisses = new AtomicLong();
+    private final AtomicLong leafResultCacheEvictedBytes = new AtomicLong();
+
     private final AtomicReference<DateTime> executionStartTime = new AtomicReference<>();
     private final AtomicReference<DateTime> lastExecutionStartTime = new AtomicReference<>();
     private final AtomicReference<DateTime> executionEndTime = new AtomicReference<>();
@@ -405,6 +409,21 @@ public class TaskContext
         return toIntExact(max(0, endFullGcCount - startFullGcCount));
     }
 
+    public void recordLeafResultCacheHit()
+    {
+        leafResultCacheHits.incrementAndGet();
+    }
+
+    public void recordLeafResultCacheMiss()
+    {
+        leafResultCacheMisses.incrementAndGet();
+    }
+
+    public void recordLeafResultCacheEviction(long evictedBytes)
+    {
+        leafResultCacheEvictedBytes.addAndGet(evictedBytes);
+    }
+
     public void updateDomains(Map<DynamicFilterId, Domain> dynamicFilterDomains)
     {
         dynamicFiltersCollector.updateDomains(dynamicFilterDomains);
@@ -579,6 +598,9 @@ public class TaskContext
                 succinctBytes(outputDataSize),
                 outputPositions,
                 succinctBytes(physicalWrittenDataSize),
+                leafResultCacheHits.get(),
+                leafResultCacheMisses.get(),
+                succinctBytes(leafResultCacheEvictedBytes.get()),
                 fullGcCount,
                 fullGcTime,
                 pipelineStats);
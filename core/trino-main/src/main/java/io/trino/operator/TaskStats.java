@@ -80,6 +80,10 @@ public class TaskStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final long leafResultCacheHits;
+    private final long leafResultCacheMisses;
+    private final DataSize leafResultCacheEvictedDataSize;
+
     private final int fullGcCount;
     private final Duration fullGcTime;
 
@@ -124,6 +128,9 @@ public class TaskStats
                 0,
                 DataSize.ofBytes(0),
                 0,
+                0,
+                DataSize.ofBytes(0),
+                0,
                 new Duration(0, MILLISECONDS),
                 ImmutableList.of());
     }
@@ -176,6 +183,10 @@ public class TaskStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("leafResultCacheHits") long leafResultCacheHits,
+            @JsonProperty("leafResultCacheMisses") long leafResultCacheMisses,
+            @JsonProperty("leafResultCacheEvictedDataSize") DataSize leafResultCacheEvictedDataSize,
+
             @JsonProperty("fullGcCount") int fullGcCount,
             @JsonProperty("fullGcTime") Duration fullGcTime,
 
@@ -242,6 +253,12 @@ public class TaskStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "physicalWrittenDataSize is null");
 
+        checkArgument(leafResultCacheHits >= 0, "leafResultCacheHits is negative");
+        this.leafResultCacheHits = leafResultCacheHits;
+        checkArgument(leafResultCacheMisses >= 0, "leafResultCacheMisses is negative");
+        this.leafResultCacheMisses = leafResultCacheMisses;
+        this.leafResultCacheEvictedDataSize = requireNonNull(leafResultCacheEvictedDataSize, "leafResultCacheEvictedDataSize is null");
+
         checkArgument(fullGcCount >= 0, "fullGcCount is negative");
         this.fullGcCount = fullGcCount;
         this.fullGcTime = requireNonNull(fullGcTime, "fullGcTime is null");
@@ -457,6 +474,24 @@ public class TaskStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public long getLeafResultCacheHits()
+    {
+        return leafResultCacheHits;
+    }
+
+    @JsonProperty
+    public long getLeafResultCacheMisses()
+    {
+        return leafResultCacheMisses;
+    }
+
+    @JsonProperty
+    public DataSize getLeafResultCacheEvictedDataSize()
+    {
+        return leafResultCacheEvictedDataSize;
+    }
+
     @JsonProperty
     public List<PipelineStats> getPipelines()
     {
@@ -526,6 +561,9 @@ public class TaskStats
                 outputDataSize,
                 outputPositions,
                 physicalWrittenDataSize,
+                leafResultCacheHits,
+                leafResultCacheMisses,
+                leafResultCacheEvictedDataSize,
                 fullGcCount,
                 fullGcTime,
                 ImmutableList.of());
@@ -570,6 +608,9 @@ public class TaskStats
                 outputDataSize,
                 outputPositions,
                 physicalWrittenDataSize,
+                leafResultCacheHits,
+                leafResultCacheMisses,
+                leafResultCacheEvictedDataSize,
                 fullGcCount,
                 fullGcTime,
                 pipelines.stream()
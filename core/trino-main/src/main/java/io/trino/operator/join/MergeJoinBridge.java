@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.trino.spi.Page;
+import io.trino.spi.TrinoException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.trino.operator.Operator.NOT_BLOCKED;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded queue of pages streamed from the right (sorted) input of a merge join
+ * to the {@link MergeJoinOperator} consuming the left input. Each input must be
+ * a single sorted stream, so a bridge has at most one producer and one consumer.
+ */
+@ThreadSafe
+public final class MergeJoinBridge
+        implements JoinBridge
+{
+    private final long maxBufferedBytes;
+
+    @GuardedBy("this")
+    private final Queue<Page> pages = new ArrayDeque<>();
+    @GuardedBy("this")
+    private long bufferedBytes;
+    @GuardedBy("this")
+    private boolean noMorePages;
+    @GuardedBy("this")
+    private boolean consumerFinished;
+    @GuardedBy("this")
+    private boolean producerCreated;
+    @GuardedBy("this")
+    private boolean consumerCreated;
+    @GuardedBy("this")
+    private SettableFuture<Void> notFull = SettableFuture.create();
+    @GuardedBy("this")
+    private SettableFuture<Void> notEmpty = SettableFuture.create();
+
+    private final SettableFuture<Void> producerFinished = SettableFuture.create();
+    private final SettableFuture<Void> drained = SettableFuture.create();
+
+    public MergeJoinBridge(long maxBufferedBytes)
+    {
+        checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be positive");
+        this.maxBufferedBytes = maxBufferedBytes;
+        notFull.set(null);
+    }
+
+    public synchronized void producerCreated()
+    {
+        if (producerCreated) {
+            throw multipleStreamsException("right");
+        }
+        producerCreated = true;
+    }
+
+    public synchronized void consumerCreated()
+    {
+        if (consumerCreated) {
+            throw multipleStreamsException("left");
+        }
+        consumerCreated = true;
+    }
+
+    /**
+     * Called when no producer will be created anymore. Without any producer,
+     * the right input is empty.
+     */
+    public void noMoreProducers()
+    {
+        synchronized (this) {
+            if (producerCreated) {
+                return;
+            }
+        }
+        noMorePages();
+    }
+
+    private static TrinoException multipleStreamsException(String input)
+    {
+        // a bucket of a sorted table consisting of multiple files or splits is read as multiple streams
+        return new TrinoException(NOT_SUPPORTED, format(
+                "The %s input of a merge join is not a single sorted stream. Set merge_join_strategy to DISABLED for this query",
+                input));
+    }
+
+    /**
+     * Adds a page produced by the right input. Returns a future that completes
+     * when the producer may add more pages.
+     */
+    public ListenableFuture<Void> addPage(Page page)
+    {
+        requireNonNull(page, "page is null");
+        SettableFuture<Void> toComplete;
+        synchronized (this) {
+            checkState(!noMorePages, "No more pages already set");
+            if (consumerFinished) {
+                // the left input was exhausted, so the remaining right rows can never be matched
+                return NOT_BLOCKED;
+            }
+            pages.add(page);
+            bufferedBytes += page.getRetainedSizeInBytes();
+            toComplete = notEmpty;
+            if (bufferedBytes >= maxBufferedBytes && notFull.isDone()) {
+                notFull = SettableFuture.create();
+            }
+        }
+        toComplete.set(null);
+        return getNotFullFuture();
+    }
+
+    public synchronized ListenableFuture<Void> getNotFullFuture()
+    {
+        return notFull;
+    }
+
+    public synchronized long getBufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    public void noMorePages()
+    {
+        SettableFuture<Void> toComplete;
+        boolean empty;
+        synchronized (this) {
+            if (noMorePages) {
+                return;
+            }
+            noMorePages = true;
+            toComplete = notEmpty;
+            empty = pages.isEmpty();
+        }
+        toComplete.set(null);
+        producerFinished.set(null);
+        if (empty) {
+            drained.set(null);
+        }
+    }
+
+    /**
+     * Returns the next buffered page, or null if none is currently available.
+     */
+    @Nullable
+    public Page pollPage()
+    {
+        SettableFuture<Void> toComplete = null;
+        boolean empty;
+        Page page;
+        synchronized (this) {
+            page = pages.poll();
+            if (page == null) {
+                if (!noMorePages && notEmpty.isDone()) {
+                    notEmpty = SettableFuture.create();
+                }
+                return null;
+            }
+            bufferedBytes -= page.getRetainedSizeInBytes();
+            if (bufferedBytes < maxBufferedBytes) {
+                toComplete = notFull;
+            }
+            empty = noMorePages && pages.isEmpty();
+        }
+        if (toComplete != null) {
+            toComplete.set(null);
+        }
+        if (empty) {
+            drained.set(null);
+        }
+        return page;
+    }
+
+    public synchronized ListenableFuture<Void> getNotEmptyFuture()
+    {
+        if (!pages.isEmpty() || noMorePages) {
+            return NOT_BLOCKED;
+        }
+        return notEmpty;
+    }
+
+    /**
+     * Returns true when all pages of the right input have been consumed.
+     */
+    public synchronized boolean isFinished()
+    {
+        return noMorePages && pages.isEmpty();
+    }
+
+    /**
+     * Called by the consumer when it no longer needs any right input, which
+     * unblocks the producer and lets it discard its remaining input.
+     */
+    public void consumerFinished()
+    {
+        SettableFuture<Void> toComplete;
+        synchronized (this) {
+            consumerFinished = true;
+            pages.clear();
+            bufferedBytes = 0;
+            toComplete = notFull;
+        }
+        toComplete.set(null);
+        drained.set(null);
+    }
+
+    /**
+     * Returns a future that completes when all pages of the right input have been
+     * consumed, or the consumer no longer needs them.
+     */
+    public ListenableFuture<Void> getDrainedFuture()
+    {
+        return drained;
+    }
+
+    @Override
+    public OuterPositionIterator getOuterPositionIterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void destroy()
+    {
+        consumerFinished();
+    }
+
+    @Override
+    public ListenableFuture<Void> whenBuildFinishes()
+    {
+        return producerFinished;
+    }
+}
@@ -0,0 +1,615 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.trino.execution.Lifespan;
+import io.trino.memory.context.LocalMemoryContext;
+import io.trino.operator.DriverContext;
+import io.trino.operator.Operator;
+import io.trino.operator.OperatorContext;
+import io.trino.operator.OperatorFactory;
+import io.trino.operator.join.LookupJoinOperatorFactory.JoinType;
+import io.trino.spi.Page;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.SortOrder;
+import io.trino.spi.type.Type;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.type.BlockTypeOperators;
+import io.trino.type.BlockTypeOperators.BlockPositionComparison;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.units.DataSize.succinctBytes;
+import static io.trino.operator.join.LookupJoinOperatorFactory.JoinType.FULL_OUTER;
+import static io.trino.operator.join.LookupJoinOperatorFactory.JoinType.LOOKUP_OUTER;
+import static io.trino.operator.join.LookupJoinOperatorFactory.JoinType.PROBE_OUTER;
+import static io.trino.spi.StandardErrorCode.EXCEEDED_LOCAL_MEMORY_LIMIT;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Joins two inputs sorted on the join keys in the same direction. The left input
+ * is consumed by this operator, while the right input is streamed through
+ * a {@link MergeJoinBridge} by a {@link MergeJoinSinkOperator}. Only the current
+ * run of right rows sharing the same join key is kept in memory, up to a limit.
+ */
+public class MergeJoinOperator
+        implements Operator
+{
+    public static class MergeJoinOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final JoinBridgeManager<MergeJoinBridge> joinBridgeManager;
+        private final JoinType joinType;
+        private final List<Type> leftTypes;
+        private final List<Type> rightTypes;
+        private final List<Integer> leftJoinChannels;
+        private final List<Integer> rightJoinChannels;
+        private final List<Integer> leftOutputChannels;
+        private final List<Integer> rightOutputChannels;
+        private final List<BlockPositionComparison> comparisons;
+        private final long maxRunSizeInBytes;
+        private boolean closed;
+
+        public MergeJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeManager<MergeJoinBridge> mergeJoinBridgeManager,
+                JoinType joinType,
+                List<Type> leftTypes,
+                List<Type> rightTypes,
+                List<Integer> leftJoinChannels,
+                List<Integer> rightJoinChannels,
+                List<Integer> leftOutputChannels,
+                List<Integer> rightOutputChannels,
+                List<SortOrder> sortOrders,
+                DataSize maxRunSize,
+                BlockTypeOperators blockTypeOperators)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.joinBridgeManager = requireNonNull(mergeJoinBridgeManager, "mergeJoinBridgeManager is null");
+            this.joinType = requireNonNull(joinType, "joinType is null");
+            this.leftTypes = ImmutableList.copyOf(requireNonNull(leftTypes, "leftTypes is null"));
+            this.rightTypes = ImmutableList.copyOf(requireNonNull(rightTypes, "rightTypes is null"));
+            this.leftJoinChannels = ImmutableList.copyOf(requireNonNull(leftJoinChannels, "leftJoinChannels is null"));
+            this.rightJoinChannels = ImmutableList.copyOf(requireNonNull(rightJoinChannels, "rightJoinChannels is null"));
+            this.leftOutputChannels = ImmutableList.copyOf(requireNonNull(leftOutputChannels, "leftOutputChannels is null"));
+            this.rightOutputChannels = ImmutableList.copyOf(requireNonNull(rightOutputChannels, "rightOutputChannels is null"));
+            checkArgument(!leftJoinChannels.isEmpty(), "leftJoinChannels is empty");
+            checkArgument(leftJoinChannels.size() == rightJoinChannels.size(), "leftJoinChannels and rightJoinChannels must have the same size");
+            checkArgument(leftJoinChannels.size() == sortOrders.size(), "leftJoinChannels and sortOrders must have the same size");
+            this.maxRunSizeInBytes = requireNonNull(maxRunSize, "maxRunSize is null").toBytes();
+            requireNonNull(blockTypeOperators, "blockTypeOperators is null");
+            ImmutableList.Builder<BlockPositionComparison> comparisons = ImmutableList.builder();
+            for (int i = 0; i < leftJoinChannels.size(); i++) {
+                BlockPositionComparison comparison = blockTypeOperators.getComparisonOperator(leftTypes.get(leftJoinChannels.get(i)));
+                // null keys never match, so only the direction of the key matters
+                comparisons.add(sortOrders.get(i).isAscending() ? comparison : comparison.reversed());
+            }
+            this.comparisons = comparisons.build();
+            this.joinBridgeManager.incrementProbeFactoryCount();
+        }
+
+        private MergeJoinOperatorFactory(MergeJoinOperatorFactory other)
+        {
+            requireNonNull(other, "other is null");
+            this.operatorId = other.operatorId;
+            this.planNodeId = other.planNodeId;
+            this.joinBridgeManager = other.joinBridgeManager;
+            this.joinType = other.joinType;
+            this.leftTypes = other.leftTypes;
+            this.rightTypes = other.rightTypes;
+            this.leftJoinChannels = other.leftJoinChannels;
+            this.rightJoinChannels = other.rightJoinChannels;
+            this.leftOutputChannels = other.leftOutputChannels;
+            this.rightOutputChannels = other.rightOutputChannels;
+            this.comparisons = other.comparisons;
+            this.maxRunSizeInBytes = other.maxRunSizeInBytes;
+
+            // closed is intentionally not copied
+            closed = false;
+
+            joinBridgeManager.incrementProbeFactoryCount();
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            MergeJoinBridge mergeJoinBridge = joinBridgeManager.getJoinBridge(driverContext.getLifespan());
+
+            mergeJoinBridge.consumerCreated();
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinOperator.class.getSimpleName());
+
+            joinBridgeManager.probeOperatorCreated(driverContext.getLifespan());
+            return new MergeJoinOperator(
+                    operatorContext,
+                    mergeJoinBridge,
+                    joinType,
+                    leftTypes,
+                    rightTypes,
+                    leftJoinChannels,
+                    rightJoinChannels,
+                    leftOutputChannels,
+                    rightOutputChannels,
+                    comparisons,
+                    maxRunSizeInBytes,
+                    () -> joinBridgeManager.probeOperatorClosed(driverContext.getLifespan()));
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            joinBridgeManager.probeOperatorFactoryClosedForAllLifespans();
+        }
+
+        @Override
+        public void noMoreOperators(Lifespan lifespan)
+        {
+            joinBridgeManager.probeOperatorFactoryClosed(lifespan);
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new MergeJoinOperatorFactory(this);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final MergeJoinBridge mergeJoinBridge;
+    private final Runnable afterClose;
+    private final LocalMemoryContext localUserMemoryContext;
+
+    private final boolean outputUnmatchedLeft;
+    private final boolean outputUnmatchedRight;
+    private final List<Type> leftOutputTypes;
+    private final List<Type> rightOutputTypes;
+    private final int[] leftJoinChannels;
+    private final int[] rightJoinChannels;
+    private final int[] leftOutputChannels;
+    private final int[] rightOutputChannels;
+    private final List<BlockPositionComparison> comparisons;
+    private final long maxRunSizeInBytes;
+    private final PageBuilder pageBuilder;
+
+    private Page leftPage;
+    private int leftPosition;
+    private boolean finishing;
+    private boolean finished;
+    private boolean waitingForRight;
+    private boolean closed;
+
+    private Page rightPage;
+    private int rightPosition;
+    private int rightSegmentStart;
+    private boolean rightExhausted;
+
+    // run of right rows sharing the same join key, as regions of the right pages
+    private final List<Page> run = new ArrayList<>();
+    private long runRetainedSizeInBytes;
+    private Page runKeyPage;
+    private int runKeyPosition;
+    private boolean runComplete;
+    private boolean runMatched;
+
+    // position within the run while it is being emitted, either for the current left row or as unmatched rows
+    private boolean emittingRun;
+    private boolean emittingUnmatchedRun;
+    private int runPageIndex;
+    private int runPosition;
+
+    public MergeJoinOperator(
+            OperatorContext operatorContext,
+            MergeJoinBridge mergeJoinBridge,
+            JoinType joinType,
+            List<Type> leftTypes,
+            List<Type> rightTypes,
+            List<Integer> leftJoinChannels,
+            List<Integer> rightJoinChannels,
+            List<Integer> leftOutputChannels,
+            List<Integer> rightOutputChannels,
+            List<BlockPositionComparison> comparisons,
+            long maxRunSizeInBytes,
+            Runnable afterClose)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.mergeJoinBridge = requireNonNull(mergeJoinBridge, "mergeJoinBridge is null");
+        this.afterClose = requireNonNull(afterClose, "afterClose is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        requireNonNull(joinType, "joinType is null");
+        this.outputUnmatchedLeft = joinType == PROBE_OUTER || joinType == FULL_OUTER;
+        this.outputUnmatchedRight = joinType == LOOKUP_OUTER || joinType == FULL_OUTER;
+        this.leftOutputTypes = leftOutputChannels.stream()
+                .map(leftTypes::get)
+                .collect(toImmutableList());
+        this.rightOutputTypes = rightOutputChannels.stream()
+                .map(rightTypes::get)
+                .collect(toImmutableList());
+        this.leftJoinChannels = Ints.toArray(requireNonNull(leftJoinChannels, "leftJoinChannels is null"));
+        this.rightJoinChannels = Ints.toArray(requireNonNull(rightJoinChannels, "rightJoinChannels is null"));
+        this.leftOutputChannels = Ints.toArray(leftOutputChannels);
+        this.rightOutputChannels = Ints.toArray(rightOutputChannels);
+        this.comparisons = ImmutableList.copyOf(requireNonNull(comparisons, "comparisons is null"));
+        this.maxRunSizeInBytes = maxRunSizeInBytes;
+        this.pageBuilder = new PageBuilder(ImmutableList.<Type>builder()
+                .addAll(leftOutputTypes)
+                .addAll(rightOutputTypes)
+                .build());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (waitingForRight) {
+            return mergeJoinBridge.getNotEmptyFuture();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && leftPage == null;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator does not need input");
+
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+        leftPage = page;
+        leftPosition = 0;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished && pageBuilder.isEmpty();
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        waitingForRight = false;
+        while (!finished && !pageBuilder.isFull() && processRow()) {
+            // continue until the output is full or no progress can be made
+        }
+
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
+    /**
+     * Advances the join by a single output row or input position.
+     * Returns false if no progress can be made without more input.
+     */
+    private boolean processRow()
+    {
+        if (emittingRun) {
+            emitRunRow();
+            return true;
+        }
+
+        if (!runComplete) {
+            if (!loadRun()) {
+                waitingForRight = true;
+                return false;
+            }
+            return true;
+        }
+
+        if (leftPage == null) {
+            if (!finishing) {
+                return false;
+            }
+            // the left input is exhausted, so any remaining right rows are unmatched
+            if (!outputUnmatchedRight || (rightExhausted && run.isEmpty())) {
+                finished = true;
+                mergeJoinBridge.consumerFinished();
+                clearRun();
+                return false;
+            }
+            finishRun();
+            return true;
+        }
+
+        if (run.isEmpty()) {
+            // the right input is exhausted
+            if (!outputUnmatchedLeft) {
+                leftPage = null;
+                return true;
+            }
+            appendUnmatchedLeftRow();
+            return true;
+        }
+
+        if (hasNullKey(leftPage, leftPosition, leftJoinChannels)) {
+            appendUnmatchedLeftRow();
+            return true;
+        }
+
+        long comparison = compareLeftToRunKey();
+        if (comparison < 0) {
+            appendUnmatchedLeftRow();
+        }
+        else if (comparison == 0) {
+            runMatched = true;
+            startEmittingRun(false);
+        }
+        else {
+            finishRun();
+        }
+        return true;
+    }
+
+    /**
+     * Collects the next run of right rows sharing the same join key.
+     * Returns false if the right input is not available yet.
+     */
+    private boolean loadRun()
+    {
+        while (true) {
+            if (!ensureRightRow()) {
+                return false;
+            }
+            if (rightExhausted) {
+                runComplete = true;
+                return true;
+            }
+            if (runKeyPage == null) {
+                if (hasNullKey(rightPage, rightPosition, rightJoinChannels)) {
+                    // rows with null keys never match
+                    if (outputUnmatchedRight) {
+                        appendNulls(0, leftOutputTypes);
+                        appendRow(rightPage, rightPosition, rightOutputChannels, rightOutputTypes, leftOutputTypes.size());
+                        pageBuilder.declarePosition();
+                    }
+                    rightPosition++;
+                    return true;
+                }
+                runKeyPage = rightPage;
+                runKeyPosition = rightPosition;
+                rightSegmentStart = rightPosition;
+                rightPosition++;
+                continue;
+            }
+            if (hasNullKey(rightPage, rightPosition, rightJoinChannels) || compareRightToRunKey() != 0) {
+                closeRunSegment();
+                runComplete = true;
+                return true;
+            }
+            rightPosition++;
+        }
+    }
+
+    private boolean ensureRightRow()
+    {
+        while (rightPage == null || rightPosition >= rightPage.getPositionCount()) {
+            if (rightExhausted) {
+                return true;
+            }
+            closeRunSegment();
+            rightPage = mergeJoinBridge.pollPage();
+            rightPosition = 0;
+            rightSegmentStart = 0;
+            if (rightPage == null) {
+                if (!mergeJoinBridge.isFinished()) {
+                    return false;
+                }
+                rightExhausted = true;
+            }
+        }
+        return true;
+    }
+
+    private void closeRunSegment()
+    {
+        if (runKeyPage == null || rightPage == null || rightPosition <= rightSegmentStart) {
+            return;
+        }
+        Page segment = rightPage.getRegion(rightSegmentStart, rightPosition - rightSegmentStart);
+        run.add(segment);
+        runRetainedSizeInBytes += segment.getRetainedSizeInBytes();
+        rightSegmentStart = rightPosition;
+        if (runRetainedSizeInBytes > maxRunSizeInBytes) {
+            // the run has to be matched against each left row with the same key, so it cannot be streamed
+            throw new TrinoException(EXCEEDED_LOCAL_MEMORY_LIMIT, format(
+                    "Rows of the right input of a merge join sharing a single join key exceed the limit of %s. Increase merge_join_max_run_size or set merge_join_strategy to DISABLED",
+                    succinctBytes(maxRunSizeInBytes)));
+        }
+        localUserMemoryContext.setBytes(runRetainedSizeInBytes);
+    }
+
+    private void finishRun()
+    {
+        if (outputUnmatchedRight && !runMatched && !run.isEmpty()) {
+            startEmittingRun(true);
+            return;
+        }
+        clearRun();
+    }
+
+    private void clearRun()
+    {
+        run.clear();
+        runRetainedSizeInBytes = 0;
+        runKeyPage = null;
+        runComplete = false;
+        runMatched = false;
+        localUserMemoryContext.setBytes(0);
+    }
+
+    private void startEmittingRun(boolean unmatched)
+    {
+        emittingRun = true;
+        emittingUnmatchedRun = unmatched;
+        runPageIndex = 0;
+        runPosition = 0;
+    }
+
+    private void emitRunRow()
+    {
+        Page runPage = run.get(runPageIndex);
+        if (emittingUnmatchedRun) {
+            appendNulls(0, leftOutputTypes);
+        }
+        else {
+            appendRow(leftPage, leftPosition, leftOutputChannels, leftOutputTypes, 0);
+        }
+        appendRow(runPage, runPosition, rightOutputChannels, rightOutputTypes, leftOutputTypes.size());
+        pageBuilder.declarePosition();
+
+        runPosition++;
+        if (runPosition == runPage.getPositionCount()) {
+            runPageIndex++;
+            runPosition = 0;
+        }
+        if (runPageIndex == run.size()) {
+            emittingRun = false;
+            if (emittingUnmatchedRun) {
+                clearRun();
+            }
+            else {
+                advanceLeft();
+            }
+        }
+    }
+
+    private void appendUnmatchedLeftRow()
+    {
+        if (outputUnmatchedLeft) {
+            appendRow(leftPage, leftPosition, leftOutputChannels, leftOutputTypes, 0);
+            appendNulls(leftOutputTypes.size(), rightOutputTypes);
+            pageBuilder.declarePosition();
+        }
+        advanceLeft();
+    }
+
+    private void advanceLeft()
+    {
+        leftPosition++;
+        if (leftPosition == leftPage.getPositionCount()) {
+            leftPage = null;
+            leftPosition = 0;
+        }
+    }
+
+    private void appendRow(Page page, int position, int[] channels, List<Type> types, int outputOffset)
+    {
+        for (int i = 0; i < channels.length; i++) {
+            types.get(i).appendTo(page.getBlock(channels[i]), position, pageBuilder.getBlockBuilder(outputOffset + i));
+        }
+    }
+
+    private void appendNulls(int outputOffset, List<Type> types)
+    {
+        for (int i = 0; i < types.size(); i++) {
+            pageBuilder.getBlockBuilder(outputOffset + i).appendNull();
+        }
+    }
+
+    private long compareLeftToRunKey()
+    {
+        for (int i = 0; i < leftJoinChannels.length; i++) {
+            long result = comparisons.get(i).compare(
+                    leftPage.getBlock(leftJoinChannels[i]),
+                    leftPosition,
+                    runKeyPage.getBlock(rightJoinChannels[i]),
+                    runKeyPosition);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private long compareRightToRunKey()
+    {
+        for (int i = 0; i < rightJoinChannels.length; i++) {
+            long result = comparisons.get(i).compare(
+                    rightPage.getBlock(rightJoinChannels[i]),
+                    rightPosition,
+                    runKeyPage.getBlock(rightJoinChannels[i]),
+                    runKeyPosition);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean hasNullKey(Page page, int position, int[] joinChannels)
+    {
+        for (int channel : joinChannels) {
+            if (page.getBlock(channel).isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // unblock the right input in case this operator finishes early
+        mergeJoinBridge.consumerFinished();
+        leftPage = null;
+        rightPage = null;
+        run.clear();
+        runKeyPage = null;
+        localUserMemoryContext.setBytes(0);
+        afterClose.run();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.trino.execution.Lifespan;
+import io.trino.memory.context.LocalMemoryContext;
+import io.trino.operator.DriverContext;
+import io.trino.operator.Operator;
+import io.trino.operator.OperatorContext;
+import io.trino.operator.OperatorFactory;
+import io.trino.spi.Page;
+import io.trino.sql.planner.plan.PlanNodeId;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.trino.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streams the sorted right input of a merge join into a {@link MergeJoinBridge}.
+ */
+public class MergeJoinSinkOperator
+        implements Operator
+{
+    public static class MergeJoinSinkOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final JoinBridgeManager<MergeJoinBridge> mergeJoinBridgeManager;
+
+        private boolean closed;
+
+        public MergeJoinSinkOperatorFactory(int operatorId, PlanNodeId planNodeId, JoinBridgeManager<MergeJoinBridge> mergeJoinBridgeManager)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.mergeJoinBridgeManager = requireNonNull(mergeJoinBridgeManager, "mergeJoinBridgeManager is null");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            MergeJoinBridge mergeJoinBridge = mergeJoinBridgeManager.getJoinBridge(driverContext.getLifespan());
+            mergeJoinBridge.producerCreated();
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinSinkOperator.class.getSimpleName());
+            return new MergeJoinSinkOperator(operatorContext, mergeJoinBridge);
+        }
+
+        @Override
+        public void noMoreOperators(Lifespan lifespan)
+        {
+            if (mergeJoinBridgeManager.getBuildExecutionStrategy() != UNGROUPED_EXECUTION) {
+                // a lifespan without any split of the right input has no producer
+                mergeJoinBridgeManager.getJoinBridge(lifespan).noMoreProducers();
+            }
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (mergeJoinBridgeManager.getBuildExecutionStrategy() == UNGROUPED_EXECUTION) {
+                mergeJoinBridgeManager.getJoinBridge(Lifespan.taskWide()).noMoreProducers();
+            }
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new MergeJoinSinkOperatorFactory(operatorId, planNodeId, mergeJoinBridgeManager);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final MergeJoinBridge mergeJoinBridge;
+    private final LocalMemoryContext localUserMemoryContext;
+
+    private ListenableFuture<Void> blocked = NOT_BLOCKED;
+    private boolean finishing;
+
+    public MergeJoinSinkOperator(OperatorContext operatorContext, MergeJoinBridge mergeJoinBridge)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.mergeJoinBridge = requireNonNull(mergeJoinBridge, "mergeJoinBridge is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        if (finishing) {
+            // pages handed over to the bridge remain accounted here until the consumer takes them
+            updateMemoryReservation();
+            return mergeJoinBridge.getDrainedFuture();
+        }
+        if (blocked.isDone()) {
+            blocked = NOT_BLOCKED;
+            updateMemoryReservation();
+        }
+        return blocked;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && blocked.isDone();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator does not need input");
+
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        blocked = mergeJoinBridge.addPage(page);
+        updateMemoryReservation();
+        operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        return null;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finishing) {
+            return;
+        }
+        finishing = true;
+        mergeJoinBridge.noMorePages();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finishing && mergeJoinBridge.getDrainedFuture().isDone();
+    }
+
+    @Override
+    public void close()
+    {
+        localUserMemoryContext.setBytes(0);
+    }
+
+    private void updateMemoryReservation()
+    {
+        localUserMemoryContext.setBytes(mergeJoinBridge.getBufferedBytes());
+    }
+}
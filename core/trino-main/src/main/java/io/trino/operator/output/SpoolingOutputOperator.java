@@ -0,0 +1,330 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.output;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.Slices;
+import io.trino.execution.buffer.OutputBuffer;
+import io.trino.execution.buffer.PagesSerde;
+import io.trino.execution.buffer.PagesSerdeFactory;
+import io.trino.memory.context.LocalMemoryContext;
+import io.trino.operator.DriverContext;
+import io.trino.operator.Operator;
+import io.trino.operator.OperatorContext;
+import io.trino.operator.OperatorFactory;
+import io.trino.operator.OutputFactory;
+import io.trino.server.protocol.ResultSpool;
+import io.trino.spi.Page;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.Type;
+import io.trino.sql.planner.plan.PlanNodeId;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output operator of the root stage of queries whose results are spooled. It writes the rows
+ * to the {@link ResultSpool} of the node in segments, and only sends the URIs of the segments
+ * to the coordinator, one URI per page of {@link #SEGMENT_TYPES}, so the coordinator is not
+ * in the data path of the results.
+ * <p>
+ * The segments are written in the background, while the operator buffers the rows of the next
+ * segment. The URIs are sent in the order of the segments, as the order of the rows matters.
+ */
+public class SpoolingOutputOperator
+        implements Operator
+{
+    public static final List<Type> SEGMENT_TYPES = ImmutableList.of(VARCHAR);
+
+    // segments being written, while the rows of the next segment are buffered
+    private static final int MAX_PENDING_SEGMENTS = 2;
+
+    public static class SpoolingOutputFactory
+            implements OutputFactory
+    {
+        private final OutputBuffer outputBuffer;
+        private final ResultSpool resultSpool;
+        private final List<String> columnNames;
+
+        public SpoolingOutputFactory(OutputBuffer outputBuffer, ResultSpool resultSpool, List<String> columnNames)
+        {
+            this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+            this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
+            this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+        }
+
+        @Override
+        public OperatorFactory createOutputOperator(int operatorId, PlanNodeId planNodeId, List<Type> types, Function<Page, Page> pagePreprocessor, PagesSerdeFactory serdeFactory)
+        {
+            return new SpoolingOutputOperatorFactory(operatorId, planNodeId, outputBuffer, resultSpool, columnNames, types, pagePreprocessor, serdeFactory);
+        }
+    }
+
+    public static class SpoolingOutputOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final OutputBuffer outputBuffer;
+        private final ResultSpool resultSpool;
+        private final List<String> columnNames;
+        private final List<Type> types;
+        private final Function<Page, Page> pagePreprocessor;
+        private final PagesSerdeFactory serdeFactory;
+
+        public SpoolingOutputOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                OutputBuffer outputBuffer,
+                ResultSpool resultSpool,
+                List<String> columnNames,
+                List<Type> types,
+                Function<Page, Page> pagePreprocessor,
+                PagesSerdeFactory serdeFactory)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+            this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
+            this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
+            this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, SpoolingOutputOperator.class.getSimpleName());
+            return new SpoolingOutputOperator(operatorContext, outputBuffer, resultSpool, columnNames, types, pagePreprocessor, serdeFactory);
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            return new SpoolingOutputOperatorFactory(operatorId, planNodeId, outputBuffer, resultSpool, columnNames, types, pagePreprocessor, serdeFactory);
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final OutputBuffer outputBuffer;
+    private final ResultSpool resultSpool;
+    private final List<String> columnNames;
+    private final List<Type> types;
+    private final Function<Page, Page> pagePreprocessor;
+    private final PagesSerde serde;
+    private final LocalMemoryContext memoryContext;
+
+    private final List<Page> bufferedPages = new ArrayList<>();
+    private long bufferedBytes;
+    private final Deque<PendingSegment> pendingSegments = new ArrayDeque<>();
+    private long pendingBytes;
+    private ListenableFuture<Void> isBlocked = NOT_BLOCKED;
+    private boolean finished;
+
+    public SpoolingOutputOperator(
+            OperatorContext operatorContext,
+            OutputBuffer outputBuffer,
+            ResultSpool resultSpool,
+            List<String> columnNames,
+            List<Type> types,
+            Function<Page, Page> pagePreprocessor,
+            PagesSerdeFactory serdeFactory)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
+        this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
+        this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
+        this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
+        this.memoryContext = operatorContext.localUserMemoryContext();
+        checkState(resultSpool.isEnabled(), "result spooling is not enabled");
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (!finished) {
+            finished = true;
+            flushSegment();
+        }
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished && isBlocked().isDone() && pendingSegments.isEmpty();
+    }
+
+    @Override
+    public ListenableFuture<Void> isBlocked()
+    {
+        enqueueWrittenSegments();
+        if (pendingSegments.size() >= MAX_PENDING_SEGMENTS || (finished && !pendingSegments.isEmpty())) {
+            return pendingSegments.getFirst().getWritten();
+        }
+
+        // Avoid re-synchronizing on the output buffer when operator is already blocked
+        if (isBlocked.isDone()) {
+            isBlocked = outputBuffer.isFull();
+            if (isBlocked.isDone()) {
+                isBlocked = NOT_BLOCKED;
+            }
+        }
+        return isBlocked;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finished && isBlocked().isDone();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        page = pagePreprocessor.apply(page);
+        bufferedPages.add(page);
+        bufferedBytes += page.getSizeInBytes();
+        updateMemoryUsage();
+        if (bufferedBytes >= resultSpool.getSegmentSizeInBytes()) {
+            flushSegment();
+        }
+    }
+
+    private void flushSegment()
+    {
+        if (bufferedPages.isEmpty()) {
+            return;
+        }
+
+        // the pages are retained until the segment is written
+        ListenableFuture<URI> segment = resultSpool.writeSegmentAsync(operatorContext.getSession(), columnNames, types, bufferedPages);
+        long positions = bufferedPages.stream().mapToInt(Page::getPositionCount).sum();
+        pendingSegments.addLast(new PendingSegment(segment, bufferedBytes, positions));
+        pendingBytes += bufferedBytes;
+        bufferedPages.clear();
+        bufferedBytes = 0;
+        updateMemoryUsage();
+    }
+
+    private void enqueueWrittenSegments()
+    {
+        while (!pendingSegments.isEmpty() && pendingSegments.getFirst().getSegment().isDone()) {
+            PendingSegment pendingSegment = pendingSegments.removeFirst();
+            // fails the operator, if the segment could not be written
+            URI segment = getFutureValue(pendingSegment.getSegment());
+            operatorContext.recordOutput(pendingSegment.getSizeInBytes(), pendingSegment.getPositions());
+            pendingBytes -= pendingSegment.getSizeInBytes();
+            updateMemoryUsage();
+
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, 1);
+            VARCHAR.writeSlice(blockBuilder, Slices.utf8Slice(segment.toString()));
+            try (PagesSerde.PagesSerdeContext context = serde.newContext()) {
+                outputBuffer.enqueue(ImmutableList.of(serde.serialize(context, new Page(blockBuilder.build()))));
+            }
+        }
+    }
+
+    private void updateMemoryUsage()
+    {
+        memoryContext.setBytes(bufferedBytes + pendingBytes);
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        return null;
+    }
+
+    @Override
+    public void close()
+    {
+        // the segments of a query that is not finished are not needed anymore
+        pendingSegments.forEach(pendingSegment -> pendingSegment.getSegment().cancel(true));
+        pendingSegments.clear();
+        memoryContext.close();
+    }
+
+    private static <T> ListenableFuture<Void> asVoid(ListenableFuture<T> future)
+    {
+        return Futures.transform(future, v -> null, directExecutor());
+    }
+
+    private static class PendingSegment
+    {
+        private final ListenableFuture<URI> segment;
+        private final ListenableFuture<Void> written;
+        private final long sizeInBytes;
+        private final long positions;
+
+        public PendingSegment(ListenableFuture<URI> segment, long sizeInBytes, long positions)
+        {
+            this.segment = requireNonNull(segment, "segment is null");
+            this.written = nonCancellationPropagating(asVoid(segment));
+            this.sizeInBytes = sizeInBytes;
+            this.positions = positions;
+        }
+
+        public ListenableFuture<URI> getSegment()
+        {
+            return segment;
+        }
+
+        public ListenableFuture<Void> getWritten()
+        {
+            return written;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+
+        public long getPositions()
+        {
+            return positions;
+        }
+    }
+}
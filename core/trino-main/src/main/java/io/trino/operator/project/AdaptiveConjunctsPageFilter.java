@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.project;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.connector.ConnectorSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates the conjuncts of a filter one after another, each on the positions selected by the
+ * previous conjuncts. The cost and selectivity of each conjunct are measured on the first pages,
+ * and conjuncts that are cheap and remove many positions are moved to the front.
+ * <p>
+ * Reordering may evaluate a conjunct on positions that the original order would have removed. If
+ * that fails, the page is filtered again in the original order, which is then used for the
+ * remaining pages.
+ */
+public class AdaptiveConjunctsPageFilter
+        implements PageFilter
+{
+    @VisibleForTesting
+    static final int PROFILED_PAGES = 16;
+
+    private final List<Conjunct> originalOrder;
+    private final InputChannels inputChannels;
+    private final boolean deterministic;
+
+    private List<Conjunct> order;
+    private int profiledPages;
+
+    public AdaptiveConjunctsPageFilter(List<PageFilter> conjuncts)
+    {
+        requireNonNull(conjuncts, "conjuncts is null");
+        checkArgument(conjuncts.size() > 1, "filter must have at least two conjuncts");
+
+        List<Integer> channels = conjuncts.stream()
+                .flatMap(conjunct -> conjunct.getInputChannels().getInputChannels().stream())
+                .collect(toImmutableSortedSet(naturalOrder()))
+                .asList();
+        this.inputChannels = new InputChannels(channels);
+        this.originalOrder = conjuncts.stream()
+                .map(conjunct -> new Conjunct(conjunct, conjunct.getInputChannels().getInputChannels().stream()
+                        .mapToInt(channels::indexOf)
+                        .toArray()))
+                .collect(toImmutableList());
+        this.deterministic = conjuncts.stream().allMatch(PageFilter::isDeterministic);
+        this.order = originalOrder;
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(ConnectorSession session, Page page)
+    {
+        boolean profile = profiledPages < PROFILED_PAGES;
+        SelectedPositions selectedPositions;
+        try {
+            selectedPositions = filter(session, page, order, profile);
+        }
+        catch (RuntimeException e) {
+            if (order == originalOrder) {
+                throw e;
+            }
+            order = originalOrder;
+            profiledPages = PROFILED_PAGES;
+            return filter(session, page, originalOrder, false);
+        }
+
+        if (profile) {
+            profiledPages++;
+            List<Conjunct> reordered = new ArrayList<>(order);
+            reordered.sort(Comparator.comparingDouble(Conjunct::getRank));
+            if (!reordered.equals(order)) {
+                order = ImmutableList.copyOf(reordered);
+            }
+        }
+        return selectedPositions;
+    }
+
+    @VisibleForTesting
+    List<PageFilter> getConjunctOrder()
+    {
+        return order.stream()
+                .map(Conjunct::getFilter)
+                .collect(toImmutableList());
+    }
+
+    private static SelectedPositions filter(ConnectorSession session, Page page, List<Conjunct> conjuncts, boolean profile)
+    {
+        SelectedPositions selectedPositions = SelectedPositions.positionsRange(0, page.getPositionCount());
+        for (Conjunct conjunct : conjuncts) {
+            if (selectedPositions.isEmpty()) {
+                break;
+            }
+            long start = profile ? System.nanoTime() : 0;
+            int inputPositions = selectedPositions.size();
+            selectedPositions = conjunct.filter(session, page, selectedPositions);
+            if (profile) {
+                conjunct.record(inputPositions, selectedPositions.size(), System.nanoTime() - start);
+            }
+        }
+        return selectedPositions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("conjuncts", getConjunctOrder())
+                .toString();
+    }
+
+    private static class Conjunct
+    {
+        private final PageFilter filter;
+        private final int[] channels;
+
+        private long inputPositions;
+        private long selectedPositions;
+        private long nanos;
+
+        public Conjunct(PageFilter filter, int[] channels)
+        {
+            this.filter = requireNonNull(filter, "filter is null");
+            this.channels = requireNonNull(channels, "channels is null");
+        }
+
+        public PageFilter getFilter()
+        {
+            return filter;
+        }
+
+        public SelectedPositions filter(ConnectorSession session, Page page, SelectedPositions positions)
+        {
+            Page input = page.getColumns(channels);
+            if (!positions.isList()) {
+                if (positions.getOffset() == 0 && positions.size() == page.getPositionCount()) {
+                    return filter.filter(session, input);
+                }
+                SelectedPositions selected = filter.filter(session, input.getRegion(positions.getOffset(), positions.size()));
+                return translate(selected, positions);
+            }
+            SelectedPositions selected = filter.filter(session, input.getPositions(positions.getPositions(), positions.getOffset(), positions.size()));
+            return translate(selected, positions);
+        }
+
+        public void record(long inputPositions, long selectedPositions, long nanos)
+        {
+            this.inputPositions += inputPositions;
+            this.selectedPositions += selectedPositions;
+            this.nanos += nanos;
+        }
+
+        /**
+         * Cost of the conjunct per position it removes. Evaluating conjuncts in ascending order
+         * of this rank minimizes the expected cost of the filter for independent conjuncts.
+         */
+        public double getRank()
+        {
+            if (inputPositions == 0) {
+                // not evaluated yet, because the conjuncts before it removed all positions, so move it to the front to measure it
+                return 0;
+            }
+            double costPerPosition = (double) nanos / inputPositions;
+            double removedFraction = 1 - ((double) selectedPositions / inputPositions);
+            return costPerPosition / Math.max(removedFraction, 1e-6);
+        }
+
+        // maps positions selected from a subset of the page to positions in the page
+        private static SelectedPositions translate(SelectedPositions selected, SelectedPositions input)
+        {
+            if (selected.isEmpty()) {
+                return selected;
+            }
+            if (!selected.isList() && selected.getOffset() == 0 && selected.size() == input.size()) {
+                return input;
+            }
+            int[] positions = new int[selected.size()];
+            for (int index = 0; index < positions.length; index++) {
+                int position = selected.isList() ? selected.getPositions()[selected.getOffset() + index] : selected.getOffset() + index;
+                positions[index] = input.isList() ? input.getPositions()[input.getOffset() + position] : input.getOffset() + position;
+            }
+            return SelectedPositions.positionsList(positions, 0, positions.length);
+        }
+    }
+}
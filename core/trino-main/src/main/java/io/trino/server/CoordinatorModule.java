@@ -28,6 +28,7 @@ import io.trino.cost.CostCalculator.EstimatedExchanges;
 import io.trino.cost.CostCalculatorUsingExchanges;
 import io.trino.cost.CostCalculatorWithEstimatedExchanges;
 import io.trino.cost.CostComparator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.StatsAndCosts;
 import io.trino.cost.StatsCalculatorModule;
 import io.trino.cost.TaskCountEstimator;
@@ -56,9 +57,11 @@ import io.trino.execution.StageInfo;
 import io.trino.execution.TaskInfo;
 import io.trino.execution.TaskManagerConfig;
 import io.trino.execution.TaskStatus;
+import io.trino.execution.plancache.PlanCache;
 import io.trino.execution.resourcegroups.InternalResourceGroupManager;
 import io.trino.execution.resourcegroups.LegacyResourceGroupConfigurationManager;
 import io.trino.execution.resourcegroups.ResourceGroupManager;
+import io.trino.execution.resultcache.QueryResultCache;
 import io.trino.execution.scheduler.AllAtOnceExecutionPolicy;
 import io.trino.execution.scheduler.ExecutionPolicy;
 import io.trino.execution.scheduler.PhasedExecutionPolicy;
@@ -205,10 +208,18 @@ public class CoordinatorModule
         binder.bind(CostCalculator.class).to(CostCalculatorUsingExchanges.class).in(Scopes.SINGLETON);
         binder.bind(CostCalculator.class).annotatedWith(EstimatedExchanges.class).to(CostCalculatorWithEstimatedExchanges.class).in(Scopes.SINGLETON);
         binder.bind(CostComparator.class).in(Scopes.SINGLETON);
+        binder.bind(JoinSizeHistory.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(JoinSizeHistory.class).withGeneratedName();
 
         // dynamic filtering service
         binder.bind(DynamicFilterService.class).in(Scopes.SINGLETON);
 
+        // query result cache
+        binder.bind(QueryResultCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(QueryResultCache.class).withGeneratedName();
+        binder.bind(PlanCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(PlanCache.class).withGeneratedName();
+
         // planner
         binder.bind(PlanFragmenter.class).in(Scopes.SINGLETON);
         newOptionalBinder(binder, PlanOptimizersFactory.class)
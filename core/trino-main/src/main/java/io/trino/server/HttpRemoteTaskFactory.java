@@ -35,7 +35,9 @@ import io.trino.metadata.InternalNode;
 import io.trino.metadata.Split;
 import io.trino.operator.ForScheduler;
 import io.trino.server.remotetask.HttpRemoteTask;
+import io.trino.server.remotetask.RemoteTaskCodec;
 import io.trino.server.remotetask.RemoteTaskStats;
+import io.trino.server.smile.SmileCodecFactory;
 import io.trino.sql.planner.PlanFragment;
 import io.trino.sql.planner.plan.DynamicFilterId;
 import io.trino.sql.planner.plan.PlanNodeId;
@@ -53,6 +55,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.server.remotetask.RemoteTaskCodec.jsonCodec;
+import static io.trino.server.remotetask.RemoteTaskCodec.smileCodec;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -62,10 +66,10 @@ public class HttpRemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
-    private final JsonCodec<TaskStatus> taskStatusCodec;
-    private final JsonCodec<VersionedDynamicFilterDomains> dynamicFilterDomainsCodec;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final RemoteTaskCodec<TaskStatus> taskStatusCodec;
+    private final RemoteTaskCodec<VersionedDynamicFilterDomains> dynamicFilterDomainsCodec;
+    private final RemoteTaskCodec<TaskInfo> taskInfoCodec;
+    private final RemoteTaskCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoUpdateInterval;
@@ -81,21 +85,31 @@ public class HttpRemoteTaskFactory
     public HttpRemoteTaskFactory(
             QueryManagerConfig config,
             TaskManagerConfig taskConfig,
+            InternalCommunicationConfig communicationConfig,
             @ForScheduler HttpClient httpClient,
             LocationFactory locationFactory,
             JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<VersionedDynamicFilterDomains> dynamicFilterDomainsCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            SmileCodecFactory smileCodecFactory,
             RemoteTaskStats stats,
             DynamicFilterService dynamicFilterService)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
-        this.taskStatusCodec = taskStatusCodec;
-        this.dynamicFilterDomainsCodec = dynamicFilterDomainsCodec;
-        this.taskInfoCodec = taskInfoCodec;
-        this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+        if (communicationConfig.isBinaryTransportEnabled()) {
+            this.taskStatusCodec = smileCodec(smileCodecFactory.smileCodec(TaskStatus.class));
+            this.dynamicFilterDomainsCodec = smileCodec(smileCodecFactory.smileCodec(VersionedDynamicFilterDomains.class));
+            this.taskInfoCodec = smileCodec(smileCodecFactory.smileCodec(TaskInfo.class));
+            this.taskUpdateRequestCodec = smileCodec(smileCodecFactory.smileCodec(TaskUpdateRequest.class));
+        }
+        else {
+            this.taskStatusCodec = jsonCodec(taskStatusCodec);
+            this.dynamicFilterDomainsCodec = jsonCodec(dynamicFilterDomainsCodec);
+            this.taskInfoCodec = jsonCodec(taskInfoCodec);
+            this.taskUpdateRequestCodec = jsonCodec(taskUpdateRequestCodec);
+        }
         this.maxErrorDuration = config.getRemoteTaskMaxErrorDuration();
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
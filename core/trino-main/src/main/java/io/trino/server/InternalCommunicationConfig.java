@@ -39,6 +39,7 @@ public class InternalCommunicationConfig
     private String trustStorePath;
     private String trustStorePassword;
     private boolean httpServerHttpsEnabled;
+    private boolean binaryTransportEnabled;
 
     @NotNull
     public Optional<String> getSharedSecret()
@@ -149,6 +150,19 @@ public class InternalCommunicationConfig
         return this;
     }
 
+    public boolean isBinaryTransportEnabled()
+    {
+        return binaryTransportEnabled;
+    }
+
+    @Config("internal-communication.binary-transport.enabled")
+    @ConfigDescription("Encode the task updates, status and info exchanged between coordinator and workers in the binary Smile format instead of JSON")
+    public InternalCommunicationConfig setBinaryTransportEnabled(boolean binaryTransportEnabled)
+    {
+        this.binaryTransportEnabled = binaryTransportEnabled;
+        return this;
+    }
+
     @AssertTrue(message = "HTTPS must be enabled when HTTPS is required for internal communications. Set http-server.https.enabled=true")
     public boolean isHttpsEnabledWhenRequired()
     {
@@ -49,6 +49,8 @@ import io.trino.execution.TaskManager;
 import io.trino.execution.TaskManagerConfig;
 import io.trino.execution.executor.MultilevelSplitQueue;
 import io.trino.execution.executor.TaskExecutor;
+import io.trino.execution.resultcache.LeafResultCache;
+import io.trino.execution.resultcache.LeafResultCacheConfig;
 import io.trino.execution.scheduler.NodeScheduler;
 import io.trino.execution.scheduler.NodeSchedulerConfig;
 import io.trino.execution.scheduler.TopologyAwareNodeSelectorModule;
@@ -89,7 +91,13 @@ import io.trino.server.ExpressionSerialization.ExpressionSerializer;
 import io.trino.server.PluginManager.PluginsProvider;
 import io.trino.server.SliceSerialization.SliceDeserializer;
 import io.trino.server.SliceSerialization.SliceSerializer;
+import io.trino.server.protocol.ResultSpool;
+import io.trino.server.protocol.SegmentUriSigner;
+import io.trino.server.protocol.SpooledSegmentResource;
+import io.trino.server.protocol.SpoolingConfig;
 import io.trino.server.remotetask.HttpLocationFactory;
+import io.trino.server.smile.SmileCodecFactory;
+import io.trino.server.smile.SmileMapper;
 import io.trino.spi.PageIndexerFactory;
 import io.trino.spi.PageSorter;
 import io.trino.spi.VersionEmbedder;
@@ -267,6 +275,16 @@ public class ServerMainModule
         binder.bind(SqlTaskManager.class).in(Scopes.SINGLETON);
         binder.bind(TaskManager.class).to(Key.get(SqlTaskManager.class));
 
+        // spooled query results, which are written and served by the node running the output stage
+        configBinder(binder).bindConfig(SpoolingConfig.class);
+        binder.bind(ResultSpool.class).in(Scopes.SINGLETON);
+        binder.bind(SegmentUriSigner.class).in(Scopes.SINGLETON);
+        jaxrsBinder(binder).bind(SpooledSegmentResource.class);
+
+        // binary encoding of task control traffic
+        binder.bind(SmileCodecFactory.class).in(Scopes.SINGLETON);
+        jaxrsBinder(binder).bind(SmileMapper.class);
+
         // memory revoking scheduler
         binder.bind(MemoryRevokingScheduler.class).in(Scopes.SINGLETON);
 
@@ -285,6 +303,9 @@ public class ServerMainModule
         binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
         newExporter(binder).export(MultilevelSplitQueue.class).withGeneratedName();
         binder.bind(LocalExecutionPlanner.class).in(Scopes.SINGLETON);
+        configBinder(binder).bindConfig(LeafResultCacheConfig.class);
+        binder.bind(LeafResultCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(LeafResultCache.class).withGeneratedName();
         configBinder(binder).bindConfig(CompilerConfig.class);
         binder.bind(ExpressionCompiler.class).in(Scopes.SINGLETON);
         newExporter(binder).export(ExpressionCompiler.class).withGeneratedName();
@@ -24,6 +24,7 @@ import io.trino.Session;
 import io.trino.client.ProtocolHeaders;
 import io.trino.client.QueryResults;
 import io.trino.execution.QueryManager;
+import io.trino.execution.resultcache.QueryResultCache;
 import io.trino.memory.context.SimpleLocalMemoryContext;
 import io.trino.operator.ExchangeClient;
 import io.trino.operator.ExchangeClientSupplier;
@@ -61,6 +62,7 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.airlift.jaxrs.AsyncResponseHandler.bindAsyncResponse;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.trino.TrinoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.trino.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.trino.server.protocol.Slug.Context.EXECUTING_QUERY;
 import static io.trino.server.security.ResourceSecurity.AccessType.PUBLIC;
@@ -84,6 +86,9 @@ public class ExecutingStatementResource
 
     private final QueryManager queryManager;
     private final ExchangeClientSupplier exchangeClientSupplier;
+    private final QueryResultCache queryResultCache;
+    private final ResultSpool resultSpool;
+    private final SegmentUriSigner segmentUriSigner;
     private final BlockEncodingSerde blockEncodingSerde;
     private final QueryInfoUrlFactory queryInfoUrlFactory;
     private final BoundedExecutor responseExecutor;
@@ -97,6 +102,9 @@ public class ExecutingStatementResource
     public ExecutingStatementResource(
             QueryManager queryManager,
             ExchangeClientSupplier exchangeClientSupplier,
+            QueryResultCache queryResultCache,
+            ResultSpool resultSpool,
+            SegmentUriSigner segmentUriSigner,
             BlockEncodingSerde blockEncodingSerde,
             QueryInfoUrlFactory queryInfoUrlTemplate,
             @ForStatementResource BoundedExecutor responseExecutor,
@@ -105,6 +113,9 @@ public class ExecutingStatementResource
     {
         this.queryManager = requireNonNull(queryManager, "queryManager is null");
         this.exchangeClientSupplier = requireNonNull(exchangeClientSupplier, "exchangeClientSupplier is null");
+        this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+        this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
+        this.segmentUriSigner = requireNonNull(segmentUriSigner, "segmentUriSigner is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.queryInfoUrlFactory = requireNonNull(queryInfoUrlTemplate, "queryInfoUrlTemplate is null");
         this.responseExecutor = requireNonNull(responseExecutor, "responseExecutor is null");
@@ -122,6 +133,7 @@ public class ExecutingStatementResource
                             catch (NoSuchElementException e) {
                                 // query is no longer registered
                                 queries.remove(entry.getKey());
+                                resultSpool.deleteSegments(entry.getKey());
                             }
                         }
                     }
@@ -143,7 +155,7 @@ public class ExecutingStatementResource
     @ResourceSecurity(PUBLIC)
     @GET
     @Path("{queryId}/{slug}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("slug") String slug,
@@ -189,6 +201,9 @@ public class ExecutingStatementResource
                     queryManager,
                     queryInfoUrlFactory.getQueryInfoUrl(queryId),
                     exchangeClient,
+                    queryResultCache,
+                    resultSpool,
+                    segmentUriSigner,
                     responseExecutor,
                     timeoutExecutor,
                     blockEncodingSerde);
@@ -44,16 +44,19 @@ import io.trino.execution.QueryState;
 import io.trino.execution.QueryStats;
 import io.trino.execution.StageId;
 import io.trino.execution.StageInfo;
-import io.trino.execution.TaskInfo;
 import io.trino.execution.buffer.PagesSerde;
 import io.trino.execution.buffer.PagesSerdeFactory;
 import io.trino.execution.buffer.SerializedPage;
+import io.trino.execution.resultcache.CachedQueryResult;
+import io.trino.execution.resultcache.QueryResultCache;
+import io.trino.execution.resultcache.QueryResultCacheKey;
 import io.trino.operator.ExchangeClient;
 import io.trino.spi.ErrorCode;
 import io.trino.spi.Page;
 import io.trino.spi.QueryId;
 import io.trino.spi.TrinoWarning;
 import io.trino.spi.WarningCode;
+import io.trino.spi.block.Block;
 import io.trino.spi.block.BlockEncodingSerde;
 import io.trino.spi.security.SelectedRole;
 import io.trino.spi.type.BooleanType;
@@ -78,7 +81,9 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
-import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -109,6 +114,7 @@ import static io.trino.spi.type.StandardTypes.TIME;
 import static io.trino.spi.type.StandardTypes.TIMESTAMP;
 import static io.trino.spi.type.StandardTypes.TIMESTAMP_WITH_TIME_ZONE;
 import static io.trino.spi.type.StandardTypes.TIME_WITH_TIME_ZONE;
+import static io.trino.spi.type.VarcharType.VARCHAR;
 import static io.trino.util.Failures.toFailure;
 import static io.trino.util.MoreLists.mappedCopy;
 import static java.lang.String.format;
@@ -128,6 +134,11 @@ class Query
     @GuardedBy("this")
     private final ExchangeClient exchangeClient;
 
+    private final QueryResultCache queryResultCache;
+
+    private final ResultSpool resultSpool;
+    private final SegmentUriSigner segmentUriSigner;
+
     private final Executor resultsProcessorExecutor;
     private final ScheduledExecutorService timeoutExecutor;
 
@@ -185,17 +196,38 @@ class Query
     @GuardedBy("this")
     private Long updateCount;
 
+    // pages of a result served from the query result cache, which are returned before the pages from the exchange
+    @GuardedBy("this")
+    private final Deque<SerializedPage> resultCachePages = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private Optional<QueryResultCacheKey> resultCacheKey = Optional.empty();
+
+    // pages received from the exchange to store in the query result cache, or null if the result is not cached
+    @GuardedBy("this")
+    private List<SerializedPage> resultCacheCollectedPages;
+
+    @GuardedBy("this")
+    private long resultCacheCollectedBytes;
+
+    // the output stage spools the rows, and returns the URIs of the spooled segments instead
+    @GuardedBy("this")
+    private boolean spooledResults;
+
     public static Query create(
             Session session,
             Slug slug,
             QueryManager queryManager,
             Optional<URI> queryInfoUrl,
             ExchangeClient exchangeClient,
+            QueryResultCache queryResultCache,
+            ResultSpool resultSpool,
+            SegmentUriSigner segmentUriSigner,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde)
     {
-        Query result = new Query(session, slug, queryManager, queryInfoUrl, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
+        Query result = new Query(session, slug, queryManager, queryInfoUrl, exchangeClient, queryResultCache, resultSpool, segmentUriSigner, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
 
         result.queryManager.addOutputInfoListener(result.getQueryId(), result::setQueryOutputInfo);
 
@@ -215,6 +247,9 @@ class Query
             QueryManager queryManager,
             Optional<URI> queryInfoUrl,
             ExchangeClient exchangeClient,
+            QueryResultCache queryResultCache,
+            ResultSpool resultSpool,
+            SegmentUriSigner segmentUriSigner,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde)
@@ -224,6 +259,9 @@ class Query
         requireNonNull(queryManager, "queryManager is null");
         requireNonNull(queryInfoUrl, "queryInfoUrl is null");
         requireNonNull(exchangeClient, "exchangeClient is null");
+        requireNonNull(queryResultCache, "queryResultCache is null");
+        requireNonNull(resultSpool, "resultSpool is null");
+        requireNonNull(segmentUriSigner, "segmentUriSigner is null");
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
         requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
@@ -234,6 +272,9 @@ class Query
         this.slug = slug;
         this.queryInfoUrl = queryInfoUrl;
         this.exchangeClient = exchangeClient;
+        this.queryResultCache = queryResultCache;
+        this.resultSpool = resultSpool;
+        this.segmentUriSigner = segmentUriSigner;
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
         this.supportsParametricDateTime = session.getClientCapabilities().contains(ClientCapabilities.PARAMETRIC_DATETIME.toString());
@@ -260,6 +301,9 @@ class Query
     public synchronized void dispose()
     {
         exchangeClient.close();
+        resultCachePages.clear();
+        resultCacheCollectedPages = null;
+        resultSpool.deleteSegments(queryId);
     }
 
     public QueryId getQueryId()
@@ -353,6 +397,11 @@ class Query
 
     private synchronized ListenableFuture<Void> getFutureStateChange()
     {
+        // pages served from the result cache are available immediately
+        if (!resultCachePages.isEmpty()) {
+            return immediateVoidFuture();
+        }
+
         // if the exchange client is open, wait for data
         if (!exchangeClient.isClosed()) {
             return exchangeClient.isBlocked();
@@ -418,7 +467,17 @@ class Query
         queryManager.recordHeartbeat(queryId);
 
         // fetch result data from exchange
-        QueryResultRows resultRows = removePagesFromExchange(queryInfo, targetResultSize.toBytes());
+        QueryResultRows resultRows;
+        List<URI> segments = null;
+        if (spooledResults) {
+            resultRows = queryResultRowsBuilder(session)
+                    .withColumnsAndTypes(columns, types)
+                    .build();
+            segments = removeSegmentsFromExchange();
+        }
+        else {
+            resultRows = removePagesFromExchange(queryInfo, targetResultSize.toBytes());
+        }
 
         if ((queryInfo.getUpdateType() != null) && (updateCount == null)) {
             // grab the update count for non-queries
@@ -427,13 +486,14 @@ class Query
         }
 
         closeExchangeClientIfNecessary(queryInfo);
+        storeInResultCacheIfNecessary(queryInfo);
 
         // advance next token
         // only return a next if
         // (1) the query is not done AND the query state is not FAILED
         //   OR
         // (2)there is more data to send (due to buffering)
-        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed()) {
+        if ((!queryInfo.isFinalQueryInfo() && queryInfo.getState() != FAILED) || !exchangeClient.isClosed() || !resultCachePages.isEmpty()) {
             nextToken = OptionalLong.of(token + 1);
         }
         else {
@@ -478,6 +538,7 @@ class Query
                 nextResultsUri,
                 resultRows.getColumns().orElse(null),
                 resultRows.isEmpty() ? null : resultRows, // client excepts null that indicates "no data"
+                segments,
                 toStatementStats(queryInfo),
                 toQueryError(queryInfo, typeSerializationException),
                 mappedCopy(queryInfo.getWarnings(), Query::toClientWarning),
@@ -494,7 +555,7 @@ class Query
     private synchronized QueryResultRows removePagesFromExchange(QueryInfo queryInfo, long targetResultBytes)
     {
         // For queries with no output, return a fake boolean result for clients that require it.
-        if ((queryInfo.getState() == QueryState.FINISHED) && queryInfo.getOutputStage().isEmpty()) {
+        if ((queryInfo.getState() == QueryState.FINISHED) && queryInfo.getOutputStage().isEmpty() && queryInfo.getFieldNames().isEmpty()) {
             return queryResultRowsBuilder(session)
                     .withSingleBooleanValue(createColumn("result", BooleanType.BOOLEAN), true)
                     .build();
@@ -514,9 +575,13 @@ class Query
         try (PagesSerde.PagesSerdeContext context = serde.newContext()) {
             long bytes = 0;
             while (bytes < targetResultBytes) {
-                SerializedPage serializedPage = exchangeClient.pollPage();
+                SerializedPage serializedPage = resultCachePages.poll();
                 if (serializedPage == null) {
-                    break;
+                    serializedPage = exchangeClient.pollPage();
+                    if (serializedPage == null) {
+                        break;
+                    }
+                    collectForResultCache(serializedPage);
                 }
 
                 Page page = serde.deserialize(context, serializedPage);
@@ -531,17 +596,78 @@ class Query
         return resultBuilder.build();
     }
 
+    private synchronized List<URI> removeSegmentsFromExchange()
+    {
+        // The pages only hold the URIs of the segments, which the client downloads in
+        // parallel from the nodes that spooled them, with the token added to the URIs
+        // here instead of its credentials. As in removePagesFromExchange, the
+        // URIs must be added to the results while holding the lock.
+        ImmutableList.Builder<URI> segments = ImmutableList.builder();
+        int segmentCount = 0;
+        try (PagesSerde.PagesSerdeContext context = serde.newContext()) {
+            while (segmentCount < resultSpool.getMaxSegmentsPerResponse()) {
+                SerializedPage serializedPage = exchangeClient.pollPage();
+                if (serializedPage == null) {
+                    break;
+                }
+                Block block = serde.deserialize(context, serializedPage).getBlock(0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    URI segment = URI.create(VARCHAR.getSlice(block, position).toStringUtf8());
+                    segments.add(segmentUriSigner.sign(queryId, segment));
+                    segmentCount++;
+                }
+            }
+        }
+        catch (Throwable cause) {
+            queryManager.failQuery(queryId, cause);
+        }
+
+        List<URI> result = segments.build();
+        return result.isEmpty() ? null : result;
+    }
+
     private synchronized void closeExchangeClientIfNecessary(QueryInfo queryInfo)
     {
         // Close the exchange client if the query has failed, or if the query
         // is done and it does not have an output stage. The latter happens
         // for data definition executions, as those do not have output.
+        // Queries served from the result cache have output, but no output stage.
         if ((queryInfo.getState() == FAILED) ||
-                (queryInfo.getState().isDone() && queryInfo.getOutputStage().isEmpty())) {
+                (queryInfo.getState().isDone() && queryInfo.getOutputStage().isEmpty() && queryInfo.getFieldNames().isEmpty())) {
             exchangeClient.close();
         }
     }
 
+    private synchronized void collectForResultCache(SerializedPage serializedPage)
+    {
+        if (resultCacheCollectedPages == null) {
+            return;
+        }
+        resultCacheCollectedBytes += serializedPage.getRetainedSizeInBytes();
+        if (resultCacheCollectedBytes > queryResultCache.getMaxEntrySizeInBytes()) {
+            // result is too large to be cached
+            resultCacheCollectedPages = null;
+            return;
+        }
+        resultCacheCollectedPages.add(serializedPage);
+    }
+
+    private synchronized void storeInResultCacheIfNecessary(QueryInfo queryInfo)
+    {
+        if (resultCacheCollectedPages == null || resultCacheKey.isEmpty()) {
+            return;
+        }
+        if (queryInfo.getState() == FAILED || typeSerializationException.isPresent()) {
+            resultCacheCollectedPages = null;
+            return;
+        }
+        // the exchange client is closed after the last page has been removed
+        if (queryInfo.getState() == QueryState.FINISHED && exchangeClient.isClosed()) {
+            queryResultCache.put(resultCacheKey.get(), new CachedQueryResult(queryInfo.getFieldNames(), types, resultCacheCollectedPages));
+            resultCacheCollectedPages = null;
+        }
+    }
+
     private synchronized void handleSerializationException(Throwable exception)
     {
         // failQuery can throw exception if query has already finished.
@@ -571,6 +697,14 @@ class Query
             }
             columns = list.build();
             types = outputInfo.getColumnTypes();
+
+            spooledResults = outputInfo.isSpooledResults();
+            resultCacheKey = outputInfo.getResultCacheKey();
+            // the pages of spooled results only reference the rows
+            if (resultCacheKey.isPresent() && !spooledResults) {
+                resultCacheCollectedPages = new ArrayList<>();
+            }
+            outputInfo.getCachedResult().ifPresent(cachedResult -> resultCachePages.addAll(cachedResult.getPages()));
         }
 
         for (URI outputLocation : outputInfo.getBufferLocations()) {
@@ -751,18 +885,11 @@ class Query
             subStages.add(toStageStats(subStage));
         }
 
-        Set<String> uniqueNodes = new HashSet<>();
-        for (TaskInfo task : stageInfo.getTasks()) {
-            // todo add nodeId to TaskInfo
-            URI uri = task.getTaskStatus().getSelf();
-            uniqueNodes.add(uri.getHost() + ":" + uri.getPort());
-        }
-
         return StageStats.builder()
                 .setStageId(String.valueOf(stageInfo.getStageId().getId()))
                 .setState(stageInfo.getState().toString())
                 .setDone(stageInfo.getState().isDone())
-                .setNodes(uniqueNodes.size())
+                .setNodes(stageInfo.getNodes().size())
                 .setTotalSplits(stageStats.getTotalDrivers())
                 .setQueuedSplits(stageStats.getQueuedDrivers())
                 .setRunningSplits(stageStats.getRunningDrivers() + stageStats.getBlockedDrivers())
@@ -782,11 +909,7 @@ class Query
             return ImmutableSet.of();
         }
         ImmutableSet.Builder<String> nodes = ImmutableSet.builder();
-        for (TaskInfo task : stageInfo.getTasks()) {
-            // todo add nodeId to TaskInfo
-            URI uri = task.getTaskStatus().getSelf();
-            nodes.add(uri.getHost() + ":" + uri.getPort());
-        }
+        nodes.addAll(stageInfo.getNodes());
 
         for (StageInfo subStage : stageInfo.getSubStages()) {
             nodes.addAll(globalUniqueNodes(subStage));
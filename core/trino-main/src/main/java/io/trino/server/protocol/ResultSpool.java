@@ -0,0 +1,412 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.log.Logger;
+import io.trino.Session;
+import io.trino.client.ClientTypeSignature;
+import io.trino.client.Column;
+import io.trino.metadata.InternalNode;
+import io.trino.metadata.InternalNodeManager;
+import io.trino.spi.Page;
+import io.trino.spi.QueryId;
+import io.trino.spi.TrinoException;
+import io.trino.spi.type.Type;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.io.BaseEncoding.base16;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static io.trino.server.protocol.QueryResultRows.queryResultRowsBuilder;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.getLastModifiedTime;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Stores the result rows of queries as segments in a local directory, from which
+ * clients download them instead of receiving the rows inline in the query results.
+ * The segments are written by the output stage of the query, on the node which runs
+ * it, and are served by that node, so the coordinator only hands out their URIs.
+ * A segment holds the rows as a JSON array, in the same format as the data of
+ * {@link io.trino.client.QueryResults}.
+ * <p>
+ * Each node keeps its segments in a subdirectory of the configured directory named
+ * after the node, and only ever deletes what it finds there. Segments which are not
+ * acknowledged by the client are removed after {@code protocol.spooling.max-segment-age}.
+ */
+public class ResultSpool
+{
+    private static final Logger log = Logger.get(ResultSpool.class);
+
+    private static final String FILE_SUFFIX = ".json";
+    // segment IDs are random, so the segments of a query cannot be guessed from one another
+    private static final int SEGMENT_ID_BYTES = 16;
+    private static final Pattern SEGMENT_ID_PATTERN = Pattern.compile("[0-9a-f]{" + SEGMENT_ID_BYTES * 2 + "}");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final URI nodeUri;
+    private final Optional<Path> directory;
+    private final long segmentSizeInBytes;
+    private final int maxSegmentsPerResponse;
+    private final long maxSegmentAgeMillis;
+    private final ScheduledExecutorService cleanupExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("result-spool-cleanup"));
+    private final ListeningExecutorService writeExecutor = listeningDecorator(newCachedThreadPool(daemonThreadsNamed("result-spool-writer-%s")));
+
+    @Inject
+    public ResultSpool(SpoolingConfig config, ObjectMapper objectMapper, InternalNodeManager nodeManager)
+    {
+        requireNonNull(config, "config is null");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper is null");
+        InternalNode currentNode = requireNonNull(nodeManager, "nodeManager is null").getCurrentNode();
+        this.enabled = config.isEnabled();
+        this.nodeUri = currentNode.getInternalUri();
+        this.directory = Optional.ofNullable(config.getDirectory())
+                .map(path -> Paths.get(path).resolve(currentNode.getNodeIdentifier()));
+        this.segmentSizeInBytes = config.getSegmentSize().toBytes();
+        this.maxSegmentsPerResponse = config.getMaxSegmentsPerResponse();
+        this.maxSegmentAgeMillis = config.getMaxSegmentAge().toMillis();
+
+        if (enabled && directory.isEmpty()) {
+            throw new IllegalArgumentException("protocol.spooling.directory must be set when spooling is enabled");
+        }
+        directory.ifPresent(path -> {
+            try {
+                createDirectories(path);
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException("Could not create result spool directory: " + path, e);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        cleanupOldSegments();
+        if (enabled) {
+            long cleanupIntervalMillis = Math.max(maxSegmentAgeMillis / 10, 1);
+            cleanupExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    removeExpiredSegments(System.currentTimeMillis());
+                }
+                catch (Throwable e) {
+                    log.warn(e, "Error removing expired result segments");
+                }
+            }, cleanupIntervalMillis, cleanupIntervalMillis, MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        cleanupExecutor.shutdownNow();
+        writeExecutor.shutdownNow();
+    }
+
+    @VisibleForTesting
+    void cleanupOldSegments()
+    {
+        // the queries the segments belong to do not survive a restart
+        directory.ifPresent(path -> {
+            try (DirectoryStream<Path> stream = newDirectoryStream(path)) {
+                for (Path queryDirectory : stream) {
+                    if (isQueryDirectory(queryDirectory)) {
+                        deleteQuietly(queryDirectory);
+                    }
+                }
+            }
+            catch (IOException e) {
+                log.warn(e, "Error cleaning result spool directory");
+            }
+        });
+    }
+
+    @VisibleForTesting
+    void removeExpiredSegments(long currentTimeMillis)
+    {
+        if (!enabled) {
+            return;
+        }
+        long expiredBefore = currentTimeMillis - maxSegmentAgeMillis;
+        try (DirectoryStream<Path> queryDirectories = newDirectoryStream(directory.orElseThrow())) {
+            for (Path queryDirectory : queryDirectories) {
+                if (!isQueryDirectory(queryDirectory)) {
+                    continue;
+                }
+                removeExpiredSegments(queryDirectory, expiredBefore);
+            }
+        }
+        catch (IOException e) {
+            log.warn(e, "Error removing expired result segments");
+        }
+    }
+
+    private static void removeExpiredSegments(Path queryDirectory, long expiredBefore)
+            throws IOException
+    {
+        boolean empty = true;
+        try (DirectoryStream<Path> files = newDirectoryStream(queryDirectory)) {
+            for (Path file : files) {
+                if (isSegmentFile(file) && isModifiedBefore(file, expiredBefore)) {
+                    deleteQuietly(file);
+                }
+                else {
+                    empty = false;
+                }
+            }
+        }
+        catch (NoSuchFileException e) {
+            // the segments of the query were removed concurrently
+            return;
+        }
+        // the directory of a query is created right before its first segment is written
+        if (empty && isModifiedBefore(queryDirectory, expiredBefore)) {
+            deleteQuietly(queryDirectory);
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getSegmentSizeInBytes()
+    {
+        return segmentSizeInBytes;
+    }
+
+    public int getMaxSegmentsPerResponse()
+    {
+        return maxSegmentsPerResponse;
+    }
+
+    /**
+     * Writes the rows of the pages as a new segment, and returns the URI from which the segment
+     * is served by this node.
+     */
+    public URI writeSegment(Session session, List<String> columnNames, List<Type> types, List<Page> pages)
+    {
+        checkArgument(columnNames.size() == types.size(), "columnNames and types sizes don't match");
+        // the columns only name the values which cannot be serialized, so the client type is not needed
+        List<Column> columns = new ArrayList<>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            Type type = types.get(i);
+            columns.add(new Column(columnNames.get(i), type.getDisplayName(), new ClientTypeSignature(type.getTypeSignature().getBase())));
+        }
+        List<Throwable> serializationFailures = new ArrayList<>();
+        QueryResultRows rows = queryResultRowsBuilder(session)
+                .withColumnsAndTypes(columns, types)
+                .addPages(pages)
+                .withExceptionConsumer(serializationFailures::add)
+                .build();
+
+        QueryId queryId = session.getQueryId();
+        String segmentId = writeSegmentFile(queryId, rows);
+        if (!serializationFailures.isEmpty()) {
+            // the rows which could not be serialized are missing from the segment
+            deleteSegment(queryId, segmentId);
+            Throwable failure = serializationFailures.get(0);
+            throwIfUnchecked(failure);
+            throw new RuntimeException(failure);
+        }
+        return getSegmentUri(queryId, segmentId);
+    }
+
+    /**
+     * Writes the rows of the pages as a new segment in the background, so the driver writing the
+     * segment is not blocked on the serialization of the rows and the file system.
+     */
+    public ListenableFuture<URI> writeSegmentAsync(Session session, List<String> columnNames, List<Type> types, List<Page> pages)
+    {
+        List<Page> segmentPages = ImmutableList.copyOf(pages);
+        return writeExecutor.submit(() -> writeSegment(session, columnNames, types, segmentPages));
+    }
+
+    @VisibleForTesting
+    URI writeSegment(QueryId queryId, Iterable<List<Object>> rows)
+    {
+        return getSegmentUri(queryId, writeSegmentFile(queryId, rows));
+    }
+
+    private String writeSegmentFile(QueryId queryId, Iterable<List<Object>> rows)
+    {
+        checkState(enabled, "result spooling is not enabled");
+        String segmentId = createSegmentId();
+        Path file = getSegmentFile(queryId, segmentId);
+        try {
+            createDirectories(file.getParent());
+            try (OutputStream output = newOutputStream(file)) {
+                objectMapper.writeValue(output, rows);
+            }
+        }
+        catch (IOException e) {
+            deleteQuietly(file);
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Could not write spooled result segment: " + file, e);
+        }
+        return segmentId;
+    }
+
+    public Optional<InputStream> readSegment(QueryId queryId, String segmentId)
+    {
+        checkState(enabled, "result spooling is not enabled");
+        if (!isValidSegmentId(segmentId)) {
+            return Optional.empty();
+        }
+        Path file = getSegmentFile(queryId, segmentId);
+        try {
+            return Optional.of(newInputStream(file));
+        }
+        catch (NoSuchFileException e) {
+            // the segment was already acknowledged or removed with the query
+            return Optional.empty();
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Could not read spooled result segment: " + file, e);
+        }
+    }
+
+    public void deleteSegment(QueryId queryId, String segmentId)
+    {
+        if (enabled && isValidSegmentId(segmentId)) {
+            deleteQuietly(getSegmentFile(queryId, segmentId));
+        }
+    }
+
+    public void deleteSegments(QueryId queryId)
+    {
+        if (enabled) {
+            deleteQuietly(getQueryDirectory(queryId));
+        }
+    }
+
+    @VisibleForTesting
+    Path getQueryDirectory(QueryId queryId)
+    {
+        return directory.orElseThrow().resolve(queryId.getId());
+    }
+
+    private URI getSegmentUri(QueryId queryId, String segmentId)
+    {
+        return uriBuilderFrom(nodeUri)
+                .appendPath("/v1/spooled")
+                .appendPath(queryId.getId())
+                .appendPath(segmentId)
+                .build();
+    }
+
+    private Path getSegmentFile(QueryId queryId, String segmentId)
+    {
+        return getQueryDirectory(queryId).resolve(segmentId + FILE_SUFFIX);
+    }
+
+    private static String createSegmentId()
+    {
+        byte[] randomBytes = new byte[SEGMENT_ID_BYTES];
+        RANDOM.nextBytes(randomBytes);
+        return base16().lowerCase().encode(randomBytes);
+    }
+
+    private static boolean isValidSegmentId(String segmentId)
+    {
+        return SEGMENT_ID_PATTERN.matcher(segmentId).matches();
+    }
+
+    private static boolean isQueryDirectory(Path path)
+    {
+        if (!isDirectory(path)) {
+            return false;
+        }
+        try {
+            QueryId.valueOf(path.getFileName().toString());
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isSegmentFile(Path path)
+    {
+        String name = path.getFileName().toString();
+        return name.endsWith(FILE_SUFFIX) && isValidSegmentId(name.substring(0, name.length() - FILE_SUFFIX.length()));
+    }
+
+    private static boolean isModifiedBefore(Path path, long timeMillis)
+            throws IOException
+    {
+        try {
+            return getLastModifiedTime(path).toMillis() < timeMillis;
+        }
+        catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path path)
+    {
+        try {
+            if (isDirectory(path)) {
+                deleteRecursively(path, ALLOW_INSECURE);
+            }
+            else {
+                deleteIfExists(path);
+            }
+        }
+        catch (NoSuchFileException ignored) {
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not delete spooled result %s", path);
+        }
+    }
+}
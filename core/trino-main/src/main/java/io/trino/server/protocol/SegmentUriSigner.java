@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import com.google.common.hash.Hashing;
+import io.airlift.node.NodeInfo;
+import io.airlift.units.Duration;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.trino.server.InternalCommunicationConfig;
+import io.trino.spi.QueryId;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import java.net.URI;
+import java.util.Date;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adds a short-lived token to the URIs of the spooled result segments returned to the client,
+ * which the node serving a segment verifies. The client downloads the segments from the nodes
+ * that spooled them, so it must not send them the credentials it uses for the coordinator, and
+ * knowing the ID of a segment must not be enough to read it.
+ * <p>
+ * The token is signed with a key derived from the shared secret of the internal communication,
+ * so any node can verify it, but it is not accepted for internal authentication.
+ */
+public class SegmentUriSigner
+{
+    public static final String TOKEN_PARAMETER = "token";
+
+    private final byte[] hmac;
+    private final long expirationMillis;
+
+    @Inject
+    public SegmentUriSigner(SpoolingConfig spoolingConfig, InternalCommunicationConfig internalCommunicationConfig, NodeInfo nodeInfo)
+    {
+        this(
+                requireNonNull(internalCommunicationConfig, "internalCommunicationConfig is null").getSharedSecret()
+                        .orElseGet(requireNonNull(nodeInfo, "nodeInfo is null")::getEnvironment),
+                requireNonNull(spoolingConfig, "spoolingConfig is null").getSegmentUriExpiration());
+    }
+
+    public SegmentUriSigner(String sharedSecret, Duration expiration)
+    {
+        requireNonNull(sharedSecret, "sharedSecret is null");
+        this.hmac = Hashing.hmacSha256(sharedSecret.getBytes(UTF_8))
+                .hashString("spooled result segment", UTF_8)
+                .asBytes();
+        this.expirationMillis = requireNonNull(expiration, "expiration is null").toMillis();
+    }
+
+    public URI sign(QueryId queryId, URI segment)
+    {
+        String path = segment.getPath();
+        String segmentId = path.substring(path.lastIndexOf('/') + 1);
+        checkArgument(!segmentId.isEmpty(), "segment URI does not end with the segment ID: %s", segment);
+        String token = Jwts.builder()
+                .signWith(SignatureAlgorithm.HS256, hmac)
+                .setSubject(getSubject(queryId, segmentId))
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis))
+                .compact();
+        return uriBuilderFrom(segment)
+                .addParameter(TOKEN_PARAMETER, token)
+                .build();
+    }
+
+    public boolean isValid(QueryId queryId, String segmentId, @Nullable String token)
+    {
+        if (token == null) {
+            return false;
+        }
+        try {
+            String subject = Jwts.parser()
+                    .setSigningKey(hmac)
+                    .parseClaimsJws(token)
+                    .getBody()
+                    .getSubject();
+            return getSubject(queryId, segmentId).equals(subject);
+        }
+        catch (JwtException | IllegalArgumentException e) {
+            // the token is malformed, expired, or not signed by this cluster
+            return false;
+        }
+    }
+
+    private static String getSubject(QueryId queryId, String segmentId)
+    {
+        return queryId.getId() + "/" + segmentId;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import io.trino.server.ServerConfig;
+import io.trino.server.security.ResourceSecurity;
+import io.trino.spi.QueryId;
+
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import java.io.InputStream;
+
+import static io.trino.server.protocol.SegmentUriSigner.TOKEN_PARAMETER;
+import static io.trino.server.security.ResourceSecurity.AccessType.PUBLIC;
+import static java.util.Objects.requireNonNull;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+
+/**
+ * Serves the result segments spooled by the output stages running on this node.
+ * The client does not authenticate to this node. Instead, the URI of a segment holds
+ * a short-lived token issued by the coordinator, see {@link SegmentUriSigner}.
+ */
+@Path("/v1/spooled")
+public class SpooledSegmentResource
+{
+    private final ResultSpool resultSpool;
+    private final SegmentUriSigner segmentUriSigner;
+    private final boolean compressionEnabled;
+
+    @Inject
+    public SpooledSegmentResource(ResultSpool resultSpool, SegmentUriSigner segmentUriSigner, ServerConfig serverConfig)
+    {
+        this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
+        this.segmentUriSigner = requireNonNull(segmentUriSigner, "segmentUriSigner is null");
+        this.compressionEnabled = requireNonNull(serverConfig, "serverConfig is null").isQueryResultsCompressionEnabled();
+    }
+
+    @ResourceSecurity(PUBLIC)
+    @GET
+    @Path("{queryId}/{segmentId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSegment(
+            @PathParam("queryId") QueryId queryId,
+            @PathParam("segmentId") String segmentId,
+            @QueryParam(TOKEN_PARAMETER) String token)
+    {
+        if (!resultSpool.isEnabled()) {
+            throw segmentNotFound();
+        }
+        verifyToken(queryId, segmentId, token);
+        InputStream input = resultSpool.readSegment(queryId, segmentId)
+                .orElseThrow(SpooledSegmentResource::segmentNotFound);
+
+        ResponseBuilder response = Response.ok(input, MediaType.APPLICATION_JSON_TYPE);
+        if (!compressionEnabled) {
+            response.encoding("identity");
+        }
+        return response.build();
+    }
+
+    @ResourceSecurity(PUBLIC)
+    @DELETE
+    @Path("{queryId}/{segmentId}")
+    public Response acknowledgeSegment(
+            @PathParam("queryId") QueryId queryId,
+            @PathParam("segmentId") String segmentId,
+            @QueryParam(TOKEN_PARAMETER) String token)
+    {
+        verifyToken(queryId, segmentId, token);
+        resultSpool.deleteSegment(queryId, segmentId);
+        return Response.noContent().build();
+    }
+
+    private void verifyToken(QueryId queryId, String segmentId, String token)
+    {
+        if (!segmentUriSigner.isValid(queryId, segmentId, token)) {
+            throw new WebApplicationException(
+                    Response.status(FORBIDDEN)
+                            .type(TEXT_PLAIN_TYPE)
+                            .entity("Invalid or expired segment token")
+                            .build());
+        }
+    }
+
+    private static WebApplicationException segmentNotFound()
+    {
+        return new WebApplicationException(
+                Response.status(NOT_FOUND)
+                        .type(TEXT_PLAIN_TYPE)
+                        .entity("Segment not found")
+                        .build());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
+import io.airlift.units.MinDuration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+public class SpoolingConfig
+{
+    private boolean enabled;
+    private String directory;
+    private DataSize segmentSize = DataSize.of(16, MEGABYTE);
+    private int maxSegmentsPerResponse = 16;
+    private Duration maxSegmentAge = new Duration(1, HOURS);
+    private Duration segmentUriExpiration = new Duration(5, MINUTES);
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("protocol.spooling.enabled")
+    @ConfigDescription("Return the results of queries from clients that support it as spooled segments that are downloaded in parallel")
+    public SpoolingConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public String getDirectory()
+    {
+        return directory;
+    }
+
+    @Config("protocol.spooling.directory")
+    @ConfigDescription("Directory that spooled result segments are written to, in a subdirectory for each node")
+    public SpoolingConfig setDirectory(String directory)
+    {
+        this.directory = directory;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    @MaxDataSize("1GB")
+    public DataSize getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    @Config("protocol.spooling.segment-size")
+    @ConfigDescription("Target size of the data in a spooled result segment")
+    public SpoolingConfig setSegmentSize(DataSize segmentSize)
+    {
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxSegmentsPerResponse()
+    {
+        return maxSegmentsPerResponse;
+    }
+
+    @Config("protocol.spooling.max-segments-per-response")
+    @ConfigDescription("Maximum number of spooled result segments returned to the client in a single response")
+    public SpoolingConfig setMaxSegmentsPerResponse(int maxSegmentsPerResponse)
+    {
+        this.maxSegmentsPerResponse = maxSegmentsPerResponse;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getMaxSegmentAge()
+    {
+        return maxSegmentAge;
+    }
+
+    @Config("protocol.spooling.max-segment-age")
+    @ConfigDescription("Time after which a spooled result segment that was not acknowledged by the client is removed")
+    public SpoolingConfig setMaxSegmentAge(Duration maxSegmentAge)
+    {
+        this.maxSegmentAge = maxSegmentAge;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getSegmentUriExpiration()
+    {
+        return segmentUriExpiration;
+    }
+
+    @Config("protocol.spooling.segment-uri-expiration")
+    @ConfigDescription("Time during which the URI of a spooled result segment returned to the client can be used to download the segment")
+    public SpoolingConfig setSegmentUriExpiration(Duration segmentUriExpiration)
+    {
+        this.segmentUriExpiration = segmentUriExpiration;
+        return this;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.remotetask;
+
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+import io.trino.server.smile.BaseResponse;
+import io.trino.server.smile.SmileCodec;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static io.trino.TrinoMediaTypes.JACKSON_SMILE;
+import static io.trino.server.smile.AdaptingJsonResponseHandler.createAdaptingJsonResponseHandler;
+import static io.trino.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes the requests sent to remote tasks and decodes their responses,
+ * either as JSON or in the binary Smile format.
+ */
+public final class RemoteTaskCodec<T>
+{
+    private final String mediaType;
+    private final Function<T, byte[]> encoder;
+    private final Supplier<ResponseHandler<BaseResponse<T>, RuntimeException>> responseHandler;
+
+    private RemoteTaskCodec(String mediaType, Function<T, byte[]> encoder, Supplier<ResponseHandler<BaseResponse<T>, RuntimeException>> responseHandler)
+    {
+        this.mediaType = requireNonNull(mediaType, "mediaType is null");
+        this.encoder = requireNonNull(encoder, "encoder is null");
+        this.responseHandler = requireNonNull(responseHandler, "responseHandler is null");
+    }
+
+    public static <T> RemoteTaskCodec<T> jsonCodec(JsonCodec<T> codec)
+    {
+        requireNonNull(codec, "codec is null");
+        return new RemoteTaskCodec<>(JSON_UTF_8.toString(), codec::toJsonBytes, () -> createAdaptingJsonResponseHandler(codec));
+    }
+
+    public static <T> RemoteTaskCodec<T> smileCodec(SmileCodec<T> codec)
+    {
+        requireNonNull(codec, "codec is null");
+        return new RemoteTaskCodec<>(JACKSON_SMILE.toString(), codec::toSmile, () -> createFullSmileResponseHandler(codec));
+    }
+
+    /**
+     * Returns the media type of the encoded values, used for both the
+     * {@code Content-Type} and the {@code Accept} headers of requests.
+     */
+    public String getMediaType()
+    {
+        return mediaType;
+    }
+
+    public byte[] encode(T value)
+    {
+        return encoder.apply(value);
+    }
+
+    public ResponseHandler<BaseResponse<T>, RuntimeException> createResponseHandler()
+    {
+        return responseHandler.get();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.smile;
+
+import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exposes the responses of {@link FullJsonResponseHandler} as {@link BaseResponse},
+ * so that callers can handle JSON and Smile responses in the same way.
+ */
+public class AdaptingJsonResponseHandler<T>
+        implements ResponseHandler<BaseResponse<T>, RuntimeException>
+{
+    private final FullJsonResponseHandler<T> jsonResponseHandler;
+
+    private AdaptingJsonResponseHandler(FullJsonResponseHandler<T> jsonResponseHandler)
+    {
+        this.jsonResponseHandler = requireNonNull(jsonResponseHandler, "jsonResponseHandler is null");
+    }
+
+    public static <T> AdaptingJsonResponseHandler<T> createAdaptingJsonResponseHandler(JsonCodec<T> jsonCodec)
+    {
+        return new AdaptingJsonResponseHandler<>(createFullJsonResponseHandler(jsonCodec));
+    }
+
+    @Override
+    public BaseResponse<T> handleException(Request request, Exception exception)
+    {
+        return new JsonResponseWrapper<>(jsonResponseHandler.handleException(request, exception));
+    }
+
+    @Override
+    public BaseResponse<T> handle(Request request, Response response)
+    {
+        return new JsonResponseWrapper<>(jsonResponseHandler.handle(request, response));
+    }
+
+    private static class JsonResponseWrapper<T>
+            implements BaseResponse<T>
+    {
+        private final JsonResponse<T> jsonResponse;
+
+        private JsonResponseWrapper(JsonResponse<T> jsonResponse)
+        {
+            this.jsonResponse = requireNonNull(jsonResponse, "jsonResponse is null");
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return jsonResponse.getStatusCode();
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            return jsonResponse.getHeader(name);
+        }
+
+        @Override
+        public boolean hasValue()
+        {
+            return jsonResponse.hasValue();
+        }
+
+        @Override
+        public T getValue()
+        {
+            return jsonResponse.getValue();
+        }
+
+        @Override
+        public int getResponseSize()
+        {
+            return jsonResponse.getResponseSize();
+        }
+
+        @Override
+        public String getResponseBody()
+        {
+            return jsonResponse.getResponseBody();
+        }
+
+        @Override
+        public IllegalArgumentException getException()
+        {
+            return jsonResponse.getException();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.smile;
+
+/**
+ * Response to an HTTP request whose body is decoded with a codec, independent
+ * of the format used for the body.
+ */
+public interface BaseResponse<T>
+{
+    int getStatusCode();
+
+    String getHeader(String name);
+
+    boolean hasValue();
+
+    T getValue();
+
+    int getResponseSize();
+
+    String getResponseBody();
+
+    IllegalArgumentException getException();
+}
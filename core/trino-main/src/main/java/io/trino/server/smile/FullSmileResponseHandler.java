@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.smile;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.trino.TrinoMediaTypes.JACKSON_SMILE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+public class FullSmileResponseHandler<T>
+        implements ResponseHandler<BaseResponse<T>, RuntimeException>
+{
+    private final SmileCodec<T> smileCodec;
+
+    private FullSmileResponseHandler(SmileCodec<T> smileCodec)
+    {
+        this.smileCodec = requireNonNull(smileCodec, "smileCodec is null");
+    }
+
+    public static <T> FullSmileResponseHandler<T> createFullSmileResponseHandler(SmileCodec<T> smileCodec)
+    {
+        return new FullSmileResponseHandler<>(smileCodec);
+    }
+
+    @Override
+    public BaseResponse<T> handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public BaseResponse<T> handle(Request request, Response response)
+    {
+        byte[] bytes;
+        try (InputStream input = response.getInputStream()) {
+            bytes = ByteStreams.toByteArray(input);
+        }
+        catch (IOException e) {
+            throw propagate(request, e);
+        }
+
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !MediaType.parse(contentType).is(JACKSON_SMILE)) {
+            return new SmileResponse<>(response.getStatusCode(), response.getHeaders(), bytes, null, null);
+        }
+        try {
+            return new SmileResponse<>(response.getStatusCode(), response.getHeaders(), bytes, smileCodec.fromSmile(bytes), null);
+        }
+        catch (IllegalArgumentException e) {
+            return new SmileResponse<>(response.getStatusCode(), response.getHeaders(), bytes, null, e);
+        }
+    }
+
+    public static class SmileResponse<T>
+            implements BaseResponse<T>
+    {
+        private final int statusCode;
+        private final ListMultimap<HeaderName, String> headers;
+        private final byte[] responseBytes;
+        private final T value;
+        private final IllegalArgumentException exception;
+
+        private SmileResponse(int statusCode, ListMultimap<HeaderName, String> headers, byte[] responseBytes, T value, IllegalArgumentException exception)
+        {
+            this.statusCode = statusCode;
+            this.headers = ImmutableListMultimap.copyOf(requireNonNull(headers, "headers is null"));
+            this.responseBytes = requireNonNull(responseBytes, "responseBytes is null");
+            this.value = value;
+            this.exception = exception;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            List<String> values = headers.get(HeaderName.of(name));
+            if (values.isEmpty()) {
+                return null;
+            }
+            return values.get(0);
+        }
+
+        @Override
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        @Override
+        public T getValue()
+        {
+            if (!hasValue()) {
+                throw new IllegalStateException("Response does not contain a Smile value", exception);
+            }
+            return value;
+        }
+
+        @Override
+        public int getResponseSize()
+        {
+            return responseBytes.length;
+        }
+
+        @Override
+        public String getResponseBody()
+        {
+            return new String(responseBytes, UTF_8);
+        }
+
+        @Override
+        public IllegalArgumentException getException()
+        {
+            return exception;
+        }
+    }
+}
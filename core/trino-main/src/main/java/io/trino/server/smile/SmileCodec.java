@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.smile;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes values in the binary Smile format. The serializers and deserializers
+ * registered with the JSON {@link ObjectMapper} are reused, so every type that
+ * has a JSON representation can be encoded without further changes.
+ */
+public class SmileCodec<T>
+{
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private final Type type;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    SmileCodec(ObjectMapper objectMapper, Type type)
+    {
+        requireNonNull(objectMapper, "objectMapper is null");
+        this.type = requireNonNull(type, "type is null");
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        this.reader = objectMapper.readerFor(javaType);
+        this.writer = objectMapper.writerFor(javaType);
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public T fromSmile(byte[] bytes)
+            throws IllegalArgumentException
+    {
+        try (JsonParser parser = SMILE_FACTORY.createParser(bytes)) {
+            return reader.readValue(parser);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("Invalid Smile bytes for %s", type), e);
+        }
+    }
+
+    public byte[] toSmile(T instance)
+            throws IllegalArgumentException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = SMILE_FACTORY.createGenerator(output)) {
+            writer.writeValue(generator, instance);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("%s could not be converted to Smile", instance.getClass().getName()), e);
+        }
+        return output.toByteArray();
+    }
+}
@@ -92,7 +92,8 @@ public class FileSingleStreamSpillerFactory
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillerSpillPaths(),
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillMaxUsedSpaceThreshold(),
                 requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillCompressionEnabled(),
-                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled());
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled(),
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillLightweightEncodingEnabled());
     }
 
     @VisibleForTesting
@@ -103,9 +104,11 @@ public class FileSingleStreamSpillerFactory
             List<Path> spillPaths,
             double maxUsedSpaceThreshold,
             boolean spillCompressionEnabled,
-            boolean spillEncryptionEnabled)
+            boolean spillEncryptionEnabled,
+            boolean spillLightweightEncodingEnabled)
     {
-        this.serdeFactory = new PagesSerdeFactory(blockEncodingSerde, spillCompressionEnabled);
+        BlockEncodingSerde spillBlockEncodingSerde = spillLightweightEncodingEnabled ? new SpillBlockEncodingSerde(blockEncodingSerde) : blockEncodingSerde;
+        this.serdeFactory = new PagesSerdeFactory(spillBlockEncodingSerde, spillCompressionEnabled);
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats cannot be null");
         requireNonNull(spillPaths, "spillPaths is null");
@@ -14,6 +14,7 @@
 package io.trino.spiller;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.DataSize;
 
@@ -26,6 +27,7 @@ public class NodeSpillConfig
 
     private boolean spillCompressionEnabled;
     private boolean spillEncryptionEnabled;
+    private boolean spillLightweightEncodingEnabled;
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -80,4 +82,17 @@ public class NodeSpillConfig
         this.spillEncryptionEnabled = spillEncryptionEnabled;
         return this;
     }
+
+    public boolean isSpillLightweightEncodingEnabled()
+    {
+        return spillLightweightEncodingEnabled;
+    }
+
+    @Config("spill-lightweight-encoding-enabled")
+    @ConfigDescription("Encode spilled blocks with type-aware lightweight encodings, such as bit-packing and dictionaries")
+    public NodeSpillConfig setSpillLightweightEncodingEnabled(boolean spillLightweightEncodingEnabled)
+    {
+        this.spillLightweightEncodingEnabled = spillLightweightEncodingEnabled;
+        return this;
+    }
 }
@@ -0,0 +1,447 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.spiller;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.BlockEncodingSerde;
+import io.trino.spi.block.DictionaryBlock;
+import io.trino.spi.block.IntArrayBlock;
+import io.trino.spi.block.IntArrayBlockEncoding;
+import io.trino.spi.block.LongArrayBlock;
+import io.trino.spi.block.LongArrayBlockEncoding;
+import io.trino.spi.block.VariableWidthBlockBuilder;
+import io.trino.spi.block.VariableWidthBlockEncoding;
+import io.trino.spi.type.Type;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serializes top level blocks of spilled pages using lightweight, type-aware encodings:
+ * <ul>
+ * <li>fixed width integer blocks are written as frame of reference or delta encoded values, bit-packed to the
+ * smallest width which fits all values; constant blocks take no space beyond the header</li>
+ * <li>variable width blocks with few distinct values are written as a dictionary and bit-packed ids</li>
+ * </ul>
+ * Nulls are written as bitmaps and only non-null values are encoded. Blocks for which no lightweight encoding
+ * applies are written with the regular block encodings. The format is only meant to be read back by the
+ * same process, so it carries no versioning.
+ */
+public class SpillBlockEncodingSerde
+        implements BlockEncodingSerde
+{
+    private static final byte BLOCK_ENCODING = 0;
+    private static final byte PACKED_LONG_ARRAY = 1;
+    private static final byte PACKED_INT_ARRAY = 2;
+    private static final byte PACKED_DICTIONARY = 3;
+
+    private static final byte FRAME_OF_REFERENCE = 0;
+    private static final byte DELTA = 1;
+
+    @VisibleForTesting
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private final BlockEncodingSerde delegate;
+
+    public SpillBlockEncodingSerde(BlockEncodingSerde delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public Block readBlock(SliceInput input)
+    {
+        byte encoding = input.readByte();
+        switch (encoding) {
+            case BLOCK_ENCODING:
+                return delegate.readBlock(input);
+            case PACKED_LONG_ARRAY:
+                return readPackedLongArray(input);
+            case PACKED_INT_ARRAY:
+                return readPackedIntArray(input);
+            case PACKED_DICTIONARY:
+                return readPackedDictionary(input);
+        }
+        throw new IllegalArgumentException(format("Unknown spill block encoding: %s", encoding));
+    }
+
+    @Override
+    public void writeBlock(SliceOutput output, Block block)
+    {
+        block = block.getLoadedBlock();
+        if (block.getPositionCount() > 0) {
+            String encodingName = block.getEncodingName();
+            if (encodingName.equals(LongArrayBlockEncoding.NAME)) {
+                writePackedValues(output, PACKED_LONG_ARRAY, block, getNonNullLongs(block));
+                return;
+            }
+            if (encodingName.equals(IntArrayBlockEncoding.NAME)) {
+                writePackedValues(output, PACKED_INT_ARRAY, block, getNonNullInts(block));
+                return;
+            }
+            if (encodingName.equals(VariableWidthBlockEncoding.NAME) && tryWritePackedDictionary(output, block)) {
+                return;
+            }
+        }
+        output.writeByte(BLOCK_ENCODING);
+        delegate.writeBlock(output, block);
+    }
+
+    @Override
+    public Type readType(SliceInput sliceInput)
+    {
+        return delegate.readType(sliceInput);
+    }
+
+    @Override
+    public void writeType(SliceOutput sliceOutput, Type type)
+    {
+        delegate.writeType(sliceOutput, type);
+    }
+
+    private static void writePackedValues(SliceOutput output, byte encoding, Block block, long[] values)
+    {
+        output.writeByte(encoding);
+        output.writeInt(block.getPositionCount());
+        writeNulls(output, block, values.length);
+
+        if (values.length == 0) {
+            return;
+        }
+
+        // frame of reference: values are stored as unsigned offsets from the minimum value
+        long min = values[0];
+        long max = values[0];
+        for (long value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        int frameOfReferenceBitWidth = bitWidth(max - min);
+
+        // delta: differences between consecutive values are stored as unsigned offsets from the minimum difference
+        long minDelta = Long.MAX_VALUE;
+        long maxDelta = Long.MIN_VALUE;
+        for (int i = 1; i < values.length; i++) {
+            long delta = values[i] - values[i - 1];
+            minDelta = Math.min(minDelta, delta);
+            maxDelta = Math.max(maxDelta, delta);
+        }
+        int deltaBitWidth = values.length == 1 ? 0 : bitWidth(maxDelta - minDelta);
+
+        if (deltaBitWidth < frameOfReferenceBitWidth) {
+            long[] offsets = new long[values.length - 1];
+            for (int i = 1; i < values.length; i++) {
+                offsets[i - 1] = values[i] - values[i - 1] - minDelta;
+            }
+            output.writeByte(DELTA);
+            output.writeLong(values[0]);
+            output.writeLong(minDelta);
+            writeBitPacked(output, offsets, deltaBitWidth);
+        }
+        else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] -= min;
+            }
+            output.writeByte(FRAME_OF_REFERENCE);
+            output.writeLong(min);
+            writeBitPacked(output, values, frameOfReferenceBitWidth);
+        }
+    }
+
+    private static long[] readPackedValues(SliceInput input, int nonNullCount)
+    {
+        long[] values = new long[nonNullCount];
+        if (nonNullCount == 0) {
+            return values;
+        }
+
+        byte mode = input.readByte();
+        if (mode == DELTA) {
+            long first = input.readLong();
+            long minDelta = input.readLong();
+            long[] offsets = readBitPacked(input, nonNullCount - 1);
+            values[0] = first;
+            for (int i = 1; i < nonNullCount; i++) {
+                values[i] = values[i - 1] + minDelta + offsets[i - 1];
+            }
+            return values;
+        }
+
+        checkArgument(mode == FRAME_OF_REFERENCE, "Unknown packing mode: %s", mode);
+        long min = input.readLong();
+        long[] offsets = readBitPacked(input, nonNullCount);
+        for (int i = 0; i < nonNullCount; i++) {
+            values[i] = min + offsets[i];
+        }
+        return values;
+    }
+
+    private static Block readPackedLongArray(SliceInput input)
+    {
+        int positionCount = input.readInt();
+        Optional<boolean[]> valueIsNull = readNulls(input, positionCount);
+        long[] values = readPackedValues(input, nonNullCount(valueIsNull, positionCount));
+        if (valueIsNull.isEmpty()) {
+            return new LongArrayBlock(positionCount, Optional.empty(), values);
+        }
+
+        long[] positionValues = new long[positionCount];
+        boolean[] isNull = valueIsNull.get();
+        int valueIndex = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (!isNull[position]) {
+                positionValues[position] = values[valueIndex++];
+            }
+        }
+        return new LongArrayBlock(positionCount, valueIsNull, positionValues);
+    }
+
+    private static Block readPackedIntArray(SliceInput input)
+    {
+        int positionCount = input.readInt();
+        Optional<boolean[]> valueIsNull = readNulls(input, positionCount);
+        long[] values = readPackedValues(input, nonNullCount(valueIsNull, positionCount));
+
+        int[] positionValues = new int[positionCount];
+        int valueIndex = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (valueIsNull.isEmpty() || !valueIsNull.get()[position]) {
+                positionValues[position] = (int) values[valueIndex++];
+            }
+        }
+        return new IntArrayBlock(positionCount, valueIsNull, positionValues);
+    }
+
+    private boolean tryWritePackedDictionary(SliceOutput output, Block block)
+    {
+        int positionCount = block.getPositionCount();
+        int maxDictionarySize = min(positionCount / 2, MAX_DICTIONARY_SIZE);
+
+        Map<Slice, Integer> dictionaryIds = new HashMap<>();
+        long[] ids = new long[positionCount];
+        int nullId = -1;
+        long dictionaryBytes = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (block.isNull(position)) {
+                if (nullId < 0) {
+                    nullId = dictionaryIds.size();
+                    // reserve the id, null is appended to the dictionary in id order
+                    dictionaryIds.put(null, nullId);
+                }
+                ids[position] = nullId;
+                continue;
+            }
+            Slice value = block.getSlice(position, 0, block.getSliceLength(position));
+            Integer id = dictionaryIds.get(value);
+            if (id == null) {
+                if (dictionaryIds.size() >= maxDictionarySize) {
+                    return false;
+                }
+                id = dictionaryIds.size();
+                dictionaryIds.put(value, id);
+                dictionaryBytes += value.length();
+            }
+            ids[position] = id;
+        }
+
+        Slice[] dictionaryValues = new Slice[dictionaryIds.size()];
+        dictionaryIds.forEach((value, id) -> dictionaryValues[id] = value);
+        BlockBuilder dictionary = new VariableWidthBlockBuilder(null, dictionaryValues.length, toIntExact(dictionaryBytes));
+        for (Slice value : dictionaryValues) {
+            if (value == null) {
+                dictionary.appendNull();
+            }
+            else {
+                dictionary.writeBytes(value, 0, value.length()).closeEntry();
+            }
+        }
+
+        output.writeByte(PACKED_DICTIONARY);
+        output.writeInt(positionCount);
+        delegate.writeBlock(output, dictionary.build());
+        writeBitPacked(output, ids, bitWidth(dictionaryValues.length - 1));
+        return true;
+    }
+
+    private Block readPackedDictionary(SliceInput input)
+    {
+        int positionCount = input.readInt();
+        Block dictionary = delegate.readBlock(input);
+        long[] packedIds = readBitPacked(input, positionCount);
+        int[] ids = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            ids[position] = (int) packedIds[position];
+        }
+        return new DictionaryBlock(positionCount, dictionary, ids);
+    }
+
+    private static long[] getNonNullLongs(Block block)
+    {
+        long[] values = new long[nonNullCount(block)];
+        int valueIndex = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                values[valueIndex++] = block.getLong(position, 0);
+            }
+        }
+        return values;
+    }
+
+    private static long[] getNonNullInts(Block block)
+    {
+        long[] values = new long[nonNullCount(block)];
+        int valueIndex = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                values[valueIndex++] = block.getInt(position, 0);
+            }
+        }
+        return values;
+    }
+
+    private static int nonNullCount(Block block)
+    {
+        if (!block.mayHaveNull()) {
+            return block.getPositionCount();
+        }
+        int nonNullCount = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
+    private static int nonNullCount(Optional<boolean[]> valueIsNull, int positionCount)
+    {
+        if (valueIsNull.isEmpty()) {
+            return positionCount;
+        }
+        int nonNullCount = 0;
+        for (boolean isNull : valueIsNull.get()) {
+            if (!isNull) {
+                nonNullCount++;
+            }
+        }
+        return nonNullCount;
+    }
+
+    private static void writeNulls(SliceOutput output, Block block, int nonNullCount)
+    {
+        int positionCount = block.getPositionCount();
+        boolean hasNull = nonNullCount < positionCount;
+        output.writeBoolean(hasNull);
+        if (!hasNull) {
+            return;
+        }
+
+        byte[] packedIsNull = new byte[(positionCount + 7) / 8];
+        for (int position = 0; position < positionCount; position++) {
+            if (block.isNull(position)) {
+                packedIsNull[position >>> 3] = (byte) (packedIsNull[position >>> 3] | (0b1000_0000 >>> (position & 0b111)));
+            }
+        }
+        output.writeBytes(packedIsNull);
+    }
+
+    private static Optional<boolean[]> readNulls(SliceInput input, int positionCount)
+    {
+        if (!input.readBoolean()) {
+            return Optional.empty();
+        }
+
+        byte[] packedIsNull = new byte[(positionCount + 7) / 8];
+        input.readBytes(packedIsNull);
+        boolean[] valueIsNull = new boolean[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            valueIsNull[position] = (packedIsNull[position >>> 3] & (0b1000_0000 >>> (position & 0b111))) != 0;
+        }
+        return Optional.of(valueIsNull);
+    }
+
+    /**
+     * Returns the number of bits needed to represent the value, treated as unsigned.
+     */
+    @VisibleForTesting
+    static int bitWidth(long value)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    @VisibleForTesting
+    static void writeBitPacked(SliceOutput output, long[] values, int bitWidth)
+    {
+        output.writeByte(bitWidth);
+        if (bitWidth == 0) {
+            return;
+        }
+
+        long[] words = new long[toIntExact(((long) values.length * bitWidth + Long.SIZE - 1) / Long.SIZE)];
+        long bitPosition = 0;
+        for (long value : values) {
+            int word = (int) (bitPosition >>> 6);
+            int offset = (int) (bitPosition & 0b11_1111);
+            words[word] |= value << offset;
+            if (offset + bitWidth > Long.SIZE) {
+                words[word + 1] |= value >>> (Long.SIZE - offset);
+            }
+            bitPosition += bitWidth;
+        }
+        for (long word : words) {
+            output.writeLong(word);
+        }
+    }
+
+    @VisibleForTesting
+    static long[] readBitPacked(SliceInput input, int count)
+    {
+        int bitWidth = input.readByte();
+        long[] values = new long[count];
+        if (bitWidth == 0) {
+            return values;
+        }
+
+        long[] words = new long[toIntExact(((long) count * bitWidth + Long.SIZE - 1) / Long.SIZE)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = input.readLong();
+        }
+
+        long mask = bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+        long bitPosition = 0;
+        for (int i = 0; i < count; i++) {
+            int word = (int) (bitPosition >>> 6);
+            int offset = (int) (bitPosition & 0b11_1111);
+            long value = words[word] >>> offset;
+            if (offset + bitWidth > Long.SIZE) {
+                value |= words[word + 1] << (Long.SIZE - offset);
+            }
+            values[i] = value & mask;
+            bitPosition += bitWidth;
+        }
+        return values;
+    }
+}
@@ -38,6 +38,7 @@ import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.trino.sql.analyzer.RegexLibrary.JONI;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 @DefunctConfig({
@@ -70,6 +71,8 @@ public class FeaturesConfig
     private double networkCostWeight = 15;
     private boolean distributedIndexJoinsEnabled;
     private DataSize joinMaxBroadcastTableSize = DataSize.of(100, MEGABYTE);
+    private boolean joinSizeHistoryEnabled;
+    private Duration joinSizeHistoryTtl = new Duration(1, HOURS);
     private JoinDistributionType joinDistributionType = JoinDistributionType.AUTOMATIC;
     private boolean colocatedJoinsEnabled;
     private boolean groupedExecutionEnabled;
@@ -78,6 +81,9 @@ public class FeaturesConfig
     private boolean spatialJoinsEnabled = true;
     private JoinReorderingStrategy joinReorderingStrategy = JoinReorderingStrategy.AUTOMATIC;
     private int maxReorderedJoins = 9;
+    private int maxGreedyReorderedJoins;
+    private MergeJoinStrategy mergeJoinStrategy = MergeJoinStrategy.DISABLED;
+    private DataSize mergeJoinMaxRunSize = DataSize.of(256, MEGABYTE);
     private boolean redistributeWrites = true;
     private boolean usePreferredWritePartitioning = true;
     private int preferredWritePartitioningMinNumberOfPartitions = 50;
@@ -120,6 +126,7 @@ public class FeaturesConfig
     private boolean pushPartialAggregationThoughJoin;
     private double memoryRevokingTarget = 0.5;
     private double memoryRevokingThreshold = 0.9;
+    private MemoryRevokingStrategy memoryRevokingStrategy = MemoryRevokingStrategy.ORDER_BY_CREATE_TIME;
     private boolean parseDecimalLiteralsAsDouble;
     private boolean useMarkDistinct = true;
     private boolean preferPartialAggregation = true;
@@ -135,6 +142,7 @@ public class FeaturesConfig
     private boolean useTableScanNodePartitioning = true;
     private double tableScanNodePartitioningMinBucketToTaskRatio = 0.5;
     private boolean mergeProjectWithValues = true;
+    private boolean materializedViewQueryRewriteEnabled;
 
     private Duration iterativeOptimizerTimeout = new Duration(3, MINUTES); // by default let optimizer wait a long time in case it retrieves some data from ConnectorMetadata
     private DataSize filterAndProjectMinOutputPageSize = DataSize.of(500, KILOBYTE);
@@ -148,6 +156,22 @@ public class FeaturesConfig
         AUTOMATIC,
     }
 
+    public enum MergeJoinStrategy
+    {
+        /**
+         * Always use hash joins
+         */
+        DISABLED,
+        /**
+         * Use merge join when both inputs are already sorted on the join keys
+         */
+        PRESORTED,
+        /**
+         * Use merge join for all eligible joins, sorting the inputs which are not already sorted
+         */
+        ALWAYS,
+    }
+
     public enum JoinDistributionType
     {
         BROADCAST,
@@ -165,6 +189,18 @@ public class FeaturesConfig
         }
     }
 
+    public enum MemoryRevokingStrategy
+    {
+        /**
+         * Revoke operators of the oldest tasks first
+         */
+        ORDER_BY_CREATE_TIME,
+        /**
+         * Revoke operators which minimize spill I/O, based on revocable bytes and remaining input of their pipelines
+         */
+        COST_BASED,
+    }
+
     public enum DataIntegrityVerification
     {
         NONE,
@@ -272,6 +308,33 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isJoinSizeHistoryEnabled()
+    {
+        return joinSizeHistoryEnabled;
+    }
+
+    @Config("join-size-history-enabled")
+    @ConfigDescription("Use the join input sizes observed in previous queries when the size of a join input cannot be estimated")
+    public FeaturesConfig setJoinSizeHistoryEnabled(boolean joinSizeHistoryEnabled)
+    {
+        this.joinSizeHistoryEnabled = joinSizeHistoryEnabled;
+        return this;
+    }
+
+    @NotNull
+    public Duration getJoinSizeHistoryTtl()
+    {
+        return joinSizeHistoryTtl;
+    }
+
+    @Config("join-size-history-ttl")
+    @ConfigDescription("How long the observed size of a join input is used, for tables whose connector does not report when the data changes")
+    public FeaturesConfig setJoinSizeHistoryTtl(Duration joinSizeHistoryTtl)
+    {
+        this.joinSizeHistoryTtl = joinSizeHistoryTtl;
+        return this;
+    }
+
     public boolean isGroupedExecutionEnabled()
     {
         return groupedExecutionEnabled;
@@ -352,6 +415,33 @@ public class FeaturesConfig
         return this;
     }
 
+    public MergeJoinStrategy getMergeJoinStrategy()
+    {
+        return mergeJoinStrategy;
+    }
+
+    @Config("optimizer.merge-join-strategy")
+    @ConfigDescription("When to replace hash joins with merge joins of inputs sorted on the join keys")
+    public FeaturesConfig setMergeJoinStrategy(MergeJoinStrategy mergeJoinStrategy)
+    {
+        this.mergeJoinStrategy = mergeJoinStrategy;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMergeJoinMaxRunSize()
+    {
+        return mergeJoinMaxRunSize;
+    }
+
+    @Config("optimizer.merge-join-max-run-size")
+    @ConfigDescription("Maximum size of the right rows sharing a single join key that a merge join keeps in memory")
+    public FeaturesConfig setMergeJoinMaxRunSize(DataSize mergeJoinMaxRunSize)
+    {
+        this.mergeJoinMaxRunSize = mergeJoinMaxRunSize;
+        return this;
+    }
+
     @Min(2)
     public int getMaxReorderedJoins()
     {
@@ -366,6 +456,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @Min(0)
+    public int getMaxGreedyReorderedJoins()
+    {
+        return maxGreedyReorderedJoins;
+    }
+
+    @Config("optimizer.max-greedy-reordered-joins")
+    @ConfigDescription("The maximum number of tables to reorder in cost-based join reordering using greedy enumeration, when there are more tables than optimizer.max-reordered-joins")
+    public FeaturesConfig setMaxGreedyReorderedJoins(int maxGreedyReorderedJoins)
+    {
+        this.maxGreedyReorderedJoins = maxGreedyReorderedJoins;
+        return this;
+    }
+
     public boolean isRedistributeWrites()
     {
         return redistributeWrites;
@@ -753,6 +857,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public MemoryRevokingStrategy getMemoryRevokingStrategy()
+    {
+        return memoryRevokingStrategy;
+    }
+
+    @Config("memory-revoking-strategy")
+    @ConfigDescription("Strategy used to select operators to revoke memory from")
+    public FeaturesConfig setMemoryRevokingStrategy(MemoryRevokingStrategy memoryRevokingStrategy)
+    {
+        this.memoryRevokingStrategy = memoryRevokingStrategy;
+        return this;
+    }
+
     public double getSpillMaxUsedSpaceThreshold()
     {
         return spillMaxUsedSpaceThreshold;
@@ -1088,4 +1206,17 @@ public class FeaturesConfig
         this.mergeProjectWithValues = mergeProjectWithValues;
         return this;
     }
+
+    public boolean isMaterializedViewQueryRewriteEnabled()
+    {
+        return materializedViewQueryRewriteEnabled;
+    }
+
+    @Config("optimizer.materialized-view-query-rewrite-enabled")
+    @ConfigDescription("Rewrite queries to read fresh materialized views, which contain the result of the query")
+    public FeaturesConfig setMaterializedViewQueryRewriteEnabled(boolean materializedViewQueryRewriteEnabled)
+    {
+        this.materializedViewQueryRewriteEnabled = materializedViewQueryRewriteEnabled;
+        return this;
+    }
 }
@@ -34,6 +34,7 @@ import io.airlift.bytecode.control.IfStatement;
 import io.airlift.jmx.CacheStatsMBean;
 import io.trino.metadata.Metadata;
 import io.trino.operator.Work;
+import io.trino.operator.project.AdaptiveConjunctsPageFilter;
 import io.trino.operator.project.ConstantPageProjection;
 import io.trino.operator.project.GeneratedPageProjection;
 import io.trino.operator.project.InputChannels;
@@ -56,6 +57,7 @@ import io.trino.sql.relational.InputReferenceExpression;
 import io.trino.sql.relational.LambdaDefinitionExpression;
 import io.trino.sql.relational.RowExpression;
 import io.trino.sql.relational.RowExpressionVisitor;
+import io.trino.sql.relational.SpecialForm;
 import org.objectweb.asm.MethodTooLargeException;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
@@ -72,6 +74,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.bytecode.Access.FINAL;
 import static io.airlift.bytecode.Access.PRIVATE;
 import static io.airlift.bytecode.Access.PUBLIC;
@@ -93,6 +96,7 @@ import static io.trino.spi.StandardErrorCode.COMPILER_ERROR;
 import static io.trino.sql.gen.BytecodeUtils.generateWrite;
 import static io.trino.sql.gen.BytecodeUtils.invoke;
 import static io.trino.sql.gen.LambdaExpressionExtractor.extractLambdaExpressions;
+import static io.trino.sql.relational.SpecialForm.Form.AND;
 import static io.trino.util.CompilerUtils.defineClass;
 import static io.trino.util.CompilerUtils.makeClassName;
 import static io.trino.util.Reflection.constructorMethodHandle;
@@ -102,6 +106,7 @@ public class PageFunctionCompiler
 {
     private final Metadata metadata;
     private final DeterminismEvaluator determinismEvaluator;
+    private final boolean adaptiveFilterReorderingEnabled;
 
     private final LoadingCache<RowExpression, Supplier<PageProjection>> projectionCache;
     private final LoadingCache<RowExpression, Supplier<PageFilter>> filterCache;
@@ -112,13 +117,22 @@ public class PageFunctionCompiler
     @Inject
     public PageFunctionCompiler(Metadata metadata, CompilerConfig config)
     {
-        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize());
+        this(
+                metadata,
+                requireNonNull(config, "config is null").getExpressionCacheSize(),
+                config.isAdaptiveFilterReorderingEnabled());
     }
 
     public PageFunctionCompiler(Metadata metadata, int expressionCacheSize)
+    {
+        this(metadata, expressionCacheSize, false);
+    }
+
+    public PageFunctionCompiler(Metadata metadata, int expressionCacheSize, boolean adaptiveFilterReorderingEnabled)
     {
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.determinismEvaluator = new DeterminismEvaluator(metadata);
+        this.adaptiveFilterReorderingEnabled = adaptiveFilterReorderingEnabled;
 
         if (expressionCacheSize > 0) {
             projectionCache = CacheBuilder.newBuilder()
@@ -365,6 +379,20 @@ public class PageFunctionCompiler
     }
 
     public Supplier<PageFilter> compileFilter(RowExpression filter, Optional<String> classNameSuffix)
+    {
+        List<RowExpression> conjuncts = extractConjuncts(filter);
+        if (adaptiveFilterReorderingEnabled && conjuncts.size() > 1 && determinismEvaluator.isDeterministic(filter)) {
+            List<Supplier<PageFilter>> conjunctFilters = conjuncts.stream()
+                    .map(conjunct -> compileSingleFilter(conjunct, classNameSuffix))
+                    .collect(toImmutableList());
+            return () -> new AdaptiveConjunctsPageFilter(conjunctFilters.stream()
+                    .map(Supplier::get)
+                    .collect(toImmutableList()));
+        }
+        return compileSingleFilter(filter, classNameSuffix);
+    }
+
+    private Supplier<PageFilter> compileSingleFilter(RowExpression filter, Optional<String> classNameSuffix)
     {
         if (filterCache == null) {
             return compileFilterInternal(filter, classNameSuffix);
@@ -403,6 +431,18 @@ public class PageFunctionCompiler
         };
     }
 
+    private static List<RowExpression> extractConjuncts(RowExpression expression)
+    {
+        if (expression instanceof SpecialForm && ((SpecialForm) expression).getForm() == AND) {
+            ImmutableList.Builder<RowExpression> conjuncts = ImmutableList.builder();
+            for (RowExpression argument : ((SpecialForm) expression).getArguments()) {
+                conjuncts.addAll(extractConjuncts(argument));
+            }
+            return conjuncts.build();
+        }
+        return ImmutableList.of(expression);
+    }
+
     private static ParameterizedType generateFilterClassName(Optional<String> classNameSuffix)
     {
         return makeClassName(PageFilter.class.getSimpleName(), classNameSuffix);
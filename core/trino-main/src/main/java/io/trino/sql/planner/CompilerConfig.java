@@ -14,6 +14,7 @@
 package io.trino.sql.planner;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.trino.spi.function.Description;
 
@@ -23,6 +24,7 @@ import javax.validation.constraints.Min;
 public class CompilerConfig
 {
     private int expressionCacheSize = 10_000;
+    private boolean adaptiveFilterReorderingEnabled;
 
     @Min(0)
     public int getExpressionCacheSize()
@@ -37,4 +39,17 @@ public class CompilerConfig
         this.expressionCacheSize = expressionCacheSize;
         return this;
     }
+
+    public boolean isAdaptiveFilterReorderingEnabled()
+    {
+        return adaptiveFilterReorderingEnabled;
+    }
+
+    @Config("compiler.adaptive-filter-reordering-enabled")
+    @ConfigDescription("Evaluate the conjuncts of filters in the order of their measured cost and selectivity")
+    public CompilerConfig setAdaptiveFilterReorderingEnabled(boolean adaptiveFilterReorderingEnabled)
+    {
+        this.adaptiveFilterReorderingEnabled = adaptiveFilterReorderingEnabled;
+        return this;
+    }
 }
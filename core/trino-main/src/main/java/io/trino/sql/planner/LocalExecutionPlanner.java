@@ -38,6 +38,7 @@ import io.trino.execution.TaskId;
 import io.trino.execution.TaskManagerConfig;
 import io.trino.execution.buffer.OutputBuffer;
 import io.trino.execution.buffer.PagesSerdeFactory;
+import io.trino.execution.resultcache.LeafResultCache;
 import io.trino.index.IndexManager;
 import io.trino.metadata.Metadata;
 import io.trino.metadata.ResolvedFunction;
@@ -49,6 +50,8 @@ import io.trino.operator.DevNullOperator.DevNullOperatorFactory;
 import io.trino.operator.DriverFactory;
 import io.trino.operator.DynamicFilterSourceOperator;
 import io.trino.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
+import io.trino.operator.DynamicRowFilterOperator.ChannelHandle;
+import io.trino.operator.DynamicRowFilterOperator.DynamicRowFilterOperatorFactory;
 import io.trino.operator.EnforceSingleRowOperator;
 import io.trino.operator.ExchangeClientSupplier;
 import io.trino.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -57,6 +60,7 @@ import io.trino.operator.FilterAndProjectOperator;
 import io.trino.operator.GroupIdOperator;
 import io.trino.operator.HashAggregationOperator.HashAggregationOperatorFactory;
 import io.trino.operator.HashSemiJoinOperator;
+import io.trino.operator.LeafResultCacheOperator.LeafResultCacheOperatorFactory;
 import io.trino.operator.LimitOperator.LimitOperatorFactory;
 import io.trino.operator.LocalPlannerAware;
 import io.trino.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
@@ -109,11 +113,14 @@ import io.trino.operator.join.HashBuilderOperator.HashBuilderOperatorFactory;
 import io.trino.operator.join.JoinBridgeManager;
 import io.trino.operator.join.JoinOperatorFactory;
 import io.trino.operator.join.JoinOperatorFactory.OuterOperatorFactoryResult;
+import io.trino.operator.join.LookupJoinOperatorFactory.JoinType;
 import io.trino.operator.join.LookupOuterOperator.LookupOuterOperatorFactory;
 import io.trino.operator.join.LookupSourceFactory;
+import io.trino.operator.join.MergeJoinBridge;
 import io.trino.operator.join.NestedLoopJoinBridge;
 import io.trino.operator.join.NestedLoopJoinPagesSupplier;
 import io.trino.operator.join.PartitionedLookupSourceFactory;
+import io.trino.operator.output.SpoolingOutputOperator.SpoolingOutputFactory;
 import io.trino.operator.output.TaskOutputOperator.TaskOutputFactory;
 import io.trino.operator.project.CursorProcessor;
 import io.trino.operator.project.PageProcessor;
@@ -130,6 +137,7 @@ import io.trino.operator.window.pattern.LabelEvaluator.EvaluationSupplier;
 import io.trino.operator.window.pattern.LogicalIndexNavigation;
 import io.trino.operator.window.pattern.MeasureComputation.MeasureComputationSupplier;
 import io.trino.operator.window.pattern.PhysicalValuePointer;
+import io.trino.server.protocol.ResultSpool;
 import io.trino.spi.Page;
 import io.trino.spi.PageBuilder;
 import io.trino.spi.TrinoException;
@@ -177,6 +185,7 @@ import io.trino.sql.planner.plan.IndexSourceNode;
 import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.LimitNode;
 import io.trino.sql.planner.plan.MarkDistinctNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode.Measure;
@@ -260,15 +269,18 @@ import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static io.trino.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
 import static io.trino.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static io.trino.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
+import static io.trino.SystemSessionProperties.getMergeJoinMaxRunSize;
 import static io.trino.SystemSessionProperties.getTaskConcurrency;
 import static io.trino.SystemSessionProperties.getTaskWriterCount;
 import static io.trino.SystemSessionProperties.isEnableCoordinatorDynamicFiltersDistribution;
 import static io.trino.SystemSessionProperties.isEnableLargeDynamicFilters;
 import static io.trino.SystemSessionProperties.isExchangeCompressionEnabled;
 import static io.trino.SystemSessionProperties.isLateMaterializationEnabled;
+import static io.trino.SystemSessionProperties.isLeafResultCacheEnabled;
 import static io.trino.SystemSessionProperties.isSpillEnabled;
 import static io.trino.SystemSessionProperties.isSpillOrderBy;
 import static io.trino.SystemSessionProperties.isSpillWindowOperator;
+import static io.trino.execution.resultcache.DeterministicPlans.isDeterministicPlan;
 import static io.trino.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static io.trino.operator.PipelineExecutionStrategy.GROUPED_EXECUTION;
 import static io.trino.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
@@ -281,6 +293,8 @@ import static io.trino.operator.TableWriterOperator.TableWriterOperatorFactory;
 import static io.trino.operator.WindowFunctionDefinition.window;
 import static io.trino.operator.WorkProcessorPipelineSourceOperator.toOperatorFactories;
 import static io.trino.operator.join.JoinUtils.isBuildSideReplicated;
+import static io.trino.operator.join.MergeJoinOperator.MergeJoinOperatorFactory;
+import static io.trino.operator.join.MergeJoinSinkOperator.MergeJoinSinkOperatorFactory;
 import static io.trino.operator.join.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
 import static io.trino.operator.join.NestedLoopJoinOperator.NestedLoopJoinOperatorFactory;
 import static io.trino.operator.unnest.UnnestOperator.UnnestOperatorFactory;
@@ -303,6 +317,7 @@ import static io.trino.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DIST
 import static io.trino.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
 import static io.trino.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static io.trino.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
 import static io.trino.sql.planner.plan.AggregationNode.Step.FINAL;
 import static io.trino.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static io.trino.sql.planner.plan.ExchangeNode.Scope.LOCAL;
@@ -362,6 +377,8 @@ public class LocalExecutionPlanner
     private final DynamicFilterConfig dynamicFilterConfig;
     private final TypeOperators typeOperators;
     private final BlockTypeOperators blockTypeOperators;
+    private final LeafResultCache leafResultCache;
+    private final ResultSpool resultSpool;
 
     @Inject
     public LocalExecutionPlanner(
@@ -387,7 +404,9 @@ public class LocalExecutionPlanner
             OrderingCompiler orderingCompiler,
             DynamicFilterConfig dynamicFilterConfig,
             TypeOperators typeOperators,
-            BlockTypeOperators blockTypeOperators)
+            BlockTypeOperators blockTypeOperators,
+            LeafResultCache leafResultCache,
+            ResultSpool resultSpool)
     {
         this.explainAnalyzeContext = requireNonNull(explainAnalyzeContext, "explainAnalyzeContext is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -415,6 +434,8 @@ public class LocalExecutionPlanner
         this.dynamicFilterConfig = requireNonNull(dynamicFilterConfig, "dynamicFilterConfig is null");
         this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
         this.blockTypeOperators = requireNonNull(blockTypeOperators, "blockTypeOperators is null");
+        this.leafResultCache = requireNonNull(leafResultCache, "leafResultCache is null");
+        this.resultSpool = requireNonNull(resultSpool, "resultSpool is null");
     }
 
     public LocalExecutionPlan plan(
@@ -428,6 +449,11 @@ public class LocalExecutionPlanner
     {
         List<Symbol> outputLayout = partitioningScheme.getOutputLayout();
 
+        if (plan instanceof OutputNode && ((OutputNode) plan).isSpooledResults()) {
+            OutputFactory outputFactory = new SpoolingOutputFactory(outputBuffer, resultSpool, ((OutputNode) plan).getColumnNames());
+            return plan(taskContext, stageExecutionDescriptor, plan, outputLayout, types, partitionedSourceOrder, outputFactory);
+        }
+
         if (partitioningScheme.getPartitioning().getHandle().equals(FIXED_BROADCAST_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(FIXED_ARBITRARY_DISTRIBUTION) ||
                 partitioningScheme.getPartitioning().getHandle().equals(SCALED_WRITER_DISTRIBUTION) ||
@@ -513,6 +539,7 @@ public class LocalExecutionPlanner
         LocalExecutionPlanContext context = new LocalExecutionPlanContext(taskContext, types);
 
         PhysicalOperation physicalOperation = plan.accept(new Visitor(session, stageExecutionDescriptor), context);
+        physicalOperation = addLeafResultCacheOperator(session, plan, physicalOperation, context);
 
         Function<Page, Page> pagePreprocessor = enforceLoadedLayoutProcessor(outputLayout, physicalOperation.getLayout());
 
@@ -544,6 +571,96 @@ public class LocalExecutionPlanner
         return new LocalExecutionPlan(context.getDriverFactories(), partitionedSourceOrder, stageExecutionDescriptor);
     }
 
+    /**
+     * Collects the output of the pipeline in the leaf result cache, when the pipeline only consists of
+     * deterministic operations on the pages of a single table scan, so the output is a function of the split.
+     */
+    private PhysicalOperation addLeafResultCacheOperator(Session session, PlanNode root, PhysicalOperation source, LocalExecutionPlanContext context)
+    {
+        if (!isLeafResultCacheEnabled(session)) {
+            return source;
+        }
+        List<PlanNode> nodes = searchFrom(root).findAll();
+        List<TableScanNode> tableScans = nodes.stream()
+                .filter(TableScanNode.class::isInstance)
+                .map(TableScanNode.class::cast)
+                .collect(toImmutableList());
+        if (tableScans.size() != 1 || tableScans.get(0).isUpdateTarget()) {
+            return source;
+        }
+        for (PlanNode node : nodes) {
+            if (node instanceof FilterNode) {
+                // dynamic filters make the output depend on the build side of the join
+                if (!extractDynamicFilters(((FilterNode) node).getPredicate()).getDynamicConjuncts().isEmpty()) {
+                    return source;
+                }
+            }
+            else if (node instanceof AggregationNode) {
+                if (((AggregationNode) node).getStep() != PARTIAL) {
+                    return source;
+                }
+            }
+            else if (!(node instanceof TableScanNode) && !(node instanceof ProjectNode)) {
+                return source;
+            }
+        }
+        if (!isDeterministicPlan(root, metadata)) {
+            return source;
+        }
+
+        TableScanNode tableScan = tableScans.get(0);
+        OperatorFactory cacheOperatorFactory = new LeafResultCacheOperatorFactory(
+                context.getNextOperatorId(),
+                root.getId(),
+                tableScan.getId(),
+                createPipelineSignature(session, nodes, root, source.getLayout(), context.getTypes()),
+                leafResultCache);
+        return new PhysicalOperation(cacheOperatorFactory, source);
+    }
+
+    private static List<Object> createPipelineSignature(Session session, List<PlanNode> nodes, PlanNode root, Map<Symbol, Integer> layout, TypeProvider types)
+    {
+        ImmutableList.Builder<Object> signature = ImmutableList.builder();
+        for (PlanNode node : nodes) {
+            signature.add(node.getClass());
+            if (node instanceof TableScanNode) {
+                TableScanNode tableScan = (TableScanNode) node;
+                signature.add(tableScan.getTable().getCatalogName());
+                signature.add(tableScan.getTable().getConnectorHandle());
+                signature.add(tableScan.getTable().getLayout());
+                signature.add(tableScan.getAssignments());
+                signature.add(tableScan.getEnforcedConstraint());
+                signature.add(session.getConnectorProperties(tableScan.getTable().getCatalogName()));
+            }
+            else if (node instanceof FilterNode) {
+                signature.add(((FilterNode) node).getPredicate());
+            }
+            else if (node instanceof ProjectNode) {
+                signature.add(((ProjectNode) node).getAssignments());
+            }
+            else if (node instanceof AggregationNode) {
+                AggregationNode aggregation = (AggregationNode) node;
+                // the grouping set descriptor does not implement equals
+                signature.add(aggregation.getGroupingKeys());
+                signature.add(aggregation.getGroupingSetCount());
+                signature.add(aggregation.getGlobalGroupingSets());
+                signature.add(aggregation.getAggregations());
+                signature.add(aggregation.getStep());
+                signature.add(aggregation.getHashSymbol());
+                signature.add(aggregation.getPreGroupedSymbols());
+            }
+        }
+        signature.add(root.getOutputSymbols());
+        signature.add(root.getOutputSymbols().stream()
+                .map(types::get)
+                .collect(toImmutableList()));
+        signature.add(layout);
+        signature.add(session.getTimeZoneKey());
+        signature.add(session.getLocale());
+        signature.add(session.getSystemProperties());
+        return signature.build();
+    }
+
     private static class LocalExecutionPlanContext
     {
         private final TaskContext taskContext;
@@ -1663,7 +1780,7 @@ public class LocalExecutionPlanner
             Optional<Expression> staticFilters = filterExpression.flatMap(this::getStaticFilter);
             DynamicFilter dynamicFilter = filterExpression
                     .filter(expression -> sourceNode instanceof TableScanNode)
-                    .map(expression -> getDynamicFilter((TableScanNode) sourceNode, expression, context))
+                    .map(expression -> getDynamicFilter(((TableScanNode) sourceNode).getAssignments(), expression, context))
                     .orElse(DynamicFilter.EMPTY);
 
             List<Expression> projections = new ArrayList<>();
@@ -1703,6 +1820,10 @@ public class LocalExecutionPlanner
                     return new PhysicalOperation(operatorFactory, outputMappings, context, stageExecutionDescriptor.isScanGroupedExecution(sourceNode.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
                 }
                 else {
+                    if (filterExpression.isPresent()) {
+                        source = createDynamicRowFilter(context, planNodeId, source, filterExpression.get());
+                    }
+
                     Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(translatedFilter, translatedProjections, Optional.of(context.getStageId() + "_" + planNodeId));
 
                     OperatorFactory operatorFactory = FilterAndProjectOperator.createOperatorFactory(
@@ -1742,7 +1863,7 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(symbol));
             }
 
-            DynamicFilter dynamicFilter = getDynamicFilter(node, filterExpression, context);
+            DynamicFilter dynamicFilter = getDynamicFilter(node.getAssignments(), filterExpression, context);
             OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, node.getTable(), columns, dynamicFilter);
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
         }
@@ -1758,7 +1879,7 @@ public class LocalExecutionPlanner
         }
 
         private DynamicFilter getDynamicFilter(
-                TableScanNode tableScanNode,
+                Map<Symbol, ColumnHandle> columns,
                 Expression filterExpression,
                 LocalExecutionPlanContext context)
         {
@@ -1768,16 +1889,35 @@ public class LocalExecutionPlanner
                 return DynamicFilter.EMPTY;
             }
 
-            log.debug("[TableScan] Dynamic filters: %s", dynamicFilters);
+            log.debug("[Filter] Dynamic filters: %s", dynamicFilters);
             context.registerCoordinatorDynamicFilters(dynamicFilters);
             return context.getDynamicFiltersCollector().createDynamicFilter(
                     dynamicFilters,
-                    tableScanNode.getAssignments(),
+                    columns,
                     context.getTypes(),
                     metadata,
                     typeOperators);
         }
 
+        private PhysicalOperation createDynamicRowFilter(
+                LocalExecutionPlanContext context,
+                PlanNodeId planNodeId,
+                PhysicalOperation source,
+                Expression filterExpression)
+        {
+            // dynamic filters over sources other than table scans are kept by the planner only when dynamic row filtering is enabled
+            Map<Symbol, ColumnHandle> channels = source.getLayout().entrySet().stream()
+                    .collect(toImmutableMap(Map.Entry::getKey, entry -> new ChannelHandle(entry.getKey().getName(), entry.getValue())));
+            DynamicFilter dynamicFilter = getDynamicFilter(channels, filterExpression, context);
+            if (dynamicFilter.isComplete() && dynamicFilter.getCurrentPredicate().isAll()) {
+                // none of the dynamic filters is collected for this task
+                return source;
+            }
+
+            OperatorFactory operatorFactory = new DynamicRowFilterOperatorFactory(context.getNextOperatorId(), planNodeId, dynamicFilter, source.getTypes());
+            return new PhysicalOperation(operatorFactory, source.getLayout(), context, source);
+        }
+
         @Override
         public PhysicalOperation visitValues(ValuesNode node, LocalExecutionPlanContext context)
         {
@@ -2164,6 +2304,80 @@ public class LocalExecutionPlanner
             throw new VerifyException("No valid spatial relationship found for spatial join");
         }
 
+        @Override
+        public PhysicalOperation visitMergeJoin(MergeJoinNode node, LocalExecutionPlanContext context)
+        {
+            PhysicalOperation leftSource = node.getLeft().accept(this, context);
+
+            LocalExecutionPlanContext rightContext = context.createSubContext();
+            PhysicalOperation rightSource = node.getRight().accept(this, rightContext);
+
+            // inputs are either single streams for the whole task, or sorted buckets streamed one per lifespan
+            checkState(
+                    leftSource.getPipelineExecutionStrategy() == rightSource.getPipelineExecutionStrategy(),
+                    "Inputs of a merge join are expected to have the same execution strategy");
+            checkArgument(context.getDriverInstanceCount().orElse(1) == 1, "Expected left input of a merge join to be a single stream");
+            checkArgument(rightContext.getDriverInstanceCount().orElse(1) == 1, "Expected right input of a merge join to be a single stream");
+
+            JoinBridgeManager<MergeJoinBridge> mergeJoinBridgeManager = new JoinBridgeManager<>(
+                    false,
+                    leftSource.getPipelineExecutionStrategy(),
+                    rightSource.getPipelineExecutionStrategy(),
+                    lifespan -> new MergeJoinBridge(maxLocalExchangeBufferSize.toBytes()),
+                    rightSource.getTypes());
+            MergeJoinSinkOperatorFactory mergeJoinSinkOperatorFactory = new MergeJoinSinkOperatorFactory(
+                    rightContext.getNextOperatorId(),
+                    node.getId(),
+                    mergeJoinBridgeManager);
+
+            context.addDriverFactory(
+                    rightContext.isInputDriver(),
+                    false,
+                    new PhysicalOperation(mergeJoinSinkOperatorFactory, rightSource),
+                    rightContext.getDriverInstanceCount());
+
+            // build output mapping
+            ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
+            List<Symbol> outputSymbols = node.getOutputSymbols();
+            for (int i = 0; i < outputSymbols.size(); i++) {
+                outputMappings.put(outputSymbols.get(i), i);
+            }
+
+            JoinType joinType;
+            switch (node.getType()) {
+                case INNER:
+                    joinType = JoinType.INNER;
+                    break;
+                case LEFT:
+                    joinType = JoinType.PROBE_OUTER;
+                    break;
+                case RIGHT:
+                    joinType = JoinType.LOOKUP_OUTER;
+                    break;
+                case FULL:
+                    joinType = JoinType.FULL_OUTER;
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported join type: " + node.getType());
+            }
+
+            OperatorFactory operatorFactory = new MergeJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    mergeJoinBridgeManager,
+                    joinType,
+                    leftSource.getTypes(),
+                    rightSource.getTypes(),
+                    getChannelsForSymbols(node.getLeftJoinSymbols(), leftSource.getLayout()),
+                    getChannelsForSymbols(node.getRightJoinSymbols(), rightSource.getLayout()),
+                    getChannelsForSymbols(node.getLeftOutputSymbols(), leftSource.getLayout()),
+                    getChannelsForSymbols(node.getRightOutputSymbols(), rightSource.getLayout()),
+                    node.getSortOrders(),
+                    getMergeJoinMaxRunSize(session),
+                    blockTypeOperators);
+            return new PhysicalOperation(operatorFactory, outputMappings.build(), context, leftSource);
+        }
+
         private Optional<PhysicalOperation> tryCreateSpatialJoin(
                 LocalExecutionPlanContext context,
                 SpatialJoinNode node,
@@ -3195,6 +3409,7 @@ public class LocalExecutionPlanner
 
                 LocalExecutionPlanContext subContext = context.createSubContext();
                 PhysicalOperation source = sourceNode.accept(this, subContext);
+                source = addLeafResultCacheOperator(session, sourceNode, source, subContext);
                 driverFactoryParametersList.add(new DriverFactoryParameters(subContext, source));
 
                 if (source.getPipelineExecutionStrategy() == UNGROUPED_EXECUTION) {
@@ -34,6 +34,7 @@ import io.trino.sql.planner.plan.AggregationNode;
 import io.trino.sql.planner.plan.ExchangeNode;
 import io.trino.sql.planner.plan.ExplainAnalyzeNode;
 import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode;
 import io.trino.sql.planner.plan.PlanFragmentId;
@@ -630,6 +631,25 @@ public class PlanFragmenter
             throw new UnsupportedOperationException("Unknown distribution type: " + node.getDistributionType());
         }
 
+        @Override
+        public GroupedExecutionProperties visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            GroupedExecutionProperties left = node.getLeft().accept(this, null);
+            GroupedExecutionProperties right = node.getRight().accept(this, null);
+
+            // the inputs are streamed through a bridge per lifespan, so both of them must be grouped, or neither
+            if (left.currentNodeCapable && right.currentNodeCapable) {
+                return new GroupedExecutionProperties(
+                        true,
+                        true,
+                        ImmutableList.<PlanNodeId>builder()
+                                .addAll(left.capableTableScanNodes)
+                                .addAll(right.capableTableScanNodes)
+                                .build());
+            }
+            return GroupedExecutionProperties.notCapable();
+        }
+
         @Override
         public GroupedExecutionProperties visitAggregation(AggregationNode node, Void context)
         {
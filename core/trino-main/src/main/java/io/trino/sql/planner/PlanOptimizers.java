@@ -19,6 +19,7 @@ import io.trino.SystemSessionProperties;
 import io.trino.cost.CostCalculator;
 import io.trino.cost.CostCalculator.EstimatedExchanges;
 import io.trino.cost.CostComparator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.ScalarStatsCalculator;
 import io.trino.cost.StatsCalculator;
 import io.trino.cost.TaskCountEstimator;
@@ -227,6 +228,7 @@ import io.trino.sql.planner.iterative.rule.UnwrapRowSubscript;
 import io.trino.sql.planner.iterative.rule.UnwrapSingleColumnRowInApply;
 import io.trino.sql.planner.optimizations.AddExchanges;
 import io.trino.sql.planner.optimizations.AddLocalExchanges;
+import io.trino.sql.planner.optimizations.AddStreamingPartialAggregations;
 import io.trino.sql.planner.optimizations.BeginTableWrite;
 import io.trino.sql.planner.optimizations.CheckSubqueryNodesAreRewritten;
 import io.trino.sql.planner.optimizations.HashGenerationOptimizer;
@@ -274,7 +276,8 @@ public class PlanOptimizers
             @EstimatedExchanges CostCalculator estimatedExchangesCostCalculator,
             CostComparator costComparator,
             TaskCountEstimator taskCountEstimator,
-            NodePartitioningManager nodePartitioningManager)
+            NodePartitioningManager nodePartitioningManager,
+            JoinSizeHistory joinSizeHistory)
     {
         this(metadata,
                 typeOperators,
@@ -289,7 +292,8 @@ public class PlanOptimizers
                 estimatedExchangesCostCalculator,
                 costComparator,
                 taskCountEstimator,
-                nodePartitioningManager);
+                nodePartitioningManager,
+                joinSizeHistory);
     }
 
     public PlanOptimizers(
@@ -306,7 +310,8 @@ public class PlanOptimizers
             CostCalculator estimatedExchangesCostCalculator,
             CostComparator costComparator,
             TaskCountEstimator taskCountEstimator,
-            NodePartitioningManager nodePartitioningManager)
+            NodePartitioningManager nodePartitioningManager,
+            JoinSizeHistory joinSizeHistory)
     {
         ImmutableList.Builder<PlanOptimizer> builder = ImmutableList.builder();
 
@@ -837,7 +842,7 @@ public class PlanOptimizers
                     statsCalculator,
                     estimatedExchangesCostCalculator,
                     ImmutableSet.of(
-                            new DetermineJoinDistributionType(costComparator, taskCountEstimator), // Must run before AddExchanges
+                            new DetermineJoinDistributionType(costComparator, taskCountEstimator, joinSizeHistory), // Must run before AddExchanges
                             // Must run before AddExchanges and after ReplicateSemiJoinInDelete
                             // to avoid temporarily having an invalid plan
                             new DetermineSemiJoinDistributionType(costComparator, taskCountEstimator))));
@@ -953,6 +958,8 @@ public class PlanOptimizers
                 ImmutableSet.of(
                         new AddIntermediateAggregations(),
                         new RemoveRedundantIdentityProjections())));
+        // Must run after partial aggregations are pushed through exchanges and before hashes are precomputed
+        builder.add(new AddStreamingPartialAggregations(metadata, typeOperators, typeAnalyzer));
         // DO NOT add optimizers that change the plan shape (computations) after this point
 
         // Remove any remaining sugar
@@ -18,6 +18,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Ordering;
 import io.airlift.units.DataSize;
 import io.trino.cost.CostComparator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.LocalCostEstimate;
 import io.trino.cost.PlanNodeStatsEstimate;
 import io.trino.cost.StatsProvider;
@@ -40,6 +41,7 @@ import java.util.List;
 
 import static io.trino.SystemSessionProperties.getJoinDistributionType;
 import static io.trino.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static io.trino.SystemSessionProperties.isJoinSizeHistoryEnabled;
 import static io.trino.cost.CostCalculatorWithEstimatedExchanges.calculateJoinCostWithoutOutput;
 import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.AUTOMATIC;
 import static io.trino.sql.planner.optimizations.QueryCardinalityUtil.isAtMostScalar;
@@ -60,11 +62,13 @@ public class DetermineJoinDistributionType
 
     private final CostComparator costComparator;
     private final TaskCountEstimator taskCountEstimator;
+    private final JoinSizeHistory joinSizeHistory;
 
-    public DetermineJoinDistributionType(CostComparator costComparator, TaskCountEstimator taskCountEstimator)
+    public DetermineJoinDistributionType(CostComparator costComparator, TaskCountEstimator taskCountEstimator, JoinSizeHistory joinSizeHistory)
     {
         this.costComparator = requireNonNull(costComparator, "costComparator is null");
         this.taskCountEstimator = requireNonNull(taskCountEstimator, "taskCountEstimator is null");
+        this.joinSizeHistory = requireNonNull(joinSizeHistory, "joinSizeHistory is null");
     }
 
     @Override
@@ -143,13 +147,13 @@ public class DetermineJoinDistributionType
     {
         DataSize joinMaxBroadcastTableSize = getJoinMaxBroadcastTableSize(context.getSession());
 
-        boolean isRightSideSmall = getSourceTablesSizeInBytes(joinNode.getRight(), context) <= joinMaxBroadcastTableSize.toBytes();
+        boolean isRightSideSmall = getInputSizeInBytes(joinNode.getRight(), context) <= joinMaxBroadcastTableSize.toBytes();
         if (isRightSideSmall && !mustPartition(joinNode)) {
             // choose right join side with small source tables as replicated build side
             return joinNode.withDistributionType(REPLICATED);
         }
 
-        boolean isLeftSideSmall = getSourceTablesSizeInBytes(joinNode.getLeft(), context) <= joinMaxBroadcastTableSize.toBytes();
+        boolean isLeftSideSmall = getInputSizeInBytes(joinNode.getLeft(), context) <= joinMaxBroadcastTableSize.toBytes();
         if (isLeftSideSmall && !mustPartition(joinNode.flipChildren())) {
             // choose join left side with small source tables as replicated build side
             return joinNode.flipChildren().withDistributionType(REPLICATED);
@@ -169,6 +173,16 @@ public class DetermineJoinDistributionType
         return getSyntacticOrderJoin(joinNode, context, AUTOMATIC);
     }
 
+    private double getInputSizeInBytes(PlanNode node, Context context)
+    {
+        double sizeInBytes = getSourceTablesSizeInBytes(node, context);
+        if (Double.isNaN(sizeInBytes) && isJoinSizeHistoryEnabled(context.getSession())) {
+            // table statistics are missing, use the size observed when a previous query read the same data
+            return joinSizeHistory.getObservedSizeInBytes(context.getSession(), node, context.getLookup()).orElse(Double.NaN);
+        }
+        return sizeInBytes;
+    }
+
     private void addJoinsWithDifferentDistributions(JoinNode joinNode, List<PlanNodeWithCost> possibleJoinNodes, Context context)
     {
         if (!mustPartition(joinNode) && canReplicate(joinNode, context)) {
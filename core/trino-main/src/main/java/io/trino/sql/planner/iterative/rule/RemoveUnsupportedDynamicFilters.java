@@ -54,6 +54,7 @@ import java.util.Set;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.SystemSessionProperties.isEnableDynamicRowFiltering;
 import static io.trino.spi.function.OperatorType.SATURATED_FLOOR_CAST;
 import static io.trino.sql.DynamicFilters.extractDynamicFilters;
 import static io.trino.sql.DynamicFilters.getDescriptor;
@@ -67,7 +68,8 @@ import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 /**
- * Dynamic filters are supported only right after TableScan and only if the subtree is on
+ * Dynamic filters are supported only right after TableScan (or after any node, when dynamic row filtering is enabled)
+ * and only if the subtree is on
  * 1. the probe side of some downstream JoinNode or
  * 2. the source side of some downstream SemiJoinNode node
  * Dynamic filters are removed from JoinNode/SemiJoinNode if there is no consumer for it on probe/source side
@@ -268,7 +270,7 @@ public class RemoveUnsupportedDynamicFilters
 
             PlanNode source = result.getNode();
             Expression modified;
-            if (source instanceof TableScanNode) {
+            if (source instanceof TableScanNode || isEnableDynamicRowFiltering(session)) {
                 // Keep only allowed dynamic filters
                 modified = removeDynamicFilters(original, allowedDynamicFilterIds, consumedDynamicFilterIds);
             }
@@ -71,6 +71,7 @@ import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Sets.powerSet;
 import static io.trino.SystemSessionProperties.getJoinDistributionType;
 import static io.trino.SystemSessionProperties.getJoinReorderingStrategy;
+import static io.trino.SystemSessionProperties.getMaxGreedyReorderedJoins;
 import static io.trino.SystemSessionProperties.getMaxReorderedJoins;
 import static io.trino.sql.ExpressionUtils.and;
 import static io.trino.sql.ExpressionUtils.combineConjuncts;
@@ -90,6 +91,7 @@ import static io.trino.sql.planner.plan.JoinNode.Type.INNER;
 import static io.trino.sql.planner.plan.Patterns.join;
 import static io.trino.sql.tree.BooleanLiteral.TRUE_LITERAL;
 import static io.trino.sql.tree.ComparisonExpression.Operator.EQUAL;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toCollection;
 
@@ -178,6 +180,7 @@ public class ReorderJoins
         private final EqualityInference allFilterInference;
         private final Lookup lookup;
         private final Context context;
+        private final int maxReorderedJoins;
 
         private final Map<Set<PlanNode>, JoinEnumerationResult> memo = new HashMap<>();
 
@@ -194,6 +197,7 @@ public class ReorderJoins
             this.allFilter = requireNonNull(filter, "filter is null");
             this.allFilterInference = EqualityInference.newInstance(metadata, filter);
             this.lookup = requireNonNull(context.getLookup(), "lookup is null");
+            this.maxReorderedJoins = getMaxReorderedJoins(session);
         }
 
         private JoinEnumerationResult chooseJoinOrder(LinkedHashSet<PlanNode> sources, List<Symbol> outputSymbols)
@@ -204,6 +208,12 @@ public class ReorderJoins
             JoinEnumerationResult bestResult = memo.get(multiJoinKey);
             if (bestResult == null) {
                 checkState(sources.size() > 1, "sources size is less than or equal to one");
+                // the number of sources is the number of joins + 1
+                if (sources.size() > maxReorderedJoins + 1) {
+                    bestResult = chooseJoinOrderGreedily(sources, outputSymbols);
+                    memo.put(multiJoinKey, bestResult);
+                    return bestResult;
+                }
                 ImmutableList.Builder<JoinEnumerationResult> resultBuilder = ImmutableList.builder();
                 Set<Set<Integer>> partitions = generatePartitions(sources.size());
                 for (Set<Integer> partition : partitions) {
@@ -231,6 +241,72 @@ public class ReorderJoins
             return bestResult;
         }
 
+        /**
+         * Builds the join tree bottom-up, joining in each step the two subtrees whose join has the least cost.
+         * Enumerating all join orders is not feasible for this many sources, because the number of join orders
+         * grows exponentially with the number of sources, while this needs a quadratic number of joins to be costed.
+         */
+        private JoinEnumerationResult chooseJoinOrderGreedily(LinkedHashSet<PlanNode> sources, List<Symbol> outputSymbols)
+        {
+            Set<Symbol> filterSymbols = SymbolsExtractor.extractUnique(allFilter);
+            List<LinkedHashSet<PlanNode>> components = sources.stream()
+                    .map(source -> new LinkedHashSet<>(ImmutableList.of(source)))
+                    .collect(toCollection(ArrayList::new));
+            // joins of two components, which remain valid until one of the components is joined with another one
+            Map<Set<PlanNode>, JoinEnumerationResult> candidates = new HashMap<>();
+
+            while (true) {
+                context.checkTimeoutNotExhausted();
+
+                JoinEnumerationResult bestResult = null;
+                int bestLeft = -1;
+                int bestRight = -1;
+                for (int left = 0; left < components.size(); left++) {
+                    for (int right = left + 1; right < components.size(); right++) {
+                        LinkedHashSet<PlanNode> joined = new LinkedHashSet<>(components.get(left));
+                        joined.addAll(components.get(right));
+                        JoinEnumerationResult result = candidates.get(joined);
+                        if (result == null) {
+                            List<Symbol> joinedOutputSymbols = joined.size() == sources.size() ? outputSymbols : getIntermediateOutputSymbols(joined, outputSymbols, filterSymbols);
+                            result = createJoin(components.get(left), components.get(right), joinedOutputSymbols);
+                            candidates.put(joined, result);
+                        }
+                        if (result.equals(UNKNOWN_COST_RESULT)) {
+                            return UNKNOWN_COST_RESULT;
+                        }
+                        if (!result.equals(INFINITE_COST_RESULT) && (bestResult == null || resultComparator.compare(result, bestResult) < 0)) {
+                            bestResult = result;
+                            bestLeft = left;
+                            bestRight = right;
+                        }
+                    }
+                }
+
+                if (bestResult == null) {
+                    // the remaining components are not connected by join conditions
+                    return INFINITE_COST_RESULT;
+                }
+
+                LinkedHashSet<PlanNode> joined = components.get(bestLeft);
+                joined.addAll(components.remove(bestRight));
+                if (joined.size() == sources.size()) {
+                    return bestResult;
+                }
+                // joins of the new component use the chosen plan for it as a source
+                memo.put(ImmutableSet.copyOf(joined), bestResult);
+            }
+        }
+
+        private static List<Symbol> getIntermediateOutputSymbols(Set<PlanNode> sources, List<Symbol> outputSymbols, Set<Symbol> filterSymbols)
+        {
+            // the joins with the remaining sources are not known yet, so keep all symbols that any join may use
+            return sources.stream()
+                    .flatMap(source -> source.getOutputSymbols().stream())
+                    .filter(symbol -> outputSymbols.contains(symbol) || filterSymbols.contains(symbol))
+                    .distinct()
+                    .collect(toImmutableList());
+        }
+
         /**
          * This method generates all the ways of dividing totalNodes into two sets
          * each containing at least one node. It will generate one set for each
@@ -556,7 +632,7 @@ public class ReorderJoins
                     joinNode,
                     context.getLookup(),
                     context.getIdAllocator(),
-                    getMaxReorderedJoins(context.getSession()),
+                    max(getMaxReorderedJoins(context.getSession()), getMaxGreedyReorderedJoins(context.getSession())),
                     pushProjectionsThroughJoin,
                     context.getSession(),
                     typeAnalyzer,
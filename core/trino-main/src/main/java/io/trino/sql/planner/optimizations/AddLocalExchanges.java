@@ -16,13 +16,19 @@ package io.trino.sql.planner.optimizations;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import io.trino.Session;
 import io.trino.execution.warnings.WarningCollector;
 import io.trino.metadata.Metadata;
+import io.trino.spi.block.SortOrder;
 import io.trino.spi.connector.ConstantProperty;
 import io.trino.spi.connector.GroupingProperty;
 import io.trino.spi.connector.LocalProperty;
+import io.trino.spi.connector.SortingProperty;
+import io.trino.spi.type.Type;
 import io.trino.spi.type.TypeOperators;
+import io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy;
+import io.trino.sql.planner.OrderingScheme;
 import io.trino.sql.planner.Partitioning;
 import io.trino.sql.planner.PartitioningScheme;
 import io.trino.sql.planner.PlanNodeIdAllocator;
@@ -39,10 +45,12 @@ import io.trino.sql.planner.plan.DistinctLimitNode;
 import io.trino.sql.planner.plan.EnforceSingleRowNode;
 import io.trino.sql.planner.plan.ExchangeNode;
 import io.trino.sql.planner.plan.ExplainAnalyzeNode;
+import io.trino.sql.planner.plan.FilterNode;
 import io.trino.sql.planner.plan.IndexJoinNode;
 import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.LimitNode;
 import io.trino.sql.planner.plan.MarkDistinctNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode;
 import io.trino.sql.planner.plan.PlanNode;
@@ -54,6 +62,7 @@ import io.trino.sql.planner.plan.SortNode;
 import io.trino.sql.planner.plan.SpatialJoinNode;
 import io.trino.sql.planner.plan.StatisticsWriterNode;
 import io.trino.sql.planner.plan.TableFinishNode;
+import io.trino.sql.planner.plan.TableScanNode;
 import io.trino.sql.planner.plan.TableWriterNode;
 import io.trino.sql.planner.plan.TopNNode;
 import io.trino.sql.planner.plan.TopNRankingNode;
@@ -63,8 +72,11 @@ import io.trino.sql.tree.Literal;
 import io.trino.sql.tree.SymbolReference;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -73,10 +85,16 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.trino.SystemSessionProperties.getMergeJoinStrategy;
 import static io.trino.SystemSessionProperties.getTaskConcurrency;
 import static io.trino.SystemSessionProperties.getTaskWriterCount;
 import static io.trino.SystemSessionProperties.isDistributedSortEnabled;
+import static io.trino.SystemSessionProperties.isGroupedExecutionEnabled;
 import static io.trino.SystemSessionProperties.isSpillEnabled;
+import static io.trino.spi.block.SortOrder.ASC_NULLS_LAST;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.RealType.REAL;
 import static io.trino.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static io.trino.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static io.trino.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
@@ -96,6 +114,9 @@ import static io.trino.sql.planner.plan.ExchangeNode.Type.REPARTITION;
 import static io.trino.sql.planner.plan.ExchangeNode.gatheringExchange;
 import static io.trino.sql.planner.plan.ExchangeNode.mergingExchange;
 import static io.trino.sql.planner.plan.ExchangeNode.partitionedExchange;
+import static io.trino.sql.planner.plan.JoinNode.Type.INNER;
+import static io.trino.sql.planner.plan.JoinNode.Type.LEFT;
+import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
@@ -707,6 +728,14 @@ public class AddLocalExchanges
         @Override
         public PlanWithProperties visitJoin(JoinNode node, StreamPreferredProperties parentPreferences)
         {
+            MergeJoinStrategy mergeJoinStrategy = getMergeJoinStrategy(session);
+            if (mergeJoinStrategy != MergeJoinStrategy.DISABLED && canUseMergeJoin(node)) {
+                Optional<PlanWithProperties> mergeJoin = planMergeJoin(node, mergeJoinStrategy);
+                if (mergeJoin.isPresent()) {
+                    return mergeJoin.get();
+                }
+            }
+
             PlanWithProperties probe = planAndEnforce(
                     node.getLeft(),
                     defaultParallelism(session),
@@ -738,6 +767,160 @@ public class AddLocalExchanges
             return rebaseAndDeriveProperties(node, ImmutableList.of(probe, build));
         }
 
+        private boolean canUseMergeJoin(JoinNode node)
+        {
+            if (node.getCriteria().isEmpty() || node.getFilter().isPresent() || !node.getDynamicFilters().isEmpty()) {
+                return false;
+            }
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                Type type = types.get(clause.getLeft());
+                // floating point ordering does not agree with equality for NaN and signed zeros,
+                // and nested types may contain such values
+                if (!type.equals(types.get(clause.getRight())) || !type.isOrderable() || !type.getTypeParameters().isEmpty() || type.equals(REAL) || type.equals(DOUBLE)) {
+                    return false;
+                }
+            }
+            // each side must be sorted on distinct symbols, one per clause
+            return ImmutableSet.copyOf(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getLeft)).size() == node.getCriteria().size()
+                    && ImmutableSet.copyOf(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight)).size() == node.getCriteria().size();
+        }
+
+        private Optional<PlanWithProperties> planMergeJoin(JoinNode node, MergeJoinStrategy mergeJoinStrategy)
+        {
+            PlanWithProperties left = planAndEnforce(node.getLeft(), any(), any());
+            PlanWithProperties right = planAndEnforce(node.getRight(), any(), any());
+
+            // Under grouped execution each bucket of co-located bucketed table scans is processed separately,
+            // so sorted buckets can be joined one at a time. Unmatched right rows of a bucket without any left
+            // split would never be produced, so this is limited to joins that do not output them.
+            boolean bucketed = isGroupedExecutionEnabled(session)
+                    && (node.getType() == INNER || node.getType() == LEFT)
+                    && isBucketedTableScan(left.getNode())
+                    && isBucketedTableScan(right.getNode());
+
+            Map<Symbol, JoinNode.EquiJoinClause> clausesByLeft = Maps.uniqueIndex(node.getCriteria(), JoinNode.EquiJoinClause::getLeft);
+            Map<Symbol, JoinNode.EquiJoinClause> clausesByRight = Maps.uniqueIndex(node.getCriteria(), JoinNode.EquiJoinClause::getRight);
+            Optional<List<SortingProperty<Symbol>>> leftOrdering = getJoinKeyOrdering(left, clausesByLeft.keySet(), bucketed);
+            Optional<List<SortingProperty<Symbol>>> rightOrdering = getJoinKeyOrdering(right, clausesByRight.keySet(), bucketed);
+
+            // the criteria are arranged in the order of the input that is already sorted, so that only the other input may need a sort
+            List<JoinNode.EquiJoinClause> criteria;
+            List<SortOrder> sortOrders;
+            if (leftOrdering.isPresent() || rightOrdering.isPresent()) {
+                List<SortingProperty<Symbol>> ordering = leftOrdering.orElseGet(rightOrdering::get);
+                Map<Symbol, JoinNode.EquiJoinClause> clauses = leftOrdering.isPresent() ? clausesByLeft : clausesByRight;
+                criteria = ordering.stream()
+                        .map(property -> clauses.get(property.getColumn()))
+                        .collect(toImmutableList());
+                sortOrders = ordering.stream()
+                        .map(SortingProperty::getOrder)
+                        .collect(toImmutableList());
+            }
+            else {
+                criteria = node.getCriteria();
+                sortOrders = nCopies(criteria.size(), ASC_NULLS_LAST);
+            }
+
+            List<Symbol> leftSymbols = Lists.transform(criteria, JoinNode.EquiJoinClause::getLeft);
+            List<Symbol> rightSymbols = Lists.transform(criteria, JoinNode.EquiJoinClause::getRight);
+            if (!isSortedOn(leftOrdering, leftSymbols, sortOrders) || !isSortedOn(rightOrdering, rightSymbols, sortOrders)) {
+                if (mergeJoinStrategy != MergeJoinStrategy.ALWAYS) {
+                    return Optional.empty();
+                }
+                if (!isSortedOn(leftOrdering, leftSymbols, sortOrders)) {
+                    left = planSortedInput(node.getLeft(), leftSymbols, sortOrders);
+                }
+                if (!isSortedOn(rightOrdering, rightSymbols, sortOrders)) {
+                    right = planSortedInput(node.getRight(), rightSymbols, sortOrders);
+                }
+            }
+
+            MergeJoinNode mergeJoin = new MergeJoinNode(
+                    node.getId(),
+                    node.getType(),
+                    left.getNode(),
+                    right.getNode(),
+                    criteria,
+                    sortOrders,
+                    node.getLeftOutputSymbols(),
+                    node.getRightOutputSymbols());
+            return Optional.of(deriveProperties(mergeJoin, ImmutableList.of(left.getProperties(), right.getProperties())));
+        }
+
+        /**
+         * Returns the order in which a merge join input is sorted on the join symbols, if the input
+         * is delivered as a single sorted stream, or as a sorted stream per bucket.
+         */
+        private Optional<List<SortingProperty<Symbol>>> getJoinKeyOrdering(PlanWithProperties input, Set<Symbol> joinSymbols, boolean bucketed)
+        {
+            if (!input.getProperties().isSingleStream() && !bucketed) {
+                // streams of a source pipeline are only sorted within each split
+                return Optional.empty();
+            }
+            List<SortingProperty<Symbol>> ordering = new ArrayList<>();
+            Set<Symbol> orderedSymbols = new HashSet<>();
+            for (LocalProperty<Symbol> property : input.getProperties().getLocalProperties()) {
+                if (ordering.size() == joinSymbols.size()) {
+                    break;
+                }
+                if (property instanceof ConstantProperty) {
+                    continue;
+                }
+                if (!(property instanceof SortingProperty)) {
+                    return Optional.empty();
+                }
+                SortingProperty<Symbol> sortingProperty = (SortingProperty<Symbol>) property;
+                if (!joinSymbols.contains(sortingProperty.getColumn()) || !orderedSymbols.add(sortingProperty.getColumn())) {
+                    return Optional.empty();
+                }
+                ordering.add(sortingProperty);
+            }
+            if (ordering.size() != joinSymbols.size()) {
+                return Optional.empty();
+            }
+            return Optional.of(ordering);
+        }
+
+        private boolean isSortedOn(Optional<List<SortingProperty<Symbol>>> ordering, List<Symbol> symbols, List<SortOrder> sortOrders)
+        {
+            if (ordering.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < symbols.size(); i++) {
+                SortingProperty<Symbol> property = ordering.get().get(i);
+                // null keys never match, so only the direction must agree between the inputs
+                if (!property.getColumn().equals(symbols.get(i)) || property.getOrder().isAscending() != sortOrders.get(i).isAscending()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isBucketedTableScan(PlanNode node)
+        {
+            while (node instanceof ProjectNode || node instanceof FilterNode) {
+                node = getOnlyElement(node.getSources());
+            }
+            if (!(node instanceof TableScanNode)) {
+                return false;
+            }
+            TableScanNode tableScan = (TableScanNode) node;
+            return tableScan.isUseConnectorNodePartitioning() && metadata.getTableProperties(session, tableScan.getTable()).getTablePartitioning().isPresent();
+        }
+
+        /**
+         * Plans a merge join input as a single stream sorted on the join symbols.
+         */
+        private PlanWithProperties planSortedInput(PlanNode node, List<Symbol> joinSymbols, List<SortOrder> sortOrders)
+        {
+            Map<Symbol, SortOrder> orderings = new HashMap<>();
+            for (int i = 0; i < joinSymbols.size(); i++) {
+                orderings.put(joinSymbols.get(i), sortOrders.get(i));
+            }
+            SortNode sort = new SortNode(idAllocator.getNextId(), node, new OrderingScheme(joinSymbols, orderings), false);
+            return planAndEnforce(sort, singleStream(), singleStream());
+        }
+
         @Override
         public PlanWithProperties visitSemiJoin(SemiJoinNode node, StreamPreferredProperties parentPreferences)
         {
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner.optimizations;
+
+import io.trino.Session;
+import io.trino.execution.warnings.WarningCollector;
+import io.trino.metadata.Metadata;
+import io.trino.spi.type.TypeOperators;
+import io.trino.sql.planner.PlanNodeIdAllocator;
+import io.trino.sql.planner.SymbolAllocator;
+import io.trino.sql.planner.TypeAnalyzer;
+import io.trino.sql.planner.TypeProvider;
+import io.trino.sql.planner.optimizations.StreamPropertyDerivations.StreamProperties;
+import io.trino.sql.planner.plan.AggregationNode;
+import io.trino.sql.planner.plan.PlanNode;
+import io.trino.sql.planner.plan.SimplePlanRewriter;
+
+import static io.trino.sql.planner.optimizations.StreamPropertyDerivations.derivePropertiesRecursively;
+import static io.trino.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Marks partial aggregations as streaming when their input is grouped on the grouping keys,
+ * e.g. when a connector reports that a table is sorted on the grouping keys.
+ * <p>
+ * Partial aggregations are created after {@link AddLocalExchanges}, and
+ * {@link io.trino.sql.planner.iterative.rule.PushPartialAggregationThroughExchange} has to drop the
+ * pre-grouped symbols of the original aggregation, since the partial aggregation ends up on top of
+ * a different input. Streaming aggregations do not need to build a hash table, and grouping of a
+ * single input stream is enough for the partial step to be correct, as the final step combines
+ * groups from all streams.
+ */
+public class AddStreamingPartialAggregations
+        implements PlanOptimizer
+{
+    private final Metadata metadata;
+    private final TypeOperators typeOperators;
+    private final TypeAnalyzer typeAnalyzer;
+
+    public AddStreamingPartialAggregations(Metadata metadata, TypeOperators typeOperators, TypeAnalyzer typeAnalyzer)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.typeOperators = requireNonNull(typeOperators, "typeOperators is null");
+        this.typeAnalyzer = requireNonNull(typeAnalyzer, "typeAnalyzer is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, TypeProvider types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator, WarningCollector warningCollector)
+    {
+        return SimplePlanRewriter.rewriteWith(new Rewriter(session, types), plan);
+    }
+
+    private class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final Session session;
+        private final TypeProvider types;
+
+        private Rewriter(Session session, TypeProvider types)
+        {
+            this.session = requireNonNull(session, "session is null");
+            this.types = requireNonNull(types, "types is null");
+        }
+
+        @Override
+        public PlanNode visitAggregation(AggregationNode node, RewriteContext<Void> context)
+        {
+            AggregationNode rewritten = (AggregationNode) context.defaultRewrite(node);
+
+            if (rewritten.getStep() != PARTIAL ||
+                    rewritten.getGroupingKeys().isEmpty() ||
+                    rewritten.getGroupingSetCount() != 1 ||
+                    !rewritten.getGlobalGroupingSets().isEmpty() ||
+                    rewritten.getHashSymbol().isPresent() ||
+                    !rewritten.getPreGroupedSymbols().isEmpty()) {
+                return rewritten;
+            }
+
+            StreamProperties properties = derivePropertiesRecursively(rewritten.getSource(), metadata, typeOperators, session, types, typeAnalyzer);
+            if (LocalProperties.match(properties.getLocalProperties(), LocalProperties.grouped(rewritten.getGroupingKeys())).get(0).isPresent()) {
+                // input is not grouped on all grouping keys
+                return rewritten;
+            }
+
+            return new AggregationNode(
+                    rewritten.getId(),
+                    rewritten.getSource(),
+                    rewritten.getAggregations(),
+                    rewritten.getGroupingSets(),
+                    rewritten.getGroupingKeys(),
+                    rewritten.getStep(),
+                    rewritten.getHashSymbol(),
+                    rewritten.getGroupIdSymbol());
+        }
+    }
+}
@@ -55,6 +55,7 @@ import io.trino.sql.planner.plan.IndexSourceNode;
 import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.LimitNode;
 import io.trino.sql.planner.plan.MarkDistinctNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode;
 import io.trino.sql.planner.plan.PlanNode;
@@ -554,6 +555,40 @@ public final class PropertyDerivations
             throw new IllegalArgumentException("Unsupported spatial join type: " + node.getType());
         }
 
+        @Override
+        public ActualProperties visitMergeJoin(MergeJoinNode node, List<ActualProperties> inputProperties)
+        {
+            ActualProperties leftProperties = inputProperties.get(0);
+            ActualProperties rightProperties = inputProperties.get(1);
+
+            switch (node.getType()) {
+                case INNER:
+                    leftProperties = leftProperties.translate(column -> filterOrRewrite(node.getOutputSymbols(), node.getCriteria(), column));
+                    rightProperties = rightProperties.translate(column -> filterOrRewrite(node.getOutputSymbols(), node.getCriteria(), column));
+
+                    Map<Symbol, NullableValue> constants = new HashMap<>();
+                    constants.putAll(leftProperties.getConstants());
+                    constants.putAll(rightProperties.getConstants());
+
+                    // merge join preserves the order of the left input
+                    return ActualProperties.builderFrom(leftProperties)
+                            .constants(constants)
+                            .build();
+                case LEFT:
+                    return ActualProperties.builderFrom(leftProperties.translate(column -> filterIfMissing(node.getOutputSymbols(), column)))
+                            .build();
+                case RIGHT:
+                    return ActualProperties.builderFrom(rightProperties.translate(column -> filterIfMissing(node.getOutputSymbols(), column)))
+                            .local(ImmutableList.of())
+                            .build();
+                case FULL:
+                    return ActualProperties.builder()
+                            .global(leftProperties.isSingleNode() ? singleStreamPartition() : arbitraryPartition())
+                            .build();
+            }
+            throw new UnsupportedOperationException("Unsupported join type: " + node.getType());
+        }
+
         @Override
         public ActualProperties visitIndexJoin(IndexJoinNode node, List<ActualProperties> inputProperties)
         {
@@ -546,7 +546,7 @@ public class PruneUnreferencedOutputs
         {
             Set<Symbol> expectedInputs = ImmutableSet.copyOf(node.getOutputSymbols());
             PlanNode source = context.rewrite(node.getSource(), expectedInputs);
-            return new OutputNode(node.getId(), source, node.getColumnNames(), node.getOutputSymbols());
+            return new OutputNode(node.getId(), source, node.getColumnNames(), node.getOutputSymbols(), node.isSpooledResults());
         }
 
         @Override
@@ -45,6 +45,7 @@ import io.trino.sql.planner.plan.IndexSourceNode;
 import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.LimitNode;
 import io.trino.sql.planner.plan.MarkDistinctNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
 import io.trino.sql.planner.plan.OutputNode;
 import io.trino.sql.planner.plan.PatternRecognitionNode;
 import io.trino.sql.planner.plan.PlanNode;
@@ -249,6 +250,24 @@ public final class StreamPropertyDerivations
             throw new IllegalArgumentException("Unsupported spatial join type: " + node.getType());
         }
 
+        @Override
+        public StreamProperties visitMergeJoin(MergeJoinNode node, List<StreamProperties> inputProperties)
+        {
+            StreamProperties leftProperties = inputProperties.get(0);
+
+            switch (node.getType()) {
+                case INNER:
+                    return leftProperties.translate(column -> PropertyDerivations.filterOrRewrite(node.getOutputSymbols(), node.getCriteria(), column));
+                case LEFT:
+                    return leftProperties.translate(column -> PropertyDerivations.filterIfMissing(node.getOutputSymbols(), column));
+                case RIGHT:
+                case FULL:
+                    // rows from both sides are produced by the single driver which consumes the left input
+                    return new StreamProperties(SINGLE, Optional.empty(), false);
+            }
+            throw new UnsupportedOperationException("Unsupported join type: " + node.getType());
+        }
+
         @Override
         public StreamProperties visitIndexJoin(IndexJoinNode node, List<StreamProperties> inputProperties)
         {
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner.plan;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.block.SortOrder;
+import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.plan.JoinNode.EquiJoinClause;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Equi-join of two inputs that are both sorted on the join criteria, in the order of the criteria
+ * and with the direction given by the sort orders. Rows with null keys never match, so their
+ * position within the inputs does not matter. Each side is expected to be delivered as a single
+ * sorted stream, either for the whole task or for each bucket under grouped execution.
+ */
+@Immutable
+public class MergeJoinNode
+        extends PlanNode
+{
+    private final JoinNode.Type type;
+    private final PlanNode left;
+    private final PlanNode right;
+    private final List<EquiJoinClause> criteria;
+    private final List<SortOrder> sortOrders;
+    private final List<Symbol> leftOutputSymbols;
+    private final List<Symbol> rightOutputSymbols;
+
+    @JsonCreator
+    public MergeJoinNode(
+            @JsonProperty("id") PlanNodeId id,
+            @JsonProperty("type") JoinNode.Type type,
+            @JsonProperty("left") PlanNode left,
+            @JsonProperty("right") PlanNode right,
+            @JsonProperty("criteria") List<EquiJoinClause> criteria,
+            @JsonProperty("sortOrders") List<SortOrder> sortOrders,
+            @JsonProperty("leftOutputSymbols") List<Symbol> leftOutputSymbols,
+            @JsonProperty("rightOutputSymbols") List<Symbol> rightOutputSymbols)
+    {
+        super(id);
+
+        this.type = requireNonNull(type, "type is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        this.criteria = ImmutableList.copyOf(requireNonNull(criteria, "criteria is null"));
+        this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        this.leftOutputSymbols = ImmutableList.copyOf(requireNonNull(leftOutputSymbols, "leftOutputSymbols is null"));
+        this.rightOutputSymbols = ImmutableList.copyOf(requireNonNull(rightOutputSymbols, "rightOutputSymbols is null"));
+
+        checkArgument(!criteria.isEmpty(), "criteria is empty");
+        checkArgument(criteria.size() == sortOrders.size(), "criteria and sortOrders must have the same size");
+        checkArgument(left.getOutputSymbols().containsAll(leftOutputSymbols), "Left source inputs do not contain all left output symbols");
+        checkArgument(right.getOutputSymbols().containsAll(rightOutputSymbols), "Right source inputs do not contain all right output symbols");
+        for (EquiJoinClause clause : criteria) {
+            checkArgument(left.getOutputSymbols().contains(clause.getLeft()), "Left side of join does not contain criteria symbol %s", clause.getLeft());
+            checkArgument(right.getOutputSymbols().contains(clause.getRight()), "Right side of join does not contain criteria symbol %s", clause.getRight());
+        }
+    }
+
+    @JsonProperty("type")
+    public JoinNode.Type getType()
+    {
+        return type;
+    }
+
+    @JsonProperty("left")
+    public PlanNode getLeft()
+    {
+        return left;
+    }
+
+    @JsonProperty("right")
+    public PlanNode getRight()
+    {
+        return right;
+    }
+
+    @JsonProperty("criteria")
+    public List<EquiJoinClause> getCriteria()
+    {
+        return criteria;
+    }
+
+    @JsonProperty("sortOrders")
+    public List<SortOrder> getSortOrders()
+    {
+        return sortOrders;
+    }
+
+    @JsonProperty("leftOutputSymbols")
+    public List<Symbol> getLeftOutputSymbols()
+    {
+        return leftOutputSymbols;
+    }
+
+    @JsonProperty("rightOutputSymbols")
+    public List<Symbol> getRightOutputSymbols()
+    {
+        return rightOutputSymbols;
+    }
+
+    public List<Symbol> getLeftJoinSymbols()
+    {
+        return criteria.stream()
+                .map(EquiJoinClause::getLeft)
+                .collect(toImmutableList());
+    }
+
+    public List<Symbol> getRightJoinSymbols()
+    {
+        return criteria.stream()
+                .map(EquiJoinClause::getRight)
+                .collect(toImmutableList());
+    }
+
+    @Override
+    public List<PlanNode> getSources()
+    {
+        return ImmutableList.of(left, right);
+    }
+
+    @Override
+    public List<Symbol> getOutputSymbols()
+    {
+        return ImmutableList.<Symbol>builder()
+                .addAll(leftOutputSymbols)
+                .addAll(rightOutputSymbols)
+                .build();
+    }
+
+    @Override
+    public <R, C> R accept(PlanVisitor<R, C> visitor, C context)
+    {
+        return visitor.visitMergeJoin(this, context);
+    }
+
+    @Override
+    public PlanNode replaceChildren(List<PlanNode> newChildren)
+    {
+        checkArgument(newChildren.size() == 2, "expected newChildren to contain 2 nodes");
+        return new MergeJoinNode(getId(), type, newChildren.get(0), newChildren.get(1), criteria, sortOrders, leftOutputSymbols, rightOutputSymbols);
+    }
+}
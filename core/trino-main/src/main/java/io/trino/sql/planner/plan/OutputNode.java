@@ -33,12 +33,20 @@ public class OutputNode
     private final PlanNode source;
     private final List<String> columnNames;
     private final List<Symbol> outputs; // column name = symbol
+    // the rows are written to the result spool by the output stage, which returns the spooled segments instead
+    private final boolean spooledResults;
+
+    public OutputNode(PlanNodeId id, PlanNode source, List<String> columnNames, List<Symbol> outputs)
+    {
+        this(id, source, columnNames, outputs, false);
+    }
 
     @JsonCreator
     public OutputNode(@JsonProperty("id") PlanNodeId id,
             @JsonProperty("source") PlanNode source,
             @JsonProperty("columns") List<String> columnNames,
-            @JsonProperty("outputs") List<Symbol> outputs)
+            @JsonProperty("outputs") List<Symbol> outputs,
+            @JsonProperty("spooledResults") boolean spooledResults)
     {
         super(id);
 
@@ -50,6 +58,7 @@ public class OutputNode
         this.source = source;
         this.columnNames = ImmutableList.copyOf(columnNames);
         this.outputs = ImmutableList.copyOf(outputs);
+        this.spooledResults = spooledResults;
     }
 
     @Override
@@ -77,6 +86,17 @@ public class OutputNode
         return source;
     }
 
+    @JsonProperty
+    public boolean isSpooledResults()
+    {
+        return spooledResults;
+    }
+
+    public OutputNode withSpooledResults()
+    {
+        return new OutputNode(getId(), source, columnNames, outputs, true);
+    }
+
     @Override
     public <R, C> R accept(PlanVisitor<R, C> visitor, C context)
     {
@@ -86,6 +106,6 @@ public class OutputNode
     @Override
     public PlanNode replaceChildren(List<PlanNode> newChildren)
     {
-        return new OutputNode(getId(), Iterables.getOnlyElement(newChildren), columnNames, outputs);
+        return new OutputNode(getId(), Iterables.getOnlyElement(newChildren), columnNames, outputs, spooledResults);
     }
 }
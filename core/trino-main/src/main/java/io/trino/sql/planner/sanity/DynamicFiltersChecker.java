@@ -44,6 +44,7 @@ import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Sets.difference;
 import static com.google.common.collect.Sets.intersection;
+import static io.trino.SystemSessionProperties.isEnableDynamicRowFiltering;
 
 /**
  * When dynamic filter assignments are present on a Join node, they should be consumed by a Filter node on it's probe side
@@ -133,7 +134,7 @@ public class DynamicFiltersChecker
             public Set<DynamicFilterId> visitFilter(FilterNode node, Void context)
             {
                 List<DynamicFilters.Descriptor> dynamicFilters = extractDynamicPredicates(node.getPredicate());
-                if (!dynamicFilters.isEmpty()) {
+                if (!dynamicFilters.isEmpty() && !isEnableDynamicRowFiltering(session)) {
                     verify(node.getSource() instanceof TableScanNode, "Dynamic filters %s present in filter predicate whose source is not a table scan.", dynamicFilters);
                 }
                 ImmutableSet.Builder<DynamicFilterId> consumed = ImmutableSet.builder();
@@ -0,0 +1,1041 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.rewrite;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.trino.Session;
+import io.trino.cost.StatsCalculator;
+import io.trino.execution.warnings.WarningCollector;
+import io.trino.metadata.FunctionMetadata;
+import io.trino.metadata.Metadata;
+import io.trino.metadata.QualifiedObjectName;
+import io.trino.metadata.QualifiedTablePrefix;
+import io.trino.metadata.TableHandle;
+import io.trino.security.AccessControl;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.connector.ConnectorMaterializedViewDefinition;
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.security.GroupProvider;
+import io.trino.sql.analyzer.QueryExplainer;
+import io.trino.sql.parser.ParsingException;
+import io.trino.sql.parser.ParsingOptions;
+import io.trino.sql.parser.SqlParser;
+import io.trino.sql.tree.AliasedRelation;
+import io.trino.sql.tree.CoalesceExpression;
+import io.trino.sql.tree.ComparisonExpression;
+import io.trino.sql.tree.DereferenceExpression;
+import io.trino.sql.tree.ExistsPredicate;
+import io.trino.sql.tree.Expression;
+import io.trino.sql.tree.ExpressionRewriter;
+import io.trino.sql.tree.ExpressionTreeRewriter;
+import io.trino.sql.tree.FunctionCall;
+import io.trino.sql.tree.GroupBy;
+import io.trino.sql.tree.GroupingElement;
+import io.trino.sql.tree.GroupingOperation;
+import io.trino.sql.tree.Identifier;
+import io.trino.sql.tree.Join;
+import io.trino.sql.tree.JoinOn;
+import io.trino.sql.tree.LambdaExpression;
+import io.trino.sql.tree.LongLiteral;
+import io.trino.sql.tree.Node;
+import io.trino.sql.tree.NodeRef;
+import io.trino.sql.tree.Offset;
+import io.trino.sql.tree.OrderBy;
+import io.trino.sql.tree.Parameter;
+import io.trino.sql.tree.QualifiedName;
+import io.trino.sql.tree.QuantifiedComparisonExpression;
+import io.trino.sql.tree.Query;
+import io.trino.sql.tree.QueryBody;
+import io.trino.sql.tree.QuerySpecification;
+import io.trino.sql.tree.Relation;
+import io.trino.sql.tree.Select;
+import io.trino.sql.tree.SelectItem;
+import io.trino.sql.tree.SimpleGroupBy;
+import io.trino.sql.tree.SingleColumn;
+import io.trino.sql.tree.SortItem;
+import io.trino.sql.tree.Statement;
+import io.trino.sql.tree.SubqueryExpression;
+import io.trino.sql.tree.Table;
+import io.trino.sql.tree.TableSubquery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.SystemSessionProperties.isMaterializedViewQueryRewriteEnabled;
+import static io.trino.sql.ExpressionUtils.and;
+import static io.trino.sql.ExpressionUtils.extractConjuncts;
+import static io.trino.sql.ParsingUtil.createParsingOptions;
+import static io.trino.sql.tree.ComparisonExpression.Operator.EQUAL;
+import static io.trino.sql.util.AstUtils.preOrder;
+import static java.util.Locale.ENGLISH;
+import static java.util.function.Function.identity;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Rewrites query specifications, which select from the same tables as a fresh materialized view, to read
+ * the materialized view instead. A query matches a materialized view when all the predicates of the view are
+ * predicates of the query, and the remaining predicates, the grouping keys and the selected expressions can be
+ * computed from the columns of the view. Aggregations of the query are rolled up from the aggregations of the
+ * view, when the query groups by fewer keys than the view.
+ */
+final class MaterializedViewRewrite
+        implements StatementRewrite.Rewrite
+{
+    private static final Logger log = Logger.get(MaterializedViewRewrite.class);
+
+    private static final Set<String> ROLLUP_AGGREGATIONS = ImmutableSet.of("count", "sum", "min", "max");
+    private static final Identifier VIEW_ALIAS = new Identifier("materialized_view");
+    private static final int MAX_PARSED_VIEWS = 1_000;
+
+    // the query specifications of the view definitions, or empty if the view cannot be used for rewrites, by SQL text and parsing options
+    private final Cache<List<Object>, Optional<QuerySpecification>> parsedViews = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PARSED_VIEWS)
+            .build();
+
+    @Override
+    public Statement rewrite(
+            Session session,
+            Metadata metadata,
+            SqlParser parser,
+            Optional<QueryExplainer> queryExplainer,
+            Statement node,
+            List<Expression> parameters,
+            Map<NodeRef<Parameter>, Expression> parameterLookup,
+            GroupProvider groupProvider,
+            AccessControl accessControl,
+            WarningCollector warningCollector,
+            StatsCalculator statsCalculator)
+    {
+        if (!isMaterializedViewQueryRewriteEnabled(session) || !(node instanceof Query) || !parameters.isEmpty()) {
+            return node;
+        }
+        return new Rewriter(session, metadata, parser, accessControl, parsedViews).rewriteQuery((Query) node);
+    }
+
+    private static final class Rewriter
+    {
+        private final Session session;
+        private final Metadata metadata;
+        private final SqlParser parser;
+        private final AccessControl accessControl;
+        private final Cache<List<Object>, Optional<QuerySpecification>> parsedViews;
+
+        private final Map<QualifiedObjectName, Optional<List<ColumnMetadata>>> tableColumns = new HashMap<>();
+        private final Map<String, List<ViewShape>> catalogViews = new HashMap<>();
+        private Set<String> nonDeterministicFunctions;
+
+        public Rewriter(Session session, Metadata metadata, SqlParser parser, AccessControl accessControl, Cache<List<Object>, Optional<QuerySpecification>> parsedViews)
+        {
+            this.session = requireNonNull(session, "session is null");
+            this.metadata = requireNonNull(metadata, "metadata is null");
+            this.parser = requireNonNull(parser, "parser is null");
+            this.accessControl = requireNonNull(accessControl, "accessControl is null");
+            this.parsedViews = requireNonNull(parsedViews, "parsedViews is null");
+        }
+
+        public Query rewriteQuery(Query query)
+        {
+            // the names of the tables could refer to the WITH queries
+            if (query.getWith().isPresent() || !(query.getQueryBody() instanceof QuerySpecification)) {
+                return query;
+            }
+            QuerySpecification specification = (QuerySpecification) query.getQueryBody();
+            QueryBody rewritten = rewriteQuerySpecification(specification);
+            if (rewritten == specification) {
+                return query;
+            }
+            return new Query(query.getWith(), rewritten, query.getOrderBy(), query.getOffset(), query.getLimit());
+        }
+
+        private QuerySpecification rewriteQuerySpecification(QuerySpecification specification)
+        {
+            Optional<QueryShape> shape = extractShape(specification, session.getCatalog(), session.getSchema());
+            if (shape.isPresent()) {
+                for (ViewShape view : getCandidateViews(shape.get())) {
+                    Optional<QuerySpecification> rewritten = rewriteWithView(shape.get(), view);
+                    if (rewritten.isPresent()) {
+                        return rewritten.get();
+                    }
+                }
+            }
+
+            if (specification.getFrom().isEmpty()) {
+                return specification;
+            }
+            Relation from = rewriteRelation(specification.getFrom().get());
+            if (from == specification.getFrom().get()) {
+                return specification;
+            }
+            return new QuerySpecification(
+                    specification.getSelect(),
+                    Optional.of(from),
+                    specification.getWhere(),
+                    specification.getGroupBy(),
+                    specification.getHaving(),
+                    specification.getWindows(),
+                    specification.getOrderBy(),
+                    specification.getOffset(),
+                    specification.getLimit());
+        }
+
+        private Relation rewriteRelation(Relation relation)
+        {
+            if (relation instanceof TableSubquery) {
+                Query query = ((TableSubquery) relation).getQuery();
+                Query rewritten = rewriteQuery(query);
+                return rewritten == query ? relation : new TableSubquery(rewritten);
+            }
+            if (relation instanceof AliasedRelation) {
+                AliasedRelation aliasedRelation = (AliasedRelation) relation;
+                Relation rewritten = rewriteRelation(aliasedRelation.getRelation());
+                return rewritten == aliasedRelation.getRelation() ? relation : new AliasedRelation(rewritten, aliasedRelation.getAlias(), aliasedRelation.getColumnNames());
+            }
+            if (relation instanceof Join) {
+                Join join = (Join) relation;
+                Relation left = rewriteRelation(join.getLeft());
+                Relation right = rewriteRelation(join.getRight());
+                return left == join.getLeft() && right == join.getRight() ? relation : new Join(join.getType(), left, right, join.getCriteria());
+            }
+            return relation;
+        }
+
+        private List<ViewShape> getCandidateViews(QueryShape query)
+        {
+            Set<String> catalogs = query.getTables().stream()
+                    .map(QualifiedObjectName::getCatalogName)
+                    .collect(toImmutableSet());
+            List<ViewShape> candidates = new ArrayList<>();
+            for (String catalog : catalogs) {
+                for (ViewShape view : catalogViews.computeIfAbsent(catalog, this::listViews)) {
+                    if (view.getShape().getTables().equals(query.getTables())) {
+                        candidates.add(view);
+                    }
+                }
+            }
+            // prefer the views which are likely to be smaller: aggregated, and filtered by more predicates
+            candidates.sort(Comparator.<ViewShape, Boolean>comparing(view -> !view.getShape().isAggregated())
+                    .thenComparing(view -> -view.getShape().getPredicates().size())
+                    .thenComparing(view -> view.getName().toString()));
+            return candidates;
+        }
+
+        private List<ViewShape> listViews(String catalog)
+        {
+            Map<QualifiedObjectName, ConnectorMaterializedViewDefinition> definitions;
+            try {
+                definitions = metadata.getMaterializedViews(session, new QualifiedTablePrefix(catalog));
+            }
+            catch (RuntimeException e) {
+                // the rewrite is an optimization, and must not fail the query
+                log.warn(e, "Failed to list materialized views of catalog %s for query rewrite", catalog);
+                return ImmutableList.of();
+            }
+
+            ImmutableList.Builder<ViewShape> views = ImmutableList.builder();
+            definitions.forEach((name, definition) -> {
+                try {
+                    getViewSpecification(definition)
+                            .flatMap(specification -> extractShape(specification, definition.getCatalog(), definition.getSchema()))
+                            .filter(shape -> shape.getSelectItems().size() == definition.getColumns().size())
+                            .flatMap(shape -> createViewShape(name, definition, shape))
+                            .ifPresent(views::add);
+                }
+                catch (RuntimeException e) {
+                    log.warn(e, "Failed to analyze materialized view %s for query rewrite", name);
+                }
+            });
+            return views.build();
+        }
+
+        private Optional<QuerySpecification> getViewSpecification(ConnectorMaterializedViewDefinition definition)
+        {
+            ParsingOptions parsingOptions = createParsingOptions(session);
+            List<Object> key = ImmutableList.of(definition.getOriginalSql(), parsingOptions.getDecimalLiteralTreatment());
+            Optional<QuerySpecification> specification = parsedViews.getIfPresent(key);
+            if (specification == null) {
+                specification = parseViewSpecification(definition.getOriginalSql(), parsingOptions);
+                parsedViews.put(key, specification);
+            }
+            return specification;
+        }
+
+        private Optional<QuerySpecification> parseViewSpecification(String sql, ParsingOptions parsingOptions)
+        {
+            Statement statement;
+            try {
+                statement = parser.createStatement(sql, parsingOptions);
+            }
+            catch (ParsingException e) {
+                log.warn(e, "Failed to parse materialized view definition for query rewrite: %s", sql);
+                return Optional.empty();
+            }
+            if (!(statement instanceof Query)) {
+                return Optional.empty();
+            }
+            Query query = (Query) statement;
+            if (query.getWith().isPresent() || query.getOrderBy().isPresent() || query.getOffset().isPresent() || query.getLimit().isPresent()
+                    || !(query.getQueryBody() instanceof QuerySpecification)) {
+                return Optional.empty();
+            }
+            QuerySpecification specification = (QuerySpecification) query.getQueryBody();
+            if (specification.getSelect().isDistinct() || specification.getHaving().isPresent()
+                    || specification.getOrderBy().isPresent() || specification.getOffset().isPresent() || specification.getLimit().isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(specification);
+        }
+
+        private Optional<ViewShape> createViewShape(QualifiedObjectName name, ConnectorMaterializedViewDefinition definition, QueryShape shape)
+        {
+            Map<Expression, Identifier> columns = new HashMap<>();
+            Map<Expression, Identifier> aggregations = new HashMap<>();
+            for (int i = 0; i < shape.getSelectItems().size(); i++) {
+                Expression expression = shape.getSelectItems().get(i);
+                Identifier column = new Identifier(definition.getColumns().get(i).getName());
+                if (!shape.isAggregated()) {
+                    if (containsAggregation(expression)) {
+                        return Optional.empty();
+                    }
+                    columns.putIfAbsent(expression, column);
+                }
+                else if (shape.getGroupingKeys().contains(expression)) {
+                    columns.putIfAbsent(expression, column);
+                }
+                else if (isRollupAggregation(expression)) {
+                    aggregations.putIfAbsent(expression, column);
+                }
+                else {
+                    // an expression over aggregations cannot be rolled up
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new ViewShape(name, shape, columns, aggregations));
+        }
+
+        private Optional<QuerySpecification> rewriteWithView(QueryShape query, ViewShape view)
+        {
+            QueryShape viewShape = view.getShape();
+            if (!query.getPredicates().containsAll(viewShape.getPredicates())) {
+                return Optional.empty();
+            }
+            if (viewShape.isAggregated() && !query.isAggregated()) {
+                return Optional.empty();
+            }
+
+            // when the query groups by the same keys as the view, every row of the view is a group of the query
+            boolean sameGroups = viewShape.isAggregated()
+                    && query.getGroupBy().isPresent()
+                    && ImmutableSet.copyOf(query.getGroupingKeys()).equals(ImmutableSet.copyOf(viewShape.getGroupingKeys()));
+            ViewExpressionRewriter rewriter = new ViewExpressionRewriter(
+                    view,
+                    viewShape.isAggregated(),
+                    sameGroups,
+                    query.getGroupBy().isEmpty());
+
+            List<Expression> predicates = new ArrayList<>();
+            for (Expression predicate : query.getPredicates()) {
+                if (!viewShape.getPredicates().contains(predicate)) {
+                    predicates.add(rewriter.rewrite(predicate));
+                }
+            }
+
+            ImmutableList.Builder<SelectItem> selectItems = ImmutableList.builder();
+            for (int i = 0; i < query.getSelectItems().size(); i++) {
+                Expression expression = rewriter.rewrite(query.getSelectItems().get(i));
+                Optional<Identifier> name = query.getSelectNames().get(i);
+                if (name.isEmpty() && (expression instanceof Identifier || expression instanceof DereferenceExpression)) {
+                    // keep the name of the column, which the query does not name
+                    name = Optional.of(new Identifier("_col" + i));
+                }
+                selectItems.add(new SingleColumn(expression, name));
+            }
+
+            Optional<GroupBy> groupBy = Optional.empty();
+            if (query.getGroupBy().isPresent() && !sameGroups) {
+                List<GroupingElement> groupingElements = query.getGroupingKeys().stream()
+                        .map(key -> new SimpleGroupBy(ImmutableList.of(rewriter.rewrite(key))))
+                        .collect(toImmutableList());
+                groupBy = Optional.of(new GroupBy(false, groupingElements));
+            }
+
+            Optional<Expression> having = query.getHaving().map(rewriter::rewrite);
+            if (sameGroups && having.isPresent()) {
+                predicates.add(having.get());
+                having = Optional.empty();
+            }
+
+            Optional<OrderBy> orderBy = Optional.empty();
+            ImmutableList.Builder<Expression> sortKeys = ImmutableList.builder();
+            if (query.getOrderBy().isPresent()) {
+                ImmutableList.Builder<SortItem> sortItems = ImmutableList.builder();
+                for (SortItem sortItem : query.getOrderBy().get().getSortItems()) {
+                    Expression sortKey = sortItem.getSortKey();
+                    if (!isOutputReference(sortKey, query)) {
+                        Optional<Expression> canonical = query.getCanonicalizer().canonicalize(sortKey);
+                        if (canonical.isEmpty()) {
+                            return Optional.empty();
+                        }
+                        sortKeys.add(canonical.get());
+                        sortKey = rewriter.rewrite(canonical.get());
+                    }
+                    sortItems.add(new SortItem(sortKey, sortItem.getOrdering(), sortItem.getNullOrdering()));
+                }
+                orderBy = Optional.of(new OrderBy(sortItems.build()));
+            }
+
+            if (rewriter.isFailed() || !canReadTables(query, sortKeys.build()) || !canReadView(query, view)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new QuerySpecification(
+                    new Select(query.isDistinct(), selectItems.build()),
+                    Optional.of(new AliasedRelation(new Table(asQualifiedName(view.getName())), VIEW_ALIAS, ImmutableList.of())),
+                    predicates.isEmpty() ? Optional.empty() : Optional.of(and(predicates)),
+                    groupBy,
+                    having,
+                    ImmutableList.of(),
+                    orderBy,
+                    query.getOffset(),
+                    query.getLimit()));
+        }
+
+        /**
+         * The analyzer checks access to the view instead of the tables after the rewrite, so the query
+         * must not be rewritten unless the session may read the columns of the tables it references.
+         */
+        private boolean canReadTables(QueryShape query, List<Expression> sortKeys)
+        {
+            Map<QualifiedObjectName, Set<String>> referencedColumns = new HashMap<>();
+            for (QualifiedObjectName table : query.getTables()) {
+                referencedColumns.put(table, new HashSet<>());
+            }
+            Stream.of(query.getPredicates().stream(), query.getSelectItems().stream(), query.getGroupingKeys().stream(), query.getHaving().stream(), sortKeys.stream())
+                    .flatMap(identity())
+                    .flatMap(expression -> preOrder(expression))
+                    .filter(Identifier.class::isInstance)
+                    .map(node -> ((Identifier) node).getValue())
+                    .forEach(canonicalColumn -> referencedColumns.forEach((table, columns) -> {
+                        String prefix = table + ".";
+                        if (canonicalColumn.startsWith(prefix)) {
+                            columns.add(canonicalColumn.substring(prefix.length()));
+                        }
+                    }));
+            try {
+                referencedColumns.forEach((table, columns) -> accessControl.checkCanSelectFromColumns(session.toSecurityContext(), table, columns));
+            }
+            catch (AccessDeniedException e) {
+                return false;
+            }
+            return true;
+        }
+
+        private boolean canReadView(QueryShape query, ViewShape view)
+        {
+            if (!metadata.getMaterializedViewFreshness(session, view.getName()).isMaterializedViewFresh()) {
+                return false;
+            }
+            // reading the view would bypass the row filters and column masks of the tables
+            for (QualifiedObjectName table : query.getTables()) {
+                if (!accessControl.getRowFilters(session.toSecurityContext(), table).isEmpty()) {
+                    return false;
+                }
+                for (ColumnMetadata column : getTableColumns(table).orElseThrow()) {
+                    if (!accessControl.getColumnMasks(session.toSecurityContext(), table, column.getName(), column.getType()).isEmpty()) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                Set<String> columns = ImmutableSet.<Identifier>builder()
+                        .addAll(view.getColumns().values())
+                        .addAll(view.getAggregations().values())
+                        .build().stream()
+                        .map(Identifier::getValue)
+                        .collect(toImmutableSet());
+                accessControl.checkCanSelectFromColumns(session.toSecurityContext(), view.getName(), columns);
+            }
+            catch (AccessDeniedException e) {
+                return false;
+            }
+            return true;
+        }
+
+        private Optional<QueryShape> extractShape(QuerySpecification specification, Optional<String> catalog, Optional<String> schema)
+        {
+            if (specification.getFrom().isEmpty() || !specification.getWindows().isEmpty()) {
+                return Optional.empty();
+            }
+
+            Map<String, QualifiedObjectName> relations = new HashMap<>();
+            List<Expression> joinPredicates = new ArrayList<>();
+            if (!extractRelations(specification.getFrom().get(), catalog, schema, relations, joinPredicates)) {
+                return Optional.empty();
+            }
+            Set<QualifiedObjectName> tables = ImmutableSet.copyOf(relations.values());
+            if (tables.size() != relations.size()) {
+                // the columns of a table which is read more than once are ambiguous
+                return Optional.empty();
+            }
+            ImmutableMap.Builder<String, Set<String>> qualifiers = ImmutableMap.builder();
+            for (Map.Entry<String, QualifiedObjectName> entry : relations.entrySet()) {
+                Optional<List<ColumnMetadata>> columns = getTableColumns(entry.getValue());
+                if (columns.isEmpty()) {
+                    return Optional.empty();
+                }
+                qualifiers.put(entry.getKey(), columns.get().stream()
+                        .map(ColumnMetadata::getName)
+                        .collect(toImmutableSet()));
+            }
+            Canonicalizer canonicalizer = new Canonicalizer(relations, qualifiers.build());
+
+            ImmutableSet.Builder<Expression> predicates = ImmutableSet.builder();
+            specification.getWhere().ifPresent(where -> joinPredicates.addAll(extractConjuncts(where)));
+            for (Expression predicate : joinPredicates) {
+                Optional<Expression> canonical = canonicalizer.canonicalize(predicate);
+                if (canonical.isEmpty() || containsAggregation(canonical.get())) {
+                    return Optional.empty();
+                }
+                predicates.add(canonical.get());
+            }
+
+            ImmutableList.Builder<Expression> selectItems = ImmutableList.builder();
+            ImmutableList.Builder<Optional<Identifier>> selectNames = ImmutableList.builder();
+            for (SelectItem selectItem : specification.getSelect().getSelectItems()) {
+                if (!(selectItem instanceof SingleColumn)) {
+                    return Optional.empty();
+                }
+                SingleColumn column = (SingleColumn) selectItem;
+                Optional<Expression> canonical = canonicalizer.canonicalize(column.getExpression());
+                if (canonical.isEmpty()) {
+                    return Optional.empty();
+                }
+                selectItems.add(canonical.get());
+                selectNames.add(column.getAlias().or(() -> getDerivedName(column.getExpression())));
+            }
+            List<Expression> canonicalSelectItems = selectItems.build();
+
+            ImmutableList.Builder<Expression> groupingKeys = ImmutableList.builder();
+            if (specification.getGroupBy().isPresent()) {
+                for (GroupingElement element : specification.getGroupBy().get().getGroupingElements()) {
+                    if (!(element instanceof SimpleGroupBy)) {
+                        return Optional.empty();
+                    }
+                    for (Expression key : element.getExpressions()) {
+                        if (key instanceof LongLiteral) {
+                            long ordinal = ((LongLiteral) key).getValue();
+                            if (ordinal < 1 || ordinal > canonicalSelectItems.size()) {
+                                return Optional.empty();
+                            }
+                            groupingKeys.add(canonicalSelectItems.get((int) ordinal - 1));
+                            continue;
+                        }
+                        Optional<Expression> canonical = canonicalizer.canonicalize(key);
+                        if (canonical.isEmpty()) {
+                            return Optional.empty();
+                        }
+                        groupingKeys.add(canonical.get());
+                    }
+                }
+            }
+
+            Optional<Expression> having = Optional.empty();
+            if (specification.getHaving().isPresent()) {
+                having = canonicalizer.canonicalize(specification.getHaving().get());
+                if (having.isEmpty()) {
+                    return Optional.empty();
+                }
+            }
+
+            boolean aggregated = specification.getGroupBy().isPresent()
+                    || having.isPresent()
+                    || canonicalSelectItems.stream().anyMatch(this::containsAggregation);
+
+            return Optional.of(new QueryShape(
+                    tables,
+                    predicates.build(),
+                    canonicalSelectItems,
+                    selectNames.build(),
+                    specification.getSelect().isDistinct(),
+                    specification.getGroupBy(),
+                    groupingKeys.build().stream().distinct().collect(toImmutableList()),
+                    having,
+                    aggregated,
+                    specification.getOrderBy(),
+                    specification.getOffset(),
+                    specification.getLimit(),
+                    canonicalizer));
+        }
+
+        private boolean extractRelations(Relation relation, Optional<String> catalog, Optional<String> schema, Map<String, QualifiedObjectName> relations, List<Expression> joinPredicates)
+        {
+            if (relation instanceof Table) {
+                QualifiedName name = ((Table) relation).getName();
+                return addTable(name.getSuffix(), name, catalog, schema, relations);
+            }
+            if (relation instanceof AliasedRelation) {
+                AliasedRelation aliasedRelation = (AliasedRelation) relation;
+                if (!(aliasedRelation.getRelation() instanceof Table) || !aliasedRelation.getColumnNames().isEmpty()) {
+                    return false;
+                }
+                return addTable(aliasedRelation.getAlias().getValue(), ((Table) aliasedRelation.getRelation()).getName(), catalog, schema, relations);
+            }
+            if (relation instanceof Join) {
+                Join join = (Join) relation;
+                switch (join.getType()) {
+                    case CROSS:
+                    case IMPLICIT:
+                        break;
+                    case INNER:
+                        if (join.getCriteria().isEmpty() || !(join.getCriteria().get() instanceof JoinOn)) {
+                            return false;
+                        }
+                        joinPredicates.addAll(extractConjuncts(((JoinOn) join.getCriteria().get()).getExpression()));
+                        break;
+                    default:
+                        return false;
+                }
+                return extractRelations(join.getLeft(), catalog, schema, relations, joinPredicates)
+                        && extractRelations(join.getRight(), catalog, schema, relations, joinPredicates);
+            }
+            return false;
+        }
+
+        private boolean addTable(String qualifier, QualifiedName name, Optional<String> catalog, Optional<String> schema, Map<String, QualifiedObjectName> relations)
+        {
+            List<String> parts = name.getParts();
+            if (parts.size() > 3 || (parts.size() < 2 && schema.isEmpty()) || (parts.size() < 3 && catalog.isEmpty())) {
+                return false;
+            }
+            QualifiedObjectName table = new QualifiedObjectName(
+                    parts.size() == 3 ? parts.get(0) : catalog.get(),
+                    parts.size() >= 2 ? parts.get(parts.size() - 2) : schema.get(),
+                    parts.get(parts.size() - 1));
+            return relations.putIfAbsent(qualifier.toLowerCase(ENGLISH), table) == null;
+        }
+
+        private Optional<List<ColumnMetadata>> getTableColumns(QualifiedObjectName table)
+        {
+            return tableColumns.computeIfAbsent(table, name -> {
+                // only the tables themselves are matched, not the views which read them
+                if (metadata.getView(session, name).isPresent() || metadata.getMaterializedView(session, name).isPresent()) {
+                    return Optional.empty();
+                }
+                Optional<TableHandle> tableHandle = metadata.getTableHandle(session, name);
+                if (tableHandle.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(metadata.getTableMetadata(session, tableHandle.get()).getColumns().stream()
+                        .filter(column -> !column.isHidden())
+                        .collect(toImmutableList()));
+            });
+        }
+
+        private boolean containsAggregation(Expression expression)
+        {
+            return preOrder(expression)
+                    .anyMatch(node -> node instanceof FunctionCall && metadata.isAggregationFunction(((FunctionCall) node).getName()));
+        }
+
+        private boolean isRollupAggregation(Expression expression)
+        {
+            if (!(expression instanceof FunctionCall)) {
+                return false;
+            }
+            FunctionCall functionCall = (FunctionCall) expression;
+            return ROLLUP_AGGREGATIONS.contains(functionCall.getName().toString())
+                    && !functionCall.isDistinct()
+                    && functionCall.getFilter().isEmpty()
+                    && functionCall.getOrderBy().isEmpty()
+                    && functionCall.getWindow().isEmpty()
+                    && functionCall.getArguments().size() <= 1
+                    && functionCall.getArguments().stream().noneMatch(this::containsAggregation);
+        }
+
+        private boolean isSupported(Expression expression)
+        {
+            return preOrder(expression).noneMatch(node -> node instanceof SubqueryExpression
+                    || node instanceof ExistsPredicate
+                    || node instanceof QuantifiedComparisonExpression
+                    || node instanceof LambdaExpression
+                    || node instanceof GroupingOperation
+                    || node instanceof Parameter
+                    || (node instanceof FunctionCall && (((FunctionCall) node).getWindow().isPresent() || isNonDeterministic((FunctionCall) node))));
+        }
+
+        private boolean isNonDeterministic(FunctionCall functionCall)
+        {
+            if (nonDeterministicFunctions == null) {
+                nonDeterministicFunctions = metadata.listFunctions().stream()
+                        .filter(function -> !function.isDeterministic())
+                        .map(FunctionMetadata::getSignature)
+                        .map(signature -> signature.getName().toLowerCase(ENGLISH))
+                        .collect(toImmutableSet());
+            }
+            return nonDeterministicFunctions.contains(functionCall.getName().toString());
+        }
+
+        private static boolean isOutputReference(Expression sortKey, QueryShape query)
+        {
+            if (sortKey instanceof LongLiteral) {
+                return true;
+            }
+            if (!(sortKey instanceof Identifier)) {
+                return false;
+            }
+            String name = ((Identifier) sortKey).getValue().toLowerCase(ENGLISH);
+            return query.getSelectNames().stream()
+                    .flatMap(Optional::stream)
+                    .anyMatch(selectName -> selectName.getValue().toLowerCase(ENGLISH).equals(name));
+        }
+
+        private static Optional<Identifier> getDerivedName(Expression expression)
+        {
+            if (expression instanceof Identifier) {
+                return Optional.of((Identifier) expression);
+            }
+            if (expression instanceof DereferenceExpression) {
+                return Optional.of(((DereferenceExpression) expression).getField());
+            }
+            return Optional.empty();
+        }
+
+        private static QualifiedName asQualifiedName(QualifiedObjectName name)
+        {
+            return QualifiedName.of(ImmutableList.of(
+                    new Identifier(name.getCatalogName()),
+                    new Identifier(name.getSchemaName()),
+                    new Identifier(name.getObjectName())));
+        }
+
+        /**
+         * Replaces the references to the columns of the tables with identifiers which contain the fully
+         * qualified name of the column, so that the expressions of the query and the view can be compared.
+         */
+        private final class Canonicalizer
+                extends ExpressionRewriter<Void>
+        {
+            private final Map<String, QualifiedObjectName> relations;
+            private final Map<String, Set<String>> qualifiers;
+            private boolean failed;
+
+            public Canonicalizer(Map<String, QualifiedObjectName> relations, Map<String, Set<String>> qualifiers)
+            {
+                this.relations = ImmutableMap.copyOf(relations);
+                this.qualifiers = ImmutableMap.copyOf(qualifiers);
+            }
+
+            public Optional<Expression> canonicalize(Expression expression)
+            {
+                if (!isSupported(expression)) {
+                    return Optional.empty();
+                }
+                failed = false;
+                Expression canonical = ExpressionTreeRewriter.rewriteWith(this, expression);
+                if (failed) {
+                    return Optional.empty();
+                }
+                return Optional.of(normalize(canonical));
+            }
+
+            @Override
+            public Expression rewriteIdentifier(Identifier node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+            {
+                String column = node.getValue().toLowerCase(ENGLISH);
+                Set<String> matches = new HashSet<>();
+                qualifiers.forEach((qualifier, columns) -> {
+                    if (columns.contains(column)) {
+                        matches.add(qualifier);
+                    }
+                });
+                if (matches.size() != 1) {
+                    failed = true;
+                    return node;
+                }
+                return canonicalColumn(matches.iterator().next(), column);
+            }
+
+            @Override
+            public Expression rewriteDereferenceExpression(DereferenceExpression node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+            {
+                if (node.getBase() instanceof Identifier) {
+                    String qualifier = ((Identifier) node.getBase()).getValue().toLowerCase(ENGLISH);
+                    if (qualifiers.containsKey(qualifier)) {
+                        String column = node.getField().getValue().toLowerCase(ENGLISH);
+                        if (!qualifiers.get(qualifier).contains(column)) {
+                            failed = true;
+                            return node;
+                        }
+                        return canonicalColumn(qualifier, column);
+                    }
+                }
+                // a field of a column of row type
+                return null;
+            }
+
+            private Identifier canonicalColumn(String qualifier, String column)
+            {
+                return new Identifier(relations.get(qualifier) + "." + column, true);
+            }
+
+            private Expression normalize(Expression expression)
+            {
+                if (expression instanceof ComparisonExpression && ((ComparisonExpression) expression).getOperator() == EQUAL) {
+                    ComparisonExpression comparison = (ComparisonExpression) expression;
+                    if (comparison.getLeft().toString().compareTo(comparison.getRight().toString()) > 0) {
+                        return comparison.flip();
+                    }
+                }
+                return expression;
+            }
+        }
+
+        /**
+         * Replaces the canonical expressions with the columns of the view, and rolls up the aggregations of the view.
+         */
+        private final class ViewExpressionRewriter
+                extends ExpressionRewriter<Void>
+        {
+            private final Map<Expression, Identifier> columns;
+            private final Map<Expression, Identifier> aggregations;
+            private final boolean aggregatedView;
+            private final boolean sameGroups;
+            private final boolean globalAggregation;
+            private boolean failed;
+
+            public ViewExpressionRewriter(ViewShape view, boolean aggregatedView, boolean sameGroups, boolean globalAggregation)
+            {
+                this.columns = view.getColumns();
+                this.aggregations = view.getAggregations();
+                this.aggregatedView = aggregatedView;
+                this.sameGroups = sameGroups;
+                this.globalAggregation = globalAggregation;
+            }
+
+            public Expression rewrite(Expression expression)
+            {
+                return ExpressionTreeRewriter.rewriteWith(this, expression);
+            }
+
+            public boolean isFailed()
+            {
+                return failed;
+            }
+
+            @Override
+            protected Expression rewriteExpression(Expression node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+            {
+                Identifier column = columns.get(node);
+                if (column != null) {
+                    return new DereferenceExpression(VIEW_ALIAS, column);
+                }
+                if (node instanceof Identifier) {
+                    // the column of the table is not a column of the view
+                    failed = true;
+                }
+                return null;
+            }
+
+            @Override
+            public Expression rewriteFunctionCall(FunctionCall node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+            {
+                if (!aggregatedView || !metadata.isAggregationFunction(node.getName())) {
+                    return rewriteExpression(node, context, treeRewriter);
+                }
+                Identifier column = aggregations.get(node);
+                if (column == null) {
+                    String name = node.getName().toString();
+                    if ((name.equals("min") || name.equals("max")) && isRollupAggregation(node) && node.getArguments().size() == 1) {
+                        // the minimum and maximum of a grouping key of the view are computed from the grouping key
+                        Expression argument = treeRewriter.rewrite(node.getArguments().get(0), context);
+                        return sameGroups ? argument : new FunctionCall(node.getName(), ImmutableList.of(argument));
+                    }
+                    failed = true;
+                    return node;
+                }
+                Expression reference = new DereferenceExpression(VIEW_ALIAS, column);
+                if (sameGroups) {
+                    return reference;
+                }
+                if (node.getName().toString().equals("count")) {
+                    // the count of an empty input is zero
+                    Expression sum = new FunctionCall(QualifiedName.of("sum"), ImmutableList.of(reference));
+                    return globalAggregation ? new CoalesceExpression(sum, new LongLiteral("0")) : sum;
+                }
+                return new FunctionCall(node.getName(), ImmutableList.of(reference));
+            }
+        }
+    }
+
+    private static final class QueryShape
+    {
+        private final Set<QualifiedObjectName> tables;
+        private final Set<Expression> predicates;
+        private final List<Expression> selectItems;
+        private final List<Optional<Identifier>> selectNames;
+        private final boolean distinct;
+        private final Optional<GroupBy> groupBy;
+        private final List<Expression> groupingKeys;
+        private final Optional<Expression> having;
+        private final boolean aggregated;
+        private final Optional<OrderBy> orderBy;
+        private final Optional<Offset> offset;
+        private final Optional<Node> limit;
+        private final Rewriter.Canonicalizer canonicalizer;
+
+        public QueryShape(
+                Set<QualifiedObjectName> tables,
+                Set<Expression> predicates,
+                List<Expression> selectItems,
+                List<Optional<Identifier>> selectNames,
+                boolean distinct,
+                Optional<GroupBy> groupBy,
+                List<Expression> groupingKeys,
+                Optional<Expression> having,
+                boolean aggregated,
+                Optional<OrderBy> orderBy,
+                Optional<Offset> offset,
+                Optional<Node> limit,
+                Rewriter.Canonicalizer canonicalizer)
+        {
+            this.tables = ImmutableSet.copyOf(requireNonNull(tables, "tables is null"));
+            this.predicates = ImmutableSet.copyOf(requireNonNull(predicates, "predicates is null"));
+            this.selectItems = ImmutableList.copyOf(requireNonNull(selectItems, "selectItems is null"));
+            this.selectNames = ImmutableList.copyOf(requireNonNull(selectNames, "selectNames is null"));
+            this.distinct = distinct;
+            this.groupBy = requireNonNull(groupBy, "groupBy is null");
+            this.groupingKeys = ImmutableList.copyOf(requireNonNull(groupingKeys, "groupingKeys is null"));
+            this.having = requireNonNull(having, "having is null");
+            this.aggregated = aggregated;
+            this.orderBy = requireNonNull(orderBy, "orderBy is null");
+            this.offset = requireNonNull(offset, "offset is null");
+            this.limit = requireNonNull(limit, "limit is null");
+            this.canonicalizer = requireNonNull(canonicalizer, "canonicalizer is null");
+        }
+
+        public Set<QualifiedObjectName> getTables()
+        {
+            return tables;
+        }
+
+        public Set<Expression> getPredicates()
+        {
+            return predicates;
+        }
+
+        public List<Expression> getSelectItems()
+        {
+            return selectItems;
+        }
+
+        public List<Optional<Identifier>> getSelectNames()
+        {
+            return selectNames;
+        }
+
+        public boolean isDistinct()
+        {
+            return distinct;
+        }
+
+        public Optional<GroupBy> getGroupBy()
+        {
+            return groupBy;
+        }
+
+        public List<Expression> getGroupingKeys()
+        {
+            return groupingKeys;
+        }
+
+        public Optional<Expression> getHaving()
+        {
+            return having;
+        }
+
+        public boolean isAggregated()
+        {
+            return aggregated;
+        }
+
+        public Optional<OrderBy> getOrderBy()
+        {
+            return orderBy;
+        }
+
+        public Optional<Offset> getOffset()
+        {
+            return offset;
+        }
+
+        public Optional<Node> getLimit()
+        {
+            return limit;
+        }
+
+        public Rewriter.Canonicalizer getCanonicalizer()
+        {
+            return canonicalizer;
+        }
+    }
+
+    private static final class ViewShape
+    {
+        private final QualifiedObjectName name;
+        private final QueryShape shape;
+        private final Map<Expression, Identifier> columns;
+        private final Map<Expression, Identifier> aggregations;
+
+        public ViewShape(QualifiedObjectName name, QueryShape shape, Map<Expression, Identifier> columns, Map<Expression, Identifier> aggregations)
+        {
+            this.name = requireNonNull(name, "name is null");
+            this.shape = requireNonNull(shape, "shape is null");
+            this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+            this.aggregations = ImmutableMap.copyOf(requireNonNull(aggregations, "aggregations is null"));
+        }
+
+        public QualifiedObjectName getName()
+        {
+            return name;
+        }
+
+        public QueryShape getShape()
+        {
+            return shape;
+        }
+
+        public Map<Expression, Identifier> getColumns()
+        {
+            return columns;
+        }
+
+        public Map<Expression, Identifier> getAggregations()
+        {
+            return aggregations;
+        }
+    }
+}
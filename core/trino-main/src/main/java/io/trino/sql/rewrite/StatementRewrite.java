@@ -40,6 +40,7 @@ public final class StatementRewrite
             new DescribeOutputRewrite(),
             new ShowQueriesRewrite(),
             new ShowStatsRewrite(),
+            new MaterializedViewRewrite(),
             new ExplainRewrite());
 
     private StatementRewrite() {}
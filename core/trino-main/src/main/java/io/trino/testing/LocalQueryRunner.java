@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Closer;
+import io.airlift.json.ObjectMapperProvider;
 import io.airlift.node.NodeInfo;
 import io.airlift.units.Duration;
 import io.trino.GroupByHashPageIndexerFactory;
@@ -44,6 +45,7 @@ import io.trino.cost.CostCalculatorUsingExchanges;
 import io.trino.cost.CostCalculatorWithEstimatedExchanges;
 import io.trino.cost.CostComparator;
 import io.trino.cost.FilterStatsCalculator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.ScalarStatsCalculator;
 import io.trino.cost.StatsCalculator;
 import io.trino.cost.StatsCalculatorModule.StatsRulesProvider;
@@ -79,6 +81,8 @@ import io.trino.execution.StartTransactionTask;
 import io.trino.execution.TaskManagerConfig;
 import io.trino.execution.TaskSource;
 import io.trino.execution.resourcegroups.NoOpResourceGroupManager;
+import io.trino.execution.resultcache.LeafResultCache;
+import io.trino.execution.resultcache.LeafResultCacheConfig;
 import io.trino.execution.scheduler.NodeScheduler;
 import io.trino.execution.scheduler.NodeSchedulerConfig;
 import io.trino.execution.scheduler.UniformNodeSelectorFactory;
@@ -118,6 +122,8 @@ import io.trino.plugin.base.security.AllowAllSystemAccessControl;
 import io.trino.security.GroupProviderManager;
 import io.trino.server.PluginManager;
 import io.trino.server.SessionPropertyDefaults;
+import io.trino.server.protocol.ResultSpool;
+import io.trino.server.protocol.SpoolingConfig;
 import io.trino.server.security.CertificateAuthenticatorManager;
 import io.trino.server.security.PasswordAuthenticatorConfig;
 import io.trino.server.security.PasswordAuthenticatorManager;
@@ -265,6 +271,7 @@ public class LocalQueryRunner
     private final ExpressionCompiler expressionCompiler;
     private final JoinFilterFunctionCompiler joinFilterFunctionCompiler;
     private final JoinCompiler joinCompiler;
+    private final LeafResultCache leafResultCache;
     private final ConnectorManager connectorManager;
     private final PluginManager pluginManager;
     private final ImmutableMap<Class<? extends Statement>, DataDefinitionTask<?>> dataDefinitionTask;
@@ -363,6 +370,7 @@ public class LocalQueryRunner
         this.pageFunctionCompiler = new PageFunctionCompiler(metadata, 0);
         this.expressionCompiler = new ExpressionCompiler(metadata, pageFunctionCompiler);
         this.joinFilterFunctionCompiler = new JoinFilterFunctionCompiler(metadata);
+        this.leafResultCache = new LeafResultCache(new LeafResultCacheConfig(), metadata);
 
         NodeInfo nodeInfo = new NodeInfo("test");
         this.connectorManager = new ConnectorManager(
@@ -480,7 +488,8 @@ public class LocalQueryRunner
                         featuresConfig,
                         new NodeMemoryConfig(),
                         new DynamicFilterConfig(),
-                        new NodeSchedulerConfig()))
+                        new NodeSchedulerConfig(),
+                        new LeafResultCacheConfig()))
                 .build();
 
         return new SessionPropertyManager(systemSessionProperties);
@@ -813,7 +822,9 @@ public class LocalQueryRunner
                 new OrderingCompiler(typeOperators),
                 new DynamicFilterConfig(),
                 typeOperators,
-                blockTypeOperators);
+                blockTypeOperators,
+                leafResultCache,
+                new ResultSpool(new SpoolingConfig(), new ObjectMapperProvider().get(), nodeManager));
 
         // plan query
         StageExecutionDescriptor stageExecutionDescriptor = subplan.getFragment().getStageExecutionDescriptor();
@@ -1037,7 +1048,8 @@ public class LocalQueryRunner
                         estimatedExchangesCostCalculator,
                         new CostComparator(featuresConfig),
                         taskCountEstimator,
-                        nodePartitioningManager).get();
+                        nodePartitioningManager,
+                        new JoinSizeHistory(metadata, featuresConfig)).get();
         private OperatorFactories operatorFactories = new TrinoOperatorFactories();
 
         private Builder(Session defaultSession)
@@ -238,6 +238,18 @@ public class TestingMetadata
         }
     }
 
+    @Override
+    public List<SchemaTableName> listMaterializedViews(ConnectorSession session, Optional<String> schemaName)
+    {
+        ImmutableList.Builder<SchemaTableName> builder = ImmutableList.builder();
+        for (SchemaTableName viewName : materializedViews.keySet()) {
+            if (schemaName.map(viewName.getSchemaName()::equals).orElse(true)) {
+                builder.add(viewName);
+            }
+        }
+        return builder.build();
+    }
+
     @Override
     public Optional<ConnectorMaterializedViewDefinition> getMaterializedView(ConnectorSession session, SchemaTableName viewName)
     {
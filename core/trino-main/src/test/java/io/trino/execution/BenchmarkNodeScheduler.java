@@ -88,11 +88,26 @@ public class BenchmarkNodeScheduler
     private static final int RACKS = DATA_NODES / 25;
     private static final int SPLITS = NODES * (MAX_SPLITS_PER_NODE + MAX_PENDING_SPLITS_PER_TASK_PER_NODE / 3);
     private static final int SPLIT_BATCH_SIZE = 100;
+    private static final int LARGE_CLUSTER_NODES = 500;
+    private static final int LARGE_CLUSTER_SPLITS = 1_000_000;
+    private static final int LARGE_CLUSTER_SPLIT_BATCH_SIZE = 1000;
     private static final CatalogName CONNECTOR_ID = new CatalogName("test_connector_id");
 
     @Benchmark
     @OperationsPerInvocation(SPLITS)
     public Object benchmark(BenchmarkData data)
+    {
+        return scheduleSplits(data);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LARGE_CLUSTER_SPLITS)
+    public Object benchmarkLargeCluster(LargeClusterBenchmarkData data)
+    {
+        return scheduleSplits(data);
+    }
+
+    private static Object scheduleSplits(BenchmarkData data)
     {
         List<RemoteTask> remoteTasks = ImmutableList.copyOf(data.getTaskMap().values());
         Iterator<MockRemoteTaskFactory.MockRemoteTask> finishingTask = Iterators.cycle(data.getTaskMap().values());
@@ -113,10 +128,12 @@ public class BenchmarkNodeScheduler
             else {
                 batch.removeAll(assignments.values());
             }
-            while (batch.size() < SPLIT_BATCH_SIZE && splits.hasNext()) {
+            while (batch.size() < data.getSplitBatchSize() && splits.hasNext()) {
                 batch.add(splits.next());
             }
-            finishingTask.next().finishSplits((int) Math.ceil(MAX_SPLITS_PER_NODE / 50.0));
+            for (int i = 0; i < data.getFinishingTasksPerBatch(); i++) {
+                finishingTask.next().finishSplits((int) Math.ceil(MAX_SPLITS_PER_NODE / 50.0));
+            }
         }
 
         return remoteTasks;
@@ -131,11 +148,29 @@ public class BenchmarkNodeScheduler
                 "topology"})
         private String policy = "uniform";
 
+        private final int nodeCount;
+        private final int splitCount;
+        private final int splitBatchSize;
+        private final int finishingTasksPerBatch;
+
         private FinalizerService finalizerService = new FinalizerService();
         private NodeSelector nodeSelector;
         private Map<InternalNode, MockRemoteTaskFactory.MockRemoteTask> taskMap = new HashMap<>();
         private List<Split> splits = new ArrayList<>();
 
+        public BenchmarkData()
+        {
+            this(NODES, SPLITS, SPLIT_BATCH_SIZE, 1);
+        }
+
+        protected BenchmarkData(int nodeCount, int splitCount, int splitBatchSize, int finishingTasksPerBatch)
+        {
+            this.nodeCount = nodeCount;
+            this.splitCount = splitCount;
+            this.splitBatchSize = splitBatchSize;
+            this.finishingTasksPerBatch = finishingTasksPerBatch;
+        }
+
         @Setup
         public void setup()
         {
@@ -143,7 +178,7 @@ public class BenchmarkNodeScheduler
             NodeTaskMap nodeTaskMap = new NodeTaskMap(finalizerService);
 
             ImmutableList.Builder<InternalNode> nodeBuilder = ImmutableList.builder();
-            for (int i = 0; i < NODES; i++) {
+            for (int i = 0; i < nodeCount; i++) {
                 nodeBuilder.add(new InternalNode("node" + i, URI.create("http://" + addressForHost(i).getHostText()), NodeVersion.UNKNOWN, false));
             }
             List<InternalNode> nodes = nodeBuilder.build();
@@ -162,7 +197,7 @@ public class BenchmarkNodeScheduler
                 taskMap.put(node, remoteTask);
             }
 
-            for (int i = 0; i < SPLITS; i++) {
+            for (int i = 0; i < splitCount; i++) {
                 splits.add(new Split(CONNECTOR_ID, new TestSplitRemote(ThreadLocalRandom.current().nextInt(DATA_NODES)), Lifespan.taskWide()));
             }
 
@@ -219,6 +254,31 @@ public class BenchmarkNodeScheduler
         {
             return splits;
         }
+
+        public int getSplitBatchSize()
+        {
+            return splitBatchSize;
+        }
+
+        public int getFinishingTasksPerBatch()
+        {
+            return finishingTasksPerBatch;
+        }
+    }
+
+    /**
+     * Scheduling of the splits of a large table on a large cluster, with larger split batches
+     * and more tasks finishing splits between the batches, so that the assignment of the splits
+     * dominates the run time.
+     */
+    @State(Scope.Thread)
+    public static class LargeClusterBenchmarkData
+            extends BenchmarkData
+    {
+        public LargeClusterBenchmarkData()
+        {
+            super(LARGE_CLUSTER_NODES, LARGE_CLUSTER_SPLITS, LARGE_CLUSTER_SPLIT_BATCH_SIZE, LARGE_CLUSTER_NODES / 10);
+        }
     }
 
     public static void main(String[] args)
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.execution.scheduler.SplitSchedulerStats;
+import io.trino.jmh.Benchmarks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.succinctBytes;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.execution.TestStageStateMachine.createTaskInfo;
+import static io.trino.execution.TestStageStateMachine.createValuesPlan;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+/**
+ * Measures the coordinator CPU spent on building the information of a stage with many tasks,
+ * most of which are finished, as done when the information of a running query is requested
+ * and when the final information of a query is assembled. Run with {@code -prof gc} to also
+ * measure the memory allocated. The memory retained for the final information of the stage
+ * is reported before the benchmark runs.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkStageStateMachine
+{
+    private static final int TASKS = 10_000;
+    private static final int RUNNING_TASKS = 100;
+
+    @Benchmark
+    public Object getStageInfo(BenchmarkData data)
+    {
+        return data.getStateMachine().getStageInfo(data::getTaskInfos);
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean addFinalTaskInfos = true;
+
+        private ExecutorService executor;
+        private StageStateMachine stateMachine;
+        private List<TaskInfo> taskInfos;
+
+        @Setup
+        public void setup()
+        {
+            executor = newCachedThreadPool(daemonThreadsNamed(getClass().getSimpleName() + "-%s"));
+            stateMachine = new StageStateMachine(new StageId("query", 0), TEST_SESSION, createValuesPlan(), ImmutableMap.of(), executor, new SplitSchedulerStats());
+
+            ImmutableList.Builder<TaskInfo> taskInfos = ImmutableList.builder();
+            for (int i = 0; i < TASKS; i++) {
+                TaskInfo taskInfo = createTaskInfo(i, i < TASKS - RUNNING_TASKS ? TaskState.FINISHED : TaskState.RUNNING);
+                if (addFinalTaskInfos && taskInfo.getTaskStatus().getState().isDone()) {
+                    stateMachine.addFinalTaskInfo(taskInfo);
+                }
+                taskInfos.add(taskInfo);
+            }
+            this.taskInfos = taskInfos.build();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+        }
+
+        public StageStateMachine getStateMachine()
+        {
+            return stateMachine;
+        }
+
+        public Iterable<TaskInfo> getTaskInfos()
+        {
+            return taskInfos;
+        }
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        // report the memory retained for the final information of the stage, with and without the task infos
+        BenchmarkData data = new BenchmarkData();
+        data.setup();
+        try {
+            StageInfo stageInfo = data.getStateMachine().getStageInfo(data::getTaskInfos);
+            System.out.printf("Retained size of stage info with %s tasks: %s%n", TASKS, succinctBytes(GraphLayout.parseInstance(stageInfo).totalSize()));
+            System.out.printf("Retained size of stage info without tasks: %s%n", succinctBytes(GraphLayout.parseInstance(stageInfo.withoutTasks()).totalSize()));
+        }
+        finally {
+            data.tearDown();
+        }
+
+        Benchmarks.benchmark(BenchmarkStageStateMachine.class).run();
+    }
+}
@@ -23,6 +23,8 @@ import io.trino.eventlistener.EventListenerConfig;
 import io.trino.eventlistener.EventListenerManager;
 import io.trino.execution.TestSqlTaskManager.MockExchangeClientSupplier;
 import io.trino.execution.buffer.OutputBuffers;
+import io.trino.execution.resultcache.LeafResultCache;
+import io.trino.execution.resultcache.LeafResultCacheConfig;
 import io.trino.execution.scheduler.NodeScheduler;
 import io.trino.execution.scheduler.NodeSchedulerConfig;
 import io.trino.execution.scheduler.UniformNodeSelectorFactory;
@@ -33,6 +35,8 @@ import io.trino.metadata.Split;
 import io.trino.operator.PagesIndex;
 import io.trino.operator.TrinoOperatorFactories;
 import io.trino.operator.index.IndexJoinLookupStats;
+import io.trino.server.protocol.ResultSpool;
+import io.trino.server.protocol.SpoolingConfig;
 import io.trino.spi.type.TypeOperators;
 import io.trino.spiller.GenericSpillerFactory;
 import io.trino.split.PageSinkManager;
@@ -151,7 +155,9 @@ public final class TaskTestUtils
                 new OrderingCompiler(typeOperators),
                 new DynamicFilterConfig(),
                 typeOperators,
-                blockTypeOperators);
+                blockTypeOperators,
+                new LeafResultCache(new LeafResultCacheConfig(), metadata),
+                new ResultSpool(new SpoolingConfig(), new ObjectMapperProvider().get(), new InMemoryNodeManager()));
     }
 
     public static TaskInfo updateTask(SqlTask sqlTask, List<TaskSource> taskSources, OutputBuffers outputBuffers)
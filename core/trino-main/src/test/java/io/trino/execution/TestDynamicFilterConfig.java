@@ -33,6 +33,7 @@ public class TestDynamicFilterConfig
                 .setEnableDynamicFiltering(true)
                 .setEnableCoordinatorDynamicFiltersDistribution(true)
                 .setEnableLargeDynamicFilters(false)
+                .setEnableDynamicRowFiltering(false)
                 .setServiceThreadCount(2)
                 .setSmallBroadcastMaxDistinctValuesPerDriver(200)
                 .setSmallBroadcastMaxSizePerDriver(DataSize.of(20, KILOBYTE))
@@ -55,6 +56,7 @@ public class TestDynamicFilterConfig
                 .put("enable-dynamic-filtering", "false")
                 .put("enable-coordinator-dynamic-filters-distribution", "false")
                 .put("enable-large-dynamic-filters", "true")
+                .put("enable-dynamic-row-filtering", "true")
                 .put("dynamic-filtering.service-thread-count", "4")
                 .put("dynamic-filtering.small-broadcast.max-distinct-values-per-driver", "256")
                 .put("dynamic-filtering.small-broadcast.max-size-per-driver", "64kB")
@@ -74,6 +76,7 @@ public class TestDynamicFilterConfig
                 .setEnableDynamicFiltering(false)
                 .setEnableCoordinatorDynamicFiltersDistribution(false)
                 .setEnableLargeDynamicFilters(true)
+                .setEnableDynamicRowFiltering(true)
                 .setServiceThreadCount(4)
                 .setSmallBroadcastMaxDistinctValuesPerDriver(256)
                 .setSmallBroadcastMaxSizePerDriver(DataSize.of(64, KILOBYTE))
@@ -59,9 +59,12 @@ import static io.trino.execution.TestSqlTask.OUT;
 import static io.trino.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
 import static io.trino.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.trino.memory.LocalMemoryManager.GENERAL_POOL;
+import static io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy.COST_BASED;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -251,6 +254,78 @@ public class TestMemoryRevokingScheduler
         assertMemoryRevokingRequestedFor(operatorContext);
     }
 
+    @Test
+    public void testCostBasedMemoryRevokingAvoidsOverRevoking()
+            throws Exception
+    {
+        SqlTask sqlTask = newSqlTask(new QueryId("query"));
+        TaskContext taskContext = getOrCreateTaskContext(sqlTask);
+        PipelineContext pipelineContext = taskContext.addPipelineContext(0, false, false, false);
+        DriverContext driverContext = pipelineContext.addDriverContext();
+        OperatorContext operatorContext1 = driverContext.addOperatorContext(1, new PlanNodeId("na"), "na");
+        OperatorContext operatorContext2 = driverContext.addOperatorContext(2, new PlanNodeId("na"), "na");
+        OperatorContext operatorContext3 = driverContext.addOperatorContext(3, new PlanNodeId("na"), "na");
+
+        allOperatorContexts = ImmutableSet.of(operatorContext1, operatorContext2, operatorContext3);
+        List<SqlTask> tasks = ImmutableList.of(sqlTask);
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(singletonList(memoryPool), () -> tasks, executor, 1.0, 1.0, COST_BASED);
+
+        operatorContext1.localRevocableMemoryContext().setBytes(3);
+        operatorContext2.localRevocableMemoryContext().setBytes(6);
+        operatorContext3.localRevocableMemoryContext().setBytes(7);
+        assertEquals(-6, memoryPool.getFreeBytes());
+        requestMemoryRevoking(scheduler);
+
+        // revoking 6 bytes from a single operator is sufficient
+        assertMemoryRevokingRequestedFor(operatorContext2);
+        assertThat(scheduler.getRecentRevocations())
+                .extracting(MemoryRevocationInfo::getOperatorId, MemoryRevocationInfo::getRevocableBytes, MemoryRevocationInfo::getEstimatedSpillBytes)
+                .containsExactly(tuple(2, 6L, 12L));
+    }
+
+    @Test
+    public void testCostBasedMemoryRevokingPrefersOperatorsWithMoreRemainingInput()
+            throws Exception
+    {
+        SqlTask sqlTask = newSqlTask(new QueryId("query"));
+        TaskContext taskContext = getOrCreateTaskContext(sqlTask);
+
+        // three out of four drivers of the first pipeline are finished
+        PipelineContext almostFinishedPipelineContext = taskContext.addPipelineContext(0, false, false, false);
+        for (int i = 0; i < 3; i++) {
+            almostFinishedPipelineContext.addDriverContext().finished();
+        }
+        OperatorContext almostFinishedOperatorContext = almostFinishedPipelineContext.addDriverContext().addOperatorContext(1, new PlanNodeId("na"), "na");
+
+        PipelineContext pipelineContext = taskContext.addPipelineContext(1, false, false, false);
+        OperatorContext operatorContext = pipelineContext.addDriverContext().addOperatorContext(2, new PlanNodeId("na"), "na");
+
+        allOperatorContexts = ImmutableSet.of(almostFinishedOperatorContext, operatorContext);
+        List<SqlTask> tasks = ImmutableList.of(sqlTask);
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(singletonList(memoryPool), () -> tasks, executor, 1.0, 1.0, COST_BASED);
+
+        almostFinishedOperatorContext.localRevocableMemoryContext().setBytes(6);
+        operatorContext.localRevocableMemoryContext().setBytes(6);
+        requestMemoryRevoking(scheduler);
+
+        assertMemoryRevokingRequestedFor(operatorContext);
+        assertThat(scheduler.getRecentRevocations())
+                .extracting(MemoryRevocationInfo::getOperatorId, MemoryRevocationInfo::getRemainingInputFraction)
+                .containsExactly(tuple(2, 1.0));
+    }
+
+    @Test
+    public void testRevocationCost()
+    {
+        // spilling an operator which has little input left is expensive
+        assertThat(MemoryRevokingScheduler.revocationCost(100, 0.1, 100))
+                .isGreaterThan(MemoryRevokingScheduler.revocationCost(100, 1.0, 100));
+        // revoking much more than needed is expensive
+        assertThat(MemoryRevokingScheduler.revocationCost(1000, 1.0, 100))
+                .isGreaterThan(MemoryRevokingScheduler.revocationCost(100, 1.0, 100));
+        assertEquals(MemoryRevokingScheduler.revocationCost(50, 1.0, 100), 2.0);
+    }
+
     private OperatorContext createContexts(SqlTask sqlTask)
     {
         TaskContext taskContext = getOrCreateTaskContext(sqlTask);
@@ -109,7 +109,8 @@ public class TestNodeScheduler
         nodeSchedulerConfig = new NodeSchedulerConfig()
                 .setMaxSplitsPerNode(20)
                 .setIncludeCoordinator(false)
-                .setMaxPendingSplitsPerTask(10);
+                .setMaxPendingSplitsPerTask(10)
+                .setMaxAdjustedPendingSplitsPerTask(100);
 
         nodeScheduler = new NodeScheduler(new UniformNodeSelectorFactory(nodeManager, nodeSchedulerConfig, nodeTaskMap));
         // contents of taskMap indicate the node-task map for the current stage
@@ -169,6 +170,21 @@ public class TestNodeScheduler
         assertEquals(assignment.getValue(), split);
     }
 
+    @Test
+    public void testScheduleLocalBatch()
+    {
+        setUpNodes();
+        ImmutableSet.Builder<Split> splits = ImmutableSet.builder();
+        for (int i = 0; i < 30; i++) {
+            splits.add(new Split(CONNECTOR_ID, new TestSplitLocallyAccessible(), Lifespan.taskWide()));
+        }
+
+        // the splits share the same address, and are assigned to the same node until it is full
+        Multimap<InternalNode, Split> assignments = nodeSelector.computeAssignments(splits.build(), ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.size(), 20);
+        assertEquals(getOnlyElement(assignments.keySet()).getHostAndPort(), HostAddress.fromString("10.0.0.1:11"));
+    }
+
     @Test(timeOut = 60 * 1000)
     public void testTopologyAwareScheduling()
     {
@@ -410,6 +426,46 @@ public class TestNodeScheduler
         assertEquals(nodeTaskMap.getPartitionedSplitsOnNode(newNode), 0);
     }
 
+    @Test
+    public void testAdjustedMaxPendingSplitsPerTask()
+    {
+        InternalNode node = new InternalNode("node1", URI.create("http://10.0.0.1:11"), NodeVersion.UNKNOWN, false);
+        nodeManager.addNode(CONNECTOR_ID, node);
+
+        ImmutableList.Builder<Split> initialSplits = ImmutableList.builder();
+        for (int i = 0; i < 20; i++) {
+            initialSplits.add(new Split(CONNECTOR_ID, new TestSplitRemote(), Lifespan.taskWide()));
+        }
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor, remoteTaskScheduledExecutor);
+        TaskId taskId = new TaskId("test", 1, 1);
+        MockRemoteTaskFactory.MockRemoteTask remoteTask = remoteTaskFactory.createTableScanTask(taskId, node, initialSplits.build(), nodeTaskMap.createPartitionedSplitCountTracker(node, taskId));
+        // Max out number of splits on node
+        remoteTask.startSplits(20);
+        nodeTaskMap.addTask(node, remoteTask);
+        taskMap.put(node, remoteTask);
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            splits.add(new Split(CONNECTOR_ID, new TestSplitRemote(), Lifespan.taskWide()));
+        }
+
+        // only maxPendingSplitsPerTask splits are queued for the task
+        Multimap<InternalNode, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.get(node).size(), 10);
+        remoteTask.addSplits(ImmutableMultimap.<PlanNodeId, Split>builder()
+                .putAll(new PlanNodeId("sourceId"), assignments.get(node))
+                .build());
+        splits.removeAll(assignments.values());
+
+        // the task runs out of queued splits before more splits are assigned, so its queue is made larger
+        remoteTask.finishSplits(10);
+        assertEquals(remoteTask.getQueuedPartitionedSplitCount(), 0);
+        assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.get(node).size(), 20);
+
+        remoteTask.abort();
+    }
+
     @Test
     public void testTaskCompletion()
             throws Exception
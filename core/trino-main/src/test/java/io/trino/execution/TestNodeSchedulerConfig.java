@@ -34,6 +34,7 @@ public class TestNodeSchedulerConfig
                 .setMinCandidates(10)
                 .setMaxSplitsPerNode(100)
                 .setMaxPendingSplitsPerTask(10)
+                .setMaxAdjustedPendingSplitsPerTask(null)
                 .setMaxUnacknowledgedSplitsPerTask(500)
                 .setIncludeCoordinator(true)
                 .setOptimizedLocalScheduling(true));
@@ -47,6 +48,7 @@ public class TestNodeSchedulerConfig
                 .put("node-scheduler.min-candidates", "11")
                 .put("node-scheduler.include-coordinator", "false")
                 .put("node-scheduler.max-pending-splits-per-task", "11")
+                .put("node-scheduler.max-adjusted-pending-splits-per-task", "111")
                 .put("node-scheduler.max-splits-per-node", "101")
                 .put("node-scheduler.max-unacknowledged-splits-per-task", "501")
                 .put("node-scheduler.optimized-local-scheduling", "false")
@@ -57,6 +59,7 @@ public class TestNodeSchedulerConfig
                 .setIncludeCoordinator(false)
                 .setMaxSplitsPerNode(101)
                 .setMaxPendingSplitsPerTask(11)
+                .setMaxAdjustedPendingSplitsPerTask(111)
                 .setMaxUnacknowledgedSplitsPerTask(501)
                 .setMinCandidates(11)
                 .setOptimizedLocalScheduling(false);
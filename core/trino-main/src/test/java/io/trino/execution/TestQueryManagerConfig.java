@@ -23,7 +23,9 @@ import java.util.Map;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -57,7 +59,13 @@ public class TestQueryManagerConfig
                 .setQueryMaxCpuTime(new Duration(1_000_000_000, DAYS))
                 .setQueryMaxScanPhysicalBytes(null)
                 .setRequiredWorkers(1)
-                .setRequiredWorkersMaxWait(new Duration(5, MINUTES)));
+                .setRequiredWorkersMaxWait(new Duration(5, MINUTES))
+                .setResultCacheEnabled(false)
+                .setResultCacheMaxSize(DataSize.of(256, MEGABYTE))
+                .setResultCacheMaxEntrySize(DataSize.of(1, MEGABYTE))
+                .setResultCacheTtl(new Duration(10, MINUTES))
+                .setPlanCacheEnabled(false)
+                .setPlanCacheMaxEntries(1000));
     }
 
     @Test
@@ -87,6 +95,12 @@ public class TestQueryManagerConfig
                 .put("query.max-scan-physical-bytes", "1kB")
                 .put("query-manager.required-workers", "333")
                 .put("query-manager.required-workers-max-wait", "33m")
+                .put("query.result-cache.enabled", "true")
+                .put("query.result-cache.max-size", "1GB")
+                .put("query.result-cache.max-entry-size", "8MB")
+                .put("query.result-cache.ttl", "1h")
+                .put("query.plan-cache.enabled", "true")
+                .put("query.plan-cache.max-entries", "50")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -112,7 +126,13 @@ public class TestQueryManagerConfig
                 .setQueryMaxCpuTime(new Duration(2, DAYS))
                 .setQueryMaxScanPhysicalBytes(DataSize.of(1, KILOBYTE))
                 .setRequiredWorkers(333)
-                .setRequiredWorkersMaxWait(new Duration(33, MINUTES));
+                .setRequiredWorkersMaxWait(new Duration(33, MINUTES))
+                .setResultCacheEnabled(true)
+                .setResultCacheMaxSize(DataSize.of(1, GIGABYTE))
+                .setResultCacheMaxEntrySize(DataSize.of(8, MEGABYTE))
+                .setResultCacheTtl(new Duration(1, HOURS))
+                .setPlanCacheEnabled(true)
+                .setPlanCacheMaxEntries(50);
 
         assertFullMapping(properties, expected);
     }
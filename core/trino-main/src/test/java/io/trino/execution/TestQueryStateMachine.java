@@ -16,10 +16,13 @@ package io.trino.execution;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
 import io.trino.Session;
 import io.trino.client.FailureInfo;
+import io.trino.execution.scheduler.SplitSchedulerStats;
 import io.trino.execution.warnings.WarningCollector;
 import io.trino.memory.VersionedMemoryPoolId;
 import io.trino.metadata.Metadata;
@@ -36,6 +39,7 @@ import io.trino.sql.analyzer.Output;
 import io.trino.sql.planner.plan.PlanFragmentId;
 import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.transaction.TransactionManager;
+import org.openjdk.jol.info.GraphLayout;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
@@ -61,11 +65,14 @@ import static io.trino.execution.QueryState.QUEUED;
 import static io.trino.execution.QueryState.RUNNING;
 import static io.trino.execution.QueryState.STARTING;
 import static io.trino.execution.QueryState.WAITING_FOR_RESOURCES;
+import static io.trino.execution.TestStageStateMachine.createTaskInfo;
+import static io.trino.execution.TestStageStateMachine.createValuesPlan;
 import static io.trino.metadata.MetadataManager.createTestMetadataManager;
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.spi.StandardErrorCode.USER_CANCELED;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.testing.TestingEventListenerManager.emptyEventListenerManager;
+import static io.trino.testing.assertions.Assert.assertEventually;
 import static io.trino.transaction.InMemoryTransactionManager.createTestTransactionManager;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -315,6 +322,44 @@ public class TestQueryStateMachine
         assertFinalState(stateMachine, FAILED, new TrinoException(USER_CANCELED, "canceled"));
     }
 
+    @Test
+    public void testFinalQueryInfoWithoutTasks()
+    {
+        QueryStateMachine stateMachine = createQueryStateMachine();
+        SettableFuture<QueryInfo> listenerQueryInfo = SettableFuture.create();
+        stateMachine.addQueryInfoStateChangeListener(listenerQueryInfo::set);
+
+        StageStateMachine stageStateMachine = new StageStateMachine(
+                new StageId(TEST_SESSION.getQueryId(), 0),
+                TEST_SESSION,
+                createValuesPlan(),
+                ImmutableMap.of(),
+                executor,
+                new SplitSchedulerStats());
+        List<TaskInfo> taskInfos = ImmutableList.of(
+                createTaskInfo(0, TaskState.FINISHED),
+                createTaskInfo(1, TaskState.FINISHED));
+        assertTrue(stageStateMachine.transitionToFinished());
+        assertTrue(stateMachine.transitionToFinishing());
+        tryGetFutureValue(stateMachine.getStateChange(FINISHING), 2, SECONDS);
+
+        QueryInfo queryInfo = stateMachine.updateQueryInfo(Optional.of(stageStateMachine.getStageInfo(() -> taskInfos)));
+        assertTrue(queryInfo.isFinalQueryInfo());
+
+        // listeners of the final query info receive the task infos
+        QueryInfo notifiedQueryInfo = tryGetFutureValue(listenerQueryInfo, 10, SECONDS).orElseThrow();
+        assertEquals(notifiedQueryInfo.getOutputStage().orElseThrow().getTasks().size(), 2);
+
+        // the retained final query info does not
+        assertEventually(() -> assertTrue(stateMachine.getFinalQueryInfo().orElseThrow().getOutputStage().orElseThrow().getTasks().isEmpty()));
+        QueryInfo finalQueryInfo = stateMachine.getFinalQueryInfo().orElseThrow();
+        StageInfo outputStage = finalQueryInfo.getOutputStage().orElseThrow();
+        assertEquals(outputStage.getNodes(), ImmutableSet.of("worker0", "worker1"));
+        assertEquals(outputStage.getStageStats().getTotalTasks(), 2);
+        assertEquals(finalQueryInfo.getQueryStats().getTotalTasks(), queryInfo.getQueryStats().getTotalTasks());
+        assertTrue(GraphLayout.parseInstance(finalQueryInfo).totalSize() < GraphLayout.parseInstance(queryInfo).totalSize());
+    }
+
     @Test
     public void testPlanningTimeDuration()
     {
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.trino.cost.StatsAndCosts;
 import io.trino.execution.scheduler.SplitSchedulerStats;
+import io.trino.operator.TestTaskStats;
 import io.trino.sql.planner.Partitioning;
 import io.trino.sql.planner.PartitioningScheme;
 import io.trino.sql.planner.PlanFragment;
@@ -30,12 +31,16 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.net.URI;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.execution.TaskInfo.createInitialTask;
+import static io.trino.execution.TaskStatus.failWith;
 import static io.trino.operator.StageExecutionDescriptor.ungroupedExecution;
 import static io.trino.spi.type.VarcharType.VARCHAR;
 import static io.trino.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
@@ -324,6 +329,52 @@ public class TestStageStateMachine
         assertFinalState(stateMachine, StageState.CANCELED);
     }
 
+    @Test
+    public void testFinalTaskInfos()
+    {
+        List<TaskInfo> taskInfos = ImmutableList.of(
+                createTaskInfo(0, TaskState.FINISHED),
+                createTaskInfo(1, TaskState.FINISHED),
+                createTaskInfo(2, TaskState.RUNNING));
+
+        StageStateMachine stateMachine = createStageStateMachine();
+        StageStats expected = stateMachine.getStageInfo(() -> taskInfos).getStageStats();
+
+        // the stats of the finished tasks are summed once, and must not be counted twice
+        stateMachine.addFinalTaskInfo(taskInfos.get(0));
+        stateMachine.addFinalTaskInfo(taskInfos.get(1));
+        stateMachine.addFinalTaskInfo(taskInfos.get(1));
+        StageStats actual = stateMachine.getStageInfo(() -> taskInfos).getStageStats();
+
+        assertEquals(actual.getTotalTasks(), 3);
+        assertEquals(actual.getRunningTasks(), expected.getRunningTasks());
+        assertEquals(actual.getCompletedTasks(), expected.getCompletedTasks());
+        assertEquals(actual.getTotalDrivers(), expected.getTotalDrivers());
+        assertEquals(actual.getTotalCpuTime(), expected.getTotalCpuTime());
+        assertEquals(actual.getRawInputPositions(), expected.getRawInputPositions());
+        assertEquals(actual.getOutputDataSize(), expected.getOutputDataSize());
+        assertEquals(actual.getBlockedReasons(), expected.getBlockedReasons());
+        assertEquals(actual.isFullyBlocked(), expected.isFullyBlocked());
+        assertEquals(actual.getOperatorSummaries().size(), expected.getOperatorSummaries().size());
+        for (int i = 0; i < actual.getOperatorSummaries().size(); i++) {
+            assertEquals(actual.getOperatorSummaries().get(i).getInputPositions(), expected.getOperatorSummaries().get(i).getInputPositions());
+            assertEquals(actual.getOperatorSummaries().get(i).getTotalDrivers(), expected.getOperatorSummaries().get(i).getTotalDrivers());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "task is not done")
+    public void testFinalTaskInfoNotDone()
+    {
+        createStageStateMachine().addFinalTaskInfo(createTaskInfo(0, TaskState.RUNNING));
+    }
+
+    static TaskInfo createTaskInfo(int id, TaskState state)
+    {
+        TaskId taskId = new TaskId(STAGE_ID, id);
+        TaskInfo taskInfo = createInitialTask(taskId, URI.create("http://worker" + id + ":8080/v1/task/" + taskId), "worker" + id, ImmutableList.of(), TestTaskStats.EXPECTED);
+        return taskInfo.withTaskStatus(failWith(taskInfo.getTaskStatus(), state, ImmutableList.of()));
+    }
+
     private static void assertFinalState(StageStateMachine stateMachine, StageState expectedState)
     {
         assertTrue(expectedState.isDone());
@@ -386,7 +437,7 @@ public class TestStageStateMachine
         return new StageStateMachine(STAGE_ID, TEST_SESSION, PLAN_FRAGMENT, ImmutableMap.of(), executor, new SplitSchedulerStats());
     }
 
-    private static PlanFragment createValuesPlan()
+    static PlanFragment createValuesPlan()
     {
         Symbol symbol = new Symbol("column");
         PlanNodeId valuesNodeId = new PlanNodeId("plan");
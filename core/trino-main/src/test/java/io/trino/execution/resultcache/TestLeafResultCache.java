@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.trino.connector.CatalogName;
+import io.trino.spi.Page;
+import io.trino.spi.block.BlockEncodingSerde;
+import io.trino.spi.type.Type;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.trino.SequencePageBuilder.createSequencePage;
+import static io.trino.metadata.MetadataManager.createTestMetadataManager;
+import static io.trino.operator.PageAssertions.assertPageEquals;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestLeafResultCache
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT);
+    private static final CatalogName CATALOG = new CatalogName("test");
+
+    private final BlockEncodingSerde blockEncodingSerde = createTestMetadataManager().getBlockEncodingSerde();
+    private final Page page = createSequencePage(TYPES, 100);
+    private final long pageSize = page.getRetainedSizeInBytes();
+
+    private Path diskPath;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        diskPath = Files.createTempDirectory("leaf_result_cache");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(diskPath, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testPutAndGet()
+    {
+        LeafResultCache cache = createCache(Optional.empty());
+        assertTrue(cache.get(key("a")).isEmpty());
+
+        assertEquals(cache.put(key("a"), ImmutableList.of(page)), 0);
+        Optional<List<Page>> cached = cache.get(key("a"));
+        assertTrue(cached.isPresent());
+        assertEquals(cached.get().size(), 1);
+        assertPageEquals(TYPES, cached.get().get(0), page);
+        assertEquals(cache.getMemoryHits(), 1);
+        assertEquals(cache.getMisses(), 1);
+
+        // a different pipeline over the same split is a different entry
+        assertTrue(cache.get(new LeafResultCacheKey(ImmutableList.of("other"), CATALOG, "a")).isEmpty());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction()
+    {
+        LeafResultCache cache = createCache(Optional.empty());
+        cache.put(key("a"), ImmutableList.of(page));
+        cache.put(key("b"), ImmutableList.of(page));
+        // make "b" the least recently used entry
+        cache.get(key("a"));
+
+        assertEquals(cache.put(key("c"), ImmutableList.of(page)), pageSize);
+        assertTrue(cache.get(key("a")).isPresent());
+        assertFalse(cache.get(key("b")).isPresent());
+        assertTrue(cache.get(key("c")).isPresent());
+        assertEquals(cache.getMemoryBytes(), pageSize * 2);
+        assertEquals(cache.getEvictedBytes(), pageSize);
+    }
+
+    @Test
+    public void testEntryTooLarge()
+    {
+        LeafResultCache cache = createCache(Optional.empty());
+        assertEquals(cache.put(key("a"), ImmutableList.of(page, page, page)), 0);
+        assertFalse(cache.get(key("a")).isPresent());
+        assertEquals(cache.getMemoryBytes(), 0);
+    }
+
+    @Test
+    public void testEvictedEntriesAreMovedToDisk()
+    {
+        LeafResultCache cache = createCache(Optional.of(diskPath));
+        cache.put(key("a"), ImmutableList.of(page));
+        cache.put(key("b"), ImmutableList.of(page));
+        cache.put(key("c"), ImmutableList.of(page));
+        assertEquals(cache.getMemoryEntries(), 2);
+        assertEquals(cache.getDiskEntries(), 1);
+
+        Optional<List<Page>> cached = cache.get(key("a"));
+        assertTrue(cached.isPresent());
+        assertPageEquals(TYPES, cached.get().get(0), page);
+        assertEquals(cache.getDiskHits(), 1);
+
+        cache.invalidateAll();
+        assertFalse(cache.get(key("a")).isPresent());
+        assertEquals(cache.getDiskBytes(), 0);
+    }
+
+    private LeafResultCache createCache(Optional<Path> diskPath)
+    {
+        LeafResultCacheConfig config = new LeafResultCacheConfig()
+                .setEnabled(true)
+                .setMaxMemorySize(DataSize.ofBytes(pageSize * 5 / 2))
+                .setMaxEntrySize(DataSize.ofBytes(pageSize * 2))
+                .setDiskPath(diskPath.map(Path::toString).orElse(null));
+        return new LeafResultCache(config, blockEncodingSerde, newDirectExecutorService());
+    }
+
+    private static LeafResultCacheKey key(String splitIdentifier)
+    {
+        return new LeafResultCacheKey(ImmutableList.of("pipeline"), CATALOG, splitIdentifier);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution.resultcache;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class TestLeafResultCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(LeafResultCacheConfig.class)
+                .setEnabled(false)
+                .setMaxMemorySize(DataSize.of(256, MEGABYTE))
+                .setMaxEntrySize(DataSize.of(16, MEGABYTE))
+                .setDiskPath(null)
+                .setMaxDiskSize(DataSize.of(10, GIGABYTE)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("leaf-result-cache.enabled", "true")
+                .put("leaf-result-cache.max-memory-size", "1GB")
+                .put("leaf-result-cache.max-entry-size", "4MB")
+                .put("leaf-result-cache.disk-path", "/tmp/leaf-result-cache")
+                .put("leaf-result-cache.max-disk-size", "100GB")
+                .build();
+
+        LeafResultCacheConfig expected = new LeafResultCacheConfig()
+                .setEnabled(true)
+                .setMaxMemorySize(DataSize.of(1, GIGABYTE))
+                .setMaxEntrySize(DataSize.of(4, MEGABYTE))
+                .setDiskPath("/tmp/leaf-result-cache")
+                .setMaxDiskSize(DataSize.of(100, GIGABYTE));
+
+        assertFullMapping(properties, expected);
+    }
+}
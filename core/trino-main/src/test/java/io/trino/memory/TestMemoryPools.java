@@ -275,6 +275,119 @@ public class TestMemoryPools
         assertEquals(pool2.getFreeBytes(), 1000);
     }
 
+    @Test
+    public void testMemoryGuarantee()
+    {
+        QueryId guaranteedQuery = new QueryId("guaranteed_query");
+        QueryId borrowingQuery = new QueryId("borrowing_query");
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), DataSize.ofBytes(1000));
+        pool.setQueryMemoryGuarantee(guaranteedQuery, 600);
+        assertEquals(pool.getQueryMemoryGuarantee(guaranteedQuery), 600);
+
+        // memory not guaranteed to other queries can be reserved freely
+        assertTrue(pool.reserve(borrowingQuery, "test", 300).isDone());
+        assertTrue(pool.isQueryExceedingMemoryGuarantee(borrowingQuery));
+        assertFalse(pool.isQueryExceedingMemoryGuarantee(guaranteedQuery));
+
+        // reserving memory guaranteed to another query blocks the borrower
+        ListenableFuture<Void> borrowerFuture = pool.reserve(borrowingQuery, "test", 200);
+        assertFalse(borrowerFuture.isDone());
+        assertEquals(pool.getFreeBytes(), 500);
+        assertEquals(pool.getArbitrationInfo().getBlockedBorrowerReservations(), 1);
+        assertEquals(pool.getArbitrationInfo().getUnusedGuaranteedBytes(), 600);
+
+        // the guaranteed query can still reserve memory up to its guarantee
+        assertTrue(pool.reserve(guaranteedQuery, "test", 100).isDone());
+
+        // releasing the guarantee unblocks the borrower
+        pool.setQueryMemoryGuarantee(guaranteedQuery, 0);
+        assertTrue(borrowerFuture.isDone());
+        assertEquals(pool.getQueryMemoryGuarantee(guaranteedQuery), 0);
+        assertTrue(pool.reserve(borrowingQuery, "test", 100).isDone());
+
+        pool.free(guaranteedQuery, "test", 100);
+        pool.free(borrowingQuery, "test", 600);
+        assertEquals(pool.getFreeBytes(), 1000);
+    }
+
+    @Test
+    public void testMemoryGuaranteesLimitedByPoolSize()
+    {
+        QueryId firstQuery = new QueryId("first_query");
+        QueryId secondQuery = new QueryId("second_query");
+        QueryId thirdQuery = new QueryId("third_query");
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), DataSize.ofBytes(1000));
+
+        // guarantees which do not fit in the pool are queued
+        pool.setQueryMemoryGuarantee(firstQuery, 700);
+        pool.setQueryMemoryGuarantee(secondQuery, 700);
+        pool.setQueryMemoryGuarantee(thirdQuery, 200);
+        assertEquals(pool.getQueryMemoryGuarantee(firstQuery), 700);
+        assertEquals(pool.getQueryMemoryGuarantee(secondQuery), 0);
+        assertTrue(pool.isQueryMemoryGuaranteePending(secondQuery));
+        assertEquals(pool.getQueryMemoryGuarantee(thirdQuery), 0);
+        assertTrue(pool.isQueryMemoryGuaranteePending(thirdQuery));
+        assertEquals(pool.getGuaranteedBytes(), 700);
+        assertEquals(pool.getUnusedGuaranteedBytes(), 700);
+
+        QueryId borrowingQuery = new QueryId("borrowing_query");
+        assertTrue(pool.reserve(borrowingQuery, "test", 200).isDone());
+        ListenableFuture<Void> borrowerFuture = pool.reserve(borrowingQuery, "test", 101);
+        assertFalse(borrowerFuture.isDone());
+
+        // releasing a guarantee grants the queued guarantees in order
+        pool.setQueryMemoryGuarantee(firstQuery, 0);
+        assertEquals(pool.getQueryMemoryGuarantee(secondQuery), 700);
+        assertFalse(pool.isQueryMemoryGuaranteePending(secondQuery));
+        assertEquals(pool.getQueryMemoryGuarantee(thirdQuery), 0);
+        assertTrue(pool.isQueryMemoryGuaranteePending(thirdQuery));
+        assertFalse(borrowerFuture.isDone());
+
+        pool.setQueryMemoryGuarantee(secondQuery, 0);
+        assertEquals(pool.getQueryMemoryGuarantee(thirdQuery), 200);
+        assertEquals(pool.getGuaranteedBytes(), 200);
+        assertTrue(borrowerFuture.isDone());
+
+        pool.setQueryMemoryGuarantee(thirdQuery, 0);
+        assertEquals(pool.getGuaranteedBytes(), 0);
+        pool.free(borrowingQuery, "test", 301);
+        assertEquals(pool.getFreeBytes(), 1000);
+    }
+
+    @Test
+    public void testBorrowerNotUnblockedByFreeGuaranteedMemory()
+    {
+        QueryId guaranteedQuery = new QueryId("guaranteed_query");
+        QueryId borrowingQuery = new QueryId("borrowing_query");
+        QueryId otherQuery = new QueryId("other_query");
+        MemoryPool pool = new MemoryPool(new MemoryPoolId("test"), DataSize.ofBytes(1000));
+        pool.setQueryMemoryGuarantee(guaranteedQuery, 500);
+
+        assertTrue(pool.reserve(otherQuery, "test", 100).isDone());
+        ListenableFuture<Void> borrowerFuture = pool.reserve(borrowingQuery, "test", 450);
+        assertFalse(borrowerFuture.isDone());
+
+        // the freed memory is still needed to honor the guarantee
+        pool.free(otherQuery, "test", 50);
+        assertFalse(borrowerFuture.isDone());
+
+        // the guaranteed query uses most of its guarantee, so memory which is not guaranteed is free
+        assertTrue(pool.reserve(guaranteedQuery, "test", 400).isDone());
+        assertEquals(pool.getUnusedGuaranteedBytes(), 100);
+        pool.free(otherQuery, "test", 50);
+        assertTrue(borrowerFuture.isDone());
+
+        // unused guaranteed memory is tracked as the guaranteed query frees memory
+        pool.free(guaranteedQuery, "test", 200);
+        assertEquals(pool.getUnusedGuaranteedBytes(), 300);
+        pool.free(guaranteedQuery, "test", 200);
+        assertEquals(pool.getUnusedGuaranteedBytes(), 500);
+
+        pool.setQueryMemoryGuarantee(guaranteedQuery, 0);
+        pool.free(borrowingQuery, "test", 450);
+        assertEquals(pool.getFreeBytes(), 1000);
+    }
+
     @Test
     public void testMoveUnknownQuery()
     {
@@ -23,6 +23,7 @@ import static io.airlift.configuration.testing.ConfigAssertions.assertFullMappin
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.trino.memory.NodeMemoryConfig.AVAILABLE_HEAP_MEMORY;
 
 public class TestNodeMemoryConfig
@@ -34,6 +35,8 @@ public class TestNodeMemoryConfig
                 .setMaxQueryMemoryPerNode(DataSize.ofBytes(Math.round(AVAILABLE_HEAP_MEMORY * 0.1)))
                 .setMaxQueryTotalMemoryPerNode(DataSize.ofBytes(Math.round(AVAILABLE_HEAP_MEMORY * 0.3)))
                 .setHeapHeadroom(DataSize.ofBytes(Math.round(AVAILABLE_HEAP_MEMORY * 0.3)))
+                .setQueryMemoryGuaranteePerNode(DataSize.ofBytes(0))
+                .setMemoryAccountingQuantum(DataSize.ofBytes(0))
                 .setReservedPoolDisabled(true));
     }
 
@@ -44,6 +47,8 @@ public class TestNodeMemoryConfig
                 .put("query.max-memory-per-node", "1GB")
                 .put("query.max-total-memory-per-node", "3GB")
                 .put("memory.heap-headroom-per-node", "1GB")
+                .put("query.memory-guarantee-per-node", "512MB")
+                .put("memory.accounting-quantum", "1MB")
                 .put("experimental.reserved-pool-disabled", "false")
                 .build();
 
@@ -51,6 +56,8 @@ public class TestNodeMemoryConfig
                 .setMaxQueryMemoryPerNode(DataSize.of(1, GIGABYTE))
                 .setMaxQueryTotalMemoryPerNode(DataSize.of(3, GIGABYTE))
                 .setHeapHeadroom(DataSize.of(1, GIGABYTE))
+                .setQueryMemoryGuaranteePerNode(DataSize.of(512, MEGABYTE))
+                .setMemoryAccountingQuantum(DataSize.of(1, MEGABYTE))
                 .setReservedPoolDisabled(false);
 
         assertFullMapping(properties, expected);
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.trino.operator.DynamicRowFilterOperator.ChannelHandle;
+import io.trino.operator.DynamicRowFilterOperator.DynamicRowFilterOperatorFactory;
+import io.trino.spi.Page;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.ValueSet;
+import io.trino.spi.type.TypeOperators;
+import io.trino.sql.DynamicFilters;
+import io.trino.sql.planner.LocalDynamicFiltersCollector;
+import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.SymbolAllocator;
+import io.trino.sql.planner.plan.DynamicFilterId;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.testing.MaterializedResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.RowPagesBuilder.rowPagesBuilder;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.metadata.MetadataManager.createTestMetadataManager;
+import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static io.trino.testing.MaterializedResult.resultBuilder;
+import static io.trino.testing.TestingTaskContext.createTaskContext;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+
+@Test(singleThreaded = true)
+public class TestDynamicRowFilterOperator
+{
+    private static final DynamicFilterId FILTER_ID = new DynamicFilterId("filter");
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private DriverContext driverContext;
+    private LocalDynamicFiltersCollector collector;
+    private DynamicFilter dynamicFilter;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed(getClass().getSimpleName() + "-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed(getClass().getSimpleName() + "-scheduledExecutor-%s"));
+        driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+
+        collector = new LocalDynamicFiltersCollector(TEST_SESSION);
+        collector.register(ImmutableSet.of(FILTER_ID));
+        SymbolAllocator symbolAllocator = new SymbolAllocator();
+        Symbol name = symbolAllocator.newSymbol("name", VARCHAR);
+        Symbol key = symbolAllocator.newSymbol("key", BIGINT);
+        dynamicFilter = collector.createDynamicFilter(
+                ImmutableList.of(new DynamicFilters.Descriptor(FILTER_ID, key.toSymbolReference())),
+                ImmutableMap.of(name, new ChannelHandle(name.getName(), 0), key, new ChannelHandle(key.getName(), 1)),
+                symbolAllocator.getTypes(),
+                createTestMetadataManager(),
+                new TypeOperators());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testDynamicFilterNotCollected()
+    {
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("b", 2L)
+                .row("c", null)
+                .build();
+
+        assertOperatorEquals(createOperatorFactory(), driverContext, createInput(), expected);
+    }
+
+    @Test
+    public void testFilterRows()
+    {
+        collector.collectDynamicFilterDomains(ImmutableMap.of(FILTER_ID, Domain.multipleValues(BIGINT, ImmutableList.of(2L, 3L))));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("b", 2L)
+                .build();
+
+        assertOperatorEquals(createOperatorFactory(), driverContext, createInput(), expected);
+    }
+
+    @Test
+    public void testFilterRowsByRange()
+    {
+        collector.collectDynamicFilterDomains(ImmutableMap.of(FILTER_ID, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 1L, false, 3L, true)), false)));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("b", 2L)
+                .build();
+
+        assertOperatorEquals(createOperatorFactory(), driverContext, createInput(), expected);
+    }
+
+    @Test
+    public void testFilterRowsWithNulls()
+    {
+        collector.collectDynamicFilterDomains(ImmutableMap.of(FILTER_ID, Domain.create(ValueSet.of(BIGINT, 1L), true)));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("c", null)
+                .build();
+
+        assertOperatorEquals(createOperatorFactory(), driverContext, createInput(), expected);
+    }
+
+    @Test
+    public void testNoneDynamicFilter()
+    {
+        collector.collectDynamicFilterDomains(ImmutableMap.of(FILTER_ID, Domain.none(BIGINT)));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT).build();
+
+        assertOperatorEquals(createOperatorFactory(), driverContext, createInput(), expected);
+    }
+
+    private OperatorFactory createOperatorFactory()
+    {
+        return new DynamicRowFilterOperatorFactory(0, new PlanNodeId("test"), dynamicFilter, ImmutableList.of(VARCHAR, BIGINT));
+    }
+
+    private static List<Page> createInput()
+    {
+        return rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("b", 2L)
+                .pageBreak()
+                .row("c", null)
+                .build();
+    }
+}
@@ -74,6 +74,10 @@ public class TestTaskStats
 
             DataSize.ofBytes(25),
 
+            28,
+            29,
+            DataSize.ofBytes(30),
+
             26,
             new Duration(27, NANOSECONDS),
 
@@ -135,6 +139,10 @@ public class TestTaskStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), DataSize.ofBytes(25));
 
+        assertEquals(actual.getLeafResultCacheHits(), 28);
+        assertEquals(actual.getLeafResultCacheMisses(), 29);
+        assertEquals(actual.getLeafResultCacheEvictedDataSize(), DataSize.ofBytes(30));
+
         assertEquals(actual.getPipelines().size(), 1);
         assertExpectedPipelineStats(actual.getPipelines().get(0));
     }
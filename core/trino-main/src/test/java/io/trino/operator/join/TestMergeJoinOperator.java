@@ -0,0 +1,388 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.join;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.trino.operator.DriverContext;
+import io.trino.operator.Operator;
+import io.trino.operator.TaskContext;
+import io.trino.operator.join.LookupJoinOperatorFactory.JoinType;
+import io.trino.operator.join.MergeJoinOperator.MergeJoinOperatorFactory;
+import io.trino.operator.join.MergeJoinSinkOperator.MergeJoinSinkOperatorFactory;
+import io.trino.spi.Page;
+import io.trino.spi.block.SortOrder;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeOperators;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.TestingTaskContext;
+import io.trino.type.BlockTypeOperators;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.trino.RowPagesBuilder.rowPagesBuilder;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.operator.OperatorAssertion.assertOperatorEquals;
+import static io.trino.operator.OperatorAssertion.toPages;
+import static io.trino.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
+import static io.trino.spi.StandardErrorCode.EXCEEDED_LOCAL_MEMORY_LIMIT;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.trino.spi.block.SortOrder.ASC_NULLS_LAST;
+import static io.trino.spi.block.SortOrder.DESC_NULLS_FIRST;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static io.trino.testing.MaterializedResult.resultBuilder;
+import static io.trino.testing.assertions.TrinoExceptionAssert.assertTrinoExceptionThrownBy;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMergeJoinOperator
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final BlockTypeOperators BLOCK_TYPE_OPERATORS = new BlockTypeOperators(new TypeOperators());
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed(getClass().getSimpleName() + "-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed(getClass().getSimpleName() + "-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testInnerJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.INNER);
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(2L, "b", 2L, "x")
+                .row(2L, "b", 2L, "y")
+                .row(2L, "b", 2L, "z")
+                .row(2L, "c", 2L, "x")
+                .row(2L, "c", 2L, "y")
+                .row(2L, "c", 2L, "z")
+                .row(4L, "d", 4L, "v")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages(), expected);
+    }
+
+    @Test
+    public void testLeftJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.PROBE_OUTER);
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(1L, "a", null, null)
+                .row(2L, "b", 2L, "x")
+                .row(2L, "b", 2L, "y")
+                .row(2L, "b", 2L, "z")
+                .row(2L, "c", 2L, "x")
+                .row(2L, "c", 2L, "y")
+                .row(2L, "c", 2L, "z")
+                .row(4L, "d", 4L, "v")
+                .row(null, "e", null, null)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages(), expected);
+    }
+
+    @Test
+    public void testRightJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.LOOKUP_OUTER);
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(2L, "b", 2L, "x")
+                .row(2L, "b", 2L, "y")
+                .row(2L, "b", 2L, "z")
+                .row(2L, "c", 2L, "x")
+                .row(2L, "c", 2L, "y")
+                .row(2L, "c", 2L, "z")
+                .row(null, null, 3L, "w")
+                .row(4L, "d", 4L, "v")
+                .row(null, null, null, "u")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages(), expected);
+    }
+
+    @Test
+    public void testFullJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.FULL_OUTER);
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(1L, "a", null, null)
+                .row(2L, "b", 2L, "x")
+                .row(2L, "b", 2L, "y")
+                .row(2L, "b", 2L, "z")
+                .row(2L, "c", 2L, "x")
+                .row(2L, "c", 2L, "y")
+                .row(2L, "c", 2L, "z")
+                .row(null, null, 3L, "w")
+                .row(4L, "d", 4L, "v")
+                .row(null, "e", null, null)
+                .row(null, null, null, "u")
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages(), expected);
+    }
+
+    @Test
+    public void testDescendingJoin()
+    {
+        TaskContext taskContext = createTaskContext();
+        List<Page> leftPages = rowPagesBuilder(TYPES)
+                .row(null, "e")
+                .row(4L, "d")
+                .pageBreak()
+                .row(2L, "b")
+                .row(2L, "c")
+                .row(1L, "a")
+                .build();
+        List<Page> rightPages = rowPagesBuilder(TYPES)
+                .row(4L, "v")
+                .row(3L, "w")
+                .row(2L, "x")
+                .pageBreak()
+                .row(2L, "y")
+                .row(null, "u")
+                .build();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.FULL_OUTER, rightPages, DESC_NULLS_FIRST, DataSize.ofBytes(Long.MAX_VALUE));
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(null, "e", null, null)
+                .row(4L, "d", 4L, "v")
+                .row(null, null, 3L, "w")
+                .row(2L, "b", 2L, "x")
+                .row(2L, "b", 2L, "y")
+                .row(2L, "c", 2L, "x")
+                .row(2L, "c", 2L, "y")
+                .row(null, null, null, "u")
+                .row(1L, "a", null, null)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages, expected);
+    }
+
+    @Test
+    public void testRunSizeLimit()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.INNER, rightPages(), ASC_NULLS_LAST, DataSize.ofBytes(1));
+
+        assertTrinoExceptionThrownBy(() -> toPages(joinOperatorFactory, createDriverContext(taskContext), leftPages()))
+                .hasErrorCode(EXCEEDED_LOCAL_MEMORY_LIMIT)
+                .hasMessageContaining("merge_join_max_run_size");
+    }
+
+    @Test
+    public void testEmptyRightInput()
+    {
+        TaskContext taskContext = createTaskContext();
+        MergeJoinOperatorFactory joinOperatorFactory = createJoinOperatorFactory(taskContext, JoinType.PROBE_OUTER, ImmutableList.of());
+
+        MaterializedResult expected = resultBuilder(taskContext.getSession(), concat(TYPES, TYPES))
+                .row(1L, "a", null, null)
+                .row(2L, "b", null, null)
+                .row(2L, "c", null, null)
+                .row(4L, "d", null, null)
+                .row(null, "e", null, null)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, createDriverContext(taskContext), leftPages(), expected);
+    }
+
+    @Test
+    public void testBridgeBackpressure()
+    {
+        MergeJoinBridge bridge = new MergeJoinBridge(1);
+        Page page = rowPagesBuilder(TYPES).row(1L, "a").build().get(0);
+
+        assertFalse(bridge.getNotEmptyFuture().isDone());
+        ListenableFuture<Void> notFull = bridge.addPage(page);
+        assertFalse(notFull.isDone());
+        assertTrue(bridge.getNotEmptyFuture().isDone());
+
+        assertNotNull(bridge.pollPage());
+        assertTrue(notFull.isDone());
+        assertNull(bridge.pollPage());
+        assertFalse(bridge.getNotEmptyFuture().isDone());
+
+        bridge.noMorePages();
+        assertTrue(bridge.getNotEmptyFuture().isDone());
+        assertTrue(bridge.isFinished());
+        assertTrue(bridge.getDrainedFuture().isDone());
+        assertTrue(bridge.whenBuildFinishes().isDone());
+    }
+
+    @Test
+    public void testBridgeSingleStreams()
+    {
+        MergeJoinBridge bridge = new MergeJoinBridge(1);
+        bridge.producerCreated();
+        bridge.consumerCreated();
+
+        // a sorted bucket stored in multiple files is read as multiple streams
+        assertTrinoExceptionThrownBy(bridge::producerCreated)
+                .hasErrorCode(NOT_SUPPORTED);
+        assertTrinoExceptionThrownBy(bridge::consumerCreated)
+                .hasErrorCode(NOT_SUPPORTED);
+
+        // the right input is only finished by its producer
+        bridge.noMoreProducers();
+        assertFalse(bridge.isFinished());
+    }
+
+    @Test
+    public void testBridgeWithoutProducer()
+    {
+        MergeJoinBridge bridge = new MergeJoinBridge(1);
+
+        // a bucket without any split of the right input
+        bridge.noMoreProducers();
+        assertTrue(bridge.isFinished());
+        assertTrue(bridge.whenBuildFinishes().isDone());
+    }
+
+    @Test
+    public void testBridgeConsumerFinished()
+    {
+        MergeJoinBridge bridge = new MergeJoinBridge(1);
+        Page page = rowPagesBuilder(TYPES).row(1L, "a").build().get(0);
+
+        ListenableFuture<Void> notFull = bridge.addPage(page);
+        assertFalse(notFull.isDone());
+
+        // remaining right input is discarded once the consumer is done
+        bridge.consumerFinished();
+        assertTrue(notFull.isDone());
+        assertTrue(bridge.getDrainedFuture().isDone());
+        assertEquals(bridge.getBufferedBytes(), 0);
+        assertTrue(bridge.addPage(page).isDone());
+        assertEquals(bridge.getBufferedBytes(), 0);
+    }
+
+    private static List<Page> leftPages()
+    {
+        return rowPagesBuilder(TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(2L, "c")
+                .pageBreak()
+                .row(4L, "d")
+                .row(null, "e")
+                .build();
+    }
+
+    private static List<Page> rightPages()
+    {
+        // the run of key 2 spans multiple pages
+        return rowPagesBuilder(TYPES)
+                .row(2L, "x")
+                .row(2L, "y")
+                .pageBreak()
+                .row(2L, "z")
+                .row(3L, "w")
+                .pageBreak()
+                .row(4L, "v")
+                .row(null, "u")
+                .build();
+    }
+
+    private MergeJoinOperatorFactory createJoinOperatorFactory(TaskContext taskContext, JoinType joinType)
+    {
+        return createJoinOperatorFactory(taskContext, joinType, rightPages());
+    }
+
+    private MergeJoinOperatorFactory createJoinOperatorFactory(TaskContext taskContext, JoinType joinType, List<Page> rightPages)
+    {
+        return createJoinOperatorFactory(taskContext, joinType, rightPages, ASC_NULLS_LAST, DataSize.ofBytes(Long.MAX_VALUE));
+    }
+
+    private MergeJoinOperatorFactory createJoinOperatorFactory(TaskContext taskContext, JoinType joinType, List<Page> rightPages, SortOrder sortOrder, DataSize maxRunSize)
+    {
+        JoinBridgeManager<MergeJoinBridge> mergeJoinBridgeManager = new JoinBridgeManager<>(
+                false,
+                UNGROUPED_EXECUTION,
+                UNGROUPED_EXECUTION,
+                lifespan -> new MergeJoinBridge(Long.MAX_VALUE),
+                TYPES);
+        MergeJoinSinkOperatorFactory sinkOperatorFactory = new MergeJoinSinkOperatorFactory(0, new PlanNodeId("test"), mergeJoinBridgeManager);
+        MergeJoinOperatorFactory joinOperatorFactory = new MergeJoinOperatorFactory(
+                1,
+                new PlanNodeId("test"),
+                mergeJoinBridgeManager,
+                joinType,
+                TYPES,
+                TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(0),
+                ImmutableList.of(0, 1),
+                ImmutableList.of(0, 1),
+                ImmutableList.of(sortOrder),
+                maxRunSize,
+                BLOCK_TYPE_OPERATORS);
+
+        // stream the complete right input into the bridge
+        Operator sinkOperator = sinkOperatorFactory.createOperator(createDriverContext(taskContext));
+        for (Page page : rightPages) {
+            assertTrue(sinkOperator.needsInput());
+            sinkOperator.addInput(page);
+        }
+        sinkOperator.finish();
+        sinkOperatorFactory.noMoreOperators();
+
+        return joinOperatorFactory;
+    }
+
+    private static DriverContext createDriverContext(TaskContext taskContext)
+    {
+        return taskContext.addPipelineContext(0, true, true, false).addDriverContext();
+    }
+
+    private TaskContext createTaskContext()
+    {
+        return TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.output;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.units.DataSize;
+import io.trino.execution.StateMachine;
+import io.trino.execution.buffer.BufferResult;
+import io.trino.execution.buffer.OutputBuffers;
+import io.trino.execution.buffer.PagesSerde;
+import io.trino.execution.buffer.PagesSerdeFactory;
+import io.trino.execution.buffer.PartitionedOutputBuffer;
+import io.trino.execution.buffer.SerializedPage;
+import io.trino.memory.context.SimpleLocalMemoryContext;
+import io.trino.metadata.InMemoryNodeManager;
+import io.trino.operator.DriverContext;
+import io.trino.operator.Operator;
+import io.trino.operator.output.SpoolingOutputOperator.SpoolingOutputFactory;
+import io.trino.server.protocol.ResultSpool;
+import io.trino.server.protocol.SpoolingConfig;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.sql.planner.plan.PlanNodeId;
+import io.trino.testing.TestingTaskContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.block.BlockAssertions.createLongSequenceBlock;
+import static io.trino.execution.buffer.BufferState.OPEN;
+import static io.trino.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static io.trino.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
+import static io.trino.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.trino.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.trino.metadata.MetadataManager.createTestMetadataManager;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSpoolingOutputOperator
+{
+    private static final OutputBuffers.OutputBufferId OUTPUT_BUFFER_ID = new OutputBuffers.OutputBufferId(0);
+    // larger than the minimum segment size, so every page is written to its own segment
+    private static final int LARGE_PAGE_POSITIONS = 200_000;
+
+    private final PagesSerdeFactory serdeFactory = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), false);
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+    private Path directory;
+    private ResultSpool resultSpool;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed(getClass().getSimpleName() + "-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(1, daemonThreadsNamed(getClass().getSimpleName() + "-scheduledExecutor-%s"));
+        directory = Files.createTempDirectory("spooling-output");
+        resultSpool = new ResultSpool(
+                new SpoolingConfig()
+                        .setEnabled(true)
+                        .setDirectory(directory.toString())
+                        .setSegmentSize(DataSize.of(1, MEGABYTE)),
+                new ObjectMapperProvider().get(),
+                new InMemoryNodeManager());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        executor.shutdownNow();
+        executor = null;
+        scheduledExecutor.shutdownNow();
+        scheduledExecutor = null;
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testSegmentOnFinish()
+            throws Exception
+    {
+        PartitionedOutputBuffer buffer = createOutputBuffer();
+        Operator operator = createOperator(buffer);
+
+        operator.addInput(new Page(createLongSequenceBlock(0, 10)));
+        operator.addInput(new Page(createLongSequenceBlock(10, 20)));
+        assertTrue(getSegments(buffer).isEmpty());
+
+        operator.finish();
+        waitUntilFinished(operator);
+        List<URI> segments = getSegments(buffer);
+        assertEquals(segments.size(), 1);
+        assertThat(readSegment(segments.get(0))).hasSize(20);
+        operator.close();
+    }
+
+    @Test
+    public void testSegmentPerSegmentSize()
+            throws Exception
+    {
+        PartitionedOutputBuffer buffer = createOutputBuffer();
+        Operator operator = createOperator(buffer);
+
+        operator.addInput(new Page(createLongSequenceBlock(0, LARGE_PAGE_POSITIONS)));
+        operator.addInput(new Page(createLongSequenceBlock(0, LARGE_PAGE_POSITIONS)));
+        // the segments are written in the background, up to two at a time
+        getFutureValue(operator.isBlocked());
+        assertTrue(operator.needsInput());
+        operator.addInput(new Page(createLongSequenceBlock(0, 1)));
+
+        operator.finish();
+        waitUntilFinished(operator);
+        List<URI> segments = getSegments(buffer);
+        assertEquals(segments.size(), 3);
+        assertThat(readSegment(segments.get(0))).hasSize(LARGE_PAGE_POSITIONS);
+        assertThat(readSegment(segments.get(2))).hasSize(1);
+        operator.close();
+    }
+
+    private static void waitUntilFinished(Operator operator)
+    {
+        while (!operator.isFinished()) {
+            getFutureValue(operator.isBlocked());
+        }
+        assertEquals(operator.getOperatorContext().getOperatorMemoryContext().getUserMemory(), 0);
+    }
+
+    private Operator createOperator(PartitionedOutputBuffer buffer)
+    {
+        DriverContext driverContext = TestingTaskContext.builder(executor, scheduledExecutor, TEST_SESSION)
+                .build()
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        return new SpoolingOutputFactory(buffer, resultSpool, ImmutableList.of("value"))
+                .createOutputOperator(0, new PlanNodeId("plan-node-0"), ImmutableList.of(BIGINT), Function.identity(), serdeFactory)
+                .createOperator(driverContext);
+    }
+
+    private PartitionedOutputBuffer createOutputBuffer()
+    {
+        return new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduledExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                OutputBuffers.createInitialEmptyOutputBuffers(PARTITIONED)
+                        .withBuffer(OUTPUT_BUFFER_ID, BROADCAST_PARTITION_ID)
+                        .withNoMoreBufferIds(),
+                DataSize.ofBytes(Long.MAX_VALUE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                scheduledExecutor);
+    }
+
+    private List<URI> getSegments(PartitionedOutputBuffer buffer)
+    {
+        BufferResult result = getFutureValue(buffer.get(OUTPUT_BUFFER_ID, 0, DataSize.of(1, MEGABYTE)));
+        PagesSerde serde = serdeFactory.createPagesSerde();
+        ImmutableList.Builder<URI> segments = ImmutableList.builder();
+        for (SerializedPage serializedPage : result.getSerializedPages()) {
+            Block block = serde.deserialize(serializedPage).getBlock(0);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                segments.add(URI.create(VARCHAR.getSlice(block, position).toStringUtf8()));
+            }
+        }
+        return segments.build();
+    }
+
+    private List<List<Object>> readSegment(URI segment)
+            throws IOException
+    {
+        String[] path = segment.getPath().split("/");
+        try (InputStream input = resultSpool.readSegment(TEST_SESSION.getQueryId(), path[path.length - 1]).orElseThrow()) {
+            return new ObjectMapperProvider().get().readValue(input, new TypeReference<List<List<Object>>>() {});
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.operator.project;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.connector.ConnectorSession;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import static io.trino.block.BlockAssertions.createLongSequenceBlock;
+import static io.trino.block.BlockAssertions.createLongsBlock;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.testing.TestingConnectorSession.SESSION;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+
+public class TestAdaptiveConjunctsPageFilter
+{
+    @Test
+    public void testInputChannels()
+    {
+        AdaptiveConjunctsPageFilter filter = new AdaptiveConjunctsPageFilter(ImmutableList.of(
+                new TestingLongFilter(5, value -> true, 0),
+                new TestingLongFilter(2, value -> true, 0),
+                new TestingLongFilter(5, value -> true, 0)));
+        assertEquals(filter.getInputChannels().getInputChannels(), ImmutableList.of(2, 5));
+        assertEquals(filter.isDeterministic(), true);
+    }
+
+    @Test
+    public void testSelectedPositions()
+    {
+        AdaptiveConjunctsPageFilter filter = new AdaptiveConjunctsPageFilter(ImmutableList.of(
+                new TestingLongFilter(0, value -> value % 2 == 0, 0),
+                new TestingLongFilter(1, value -> value % 3 == 0, 0),
+                new TestingLongFilter(0, value -> value >= 10, 0)));
+
+        for (int page = 0; page < AdaptiveConjunctsPageFilter.PROFILED_PAGES + 2; page++) {
+            Page input = new Page(createLongSequenceBlock(0, 100), createLongSequenceBlock(0, 100));
+            assertEquals(toList(filter.filter(SESSION, input)), expectedPositions(100, value -> value % 6 == 0 && value >= 10));
+        }
+    }
+
+    @Test
+    public void testCheapSelectiveConjunctMovesToFront()
+    {
+        TestingLongFilter expensive = new TestingLongFilter(0, value -> true, 20);
+        TestingLongFilter cheap = new TestingLongFilter(0, value -> value < 10, 0);
+        AdaptiveConjunctsPageFilter filter = new AdaptiveConjunctsPageFilter(ImmutableList.of(expensive, cheap));
+        assertEquals(filter.getConjunctOrder(), ImmutableList.of(expensive, cheap));
+
+        Page page = new Page(createLongSequenceBlock(0, 100));
+        assertEquals(toList(filter.filter(SESSION, page)), expectedPositions(100, value -> value < 10));
+        assertEquals(filter.getConjunctOrder(), ImmutableList.of(cheap, expensive));
+
+        assertEquals(toList(filter.filter(SESSION, page)), expectedPositions(100, value -> value < 10));
+        assertEquals(expensive.getLastInputPositions(), 10);
+    }
+
+    @Test
+    public void testFailureRevertsToOriginalOrder()
+    {
+        // the first conjunct guards the second one, like "x <> 0 AND 100 / x > 1"
+        TestingLongFilter guard = new TestingLongFilter(0, value -> value != 0, 20);
+        TestingLongFilter division = new TestingLongFilter(0, value -> 100 / value > 10, 0);
+        AdaptiveConjunctsPageFilter filter = new AdaptiveConjunctsPageFilter(ImmutableList.of(guard, division));
+
+        Page withoutZero = new Page(createLongSequenceBlock(1, 20));
+        assertEquals(toList(filter.filter(SESSION, withoutZero)), expectedPositions(19, position -> 100 / (position + 1) > 10));
+        assertEquals(filter.getConjunctOrder(), ImmutableList.of(division, guard));
+
+        Page withZero = new Page(createLongsBlock(5L, 0L, 20L));
+        assertEquals(toList(filter.filter(SESSION, withZero)), ImmutableList.of(0));
+        assertEquals(filter.getConjunctOrder(), ImmutableList.of(guard, division));
+
+        // failures in the original order are not masked
+        AdaptiveConjunctsPageFilter unguarded = new AdaptiveConjunctsPageFilter(ImmutableList.of(
+                new TestingLongFilter(0, value -> 100 / value > 10, 0),
+                new TestingLongFilter(0, value -> value != 0, 0)));
+        assertThatThrownBy(() -> unguarded.filter(SESSION, withZero))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    private static List<Integer> expectedPositions(int positionCount, LongPredicate predicate)
+    {
+        List<Integer> positions = new ArrayList<>();
+        for (int position = 0; position < positionCount; position++) {
+            if (predicate.test(position)) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    private static List<Integer> toList(SelectedPositions selectedPositions)
+    {
+        List<Integer> positions = new ArrayList<>();
+        for (int index = 0; index < selectedPositions.size(); index++) {
+            if (selectedPositions.isList()) {
+                positions.add(selectedPositions.getPositions()[selectedPositions.getOffset() + index]);
+            }
+            else {
+                positions.add(selectedPositions.getOffset() + index);
+            }
+        }
+        return positions;
+    }
+
+    private static class TestingLongFilter
+            implements PageFilter
+    {
+        private final InputChannels inputChannels;
+        private final LongPredicate predicate;
+        private final long delayMillis;
+        private int lastInputPositions;
+
+        public TestingLongFilter(int channel, LongPredicate predicate, long delayMillis)
+        {
+            this.inputChannels = new InputChannels(channel);
+            this.predicate = predicate;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public InputChannels getInputChannels()
+        {
+            return inputChannels;
+        }
+
+        @Override
+        public SelectedPositions filter(ConnectorSession session, Page page)
+        {
+            if (delayMillis > 0) {
+                try {
+                    MILLISECONDS.sleep(delayMillis);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            lastInputPositions = page.getPositionCount();
+            Block block = page.getBlock(0);
+            boolean[] selected = new boolean[page.getPositionCount()];
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                selected[position] = predicate.test(BIGINT.getLong(block, position));
+            }
+            return PageFilter.positionsArrayToSelectedPositions(selected, page.getPositionCount());
+        }
+
+        public int getLastInputPositions()
+        {
+            return lastInputPositions;
+        }
+    }
+}
@@ -101,6 +101,9 @@ public class BenchmarkBinaryFileSpiller
         @Param("true")
         private boolean encryptionEnabled;
 
+        @Param({"false", "true"})
+        private boolean lightweightEncodingEnabled;
+
         private List<Page> pages;
         private Spiller readSpiller;
 
@@ -118,7 +121,8 @@ public class BenchmarkBinaryFileSpiller
                     ImmutableList.of(SPILL_PATH),
                     1.0,
                     compressionEnabled,
-                    encryptionEnabled);
+                    encryptionEnabled,
+                    lightweightEncodingEnabled);
             spillerFactory = new GenericSpillerFactory(singleStreamSpillerFactory);
             pages = createInputPages();
             readSpiller = spillerFactory.create(TYPES, bytes -> {}, newSimpleAggregatedMemoryContext());
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.ObjectMapperProvider;
+import io.trino.metadata.InMemoryNodeManager;
+import io.trino.spi.QueryId;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.trino.RowPagesBuilder.rowPagesBuilder;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestResultSpool
+{
+    private static final URI NODE_URI = URI.create("http://worker:8080");
+
+    private final ObjectMapper objectMapper = new ObjectMapperProvider().get();
+    private Path directory;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        directory = Files.createTempDirectory("result-spool");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testSegments()
+            throws IOException
+    {
+        ResultSpool spool = createResultSpool();
+        QueryId queryId = new QueryId("spooled");
+        List<List<Object>> rows = ImmutableList.of(ImmutableList.of(1, "a"), Arrays.asList(2, null));
+
+        String first = getSegmentId(spool.writeSegment(queryId, rows));
+        String second = getSegmentId(spool.writeSegment(queryId, ImmutableList.of()));
+        assertEquals(readSegment(spool, queryId, first), ImmutableList.of(ImmutableList.of(1, "a"), Arrays.asList(2, null)));
+        assertEquals(readSegment(spool, queryId, second), ImmutableList.of());
+
+        spool.deleteSegment(queryId, first);
+        assertTrue(spool.readSegment(queryId, first).isEmpty());
+        assertTrue(spool.readSegment(queryId, second).isPresent());
+
+        spool.deleteSegments(queryId);
+        assertTrue(spool.readSegment(queryId, second).isEmpty());
+        assertFalse(Files.exists(spool.getQueryDirectory(queryId)));
+    }
+
+    @Test
+    public void testSegmentFromPages()
+            throws IOException
+    {
+        ResultSpool spool = createResultSpool();
+        URI segment = spool.writeSegment(
+                TEST_SESSION,
+                ImmutableList.of("key", "name"),
+                ImmutableList.of(BIGINT, VARCHAR),
+                rowPagesBuilder(BIGINT, VARCHAR)
+                        .row(1L, "a")
+                        .pageBreak()
+                        .row(2L, null)
+                        .build());
+
+        // the segment is served by the node which wrote it
+        assertThat(segment.toString()).startsWith(NODE_URI + "/v1/spooled/" + TEST_SESSION.getQueryId() + "/");
+        assertEquals(readSegment(spool, TEST_SESSION.getQueryId(), getSegmentId(segment)), ImmutableList.of(ImmutableList.of(1, "a"), Arrays.asList(2, null)));
+    }
+
+    @Test
+    public void testInvalidSegmentId()
+    {
+        ResultSpool spool = createResultSpool();
+        QueryId queryId = new QueryId("invalid");
+        spool.writeSegment(queryId, ImmutableList.of(ImmutableList.of(1)));
+
+        assertTrue(spool.readSegment(queryId, "../invalid").isEmpty());
+        assertTrue(spool.readSegment(queryId, "0").isEmpty());
+    }
+
+    @Test
+    public void testCleanupOldSegments()
+            throws IOException
+    {
+        ResultSpool spool = createResultSpool();
+        QueryId queryId = new QueryId("restarted");
+        String segmentId = getSegmentId(spool.writeSegment(queryId, ImmutableList.of(ImmutableList.of(1))));
+        Path unrelatedFile = Files.createFile(directory.resolve("unrelated.txt"));
+        Path unrelatedNodeFile = Files.createFile(spool.getQueryDirectory(queryId).resolveSibling("Unrelated.txt"));
+
+        createResultSpool().cleanupOldSegments();
+        assertTrue(spool.readSegment(queryId, segmentId).isEmpty());
+        assertTrue(Files.exists(unrelatedFile));
+        assertTrue(Files.exists(unrelatedNodeFile));
+
+        Files.delete(unrelatedFile);
+        Files.delete(unrelatedNodeFile);
+    }
+
+    @Test
+    public void testRemoveExpiredSegments()
+            throws IOException
+    {
+        ResultSpool spool = createResultSpool();
+        QueryId expiredQueryId = new QueryId("expired");
+        String expired = getSegmentId(spool.writeSegment(expiredQueryId, ImmutableList.of(ImmutableList.of(1))));
+        QueryId queryId = new QueryId("not_expired");
+        String notExpired = getSegmentId(spool.writeSegment(queryId, ImmutableList.of(ImmutableList.of(2))));
+
+        FileTime expiredTime = FileTime.fromMillis(System.currentTimeMillis() - HOURS.toMillis(2));
+        Files.setLastModifiedTime(spool.getQueryDirectory(expiredQueryId).resolve(expired + ".json"), expiredTime);
+        Files.setLastModifiedTime(spool.getQueryDirectory(expiredQueryId), expiredTime);
+
+        spool.removeExpiredSegments(System.currentTimeMillis());
+        assertTrue(spool.readSegment(expiredQueryId, expired).isEmpty());
+        assertFalse(Files.exists(spool.getQueryDirectory(expiredQueryId)));
+        assertTrue(spool.readSegment(queryId, notExpired).isPresent());
+
+        spool.deleteSegments(queryId);
+    }
+
+    @Test
+    public void testDirectoryRequired()
+    {
+        assertThatThrownBy(() -> new ResultSpool(new SpoolingConfig().setEnabled(true), objectMapper, new InMemoryNodeManager(NODE_URI)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("protocol.spooling.directory must be set when spooling is enabled");
+    }
+
+    private ResultSpool createResultSpool()
+    {
+        return new ResultSpool(
+                new SpoolingConfig()
+                        .setEnabled(true)
+                        .setDirectory(directory.toString()),
+                objectMapper,
+                new InMemoryNodeManager(NODE_URI));
+    }
+
+    private static String getSegmentId(URI segment)
+    {
+        String path = segment.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private List<Object> readSegment(ResultSpool spool, QueryId queryId, String segmentId)
+            throws IOException
+    {
+        try (InputStream input = spool.readSegment(queryId, segmentId).orElseThrow()) {
+            return objectMapper.readValue(input, new TypeReference<List<Object>>() {});
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import com.google.common.hash.Hashing;
+import io.airlift.units.Duration;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.trino.spi.QueryId;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Date;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSegmentUriSigner
+{
+    private static final QueryId QUERY_ID = new QueryId("query");
+    private static final String SEGMENT_ID = "0123456789abcdef0123456789abcdef";
+    private static final URI SEGMENT = URI.create("http://worker:8080/v1/spooled/query/" + SEGMENT_ID);
+
+    @Test
+    public void testSignedUri()
+    {
+        SegmentUriSigner signer = new SegmentUriSigner("secret", new Duration(1, MINUTES));
+        URI signed = signer.sign(QUERY_ID, SEGMENT);
+        assertEquals(signed.getPath(), SEGMENT.getPath());
+        assertEquals(signed.getHost(), SEGMENT.getHost());
+
+        String token = getToken(signed);
+        assertTrue(signer.isValid(QUERY_ID, SEGMENT_ID, token));
+        // a node with the same shared secret accepts the token
+        assertTrue(new SegmentUriSigner("secret", new Duration(1, SECONDS)).isValid(QUERY_ID, SEGMENT_ID, token));
+    }
+
+    @Test
+    public void testInvalidToken()
+    {
+        SegmentUriSigner signer = new SegmentUriSigner("secret", new Duration(1, MINUTES));
+        String token = getToken(signer.sign(QUERY_ID, SEGMENT));
+
+        assertFalse(signer.isValid(QUERY_ID, SEGMENT_ID, null));
+        assertFalse(signer.isValid(QUERY_ID, SEGMENT_ID, ""));
+        assertFalse(signer.isValid(QUERY_ID, SEGMENT_ID, "invalid"));
+        assertFalse(signer.isValid(new QueryId("other_query"), SEGMENT_ID, token));
+        assertFalse(signer.isValid(QUERY_ID, "fedcba9876543210fedcba9876543210", token));
+        assertFalse(new SegmentUriSigner("other secret", new Duration(1, MINUTES)).isValid(QUERY_ID, SEGMENT_ID, token));
+    }
+
+    @Test
+    public void testExpiredToken()
+            throws InterruptedException
+    {
+        SegmentUriSigner signer = new SegmentUriSigner("secret", new Duration(0, SECONDS));
+        String token = getToken(signer.sign(QUERY_ID, SEGMENT));
+        // the expiration is truncated to seconds, so it is at most the time of signing
+        Thread.sleep(1);
+        assertFalse(signer.isValid(QUERY_ID, SEGMENT_ID, token));
+    }
+
+    @Test
+    public void testInternalTokenNotAccepted()
+    {
+        // a token signed like the tokens of the internal communication is not a segment token
+        String token = Jwts.builder()
+                .signWith(SignatureAlgorithm.HS256, Hashing.sha256().hashString("secret", UTF_8).asBytes())
+                .setSubject(QUERY_ID + "/" + SEGMENT_ID)
+                .setExpiration(new Date(System.currentTimeMillis() + MINUTES.toMillis(1)))
+                .compact();
+        assertFalse(new SegmentUriSigner("secret", new Duration(1, MINUTES)).isValid(QUERY_ID, SEGMENT_ID, token));
+    }
+
+    private static String getToken(URI segment)
+    {
+        assertThat(segment.getQuery()).startsWith(SegmentUriSigner.TOKEN_PARAMETER + "=");
+        return segment.getQuery().substring(SegmentUriSigner.TOKEN_PARAMETER.length() + 1);
+    }
+}
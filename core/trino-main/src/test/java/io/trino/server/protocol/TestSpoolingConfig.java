@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.protocol;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
+import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class TestSpoolingConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        assertRecordedDefaults(recordDefaults(SpoolingConfig.class)
+                .setEnabled(false)
+                .setDirectory(null)
+                .setSegmentSize(DataSize.of(16, MEGABYTE))
+                .setMaxSegmentsPerResponse(16)
+                .setMaxSegmentAge(new Duration(1, HOURS))
+                .setSegmentUriExpiration(new Duration(5, MINUTES)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("protocol.spooling.enabled", "true")
+                .put("protocol.spooling.directory", "/tmp/spool")
+                .put("protocol.spooling.segment-size", "64MB")
+                .put("protocol.spooling.max-segments-per-response", "4")
+                .put("protocol.spooling.max-segment-age", "10m")
+                .put("protocol.spooling.segment-uri-expiration", "30s")
+                .build();
+
+        SpoolingConfig expected = new SpoolingConfig()
+                .setEnabled(true)
+                .setDirectory("/tmp/spool")
+                .setSegmentSize(DataSize.of(64, MEGABYTE))
+                .setMaxSegmentsPerResponse(4)
+                .setMaxSegmentAge(new Duration(10, MINUTES))
+                .setSegmentUriExpiration(new Duration(30, SECONDS));
+
+        assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.remotetask;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.trino.execution.TaskId;
+import io.trino.execution.TaskInfo;
+import io.trino.jmh.Benchmarks;
+import io.trino.server.smile.SmileCodec;
+import io.trino.server.smile.SmileCodecFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.trino.execution.TaskInfo.createInitialTask;
+import static io.trino.operator.TestTaskStats.EXPECTED;
+
+/**
+ * Measures the coordinator CPU spent on encoding and decoding the {@link TaskInfo}
+ * of a fleet of tasks, one task per worker, with the per-operator statistics included.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTaskInfoCodec
+{
+    private static final int TASKS = 200;
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object encode(BenchmarkData data)
+    {
+        long bytes = 0;
+        for (TaskInfo taskInfo : data.getTaskInfos()) {
+            bytes += data.getCodec().encode(taskInfo).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public Object decode(BenchmarkData data)
+    {
+        ImmutableList.Builder<TaskInfo> taskInfos = ImmutableList.builder();
+        for (byte[] encoded : data.getEncodedTaskInfos()) {
+            taskInfos.add(data.decode(encoded));
+        }
+        return taskInfos.build();
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"json", "smile"})
+        private String encoding = "json";
+
+        private RemoteTaskCodec<TaskInfo> codec;
+        private Function<byte[], TaskInfo> decoder;
+        private List<TaskInfo> taskInfos;
+        private List<byte[]> encodedTaskInfos;
+
+        @Setup
+        public void setup()
+        {
+            switch (encoding) {
+                case "json":
+                    JsonCodec<TaskInfo> jsonCodec = jsonCodec(TaskInfo.class);
+                    codec = RemoteTaskCodec.jsonCodec(jsonCodec);
+                    decoder = jsonCodec::fromJson;
+                    break;
+                case "smile":
+                    SmileCodec<TaskInfo> smileCodec = new SmileCodecFactory(new ObjectMapperProvider().get()).smileCodec(TaskInfo.class);
+                    codec = RemoteTaskCodec.smileCodec(smileCodec);
+                    decoder = smileCodec::fromSmile;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+            }
+
+            ImmutableList.Builder<TaskInfo> taskInfos = ImmutableList.builder();
+            ImmutableList.Builder<byte[]> encodedTaskInfos = ImmutableList.builder();
+            for (int i = 0; i < TASKS; i++) {
+                TaskId taskId = new TaskId("query", 1, i);
+                URI location = URI.create("http://worker" + i + ":8080/v1/task/" + taskId);
+                TaskInfo taskInfo = createInitialTask(taskId, location, "worker" + i, ImmutableList.of(), EXPECTED);
+                taskInfos.add(taskInfo);
+                encodedTaskInfos.add(codec.encode(taskInfo));
+            }
+            this.taskInfos = taskInfos.build();
+            this.encodedTaskInfos = encodedTaskInfos.build();
+        }
+
+        public RemoteTaskCodec<TaskInfo> getCodec()
+        {
+            return codec;
+        }
+
+        public List<TaskInfo> getTaskInfos()
+        {
+            return taskInfos;
+        }
+
+        public List<byte[]> getEncodedTaskInfos()
+        {
+            return encodedTaskInfos;
+        }
+
+        public TaskInfo decode(byte[] encoded)
+        {
+            return decoder.apply(encoded);
+        }
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        Benchmarks.benchmark(BenchmarkTaskInfoCodec.class).run();
+    }
+}
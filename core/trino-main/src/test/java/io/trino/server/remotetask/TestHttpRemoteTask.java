@@ -13,6 +13,7 @@
  */
 package io.trino.server.remotetask;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
@@ -54,7 +55,10 @@ import io.trino.metadata.Metadata;
 import io.trino.metadata.Split;
 import io.trino.server.DynamicFilterService;
 import io.trino.server.HttpRemoteTaskFactory;
+import io.trino.server.InternalCommunicationConfig;
 import io.trino.server.TaskUpdateRequest;
+import io.trino.server.smile.SmileCodecFactory;
+import io.trino.server.smile.SmileMapper;
 import io.trino.spi.ErrorCode;
 import io.trino.spi.QueryId;
 import io.trino.spi.block.Block;
@@ -110,6 +114,7 @@ import static io.airlift.json.JsonBinder.jsonBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static io.airlift.testing.Assertions.assertGreaterThanOrEqual;
 import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.TrinoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.trino.execution.DynamicFiltersCollector.INITIAL_DYNAMIC_FILTERS_VERSION;
 import static io.trino.execution.TaskTestUtils.TABLE_SCAN_NODE_ID;
 import static io.trino.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
@@ -166,11 +171,27 @@ public class TestHttpRemoteTask
     @Test(timeOut = 30000)
     public void testRegular()
             throws Exception
+    {
+        runRegularTest(false);
+    }
+
+    @Test(timeOut = 30000)
+    public void testRegularWithBinaryTransport()
+            throws Exception
+    {
+        runRegularTest(true);
+    }
+
+    private void runRegularTest(boolean binaryTransportEnabled)
+            throws Exception
     {
         AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
         TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, FailureScenario.NO_FAILURE);
 
-        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(
+                testingTaskResource,
+                new DynamicFilterService(createTestMetadataManager(), new TypeOperators(), new DynamicFilterConfig()),
+                binaryTransportEnabled);
 
         RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory, ImmutableSet.of());
 
@@ -425,6 +446,11 @@ public class TestHttpRemoteTask
     }
 
     private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource, DynamicFilterService dynamicFilterService)
+    {
+        return createHttpRemoteTaskFactory(testingTaskResource, dynamicFilterService, false);
+    }
+
+    private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource, DynamicFilterService dynamicFilterService, boolean binaryTransportEnabled)
     {
         Bootstrap app = new Bootstrap(
                 new JsonModule(),
@@ -454,24 +480,27 @@ public class TestHttpRemoteTask
 
                     @Provides
                     private HttpRemoteTaskFactory createHttpRemoteTaskFactory(
+                            ObjectMapper objectMapper,
                             JsonMapper jsonMapper,
                             JsonCodec<TaskStatus> taskStatusCodec,
                             JsonCodec<VersionedDynamicFilterDomains> dynamicFilterDomainsCodec,
                             JsonCodec<TaskInfo> taskInfoCodec,
                             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
                     {
-                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper);
+                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper, new SmileMapper(objectMapper));
                         TestingHttpClient testingHttpClient = new TestingHttpClient(jaxrsTestingHttpProcessor.setTrace(TRACE_HTTP));
                         testingTaskResource.setHttpClient(testingHttpClient);
                         return new HttpRemoteTaskFactory(
                                 new QueryManagerConfig(),
                                 TASK_MANAGER_CONFIG,
+                                new InternalCommunicationConfig().setBinaryTransportEnabled(binaryTransportEnabled),
                                 testingHttpClient,
                                 new TestSqlTaskManager.MockLocationFactory(),
                                 taskStatusCodec,
                                 dynamicFilterDomainsCodec,
                                 taskInfoCodec,
                                 taskUpdateRequestCodec,
+                                new SmileCodecFactory(objectMapper),
                                 new RemoteTaskStats(),
                                 dynamicFilterService);
                     }
@@ -564,7 +593,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo getTaskInfo(
                 @PathParam("taskId") TaskId taskId,
                 @HeaderParam(TRINO_CURRENT_VERSION) Long currentVersion,
@@ -579,8 +608,8 @@ public class TestHttpRemoteTask
 
         @POST
         @Path("{taskId}")
-        @Consumes(MediaType.APPLICATION_JSON)
-        @Produces(MediaType.APPLICATION_JSON)
+        @Consumes({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo createOrUpdateTask(
                 @PathParam("taskId") TaskId taskId,
                 TaskUpdateRequest taskUpdateRequest,
@@ -609,7 +638,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}/status")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskStatus getTaskStatus(
                 @PathParam("taskId") TaskId taskId,
                 @HeaderParam(TRINO_CURRENT_VERSION) Long currentVersion,
@@ -625,7 +654,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}/dynamicfilters")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized VersionedDynamicFilterDomains acknowledgeAndGetNewDynamicFilterDomains(
                 @PathParam("taskId") TaskId taskId,
                 @HeaderParam(TRINO_CURRENT_VERSION) Long currentDynamicFiltersVersion,
@@ -637,7 +666,7 @@ public class TestHttpRemoteTask
 
         @DELETE
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo deleteTask(
                 @PathParam("taskId") TaskId taskId,
                 @QueryParam("abort") @DefaultValue("true") boolean abort,
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.server.smile;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.trino.execution.TaskId;
+import io.trino.execution.TaskInfo;
+import io.trino.execution.TaskStatus;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.trino.execution.TaskInfo.createInitialTask;
+import static io.trino.execution.TaskStatus.initialTaskStatus;
+import static io.trino.operator.TestTaskStats.EXPECTED;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSmileCodec
+{
+    private static final URI LOCATION = URI.create("http://localhost:8080/v1/task/test.1.2");
+
+    private final SmileCodecFactory smileCodecFactory = new SmileCodecFactory(new ObjectMapperProvider().get());
+
+    @Test
+    public void testTaskStatusRoundTrip()
+    {
+        assertRoundTrip(TaskStatus.class, initialTaskStatus(new TaskId("test", 1, 2), LOCATION, "node"));
+    }
+
+    @Test
+    public void testTaskInfoRoundTrip()
+    {
+        TaskInfo taskInfo = createInitialTask(new TaskId("test", 1, 2), LOCATION, "node", ImmutableList.of(), EXPECTED);
+        byte[] smile = assertRoundTrip(TaskInfo.class, taskInfo);
+        assertTrue(smile.length < jsonCodec(TaskInfo.class).toJsonBytes(taskInfo).length, "Smile encoding is not smaller than JSON");
+    }
+
+    @Test
+    public void testInvalidBytes()
+    {
+        SmileCodec<TaskStatus> codec = smileCodecFactory.smileCodec(TaskStatus.class);
+        assertThatThrownBy(() -> codec.fromSmile(new byte[] {1, 2, 3}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid Smile bytes");
+    }
+
+    private <T> byte[] assertRoundTrip(Class<T> type, T value)
+    {
+        SmileCodec<T> smileCodec = smileCodecFactory.smileCodec(type);
+        JsonCodec<T> jsonCodec = jsonCodec(type);
+
+        byte[] smile = smileCodec.toSmile(value);
+        T decoded = smileCodec.fromSmile(smile);
+        // the types do not implement equals, so compare their JSON representation
+        assertEquals(jsonCodec.toJson(decoded), jsonCodec.toJson(value));
+        return smile;
+    }
+}
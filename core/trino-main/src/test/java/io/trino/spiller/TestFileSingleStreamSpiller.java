@@ -78,31 +78,45 @@ public class TestFileSingleStreamSpiller
     public void testSpill()
             throws Exception
     {
-        assertSpill(false, false);
+        assertSpill(false, false, false);
     }
 
     @Test
     public void testSpillCompression()
             throws Exception
     {
-        assertSpill(true, false);
+        assertSpill(true, false, false);
     }
 
     @Test
     public void testSpillEncryption()
             throws Exception
     {
-        assertSpill(false, true);
+        assertSpill(false, true, false);
     }
 
     @Test
     public void testSpillEncryptionWithCompression()
             throws Exception
     {
-        assertSpill(true, true);
+        assertSpill(true, true, false);
     }
 
-    private void assertSpill(boolean compression, boolean encryption)
+    @Test
+    public void testSpillLightweightEncoding()
+            throws Exception
+    {
+        assertSpill(false, false, true);
+    }
+
+    @Test
+    public void testSpillLightweightEncodingWithCompressionAndEncryption()
+            throws Exception
+    {
+        assertSpill(true, true, true);
+    }
+
+    private void assertSpill(boolean compression, boolean encryption, boolean lightweightEncoding)
             throws Exception
     {
         FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
@@ -112,7 +126,8 @@ public class TestFileSingleStreamSpiller
                 ImmutableList.of(spillPath.toPath()),
                 1.0,
                 compression,
-                encryption);
+                encryption,
+                lightweightEncoding);
         LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
         SingleStreamSpiller singleStreamSpiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext);
         assertTrue(singleStreamSpiller instanceof FileSingleStreamSpiller);
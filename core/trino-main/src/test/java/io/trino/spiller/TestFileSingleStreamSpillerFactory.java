@@ -269,6 +269,7 @@ public class TestFileSingleStreamSpillerFactory
                 paths,
                 maxUsedSpaceThreshold,
                 false,
+                false,
                 false);
     }
 }
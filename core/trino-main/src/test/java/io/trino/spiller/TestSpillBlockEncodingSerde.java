@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.spiller;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slices;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.BlockEncodingSerde;
+import io.trino.spi.block.DictionaryBlock;
+import io.trino.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static io.trino.block.BlockAssertions.assertBlockEquals;
+import static io.trino.block.BlockAssertions.createEmptyLongsBlock;
+import static io.trino.block.BlockAssertions.createIntsBlock;
+import static io.trino.block.BlockAssertions.createLongSequenceBlock;
+import static io.trino.block.BlockAssertions.createLongsBlock;
+import static io.trino.block.BlockAssertions.createRandomLongsBlock;
+import static io.trino.block.BlockAssertions.createRandomStringBlock;
+import static io.trino.block.BlockAssertions.createStringsBlock;
+import static io.trino.metadata.MetadataManager.createTestMetadataManager;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.IntegerType.INTEGER;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+
+public class TestSpillBlockEncodingSerde
+{
+    private final BlockEncodingSerde blockEncodingSerde = createTestMetadataManager().getBlockEncodingSerde();
+    private final BlockEncodingSerde spillBlockEncodingSerde = new SpillBlockEncodingSerde(blockEncodingSerde);
+
+    @Test
+    public void testLongs()
+    {
+        assertRoundTrip(BIGINT, createEmptyLongsBlock());
+        assertRoundTrip(BIGINT, createLongsBlock(42L));
+        assertRoundTrip(BIGINT, createLongsBlock(1L, null, 3L, null, null));
+        assertRoundTrip(BIGINT, createLongsBlock(null, null, null));
+        assertRoundTrip(BIGINT, createLongsBlock(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, null));
+        assertRoundTrip(BIGINT, createRandomLongsBlock(1000, 0.3f));
+        assertRoundTrip(BIGINT, createLongSequenceBlock(-500, 500));
+    }
+
+    @Test
+    public void testInts()
+    {
+        assertRoundTrip(INTEGER, createIntsBlock(1, null, -3, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertRoundTrip(INTEGER, createIntsBlock(7, 7, 7, 7));
+    }
+
+    @Test
+    public void testStrings()
+    {
+        assertRoundTrip(VARCHAR, createStringsBlock("a", "b", null, "a", "b", "a", null, ""));
+        assertRoundTrip(VARCHAR, createStringsBlock("single"));
+        assertRoundTrip(VARCHAR, createRandomStringBlock(1000, 0.2f, 20));
+
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeSlice(blockBuilder, Slices.utf8Slice(i % 3 == 0 ? "open" : "closed"));
+        }
+        Block block = blockBuilder.build();
+        assertThat(assertRoundTrip(VARCHAR, block)).isInstanceOf(DictionaryBlock.class);
+    }
+
+    @Test
+    public void testEncodedSizes()
+    {
+        // sorted sequence is delta encoded with a bit width of zero
+        assertThat(serializedSize(spillBlockEncodingSerde, createLongSequenceBlock(0, 10_000)))
+                .isLessThan(serializedSize(blockEncodingSerde, createLongSequenceBlock(0, 10_000)) / 100);
+
+        // small values need a few bits each
+        long[] values = new long[10_000];
+        Arrays.setAll(values, i -> i % 16);
+        Block smallValues = createLongsBlock(Arrays.stream(values).boxed().toArray(Long[]::new));
+        assertThat(serializedSize(spillBlockEncodingSerde, smallValues))
+                .isLessThan(serializedSize(blockEncodingSerde, smallValues) / 10);
+    }
+
+    @Test
+    public void testBitPacking()
+    {
+        for (int bitWidth = 0; bitWidth <= Long.SIZE; bitWidth++) {
+            long mask = bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+            long[] values = new long[131];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (i * 0x9E3779B97F4A7C15L) & mask;
+            }
+            DynamicSliceOutput output = new DynamicSliceOutput(0);
+            SpillBlockEncodingSerde.writeBitPacked(output, values, bitWidth);
+            assertEquals(SpillBlockEncodingSerde.readBitPacked(output.slice().getInput(), values.length), values);
+        }
+    }
+
+    @Test
+    public void testBitWidth()
+    {
+        assertEquals(SpillBlockEncodingSerde.bitWidth(0), 0);
+        assertEquals(SpillBlockEncodingSerde.bitWidth(1), 1);
+        assertEquals(SpillBlockEncodingSerde.bitWidth(255), 8);
+        assertEquals(SpillBlockEncodingSerde.bitWidth(-1), 64);
+    }
+
+    private Block assertRoundTrip(Type type, Block block)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(0);
+        spillBlockEncodingSerde.writeBlock(output, block);
+        Block actual = spillBlockEncodingSerde.readBlock(output.slice().getInput());
+        assertBlockEquals(type, actual, block);
+        return actual;
+    }
+
+    private static int serializedSize(BlockEncodingSerde serde, Block block)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(0);
+        serde.writeBlock(output, block);
+        return output.size();
+    }
+}
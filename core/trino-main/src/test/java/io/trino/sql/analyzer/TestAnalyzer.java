@@ -25,6 +25,7 @@ import io.trino.connector.system.SystemConnector;
 import io.trino.execution.DynamicFilterConfig;
 import io.trino.execution.QueryManagerConfig;
 import io.trino.execution.TaskManagerConfig;
+import io.trino.execution.resultcache.LeafResultCacheConfig;
 import io.trino.execution.scheduler.NodeSchedulerConfig;
 import io.trino.execution.warnings.WarningCollector;
 import io.trino.memory.MemoryManagerConfig;
@@ -865,7 +866,8 @@ public class TestAnalyzer
                 new FeaturesConfig().setMaxGroupingSets(2048),
                 new NodeMemoryConfig(),
                 new DynamicFilterConfig(),
-                new NodeSchedulerConfig()))).build();
+                new NodeSchedulerConfig(),
+                new LeafResultCacheConfig()))).build();
         analyze(session, "SELECT a, b, c, d, e, f, g, h, i, j, k, SUM(l)" +
                 "FROM (VALUES (1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12))\n" +
                 "t (a, b, c, d, e, f, g, h, i, j, k, l)\n" +
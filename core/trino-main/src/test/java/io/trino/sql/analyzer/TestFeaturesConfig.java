@@ -19,6 +19,8 @@ import io.airlift.units.Duration;
 import io.trino.sql.analyzer.FeaturesConfig.DataIntegrityVerification;
 import io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import io.trino.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
+import io.trino.sql.analyzer.FeaturesConfig.MemoryRevokingStrategy;
+import io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -33,6 +35,7 @@ import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAS
 import static io.trino.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.NONE;
 import static io.trino.sql.analyzer.RegexLibrary.JONI;
 import static io.trino.sql.analyzer.RegexLibrary.RE2J;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -47,6 +50,8 @@ public class TestFeaturesConfig
                 .setNetworkCostWeight(15)
                 .setDistributedIndexJoinsEnabled(false)
                 .setJoinMaxBroadcastTableSize(DataSize.of(100, MEGABYTE))
+                .setJoinSizeHistoryEnabled(false)
+                .setJoinSizeHistoryTtl(new Duration(1, HOURS))
                 .setJoinDistributionType(JoinDistributionType.AUTOMATIC)
                 .setGroupedExecutionEnabled(false)
                 .setDynamicScheduleForGroupedExecutionEnabled(false)
@@ -54,7 +59,10 @@ public class TestFeaturesConfig
                 .setColocatedJoinsEnabled(false)
                 .setSpatialJoinsEnabled(true)
                 .setJoinReorderingStrategy(JoinReorderingStrategy.AUTOMATIC)
+                .setMergeJoinStrategy(MergeJoinStrategy.DISABLED)
+                .setMergeJoinMaxRunSize(DataSize.of(256, MEGABYTE))
                 .setMaxReorderedJoins(9)
+                .setMaxGreedyReorderedJoins(0)
                 .setRedistributeWrites(true)
                 .setUsePreferredWritePartitioning(true)
                 .setPreferredWritePartitioningMinNumberOfPartitions(50)
@@ -76,6 +84,7 @@ public class TestFeaturesConfig
                 .setSpillMaxUsedSpaceThreshold(0.9)
                 .setMemoryRevokingThreshold(0.9)
                 .setMemoryRevokingTarget(0.5)
+                .setMemoryRevokingStrategy(MemoryRevokingStrategy.ORDER_BY_CREATE_TIME)
                 .setOptimizeMixedDistinctAggregations(false)
                 .setUnwrapCasts(true)
                 .setIterativeOptimizerTimeout(new Duration(3, MINUTES))
@@ -113,7 +122,8 @@ public class TestFeaturesConfig
                 .setUseLegacyWindowFilterPushdown(false)
                 .setUseTableScanNodePartitioning(true)
                 .setTableScanNodePartitioningMinBucketToTaskRatio(0.5)
-                .setMergeProjectWithValues(true));
+                .setMergeProjectWithValues(true)
+                .setMaterializedViewQueryRewriteEnabled(false));
     }
 
     @Test
@@ -133,13 +143,18 @@ public class TestFeaturesConfig
                 .put("distributed-index-joins-enabled", "true")
                 .put("join-distribution-type", "BROADCAST")
                 .put("join-max-broadcast-table-size", "42GB")
+                .put("join-size-history-enabled", "true")
+                .put("join-size-history-ttl", "10m")
                 .put("grouped-execution-enabled", "true")
                 .put("dynamic-schedule-for-grouped-execution", "true")
                 .put("concurrent-lifespans-per-task", "1")
                 .put("colocated-joins-enabled", "true")
                 .put("spatial-joins-enabled", "false")
                 .put("optimizer.join-reordering-strategy", "NONE")
+                .put("optimizer.merge-join-strategy", "PRESORTED")
+                .put("optimizer.merge-join-max-run-size", "64MB")
                 .put("optimizer.max-reordered-joins", "5")
+                .put("optimizer.max-greedy-reordered-joins", "30")
                 .put("redistribute-writes", "false")
                 .put("use-preferred-write-partitioning", "false")
                 .put("preferred-write-partitioning-min-number-of-partitions", "10")
@@ -165,6 +180,7 @@ public class TestFeaturesConfig
                 .put("spiller-max-used-space-threshold", "0.8")
                 .put("memory-revoking-threshold", "0.2")
                 .put("memory-revoking-target", "0.8")
+                .put("memory-revoking-strategy", "COST_BASED")
                 .put("exchange.compression-enabled", "true")
                 .put("exchange.data-integrity-verification", "RETRY")
                 .put("deprecated.legacy-row-to-json-cast", "true")
@@ -192,6 +208,7 @@ public class TestFeaturesConfig
                 .put("optimizer.use-table-scan-node-partitioning", "false")
                 .put("optimizer.table-scan-node-partitioning-min-bucket-to-task-ratio", "0.0")
                 .put("optimizer.merge-project-with-values", "false")
+                .put("optimizer.materialized-view-query-rewrite-enabled", "true")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -207,13 +224,18 @@ public class TestFeaturesConfig
                 .setDistributedIndexJoinsEnabled(true)
                 .setJoinDistributionType(BROADCAST)
                 .setJoinMaxBroadcastTableSize(DataSize.of(42, GIGABYTE))
+                .setJoinSizeHistoryEnabled(true)
+                .setJoinSizeHistoryTtl(new Duration(10, MINUTES))
                 .setGroupedExecutionEnabled(true)
                 .setDynamicScheduleForGroupedExecutionEnabled(true)
                 .setConcurrentLifespansPerTask(1)
                 .setColocatedJoinsEnabled(true)
                 .setSpatialJoinsEnabled(false)
                 .setJoinReorderingStrategy(NONE)
+                .setMergeJoinStrategy(MergeJoinStrategy.PRESORTED)
+                .setMergeJoinMaxRunSize(DataSize.of(64, MEGABYTE))
                 .setMaxReorderedJoins(5)
+                .setMaxGreedyReorderedJoins(30)
                 .setRedistributeWrites(false)
                 .setUsePreferredWritePartitioning(false)
                 .setPreferredWritePartitioningMinNumberOfPartitions(10)
@@ -239,6 +261,7 @@ public class TestFeaturesConfig
                 .setSpillMaxUsedSpaceThreshold(0.8)
                 .setMemoryRevokingThreshold(0.2)
                 .setMemoryRevokingTarget(0.8)
+                .setMemoryRevokingStrategy(MemoryRevokingStrategy.COST_BASED)
                 .setExchangeCompressionEnabled(true)
                 .setExchangeDataIntegrityVerification(DataIntegrityVerification.RETRY)
                 .setLegacyRowToJsonCast(true)
@@ -266,7 +289,8 @@ public class TestFeaturesConfig
                 .setUseLegacyWindowFilterPushdown(true)
                 .setUseTableScanNodePartitioning(false)
                 .setTableScanNodePartitioningMinBucketToTaskRatio(0.0)
-                .setMergeProjectWithValues(false);
+                .setMergeProjectWithValues(false)
+                .setMaterializedViewQueryRewriteEnabled(true);
         assertFullMapping(properties, expected);
     }
 }
@@ -43,6 +43,7 @@ import org.testng.annotations.Test;
 
 import java.util.Optional;
 
+import static io.trino.SystemSessionProperties.MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED;
 import static io.trino.connector.CatalogName.createInformationSchemaCatalogName;
 import static io.trino.connector.CatalogName.createSystemTablesCatalogName;
 import static io.trino.spi.type.BigintType.BIGINT;
@@ -52,7 +53,10 @@ import static io.trino.sql.planner.assertions.PlanMatchPattern.anyTree;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.expression;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.project;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static io.trino.testing.TestingAccessControlManager.TestingPrivilegeType.SELECT_COLUMN;
+import static io.trino.testing.TestingAccessControlManager.privilege;
 import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TestMaterializedViews
         extends BasePlanTest
@@ -170,6 +174,66 @@ public class TestMaterializedViews
         });
         testingConnectorMetadata.markMaterializedViewIsFresh(materializedViewWithCasts.asSchemaTableName());
 
+        SchemaTableName aggregatedStorageTable = new SchemaTableName(SCHEMA, "aggregated_storage_table");
+        queryRunner.inTransaction(session -> {
+            metadata.createTable(
+                    session,
+                    CATALOG,
+                    new ConnectorTableMetadata(
+                            aggregatedStorageTable,
+                            ImmutableList.of(
+                                    new ColumnMetadata("a", BIGINT),
+                                    new ColumnMetadata("total", BIGINT),
+                                    new ColumnMetadata("row_count", BIGINT))),
+                    false);
+            return null;
+        });
+
+        QualifiedObjectName aggregatedMaterializedView = new QualifiedObjectName(CATALOG, SCHEMA, "aggregated_materialized_view");
+        ConnectorMaterializedViewDefinition aggregatedMaterializedViewDefinition = new ConnectorMaterializedViewDefinition(
+                "SELECT a, sum(b) AS total, count(*) AS row_count FROM test_table WHERE b > 0 GROUP BY a",
+                Optional.of(new CatalogSchemaTableName(CATALOG, SCHEMA, "aggregated_storage_table")),
+                Optional.of(CATALOG),
+                Optional.of(SCHEMA),
+                ImmutableList.of(
+                        new Column("a", BIGINT.getTypeId()),
+                        new Column("total", BIGINT.getTypeId()),
+                        new Column("row_count", BIGINT.getTypeId())),
+                Optional.empty(),
+                "some user",
+                ImmutableMap.of());
+        queryRunner.inTransaction(session -> {
+            metadata.createMaterializedView(
+                    session,
+                    aggregatedMaterializedView,
+                    aggregatedMaterializedViewDefinition,
+                    false,
+                    false);
+            return null;
+        });
+        testingConnectorMetadata.markMaterializedViewIsFresh(aggregatedMaterializedView.asSchemaTableName());
+
+        QualifiedObjectName invalidMaterializedView = new QualifiedObjectName(CATALOG, SCHEMA, "invalid_materialized_view");
+        ConnectorMaterializedViewDefinition invalidMaterializedViewDefinition = new ConnectorMaterializedViewDefinition(
+                "SELECT a, sum(b) total FROM test_table GROUP BY a HAVING",
+                Optional.of(new CatalogSchemaTableName(CATALOG, SCHEMA, "aggregated_storage_table")),
+                Optional.of(CATALOG),
+                Optional.of(SCHEMA),
+                ImmutableList.of(new Column("a", BIGINT.getTypeId()), new Column("total", BIGINT.getTypeId())),
+                Optional.empty(),
+                "some user",
+                ImmutableMap.of());
+        queryRunner.inTransaction(session -> {
+            metadata.createMaterializedView(
+                    session,
+                    invalidMaterializedView,
+                    invalidMaterializedViewDefinition,
+                    false,
+                    false);
+            return null;
+        });
+        testingConnectorMetadata.markMaterializedViewIsFresh(invalidMaterializedView.asSchemaTableName());
+
         return queryRunner;
     }
 
@@ -207,6 +271,77 @@ public class TestMaterializedViews
                                 tableScan("storage_table_with_casts", ImmutableMap.of("A", "a", "B", "b")))));
     }
 
+    @Test
+    public void testQueryRewrite()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED, "true")
+                .build();
+
+        // same grouping keys as the view
+        assertPlan("SELECT a, sum(b) FROM test_table WHERE b > 0 GROUP BY a",
+                session,
+                anyTree(
+                        tableScan("aggregated_storage_table")));
+
+        // rollup of the aggregations of the view
+        assertPlan("SELECT count(*), max(a) FROM test_table WHERE b > 0 AND a > 10",
+                session,
+                anyTree(
+                        tableScan("aggregated_storage_table")));
+
+        // the predicates of the aggregated view are missing, but the columns of the table are in the other view
+        assertPlan("SELECT a, sum(b) FROM test_table GROUP BY a",
+                session,
+                anyTree(
+                        tableScan("storage_table")));
+
+        // subquery
+        assertPlan("SELECT count(*) FROM (SELECT a, sum(b) AS total FROM test_table WHERE b > 0 GROUP BY a) t WHERE total > 5",
+                session,
+                anyTree(
+                        tableScan("aggregated_storage_table")));
+
+        // disabled
+        assertPlan("SELECT a, sum(b) FROM test_table WHERE b > 0 GROUP BY a",
+                anyTree(
+                        tableScan("test_table")));
+    }
+
+    @Test
+    public void testQueryRewriteSkipsInvalidViews()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED, "true")
+                .build();
+
+        // the definition of invalid_materialized_view cannot be parsed, which does not prevent using the other views
+        for (int i = 0; i < 2; i++) {
+            assertPlan("SELECT a, sum(b) FROM test_table WHERE b > 0 GROUP BY a",
+                    session,
+                    anyTree(
+                            tableScan("aggregated_storage_table")));
+        }
+    }
+
+    @Test
+    public void testQueryRewriteChecksAccessToTables()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MATERIALIZED_VIEW_QUERY_REWRITE_ENABLED, "true")
+                .build();
+        TestingAccessControlManager accessControl = getQueryRunner().getAccessControl();
+        accessControl.deny(privilege("test_table.b", SELECT_COLUMN));
+        try {
+            // the query is not rewritten to read the view, so it fails on the column the session may not read
+            assertThatThrownBy(() -> assertPlan("SELECT a, sum(b) FROM test_table WHERE b > 0 GROUP BY a", session, anyTree(tableScan("aggregated_storage_table"))))
+                    .hasMessageContaining("Access Denied");
+        }
+        finally {
+            accessControl.reset();
+        }
+    }
+
     private Catalog createTestingCatalog(String catalogName, CatalogName catalog, LocalQueryRunner queryRunner)
     {
         CatalogName systemId = createSystemTablesCatalogName(catalog);
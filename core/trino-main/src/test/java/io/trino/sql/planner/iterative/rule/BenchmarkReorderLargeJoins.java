@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
+import io.trino.plugin.tpch.TpchConnectorFactory;
+import io.trino.testing.LocalQueryRunner;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.QueryRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.trino.jmh.Benchmarks.benchmark;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+@State(Thread)
+@OutputTimeUnit(MILLISECONDS)
+@BenchmarkMode(AverageTime)
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+/*
+ * This benchmarks reordering of chains of tables that are too long to enumerate all join orders,
+ * so the tables above max_reordered_joins are reordered greedily.
+ */
+public class BenchmarkReorderLargeJoins
+{
+    @Benchmark
+    public MaterializedResult benchmarkReorderJoins(BenchmarkInfo benchmarkInfo)
+    {
+        return benchmarkInfo.getQueryRunner().execute(benchmarkInfo.getQuery());
+    }
+
+    @State(Thread)
+    public static class BenchmarkInfo
+    {
+        @Param({"0", "50"})
+        private int maxGreedyReorderedJoins;
+
+        @Param({"10", "20", "30"})
+        private int numberOfTables;
+
+        private String query;
+        private LocalQueryRunner queryRunner;
+
+        @Setup
+        public void setup()
+        {
+            checkState(numberOfTables >= 2, "numberOfTables must be >= 2");
+            Session session = testSessionBuilder()
+                    .setSystemProperty("join_reordering_strategy", "AUTOMATIC")
+                    .setSystemProperty("join_distribution_type", "AUTOMATIC")
+                    .setSystemProperty("max_greedy_reordered_joins", Integer.toString(maxGreedyReorderedJoins))
+                    .setCatalog("tpch")
+                    .setSchema("tiny")
+                    .build();
+            queryRunner = LocalQueryRunner.create(session);
+            queryRunner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
+            StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("EXPLAIN SELECT * FROM nation n1");
+            for (int i = 2; i <= numberOfTables; i++) {
+                // alternate the join keys, so that the tables form a chain rather than a clique
+                String column = i % 2 == 0 ? "regionkey" : "name";
+                stringBuilder.append(format(" JOIN nation n%s ON n%s.%s = n%s.%s", i, i - 1, column, i, column));
+            }
+            query = stringBuilder.toString();
+        }
+
+        public String getQuery()
+        {
+            return query;
+        }
+
+        public QueryRunner getQueryRunner()
+        {
+            return queryRunner;
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            queryRunner.close();
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        benchmark(BenchmarkReorderLargeJoins.class).run();
+    }
+}
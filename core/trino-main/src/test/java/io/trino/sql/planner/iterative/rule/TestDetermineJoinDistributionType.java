@@ -13,20 +13,31 @@
  */
 package io.trino.sql.planner.iterative.rule;
 
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import io.trino.connector.CatalogName;
 import io.trino.cost.CostComparator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.PlanNodeStatsEstimate;
 import io.trino.cost.SymbolStatsEstimate;
 import io.trino.cost.TaskCountEstimator;
+import io.trino.metadata.TableHandle;
+import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.type.VarcharType;
+import io.trino.sql.analyzer.FeaturesConfig;
 import io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType;
 import io.trino.sql.planner.PlanNodeIdAllocator;
 import io.trino.sql.planner.Symbol;
+import io.trino.sql.planner.assertions.PlanMatchPattern;
 import io.trino.sql.planner.iterative.rule.test.PlanBuilder;
 import io.trino.sql.planner.iterative.rule.test.RuleAssert;
 import io.trino.sql.planner.iterative.rule.test.RuleTester;
+import io.trino.sql.planner.plan.DynamicFilterId;
+import io.trino.sql.planner.plan.FilterNode;
 import io.trino.sql.planner.plan.JoinNode;
 import io.trino.sql.planner.plan.JoinNode.DistributionType;
 import io.trino.sql.planner.plan.JoinNode.Type;
@@ -34,20 +45,28 @@ import io.trino.sql.planner.plan.PlanNodeId;
 import io.trino.sql.planner.plan.TableScanNode;
 import io.trino.sql.planner.plan.ValuesNode;
 import io.trino.testing.TestingMetadata.TestingColumnHandle;
+import io.trino.testing.TestingMetadata.TestingTableHandle;
+import io.trino.testing.TestingTransactionHandle;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.trino.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static io.trino.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
+import static io.trino.SystemSessionProperties.JOIN_SIZE_HISTORY_ENABLED;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
+import static io.trino.sql.DynamicFilters.createDynamicFilterExpression;
+import static io.trino.sql.ExpressionUtils.and;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.enforceSingleRow;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.filter;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.join;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.node;
 import static io.trino.sql.planner.assertions.PlanMatchPattern.values;
 import static io.trino.sql.planner.iterative.Lookup.noLookup;
 import static io.trino.sql.planner.iterative.rule.DetermineJoinDistributionType.getSourceTablesSizeInBytes;
@@ -62,6 +81,8 @@ import static io.trino.sql.planner.plan.JoinNode.Type.LEFT;
 import static io.trino.sql.planner.plan.JoinNode.Type.RIGHT;
 import static io.trino.sql.tree.BooleanLiteral.TRUE_LITERAL;
 import static java.lang.Double.NaN;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.testng.Assert.assertEquals;
 
 @Test(singleThreaded = true)
@@ -770,6 +791,172 @@ public class TestDetermineJoinDistributionType
                         filter("true", values(ImmutableMap.of("B1", 0)))));
     }
 
+    @Test
+    public void testJoinSizeHistory()
+    {
+        TableHandle tableHandle = new TableHandle(new CatalogName("testConnector"), new TestingTableHandle(), TestingTransactionHandle.create(), Optional.empty());
+        JoinSizeHistory joinSizeHistory = new JoinSizeHistory((session, table) -> Optional.empty(), new Duration(1, HOURS), Ticker.systemTicker());
+
+        // size observed in a previous query, which used different symbols for the same columns
+        PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), tester.getMetadata());
+        Symbol previousSymbol = planBuilder.symbol("X", BIGINT);
+        joinSizeHistory.recordInputSize(
+                tester.getSession(),
+                planBuilder.filter(
+                        expression("X > 0"),
+                        tableScan("previousScan", tableHandle, previousSymbol, "b")),
+                1000);
+
+        // right side is known to be small from the history
+        assertDetermineJoinDistributionType(joinSizeHistory)
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, JoinDistributionType.AUTOMATIC.name())
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "100MB")
+                .setSystemProperty(JOIN_SIZE_HISTORY_ENABLED, "true")
+                .overrideStats("scanA", PlanNodeStatsEstimate.unknown())
+                .overrideStats("scanB", PlanNodeStatsEstimate.unknown())
+                .on(p -> {
+                    Symbol a1 = p.symbol("A1", BIGINT);
+                    Symbol b1 = p.symbol("B1", BIGINT);
+                    return p.join(
+                            INNER,
+                            tableScan("scanA", tableHandle, a1, "a"),
+                            p.filter(expression("B1 > 0"), tableScan("scanB", tableHandle, b1, "b")),
+                            ImmutableList.of(new JoinNode.EquiJoinClause(a1, b1)),
+                            ImmutableList.of(a1),
+                            ImmutableList.of(b1),
+                            Optional.empty());
+                })
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(REPLICATED),
+                        testingColumnScan("A1", "a"),
+                        node(FilterNode.class, testingColumnScan("B1", "b"))));
+
+        // history is not used when disabled
+        assertDetermineJoinDistributionType(joinSizeHistory)
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, JoinDistributionType.AUTOMATIC.name())
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "100MB")
+                .setSystemProperty(JOIN_SIZE_HISTORY_ENABLED, "false")
+                .overrideStats("scanA", PlanNodeStatsEstimate.unknown())
+                .overrideStats("scanB", PlanNodeStatsEstimate.unknown())
+                .on(p -> {
+                    Symbol a1 = p.symbol("A1", BIGINT);
+                    Symbol b1 = p.symbol("B1", BIGINT);
+                    return p.join(
+                            INNER,
+                            tableScan("scanA", tableHandle, a1, "a"),
+                            p.filter(expression("B1 > 0"), tableScan("scanB", tableHandle, b1, "b")),
+                            ImmutableList.of(new JoinNode.EquiJoinClause(a1, b1)),
+                            ImmutableList.of(a1),
+                            ImmutableList.of(b1),
+                            Optional.empty());
+                })
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        testingColumnScan("A1", "a"),
+                        node(FilterNode.class, testingColumnScan("B1", "b"))));
+
+        // a different filter reads different data, so the size is not known
+        assertDetermineJoinDistributionType(joinSizeHistory)
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, JoinDistributionType.AUTOMATIC.name())
+                .setSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "100MB")
+                .setSystemProperty(JOIN_SIZE_HISTORY_ENABLED, "true")
+                .overrideStats("scanA", PlanNodeStatsEstimate.unknown())
+                .overrideStats("scanB", PlanNodeStatsEstimate.unknown())
+                .on(p -> {
+                    Symbol a1 = p.symbol("A1", BIGINT);
+                    Symbol b1 = p.symbol("B1", BIGINT);
+                    return p.join(
+                            INNER,
+                            tableScan("scanA", tableHandle, a1, "a"),
+                            p.filter(expression("B1 > 5"), tableScan("scanB", tableHandle, b1, "b")),
+                            ImmutableList.of(new JoinNode.EquiJoinClause(a1, b1)),
+                            ImmutableList.of(a1),
+                            ImmutableList.of(b1),
+                            Optional.empty());
+                })
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        testingColumnScan("A1", "a"),
+                        node(FilterNode.class, testingColumnScan("B1", "b"))));
+    }
+
+    @Test
+    public void testJoinSizeHistoryIgnoresDynamicallyFilteredInputs()
+    {
+        TableHandle tableHandle = new TableHandle(new CatalogName("testConnector"), new TestingTableHandle(), TestingTransactionHandle.create(), Optional.empty());
+        JoinSizeHistory joinSizeHistory = new JoinSizeHistory((session, table) -> Optional.empty(), new Duration(1, HOURS), Ticker.systemTicker());
+
+        PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), tester.getMetadata());
+        Symbol symbol = planBuilder.symbol("X", BIGINT);
+        TableScanNode scan = tableScan("scan", tableHandle, symbol, "b");
+        joinSizeHistory.recordInputSize(
+                tester.getSession(),
+                planBuilder.filter(
+                        and(
+                                expression("X > 0"),
+                                createDynamicFilterExpression(tester.getMetadata(), new DynamicFilterId("DF"), BIGINT, symbol.toSymbolReference())),
+                        scan),
+                1000);
+
+        assertEquals(joinSizeHistory.getObservedSizeInBytes(tester.getSession(), planBuilder.filter(expression("X > 0"), scan), noLookup()), OptionalDouble.empty());
+    }
+
+    @Test
+    public void testJoinSizeHistoryInvalidation()
+    {
+        TableHandle tableHandle = new TableHandle(new CatalogName("testConnector"), new TestingTableHandle(), TestingTransactionHandle.create(), Optional.empty());
+        AtomicReference<Optional<String>> tableVersion = new AtomicReference<>(Optional.of("1"));
+        TestingTicker ticker = new TestingTicker();
+        JoinSizeHistory joinSizeHistory = new JoinSizeHistory((session, table) -> tableVersion.get(), new Duration(1, HOURS), ticker);
+
+        PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), tester.getMetadata());
+        TableScanNode scan = tableScan("scan", tableHandle, planBuilder.symbol("X", BIGINT), "b");
+        joinSizeHistory.recordInputSize(tester.getSession(), scan, 1000);
+        assertEquals(joinSizeHistory.getObservedSizeInBytes(tester.getSession(), scan, noLookup()), OptionalDouble.of(1000));
+
+        // the data of the table changed
+        tableVersion.set(Optional.of("2"));
+        assertEquals(joinSizeHistory.getObservedSizeInBytes(tester.getSession(), scan, noLookup()), OptionalDouble.empty());
+
+        // the size of a table without a version expires
+        tableVersion.set(Optional.empty());
+        joinSizeHistory.recordInputSize(tester.getSession(), scan, 1000);
+        ticker.increment(59, MINUTES);
+        assertEquals(joinSizeHistory.getObservedSizeInBytes(tester.getSession(), scan, noLookup()), OptionalDouble.of(1000));
+        ticker.increment(2, MINUTES);
+        assertEquals(joinSizeHistory.getObservedSizeInBytes(tester.getSession(), scan, noLookup()), OptionalDouble.empty());
+    }
+
+    private static TableScanNode tableScan(String id, TableHandle tableHandle, Symbol symbol, String column)
+    {
+        return new TableScanNode(
+                new PlanNodeId(id),
+                tableHandle,
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, new TestingColumnHandle(column)),
+                TupleDomain.all(),
+                Optional.empty(),
+                false,
+                Optional.empty());
+    }
+
+    private static PlanMatchPattern testingColumnScan(String alias, String column)
+    {
+        return PlanMatchPattern.tableScan(
+                table -> true,
+                TupleDomain.all(),
+                ImmutableMap.of(alias, handle -> handle.equals(new TestingColumnHandle(column))));
+    }
+
     @Test
     public void testGetSourceTablesSizeInBytes()
     {
@@ -841,6 +1028,11 @@ public class TestDetermineJoinDistributionType
 
     private RuleAssert assertDetermineJoinDistributionType(CostComparator costComparator)
     {
-        return tester.assertThat(new DetermineJoinDistributionType(costComparator, new TaskCountEstimator(() -> NODES_COUNT)));
+        return tester.assertThat(new DetermineJoinDistributionType(costComparator, new TaskCountEstimator(() -> NODES_COUNT), new JoinSizeHistory(tester.getMetadata(), new FeaturesConfig())));
+    }
+
+    private RuleAssert assertDetermineJoinDistributionType(JoinSizeHistory joinSizeHistory)
+    {
+        return tester.assertThat(new DetermineJoinDistributionType(COST_COMPARATOR, new TaskCountEstimator(() -> NODES_COUNT), joinSizeHistory));
     }
 }
@@ -45,6 +45,8 @@ import static io.airlift.testing.Closeables.closeAllRuntimeException;
 import static io.trino.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static io.trino.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
 import static io.trino.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static io.trino.SystemSessionProperties.MAX_GREEDY_REORDERED_JOINS;
+import static io.trino.SystemSessionProperties.MAX_REORDERED_JOINS;
 import static io.trino.metadata.MetadataManager.createTestMetadataManager;
 import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
 import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.AUTOMATIC;
@@ -559,6 +561,72 @@ public class TestReorderJoins
                                         values("B1", "B2"))));
     }
 
+    @Test
+    public void testGreedyJoinOrder()
+    {
+        // more tables than max_reordered_joins allows, so each step joins the pair with the smallest result
+        assertReorderJoins()
+                .setSystemProperty(MAX_REORDERED_JOINS, "2")
+                .setSystemProperty(MAX_GREEDY_REORDERED_JOINS, "10")
+                .on(p ->
+                        p.join(
+                                INNER,
+                                p.join(
+                                        INNER,
+                                        p.join(
+                                                INNER,
+                                                p.values(new PlanNodeId("valuesA"), 2, p.symbol("A1")),
+                                                p.values(new PlanNodeId("valuesB"), 2, p.symbol("B1"), p.symbol("B2")),
+                                                ImmutableList.of(new EquiJoinClause(p.symbol("A1"), p.symbol("B1"))),
+                                                ImmutableList.of(p.symbol("A1")),
+                                                ImmutableList.of(p.symbol("B2")),
+                                                Optional.empty()),
+                                        p.values(new PlanNodeId("valuesC"), 2, p.symbol("C1"), p.symbol("C2")),
+                                        ImmutableList.of(new EquiJoinClause(p.symbol("B2"), p.symbol("C1"))),
+                                        ImmutableList.of(p.symbol("A1")),
+                                        ImmutableList.of(p.symbol("C2")),
+                                        Optional.empty()),
+                                p.values(new PlanNodeId("valuesD"), 2, p.symbol("D1")),
+                                ImmutableList.of(new EquiJoinClause(p.symbol("C2"), p.symbol("D1"))),
+                                ImmutableList.of(p.symbol("A1")),
+                                ImmutableList.of(),
+                                Optional.empty()))
+                .overrideStats("valuesA", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(10000)
+                        .addSymbolStatistics(ImmutableMap.of(new Symbol("A1"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .overrideStats("valuesB", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(1000)
+                        .addSymbolStatistics(ImmutableMap.of(
+                                new Symbol("B1"), new SymbolStatsEstimate(0, 100, 0, 100, 100),
+                                new Symbol("B2"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .overrideStats("valuesC", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(100)
+                        .addSymbolStatistics(ImmutableMap.of(
+                                new Symbol("C1"), new SymbolStatsEstimate(0, 100, 0, 100, 100),
+                                new Symbol("C2"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .overrideStats("valuesD", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(10)
+                        .addSymbolStatistics(ImmutableMap.of(new Symbol("D1"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .matches(
+                        join(
+                                INNER,
+                                ImmutableList.of(equiJoinClause("A1", "B1")),
+                                values("A1"),
+                                join(
+                                        INNER,
+                                        ImmutableList.of(equiJoinClause("B2", "C1")),
+                                        values("B1", "B2"),
+                                        join(
+                                                INNER,
+                                                ImmutableList.of(equiJoinClause("C2", "D1")),
+                                                values("C1", "C2"),
+                                                values("D1")))));
+    }
+
     @Test
     public void testReplicatesWhenNotRestricted()
     {
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner.optimizations;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
+import io.trino.connector.MockConnectorColumnHandle;
+import io.trino.connector.MockConnectorFactory;
+import io.trino.connector.MockConnectorTableHandle;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.connector.ConnectorTableProperties;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.connector.SortingProperty;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.sql.planner.assertions.BasePlanTest;
+import io.trino.testing.LocalQueryRunner;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.trino.spi.connector.SortOrder.ASC_NULLS_FIRST;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.aggregation;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static io.trino.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+
+public class TestAddStreamingPartialAggregations
+        extends BasePlanTest
+{
+    private static final String MOCK_CATALOG = "mock_catalog";
+    private static final String TEST_SCHEMA = "test_schema";
+
+    private static final SchemaTableName sortedTable = new SchemaTableName(TEST_SCHEMA, "sorted_table");
+    private static final String columnNameA = "col_a";
+    private static final ColumnHandle columnHandleA = new MockConnectorColumnHandle(columnNameA, BIGINT);
+    private static final String columnNameB = "col_b";
+
+    @Override
+    protected LocalQueryRunner createLocalQueryRunner()
+    {
+        Session session = testSessionBuilder()
+                .setCatalog(MOCK_CATALOG)
+                .setSchema(TEST_SCHEMA)
+                .build();
+        LocalQueryRunner queryRunner = LocalQueryRunner.builder(session).build();
+        MockConnectorFactory mockFactory = MockConnectorFactory.builder()
+                .withGetTableProperties((connectorSession, handle) -> {
+                    MockConnectorTableHandle tableHandle = (MockConnectorTableHandle) handle;
+                    if (tableHandle.getTableName().equals(sortedTable)) {
+                        return new ConnectorTableProperties(
+                                TupleDomain.all(),
+                                Optional.empty(),
+                                Optional.empty(),
+                                Optional.empty(),
+                                ImmutableList.of(new SortingProperty<>(columnHandleA, ASC_NULLS_FIRST)));
+                    }
+                    throw new IllegalArgumentException();
+                })
+                .withGetColumns(schemaTableName -> {
+                    if (schemaTableName.equals(sortedTable)) {
+                        return ImmutableList.of(
+                                new ColumnMetadata(columnNameA, BIGINT),
+                                new ColumnMetadata(columnNameB, BIGINT));
+                    }
+                    throw new IllegalArgumentException();
+                })
+                .build();
+        queryRunner.createCatalog(MOCK_CATALOG, mockFactory, ImmutableMap.of());
+        return queryRunner;
+    }
+
+    @Test
+    public void testPartialAggregationOnSortedColumn()
+    {
+        assertDistributedPlan(
+                "SELECT col_a, count(*) FROM sorted_table GROUP BY col_a",
+                anyTree(
+                        aggregation(
+                                ImmutableMap.of(),
+                                node -> node.getStep() == PARTIAL && node.isStreamable(),
+                                tableScan("sorted_table", ImmutableMap.of("col_a", "col_a")))));
+    }
+
+    @Test
+    public void testPartialAggregationOnUnsortedColumn()
+    {
+        assertDistributedPlan(
+                "SELECT col_b, count(*) FROM sorted_table GROUP BY col_b",
+                anyTree(
+                        aggregation(
+                                ImmutableMap.of(),
+                                node -> node.getStep() == PARTIAL && !node.isStreamable(),
+                                tableScan("sorted_table", ImmutableMap.of("col_b", "col_b")))));
+
+        // input sorted on a subset of the grouping keys is not grouped on all of them
+        assertDistributedPlan(
+                "SELECT col_a, col_b, count(*) FROM sorted_table GROUP BY col_a, col_b",
+                anyTree(
+                        aggregation(
+                                ImmutableMap.of(),
+                                node -> node.getStep() == PARTIAL && !node.isStreamable(),
+                                anyTree(
+                                        tableScan("sorted_table", ImmutableMap.of("col_a", "col_a", "col_b", "col_b"))))));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.sql.planner.optimizations;
+
+import io.trino.Session;
+import io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType;
+import io.trino.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
+import io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy;
+import io.trino.sql.planner.assertions.BasePlanTest;
+import io.trino.sql.planner.plan.JoinNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
+import io.trino.sql.planner.plan.SortNode;
+import org.testng.annotations.Test;
+
+import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.trino.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.trino.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static io.trino.SystemSessionProperties.MERGE_JOIN_STRATEGY;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.anyTree;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.node;
+import static io.trino.sql.planner.assertions.PlanMatchPattern.tableScan;
+
+public class TestMergeJoinPlanning
+        extends BasePlanTest
+{
+    private static final String QUERY = "SELECT o.orderstatus, l.partkey FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey";
+
+    @Test
+    public void testMergeJoinDisabled()
+    {
+        assertPlan(
+                QUERY,
+                session(MergeJoinStrategy.DISABLED),
+                anyTree(
+                        node(JoinNode.class,
+                                anyTree(tableScan("orders")),
+                                anyTree(tableScan("lineitem")))));
+    }
+
+    @Test
+    public void testUnsortedInputsWithPresortedStrategy()
+    {
+        // TPC-H tables do not expose a sort order, so the join remains a hash join
+        assertPlan(
+                QUERY,
+                session(MergeJoinStrategy.PRESORTED),
+                anyTree(
+                        node(JoinNode.class,
+                                anyTree(tableScan("orders")),
+                                anyTree(tableScan("lineitem")))));
+    }
+
+    @Test
+    public void testSortedInputsWithAlwaysStrategy()
+    {
+        assertPlan(
+                QUERY,
+                session(MergeJoinStrategy.ALWAYS),
+                anyTree(
+                        node(MergeJoinNode.class,
+                                anyTree(
+                                        node(SortNode.class,
+                                                anyTree(tableScan("orders")))),
+                                anyTree(
+                                        node(SortNode.class,
+                                                anyTree(tableScan("lineitem")))))));
+    }
+
+    private Session session(MergeJoinStrategy mergeJoinStrategy)
+    {
+        return Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(MERGE_JOIN_STRATEGY, mergeJoinStrategy.name())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "false")
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, JoinDistributionType.PARTITIONED.name())
+                .setSystemProperty(JOIN_REORDERING_STRATEGY, JoinReorderingStrategy.NONE.name())
+                .build();
+    }
+}
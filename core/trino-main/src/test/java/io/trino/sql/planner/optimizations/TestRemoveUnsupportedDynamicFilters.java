@@ -15,6 +15,7 @@ package io.trino.sql.planner.optimizations;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
 import io.trino.connector.CatalogName;
 import io.trino.cost.StatsAndCosts;
 import io.trino.execution.warnings.WarningCollector;
@@ -48,6 +49,7 @@ import org.testng.annotations.Test;
 
 import java.util.Optional;
 
+import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_ROW_FILTERING;
 import static io.trino.spi.type.BigintType.BIGINT;
 import static io.trino.spi.type.DoubleType.DOUBLE;
 import static io.trino.sql.DynamicFilters.createDynamicFilterExpression;
@@ -229,6 +231,45 @@ public class TestRemoveUnsupportedDynamicFilters
                                 tableScan("orders", ImmutableMap.of("ORDERS_OK", "orderkey")))));
     }
 
+    @Test
+    public void testKeepDynamicFilterNotAboveTableScanWithDynamicRowFiltering()
+    {
+        Session session = Session.builder(getQueryRunner().getDefaultSession())
+                .setSystemProperty(ENABLE_DYNAMIC_ROW_FILTERING, "true")
+                .build();
+        PlanNode root = builder.output(
+                ImmutableList.of(),
+                ImmutableList.of(),
+                builder.join(
+                        INNER,
+                        builder.filter(
+                                combineConjuncts(
+                                        metadata,
+                                        expression("LINEITEM_OK > 0"),
+                                        createDynamicFilterExpression(metadata, new DynamicFilterId("DF"), BIGINT, lineitemOrderKeySymbol.toSymbolReference())),
+                                builder.values(lineitemOrderKeySymbol)),
+                        ordersTableScanNode,
+                        ImmutableList.of(new JoinNode.EquiJoinClause(lineitemOrderKeySymbol, ordersOrderKeySymbol)),
+                        ImmutableList.of(),
+                        ImmutableList.of(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        ImmutableMap.of(new DynamicFilterId("DF"), ordersOrderKeySymbol)));
+        assertPlan(
+                removeUnsupportedDynamicFilters(root, session),
+                output(
+                        join(
+                                INNER,
+                                ImmutableList.of(equiJoinClause("LINEITEM_OK", "ORDERS_OK")),
+                                ImmutableMap.of("LINEITEM_OK", "ORDERS_OK"),
+                                PlanMatchPattern.filter(
+                                        expression("LINEITEM_OK > 0"),
+                                        createDynamicFilterExpression(metadata, new DynamicFilterId("DF"), BIGINT, new SymbolReference("LINEITEM_OK")),
+                                        values("LINEITEM_OK")),
+                                tableScan("orders", ImmutableMap.of("ORDERS_OK", "orderkey")))));
+    }
+
     @Test
     public void testNestedDynamicFilterDisjunctionRewrite()
     {
@@ -475,7 +516,12 @@ public class TestRemoveUnsupportedDynamicFilters
 
     private PlanNode removeUnsupportedDynamicFilters(PlanNode root)
     {
-        return getQueryRunner().inTransaction(session -> {
+        return removeUnsupportedDynamicFilters(root, getQueryRunner().getDefaultSession());
+    }
+
+    private PlanNode removeUnsupportedDynamicFilters(PlanNode root, Session transactionSession)
+    {
+        return getQueryRunner().inTransaction(transactionSession, session -> {
             // metadata.getCatalogHandle() registers the catalog for the transaction
             session.getCatalog().ifPresent(catalog -> metadata.getCatalogHandle(session, catalog));
             PlanNode rewrittenPlan = new RemoveUnsupportedDynamicFilters(metadata).optimize(root, session, builder.getTypes(), new SymbolAllocator(), new PlanNodeIdAllocator(), WarningCollector.NOOP);
@@ -263,6 +263,17 @@ public interface ConnectorMetadata
         return TableStatistics.empty();
     }
 
+    /**
+     * Returns a token identifying the current version of the data in the table, such as a snapshot id.
+     * The token must change whenever data that can be read through the table handle changes.
+     * The engine may reuse results computed from a table for as long as its token stays the same,
+     * so return empty if changes to the table cannot be reliably detected.
+     */
+    default Optional<String> getTableVersionToken(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Creates a schema.
      */
@@ -16,6 +16,7 @@ package io.trino.spi.connector;
 import io.trino.spi.HostAddress;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorSplit
 {
@@ -24,4 +25,14 @@ public interface ConnectorSplit
     List<HostAddress> getAddresses();
 
     Object getInfo();
+
+    /**
+     * Returns an identifier of the data read by this split, which changes whenever the data
+     * may have changed. Workers use it to reuse results computed for an identical split.
+     * Splits that cannot guarantee this must return empty.
+     */
+    default Optional<String> getCacheIdentifier()
+    {
+        return Optional.empty();
+    }
 }
@@ -48,6 +48,10 @@ abstract class AbstractAggregatedMemoryContext
     @Override
     public LocalMemoryContext newLocalMemoryContext(String allocationTag)
     {
+        long accountingQuantum = getAccountingQuantum();
+        if (accountingQuantum > 0) {
+            return new BatchedLocalMemoryContext(this, allocationTag, accountingQuantum);
+        }
         return new SimpleLocalMemoryContext(this, allocationTag);
     }
 
@@ -94,6 +98,12 @@ abstract class AbstractAggregatedMemoryContext
     @Nullable
     abstract AbstractAggregatedMemoryContext getParent();
 
+    /**
+     * Returns the granularity in which local memory contexts created from this context reserve memory, or zero
+     * if they should report every change of their memory usage.
+     */
+    abstract long getAccountingQuantum();
+
     abstract void closeContext();
 
     static long addExact(long usedBytes, long bytes)
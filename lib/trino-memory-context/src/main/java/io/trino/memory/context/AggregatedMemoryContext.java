@@ -22,7 +22,17 @@ public interface AggregatedMemoryContext
 
     static AggregatedMemoryContext newRootAggregatedMemoryContext(MemoryReservationHandler reservationHandler, long guaranteedMemoryInBytes)
     {
-        return new RootAggregatedMemoryContext(reservationHandler, guaranteedMemoryInBytes);
+        return newRootAggregatedMemoryContext(reservationHandler, guaranteedMemoryInBytes, 0);
+    }
+
+    /**
+     * Creates a root context whose local memory contexts reserve memory in multiples of {@code accountingQuantumInBytes},
+     * so that the reservation handler is only called when the memory usage of a local context changes by about a quantum.
+     * A quantum of zero makes local memory contexts report every change.
+     */
+    static AggregatedMemoryContext newRootAggregatedMemoryContext(MemoryReservationHandler reservationHandler, long guaranteedMemoryInBytes, long accountingQuantumInBytes)
+    {
+        return new RootAggregatedMemoryContext(reservationHandler, guaranteedMemoryInBytes, accountingQuantumInBytes);
     }
 
     AggregatedMemoryContext newAggregatedMemoryContext();
@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.memory.context;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link LocalMemoryContext} which reserves memory from its parent in multiples of an accounting quantum.
+ * Memory is reserved ahead of its use, so the parent contexts (and the memory pool) never see less memory
+ * than is actually used, but they are only updated once the used memory crosses the reserved amount or
+ * drops more than two quanta below it. Local memory contexts are used by a single driver thread at a time,
+ * so most updates only touch the (uncontended) state of this context.
+ */
+@ThreadSafe
+public final class BatchedLocalMemoryContext
+        implements LocalMemoryContext
+{
+    private static final ListenableFuture<Void> NOT_BLOCKED = immediateVoidFuture();
+
+    private final AbstractAggregatedMemoryContext parentMemoryContext;
+    private final String allocationTag;
+    private final long accountingQuantum;
+
+    @GuardedBy("this")
+    private long usedBytes;
+    // bytes reserved from the parent context, always greater than or equal to usedBytes
+    @GuardedBy("this")
+    private long reservedBytes;
+    @GuardedBy("this")
+    private ListenableFuture<Void> reservationFuture = NOT_BLOCKED;
+    @GuardedBy("this")
+    private boolean closed;
+
+    public BatchedLocalMemoryContext(AggregatedMemoryContext parentMemoryContext, String allocationTag, long accountingQuantum)
+    {
+        verify(parentMemoryContext instanceof AbstractAggregatedMemoryContext);
+        checkArgument(accountingQuantum > 0, "accountingQuantum must be positive");
+        this.parentMemoryContext = (AbstractAggregatedMemoryContext) requireNonNull(parentMemoryContext, "parentMemoryContext is null");
+        this.allocationTag = requireNonNull(allocationTag, "allocationTag is null");
+        this.accountingQuantum = accountingQuantum;
+    }
+
+    @Override
+    public synchronized long getBytes()
+    {
+        return usedBytes;
+    }
+
+    @Override
+    public synchronized ListenableFuture<Void> setBytes(long bytes)
+    {
+        checkState(!closed, "BatchedLocalMemoryContext is already closed");
+        checkArgument(bytes >= 0, "bytes cannot be negative");
+
+        if (!needsReservationUpdate(bytes)) {
+            usedBytes = bytes;
+            if (reservationFuture.isDone()) {
+                reservationFuture = NOT_BLOCKED;
+            }
+            return reservationFuture;
+        }
+
+        long targetReservedBytes = targetReservedBytes(bytes);
+        // update the parent first as it may throw a runtime exception (e.g., ExceededMemoryLimitException)
+        reservationFuture = parentMemoryContext.updateBytes(allocationTag, targetReservedBytes - reservedBytes);
+        reservedBytes = targetReservedBytes;
+        usedBytes = bytes;
+        return reservationFuture;
+    }
+
+    @Override
+    public synchronized boolean trySetBytes(long bytes)
+    {
+        checkState(!closed, "BatchedLocalMemoryContext is already closed");
+        checkArgument(bytes >= 0, "bytes cannot be negative");
+
+        if (!needsReservationUpdate(bytes)) {
+            usedBytes = bytes;
+            return true;
+        }
+
+        long targetReservedBytes = targetReservedBytes(bytes);
+        if (parentMemoryContext.tryUpdateBytes(allocationTag, targetReservedBytes - reservedBytes)) {
+            reservedBytes = targetReservedBytes;
+            usedBytes = bytes;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        parentMemoryContext.updateBytes(allocationTag, -reservedBytes);
+        reservedBytes = 0;
+        usedBytes = 0;
+        reservationFuture = NOT_BLOCKED;
+    }
+
+    @GuardedBy("this")
+    private boolean needsReservationUpdate(long bytes)
+    {
+        if (bytes > reservedBytes) {
+            return true;
+        }
+        if (bytes == 0) {
+            return reservedBytes != 0;
+        }
+        return reservedBytes - bytes >= 2 * accountingQuantum;
+    }
+
+    private long targetReservedBytes(long bytes)
+    {
+        if (bytes == 0) {
+            return 0;
+        }
+        long quanta = (bytes - 1) / accountingQuantum + 1;
+        return Math.multiplyExact(quanta, accountingQuantum);
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return toStringHelper(this)
+                .add("allocationTag", allocationTag)
+                .add("usedBytes", usedBytes)
+                .add("reservedBytes", reservedBytes)
+                .add("accountingQuantum", accountingQuantum)
+                .toString();
+    }
+}
@@ -23,11 +23,13 @@ class ChildAggregatedMemoryContext
         extends AbstractAggregatedMemoryContext
 {
     private final AbstractAggregatedMemoryContext parentMemoryContext;
+    private final long accountingQuantum;
 
     ChildAggregatedMemoryContext(AggregatedMemoryContext parentMemoryContext)
     {
         verify(parentMemoryContext instanceof AbstractAggregatedMemoryContext);
         this.parentMemoryContext = (AbstractAggregatedMemoryContext) requireNonNull(parentMemoryContext, "parentMemoryContext is null");
+        this.accountingQuantum = this.parentMemoryContext.getAccountingQuantum();
     }
 
     @Override
@@ -56,6 +58,12 @@ class ChildAggregatedMemoryContext
         return parentMemoryContext;
     }
 
+    @Override
+    long getAccountingQuantum()
+    {
+        return accountingQuantum;
+    }
+
     @Override
     void closeContext()
     {
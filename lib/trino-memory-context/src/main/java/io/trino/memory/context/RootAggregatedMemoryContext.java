@@ -15,6 +15,7 @@ package io.trino.memory.context;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -23,11 +24,14 @@ class RootAggregatedMemoryContext
 {
     private final MemoryReservationHandler reservationHandler;
     private final long guaranteedMemory;
+    private final long accountingQuantum;
 
-    RootAggregatedMemoryContext(MemoryReservationHandler reservationHandler, long guaranteedMemory)
+    RootAggregatedMemoryContext(MemoryReservationHandler reservationHandler, long guaranteedMemory, long accountingQuantum)
     {
+        checkArgument(accountingQuantum >= 0, "accountingQuantum is negative");
         this.reservationHandler = requireNonNull(reservationHandler, "reservationHandler is null");
         this.guaranteedMemory = guaranteedMemory;
+        this.accountingQuantum = accountingQuantum;
     }
 
     @Override
@@ -59,6 +63,12 @@ class RootAggregatedMemoryContext
         return null;
     }
 
+    @Override
+    long getAccountingQuantum()
+    {
+        return accountingQuantum;
+    }
+
     @Override
     void closeContext()
     {
@@ -44,6 +44,12 @@ class SimpleAggregatedMemoryContext
         return null;
     }
 
+    @Override
+    long getAccountingQuantum()
+    {
+        return 0;
+    }
+
     @Override
     void closeContext() {}
 }
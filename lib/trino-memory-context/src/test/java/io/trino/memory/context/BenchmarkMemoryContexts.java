@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.memory.context;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.util.concurrent.Futures.immediateVoidFuture;
+import static io.trino.jmh.Benchmarks.benchmark;
+import static io.trino.memory.context.AggregatedMemoryContext.newRootAggregatedMemoryContext;
+
+/**
+ * Measures the contention on the memory context hierarchy when many driver threads of a single query
+ * update their local memory contexts, as operators do for every page they process.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+public class BenchmarkMemoryContexts
+{
+    private static final int UPDATES = 1_000;
+    private static final long PAGE_BYTES = 4096;
+
+    @State(Scope.Benchmark)
+    public static class QueryData
+    {
+        @Param({"0", "65536", "1048576"})
+        private long accountingQuantum;
+
+        private AggregatedMemoryContext queryContext;
+
+        @Setup
+        public void setup()
+        {
+            queryContext = newRootAggregatedMemoryContext(new SynchronizedReservationHandler(), 0, accountingQuantum);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            queryContext.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DriverData
+    {
+        private LocalMemoryContext operatorContext;
+
+        @Setup
+        public void setup(QueryData queryData)
+        {
+            // task -> pipeline -> driver -> operator, as in the engine
+            AggregatedMemoryContext driverContext = queryData.queryContext
+                    .newAggregatedMemoryContext()
+                    .newAggregatedMemoryContext()
+                    .newAggregatedMemoryContext();
+            operatorContext = driverContext.newLocalMemoryContext("benchmark");
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            operatorContext.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public long setBytes(DriverData data)
+    {
+        LocalMemoryContext context = data.operatorContext;
+        // grow and shrink the memory usage, as an operator buffering and flushing pages would
+        for (int i = 0; i < UPDATES; i++) {
+            context.setBytes((i % 64) * PAGE_BYTES);
+        }
+        return context.getBytes();
+    }
+
+    private static class SynchronizedReservationHandler
+            implements MemoryReservationHandler
+    {
+        private static final ListenableFuture<Void> NOT_BLOCKED = immediateVoidFuture();
+
+        private long reservedBytes;
+
+        @Override
+        public synchronized ListenableFuture<Void> reserveMemory(String allocationTag, long delta)
+        {
+            reservedBytes += delta;
+            return NOT_BLOCKED;
+        }
+
+        @Override
+        public synchronized boolean tryReserveMemory(String allocationTag, long delta)
+        {
+            reservedBytes += delta;
+            return true;
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        benchmark(BenchmarkMemoryContexts.class).run();
+    }
+}
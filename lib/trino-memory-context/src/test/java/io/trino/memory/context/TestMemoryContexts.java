@@ -146,6 +146,71 @@ public class TestMemoryContexts
         assertEquals(reservationHandler.getReservation(), maxMemory);
     }
 
+    @Test
+    public void testBatchedMemoryAccounting()
+    {
+        TestMemoryReservationHandler reservationHandler = new TestMemoryReservationHandler(10_000);
+        AggregatedMemoryContext parentContext = newRootAggregatedMemoryContext(reservationHandler, GUARANTEED_MEMORY, 100);
+        AggregatedMemoryContext aggregateContext = parentContext.newAggregatedMemoryContext();
+        LocalMemoryContext localContext = aggregateContext.newLocalMemoryContext("test");
+        assertTrue(localContext instanceof BatchedLocalMemoryContext);
+
+        // memory is reserved ahead in multiples of the quantum
+        assertEquals(localContext.setBytes(10), NOT_BLOCKED);
+        assertEquals(localContext.getBytes(), 10);
+        assertEquals(aggregateContext.getBytes(), 100);
+        assertEquals(reservationHandler.getReservation(), 100);
+
+        // changes within the reserved memory are not propagated
+        assertEquals(localContext.setBytes(100), NOT_BLOCKED);
+        assertEquals(localContext.setBytes(50), NOT_BLOCKED);
+        assertEquals(localContext.getBytes(), 50);
+        assertEquals(reservationHandler.getReservation(), 100);
+
+        assertEquals(localContext.setBytes(450), NOT_BLOCKED);
+        assertEquals(reservationHandler.getReservation(), 500);
+
+        // memory is released once usage drops at least two quanta below the reservation
+        localContext.setBytes(350);
+        assertEquals(reservationHandler.getReservation(), 500);
+        localContext.setBytes(300);
+        assertEquals(reservationHandler.getReservation(), 300);
+
+        assertTrue(localContext.trySetBytes(9_950));
+        assertEquals(reservationHandler.getReservation(), 10_000);
+        assertFalse(localContext.trySetBytes(10_001));
+        assertEquals(localContext.getBytes(), 9_950);
+
+        localContext.setBytes(0);
+        assertEquals(localContext.getBytes(), 0);
+        assertEquals(reservationHandler.getReservation(), 0);
+
+        localContext.setBytes(1);
+        localContext.close();
+        assertEquals(localContext.getBytes(), 0);
+        assertEquals(parentContext.getBytes(), 0);
+        assertEquals(reservationHandler.getReservation(), 0);
+    }
+
+    @Test
+    public void testBatchedMemoryAccountingBlocksUntilReservationCompletes()
+    {
+        TestMemoryReservationHandler reservationHandler = new TestMemoryReservationHandler(1_000);
+        AggregatedMemoryContext parentContext = newRootAggregatedMemoryContext(reservationHandler, 0, 1_000);
+        LocalMemoryContext childContext = parentContext.newLocalMemoryContext("test");
+
+        // reserving a whole quantum exhausts the memory
+        ListenableFuture<Void> future = childContext.setBytes(10);
+        assertFalse(future.isDone());
+
+        // updates within the reserved memory keep returning the pending future
+        assertEquals(childContext.setBytes(20), future);
+
+        assertEquals(childContext.setBytes(0), NOT_BLOCKED);
+        assertTrue(future.isDone());
+        assertEquals(reservationHandler.getReservation(), 0);
+    }
+
     @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "SimpleLocalMemoryContext is already closed")
     public void testClosedLocalMemoryContext()
     {
@@ -232,6 +232,7 @@ import static io.trino.plugin.hive.metastore.MetastoreUtil.verifyOnline;
 import static io.trino.plugin.hive.metastore.PrincipalPrivileges.fromHivePrivilegeInfos;
 import static io.trino.plugin.hive.metastore.StorageFormat.VIEW_STORAGE_FORMAT;
 import static io.trino.plugin.hive.metastore.StorageFormat.fromHiveStorageFormat;
+import static io.trino.plugin.hive.metastore.thrift.ThriftMetastoreUtil.getHiveBasicStatistics;
 import static io.trino.plugin.hive.util.CompressionConfigUtil.configureCompression;
 import static io.trino.plugin.hive.util.ConfigurationUtils.toJobConf;
 import static io.trino.plugin.hive.util.HiveBucketing.bucketedOnTimestamp;
@@ -273,6 +274,7 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.hadoop.hive.metastore.TableType.EXTERNAL_TABLE;
 import static org.apache.hadoop.hive.metastore.TableType.MANAGED_TABLE;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.DDL_TIME;
 import static org.apache.hadoop.hive.ql.io.AcidUtils.OrcAcidVersion.writeVersionFile;
 import static org.apache.hadoop.hive.ql.io.AcidUtils.deltaSubdir;
 import static org.apache.hadoop.hive.ql.io.AcidUtils.isFullAcidTable;
@@ -707,6 +709,25 @@ public class HiveMetadata
         return hiveStatisticsProvider.getTableStatistics(session, ((HiveTableHandle) tableHandle).getSchemaTableName(), columns, columnTypes, partitions);
     }
 
+    @Override
+    public Optional<String> getTableVersionToken(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        HiveTableHandle handle = (HiveTableHandle) tableHandle;
+        Optional<Table> table = metastore.getTable(new HiveIdentity(session), handle.getSchemaName(), handle.getTableName());
+        if (table.isEmpty() || !table.get().getPartitionColumns().isEmpty() || isTransactionalTable(table.get().getParameters())) {
+            // writes to partitions and transactional tables are not reflected in the table parameters
+            return Optional.empty();
+        }
+        Map<String, String> parameters = table.get().getParameters();
+        String lastDdlTime = parameters.get(DDL_TIME);
+        if (lastDdlTime == null) {
+            return Optional.empty();
+        }
+        // basic statistics are updated on every insert, while the DDL time has a granularity of seconds
+        HiveBasicStatistics statistics = getHiveBasicStatistics(parameters);
+        return Optional.of(format("%s:%s:%s:%s", lastDdlTime, statistics.getFileCount(), statistics.getRowCount(), statistics.getOnDiskDataSizeInBytes()));
+    }
+
     private List<SchemaTableName> listTables(ConnectorSession session, SchemaTablePrefix prefix)
     {
         if (prefix.getTable().isEmpty()) {
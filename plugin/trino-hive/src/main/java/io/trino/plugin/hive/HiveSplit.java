@@ -263,6 +263,16 @@ public class HiveSplit
                 .build();
     }
 
+    @Override
+    public Optional<String> getCacheIdentifier()
+    {
+        // transactional reads depend on the delete deltas, and bucket conversion filters rows at read time
+        if (acidInfo.isPresent() || bucketConversion.isPresent() || bucketValidation.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(String.join(":", path, Long.toString(start), Long.toString(length), Long.toString(estimatedFileSize), Long.toString(fileModifiedTime), partitionName));
+    }
+
     @Override
     public String toString()
     {
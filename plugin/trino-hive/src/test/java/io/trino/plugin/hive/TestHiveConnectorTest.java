@@ -29,6 +29,7 @@ import io.trino.metadata.Metadata;
 import io.trino.metadata.QualifiedObjectName;
 import io.trino.metadata.TableHandle;
 import io.trino.metadata.TableMetadata;
+import io.trino.spi.block.SortOrder;
 import io.trino.spi.connector.CatalogSchemaTableName;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
@@ -40,7 +41,10 @@ import io.trino.spi.type.TimestampType;
 import io.trino.spi.type.Type;
 import io.trino.spi.type.VarcharType;
 import io.trino.sql.planner.Plan;
+import io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy;
 import io.trino.sql.planner.plan.ExchangeNode;
+import io.trino.sql.planner.plan.MergeJoinNode;
+import io.trino.sql.planner.plan.SortNode;
 import io.trino.sql.planner.planprinter.IoPlanPrinter.ColumnConstraint;
 import io.trino.sql.planner.planprinter.IoPlanPrinter.EstimatedStatsAndCost;
 import io.trino.sql.planner.planprinter.IoPlanPrinter.FormattedDomain;
@@ -98,6 +102,7 @@ import static io.trino.SystemSessionProperties.DYNAMIC_SCHEDULE_FOR_GROUPED_EXEC
 import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
 import static io.trino.SystemSessionProperties.GROUPED_EXECUTION;
 import static io.trino.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.trino.SystemSessionProperties.MERGE_JOIN_STRATEGY;
 import static io.trino.SystemSessionProperties.USE_TABLE_SCAN_NODE_PARTITIONING;
 import static io.trino.plugin.hive.HiveColumnHandle.BUCKET_COLUMN_NAME;
 import static io.trino.plugin.hive.HiveColumnHandle.FILE_MODIFIED_TIME_COLUMN_NAME;
@@ -114,6 +119,8 @@ import static io.trino.plugin.hive.HiveTableProperties.STORAGE_FORMAT_PROPERTY;
 import static io.trino.plugin.hive.HiveTestUtils.TYPE_MANAGER;
 import static io.trino.plugin.hive.HiveType.toHiveType;
 import static io.trino.plugin.hive.util.HiveUtil.columnExtraInfo;
+import static io.trino.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static io.trino.spi.block.SortOrder.DESC_NULLS_LAST;
 import static io.trino.spi.security.Identity.ofUser;
 import static io.trino.spi.security.SelectedRole.Type.ROLE;
 import static io.trino.spi.type.BigintType.BIGINT;
@@ -128,6 +135,7 @@ import static io.trino.spi.type.VarcharType.VARCHAR;
 import static io.trino.spi.type.VarcharType.createUnboundedVarcharType;
 import static io.trino.spi.type.VarcharType.createVarcharType;
 import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.BROADCAST;
+import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
 import static io.trino.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
 import static io.trino.sql.planner.planprinter.IoPlanPrinter.FormattedMarker.Bound.ABOVE;
 import static io.trino.sql.planner.planprinter.IoPlanPrinter.FormattedMarker.Bound.EXACTLY;
@@ -7355,6 +7363,51 @@ public class TestHiveConnectorTest
         assertUpdate("DROP TABLE " + tableName);
     }
 
+    @Test
+    public void testMergeJoinOnSortedBucketedTables()
+    {
+        testMergeJoinOnSortedBucketedTables("orderkey", ASC_NULLS_FIRST);
+        testMergeJoinOnSortedBucketedTables("orderkey DESC", DESC_NULLS_LAST);
+    }
+
+    private void testMergeJoinOnSortedBucketedTables(String sortedBy, SortOrder expectedSortOrder)
+    {
+        assertUpdate(
+                format("CREATE TABLE test_merge_join_orders WITH (bucket_count = 8, bucketed_by = ARRAY['orderkey'], sorted_by = ARRAY['%s']) AS " +
+                        "SELECT orderkey, orderstatus FROM tpch.tiny.orders", sortedBy),
+                15000);
+        assertUpdate(
+                format("CREATE TABLE test_merge_join_lineitem WITH (bucket_count = 8, bucketed_by = ARRAY['orderkey'], sorted_by = ARRAY['%s']) AS " +
+                        "SELECT orderkey, partkey FROM tpch.tiny.lineitem", sortedBy),
+                60175);
+
+        Session session = Session.builder(getSession())
+                .setSystemProperty(MERGE_JOIN_STRATEGY, MergeJoinStrategy.PRESORTED.name())
+                .setSystemProperty(COLOCATED_JOIN, "true")
+                .setSystemProperty(GROUPED_EXECUTION, "true")
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, PARTITIONED.name())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "false")
+                .setCatalogSessionProperty(catalog, "propagate_table_scan_sorting_properties", "true")
+                .build();
+
+        // each bucket is a single sorted file, so the buckets are merged one by one without sorting them
+        assertQuery(
+                session,
+                "SELECT o.orderstatus, l.partkey FROM test_merge_join_orders o JOIN test_merge_join_lineitem l ON o.orderkey = l.orderkey",
+                "SELECT o.orderstatus, l.partkey FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey",
+                plan -> {
+                    List<MergeJoinNode> mergeJoins = searchFrom(plan.getRoot())
+                            .where(MergeJoinNode.class::isInstance)
+                            .findAll();
+                    assertEquals(mergeJoins.size(), 1);
+                    assertEquals(getOnlyElement(mergeJoins).getSortOrders(), ImmutableList.of(expectedSortOrder));
+                    assertFalse(searchFrom(plan.getRoot()).where(SortNode.class::isInstance).matches());
+                });
+
+        assertUpdate("DROP TABLE test_merge_join_orders");
+        assertUpdate("DROP TABLE test_merge_join_lineitem");
+    }
+
     @Test
     public void testSelectWithNoColumns()
     {
@@ -693,6 +693,15 @@ public class IcebergMetadata
         return TableStatisticsMaker.getTableStatistics(typeManager, constraint, handle, icebergTable);
     }
 
+    @Override
+    public Optional<String> getTableVersionToken(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        // every change to the table data creates a new snapshot, and a table without a snapshot is empty
+        return Optional.of(((IcebergTableHandle) tableHandle).getSnapshotId()
+                .map(String::valueOf)
+                .orElse("empty"));
+    }
+
     @Override
     public void setTableAuthorization(ConnectorSession session, SchemaTableName tableName, TrinoPrincipal principal)
     {
@@ -55,10 +55,12 @@ import io.trino.spi.connector.ConnectorSplit;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.ConnectorTransactionHandle;
 import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.connector.EmptyPageSource;
 import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.TupleDomain;
 import io.trino.spi.security.ConnectorIdentity;
 import io.trino.spi.type.StandardTypes;
+import io.trino.spi.type.TimeZoneKey;
 import io.trino.spi.type.Type;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -112,6 +114,7 @@ import static io.trino.plugin.iceberg.IcebergSessionProperties.getParquetMaxRead
 import static io.trino.plugin.iceberg.IcebergSessionProperties.isOrcBloomFiltersEnabled;
 import static io.trino.plugin.iceberg.IcebergSessionProperties.isOrcNestedLazy;
 import static io.trino.plugin.iceberg.IcebergSessionProperties.isUseFileSizeFromMetadata;
+import static io.trino.plugin.iceberg.IcebergUtil.deserializePartitionValue;
 import static io.trino.plugin.iceberg.TypeConverter.ORC_ICEBERG_ID_KEY;
 import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
 import static java.lang.String.format;
@@ -165,6 +168,12 @@ public class IcebergPageSourceProvider
                 .filter(column -> !partitionKeys.containsKey(column.getId()))
                 .collect(toImmutableList());
 
+        TupleDomain<IcebergColumnHandle> effectivePredicate = table.getUnenforcedPredicate()
+                .intersect(dynamicFilter.getCurrentPredicate().transformKeys(IcebergColumnHandle.class::cast));
+        if (effectivePredicate.isNone() || !partitionMatchesPredicate(partitionKeys, effectivePredicate, session.getTimeZoneKey())) {
+            return new EmptyPageSource();
+        }
+
         HdfsContext hdfsContext = new HdfsContext(session);
         ConnectorPageSource dataPageSource = createDataPageSource(
                 session,
@@ -175,11 +184,25 @@ public class IcebergPageSourceProvider
                 split.getFileSize(),
                 split.getFileFormat(),
                 regularColumns,
-                table.getUnenforcedPredicate());
+                effectivePredicate);
 
         return new IcebergPageSource(icebergColumns, partitionKeys, dataPageSource, session.getTimeZoneKey());
     }
 
+    private static boolean partitionMatchesPredicate(Map<Integer, String> partitionKeys, TupleDomain<IcebergColumnHandle> predicate, TimeZoneKey timeZoneKey)
+    {
+        for (Map.Entry<IcebergColumnHandle, Domain> entry : predicate.getDomains().orElseThrow().entrySet()) {
+            IcebergColumnHandle column = entry.getKey();
+            if (partitionKeys.containsKey(column.getId())) {
+                Object value = deserializePartitionValue(column.getType(), partitionKeys.get(column.getId()), column.getName(), timeZoneKey);
+                if (!entry.getValue().includesNullableValue(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private ConnectorPageSource createDataPageSource(
             ConnectorSession session,
             HdfsContext hdfsContext,
@@ -13,52 +13,121 @@
  */
 package io.trino.plugin.iceberg;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
+import io.airlift.units.Duration;
 import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ConnectorPartitionHandle;
 import io.trino.spi.connector.ConnectorSplit;
 import io.trino.spi.connector.ConnectorSplitSource;
+import io.trino.spi.connector.DynamicFilter;
 import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.Type;
 import org.apache.iceberg.CombinedScanTask;
 import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.TableScan;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.InclusiveMetricsEvaluator;
+import org.apache.iceberg.expressions.Projections;
 import org.apache.iceberg.io.CloseableIterable;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.collect.Iterators.limit;
+import static io.trino.plugin.iceberg.ExpressionConverter.toIcebergExpression;
+import static io.trino.plugin.iceberg.IcebergSplitManager.ICEBERG_DOMAIN_COMPACTION_THRESHOLD;
 import static io.trino.plugin.iceberg.IcebergUtil.getPartitionKeys;
 import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class IcebergSplitSource
         implements ConnectorSplitSource
 {
+    private static final ConnectorSplitBatch EMPTY_BATCH = new ConnectorSplitBatch(ImmutableList.of(), false);
+    private static final ConnectorSplitBatch NO_MORE_SPLITS_BATCH = new ConnectorSplitBatch(ImmutableList.of(), true);
+
     private final SchemaTableName schemaTableName;
-    private final CloseableIterable<CombinedScanTask> combinedScanIterable;
-    private final Iterator<FileScanTask> fileScanIterator;
+    private final TableScan tableScan;
+    private final DynamicFilter dynamicFilter;
+    private final long dynamicFilteringWaitTimeoutMillis;
+    private final Stopwatch dynamicFilterWaitStopwatch;
+
+    private CloseableIterable<CombinedScanTask> combinedScanIterable;
+    private Iterator<FileScanTask> fileScanIterator;
+    // dynamic filter the files were pruned with by Iceberg, when the scan was planned
+    private TupleDomain<IcebergColumnHandle> pushedDownDynamicFilterPredicate;
+    private DynamicFilterFileEvaluator fileEvaluator;
 
-    public IcebergSplitSource(SchemaTableName schemaTableName, CloseableIterable<CombinedScanTask> combinedScanIterable)
+    public IcebergSplitSource(SchemaTableName schemaTableName, TableScan tableScan, DynamicFilter dynamicFilter, Duration dynamicFilteringWaitTimeout)
     {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
-        this.combinedScanIterable = requireNonNull(combinedScanIterable, "combinedScanIterable is null");
-
-        this.fileScanIterator = Streams.stream(combinedScanIterable)
-                .map(CombinedScanTask::files)
-                .flatMap(Collection::stream)
-                .iterator();
+        this.tableScan = requireNonNull(tableScan, "tableScan is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        this.dynamicFilteringWaitTimeoutMillis = requireNonNull(dynamicFilteringWaitTimeout, "dynamicFilteringWaitTimeout is null").toMillis();
+        this.dynamicFilterWaitStopwatch = Stopwatch.createStarted();
     }
 
     @Override
     public CompletableFuture<ConnectorSplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, int maxSize)
     {
+        if (fileScanIterator == null) {
+            // Block until one of below conditions is met:
+            // 1. Completion of DynamicFilter
+            // 2. Timeout after waiting for the configured time
+            long timeLeft = dynamicFilteringWaitTimeoutMillis - dynamicFilterWaitStopwatch.elapsed(MILLISECONDS);
+            if (timeLeft > 0 && dynamicFilter.isAwaitable()) {
+                return dynamicFilter.isBlocked()
+                        .thenApply(ignored -> EMPTY_BATCH)
+                        .completeOnTimeout(EMPTY_BATCH, timeLeft, MILLISECONDS);
+            }
+
+            // Iceberg prunes the manifests and the files with the partition values and the column bounds
+            // in the manifests, so the dynamic filter is pushed into the scan when it is planned
+            pushedDownDynamicFilterPredicate = getDynamicFilterPredicate();
+            if (pushedDownDynamicFilterPredicate.isNone()) {
+                fileScanIterator = emptyIterator();
+                return completedFuture(NO_MORE_SPLITS_BATCH);
+            }
+            combinedScanIterable = tableScan
+                    .filter(toIcebergExpression(pushedDownDynamicFilterPredicate))
+                    .planTasks();
+            fileScanIterator = Streams.stream(combinedScanIterable)
+                    .map(CombinedScanTask::files)
+                    .flatMap(Collection::stream)
+                    .iterator();
+        }
+
+        // the dynamic filter may be narrowed after the scan was planned, the remaining files are then pruned here
+        TupleDomain<IcebergColumnHandle> dynamicFilterPredicate = getDynamicFilterPredicate();
+        if (dynamicFilterPredicate.isNone()) {
+            fileScanIterator = emptyIterator();
+            return completedFuture(NO_MORE_SPLITS_BATCH);
+        }
+        if (dynamicFilterPredicate.equals(pushedDownDynamicFilterPredicate)) {
+            fileEvaluator = null;
+        }
+        else if (fileEvaluator == null || !fileEvaluator.getPredicate().equals(dynamicFilterPredicate)) {
+            fileEvaluator = new DynamicFilterFileEvaluator(tableScan, dynamicFilterPredicate);
+        }
+
         // TODO: move this to a background thread
         List<ConnectorSplit> splits = new ArrayList<>();
         Iterator<FileScanTask> iterator = limit(fileScanIterator, maxSize);
@@ -67,6 +136,9 @@ public class IcebergSplitSource
             if (!task.deletes().isEmpty()) {
                 throw new TrinoException(NOT_SUPPORTED, "Iceberg tables with delete files are not supported: " + schemaTableName);
             }
+            if (fileEvaluator != null && !fileEvaluator.matches(task)) {
+                continue;
+            }
             splits.add(toIcebergSplit(task));
         }
         return completedFuture(new ConnectorSplitBatch(splits, isFinished()));
@@ -75,12 +147,15 @@ public class IcebergSplitSource
     @Override
     public boolean isFinished()
     {
-        return !fileScanIterator.hasNext();
+        return fileScanIterator != null && !fileScanIterator.hasNext();
     }
 
     @Override
     public void close()
     {
+        if (combinedScanIterable == null) {
+            return;
+        }
         try {
             combinedScanIterable.close();
         }
@@ -89,6 +164,20 @@ public class IcebergSplitSource
         }
     }
 
+    private TupleDomain<IcebergColumnHandle> getDynamicFilterPredicate()
+    {
+        return dynamicFilter.getCurrentPredicate()
+                .transformKeys(IcebergColumnHandle.class::cast)
+                .filter((column, domain) -> !isStructuralType(column.getType()))
+                // the predicate is only used to prune files, so it can be wider than the dynamic filter
+                .simplify(ICEBERG_DOMAIN_COMPACTION_THRESHOLD);
+    }
+
+    private static boolean isStructuralType(Type type)
+    {
+        return type instanceof ArrayType || type instanceof MapType || type instanceof RowType;
+    }
+
     private ConnectorSplit toIcebergSplit(FileScanTask task)
     {
         // TODO: We should leverage residual expression and convert that to TupleDomain.
@@ -105,4 +194,37 @@ public class IcebergSplitSource
                 ImmutableList.of(),
                 getPartitionKeys(task));
     }
+
+    /**
+     * Checks whether a file may contain rows matching a dynamic filter, using the partition values
+     * and the column bounds of the file in the same way as Iceberg does when planning a scan.
+     */
+    private static class DynamicFilterFileEvaluator
+    {
+        private final TupleDomain<IcebergColumnHandle> predicate;
+        private final Expression expression;
+        private final InclusiveMetricsEvaluator metricsEvaluator;
+        private final Map<Integer, Evaluator> partitionEvaluators = new HashMap<>();
+
+        public DynamicFilterFileEvaluator(TableScan tableScan, TupleDomain<IcebergColumnHandle> predicate)
+        {
+            this.predicate = requireNonNull(predicate, "predicate is null");
+            this.expression = toIcebergExpression(predicate);
+            this.metricsEvaluator = new InclusiveMetricsEvaluator(tableScan.schema(), expression);
+        }
+
+        public TupleDomain<IcebergColumnHandle> getPredicate()
+        {
+            return predicate;
+        }
+
+        public boolean matches(FileScanTask task)
+        {
+            PartitionSpec spec = task.spec();
+            Evaluator partitionEvaluator = partitionEvaluators.computeIfAbsent(
+                    spec.specId(),
+                    ignored -> new Evaluator(spec.partitionType(), Projections.inclusive(spec).project(expression)));
+            return partitionEvaluator.eval(task.file().partition()) && metricsEvaluator.eval(task.file());
+        }
+    }
 }
@@ -14,6 +14,7 @@
 package io.trino.plugin.iceberg;
 
 import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
 import io.trino.plugin.hive.HiveCompressionCodec;
 import org.testng.annotations.Test;
 
@@ -27,6 +28,8 @@ import static io.trino.plugin.iceberg.CatalogType.HIVE;
 import static io.trino.plugin.iceberg.CatalogType.UNKNOWN;
 import static io.trino.plugin.iceberg.IcebergFileFormat.ORC;
 import static io.trino.plugin.iceberg.IcebergFileFormat.PARQUET;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class TestIcebergConfig
 {
@@ -39,7 +42,8 @@ public class TestIcebergConfig
                 .setUseFileSizeFromMetadata(true)
                 .setMaxPartitionsPerWriter(100)
                 .setUniqueTableLocation(false)
-                .setCatalogType(HIVE));
+                .setCatalogType(HIVE)
+                .setDynamicFilteringWaitTimeout(new Duration(0, SECONDS)));
     }
 
     @Test
@@ -52,6 +56,7 @@ public class TestIcebergConfig
                 .put("iceberg.max-partitions-per-writer", "222")
                 .put("iceberg.unique-table-location", "true")
                 .put("iceberg.catalog.type", "UNKNOWN")
+                .put("iceberg.dynamic-filtering.wait-timeout", "1h")
                 .build();
 
         IcebergConfig expected = new IcebergConfig()
@@ -60,7 +65,8 @@ public class TestIcebergConfig
                 .setUseFileSizeFromMetadata(false)
                 .setMaxPartitionsPerWriter(222)
                 .setUniqueTableLocation(true)
-                .setCatalogType(UNKNOWN);
+                .setCatalogType(UNKNOWN)
+                .setDynamicFilteringWaitTimeout(new Duration(1, HOURS));
 
         assertFullMapping(properties, expected);
     }
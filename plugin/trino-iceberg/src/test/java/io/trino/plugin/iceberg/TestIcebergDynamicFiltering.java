@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.plugin.iceberg;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
+import io.trino.execution.QueryStats;
+import io.trino.testing.AbstractTestQueryFramework;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.QueryRunner;
+import io.trino.testing.ResultWithQueryId;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.trino.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.trino.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static io.trino.plugin.iceberg.IcebergQueryRunner.createIcebergQueryRunner;
+import static io.trino.sql.analyzer.FeaturesConfig.JoinDistributionType.PARTITIONED;
+import static io.trino.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.NONE;
+import static io.trino.testing.QueryAssertions.assertEqualsIgnoreOrder;
+import static io.trino.tpch.TpchTable.LINE_ITEM;
+import static io.trino.tpch.TpchTable.SUPPLIER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+
+public class TestIcebergDynamicFiltering
+        extends AbstractTestQueryFramework
+{
+    @Override
+    protected QueryRunner createQueryRunner()
+            throws Exception
+    {
+        return createIcebergQueryRunner(
+                ImmutableMap.of(),
+                ImmutableMap.of("iceberg.dynamic-filtering.wait-timeout", "1h"),
+                ImmutableList.of(LINE_ITEM, SUPPLIER));
+    }
+
+    @BeforeClass
+    public void setUp()
+    {
+        assertUpdate("CREATE TABLE partitioned_lineitem WITH (partitioning = ARRAY['suppkey']) AS SELECT orderkey, partkey, suppkey FROM lineitem", "SELECT count(*) FROM lineitem");
+        assertUpdate("CREATE TABLE sorted_lineitem AS SELECT orderkey, partkey, suppkey FROM lineitem WHERE orderkey < 1000", "SELECT count(*) FROM lineitem WHERE orderkey < 1000");
+        assertUpdate("INSERT INTO sorted_lineitem SELECT orderkey, partkey, suppkey FROM lineitem WHERE orderkey >= 1000", "SELECT count(*) FROM lineitem WHERE orderkey >= 1000");
+    }
+
+    @Override
+    protected Session getSession()
+    {
+        return Session.builder(super.getSession())
+                .setSystemProperty(JOIN_REORDERING_STRATEGY, NONE.name())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, PARTITIONED.name())
+                .build();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testPartitionPruning()
+    {
+        assertInputPruned("SELECT * FROM partitioned_lineitem l JOIN supplier s ON l.suppkey = s.suppkey AND s.name = 'Supplier#000000001'");
+    }
+
+    @Test(timeOut = 30_000)
+    public void testFileStatisticsPruning()
+    {
+        // the order keys matching the build side are only in the files written by the first statement
+        assertInputPruned("SELECT * FROM sorted_lineitem l JOIN supplier s ON l.orderkey = s.suppkey");
+    }
+
+    @Test(timeOut = 30_000)
+    public void testEmptyBuildSide()
+    {
+        ResultWithQueryId<MaterializedResult> result = execute("SELECT * FROM partitioned_lineitem l JOIN supplier s ON l.suppkey = s.suppkey AND s.name = 'abc'", true);
+        assertEquals(result.getResult().getRowCount(), 0);
+        // only the supplier table is read
+        assertEquals(getPhysicalInputPositions(result), (long) computeActual("SELECT count(*) FROM supplier").getOnlyValue());
+    }
+
+    private void assertInputPruned(String query)
+    {
+        ResultWithQueryId<MaterializedResult> withDynamicFiltering = execute(query, true);
+        ResultWithQueryId<MaterializedResult> withoutDynamicFiltering = execute(query, false);
+        assertEqualsIgnoreOrder(withDynamicFiltering.getResult().getMaterializedRows(), withoutDynamicFiltering.getResult().getMaterializedRows());
+        assertThat(getPhysicalInputPositions(withDynamicFiltering)).isLessThan(getPhysicalInputPositions(withoutDynamicFiltering));
+    }
+
+    private ResultWithQueryId<MaterializedResult> execute(String query, boolean dynamicFiltering)
+    {
+        return getDistributedQueryRunner().executeWithQueryId(dynamicFilteringSession(dynamicFiltering), query);
+    }
+
+    private Session dynamicFilteringSession(boolean enabled)
+    {
+        return Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.toString(enabled))
+                .build();
+    }
+
+    private long getPhysicalInputPositions(ResultWithQueryId<MaterializedResult> result)
+    {
+        QueryStats queryStats = getDistributedQueryRunner().getCoordinator()
+                .getQueryManager()
+                .getFullQueryInfo(result.getQueryId())
+                .getQueryStats();
+        return queryStats.getPhysicalInputPositions();
+    }
+}
@@ -283,6 +283,13 @@ public class TpchMetadata
                 .orElse(TableStatistics.empty());
     }
 
+    @Override
+    public Optional<String> getTableVersionToken(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        // the generated data never changes
+        return Optional.of(String.valueOf(((TpchTableHandle) tableHandle).getScaleFactor()));
+    }
+
     private Map<TpchColumn<?>, List<Object>> getColumnValuesRestrictions(TpchTable<?> tpchTable, TupleDomain<ColumnHandle> constraintSummary)
     {
         if (constraintSummary.isAll()) {
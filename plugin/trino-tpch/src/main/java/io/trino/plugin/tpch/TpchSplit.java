@@ -21,6 +21,7 @@ import io.trino.spi.connector.ConnectorSplit;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
@@ -66,6 +67,13 @@ public class TpchSplit
         return this;
     }
 
+    @Override
+    public Optional<String> getCacheIdentifier()
+    {
+        // generated data depends only on the table handle and the part
+        return Optional.of(partNumber + "/" + totalParts);
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
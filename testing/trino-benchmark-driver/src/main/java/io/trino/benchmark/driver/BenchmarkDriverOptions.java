@@ -120,7 +120,9 @@ public class BenchmarkDriverOptions
                         .collect(toImmutableMap(ClientExtraCredential::getName, ClientExtraCredential::getValue)),
                 null,
                 clientRequestTimeout,
-                disableCompression);
+                disableCompression,
+                false,
+                false);
     }
 
     private static URI parseServer(String server)
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.testing.LocalQueryRunner;
+
+import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.trino.SystemSessionProperties.MERGE_JOIN_STRATEGY;
+import static io.trino.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static io.trino.sql.analyzer.FeaturesConfig.MergeJoinStrategy.ALWAYS;
+
+/**
+ * Same query as {@link SqlHashJoinBenchmark}, executed as a merge join over sorted inputs.
+ */
+public class SqlMergeJoinBenchmark
+        extends AbstractSqlBenchmark
+{
+    public SqlMergeJoinBenchmark(LocalQueryRunner localQueryRunner)
+    {
+        super(localQueryRunner,
+                "sql_merge_join",
+                4,
+                5,
+                "select orderkey, lineitem.quantity, orders.totalprice from lineitem join orders using (orderkey)");
+    }
+
+    public static void main(String[] args)
+    {
+        try (LocalQueryRunner queryRunner = createLocalQueryRunner(ImmutableMap.of(
+                MERGE_JOIN_STRATEGY, ALWAYS.toString(),
+                ENABLE_DYNAMIC_FILTERING, "false"))) {
+            new SqlMergeJoinBenchmark(queryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        }
+    }
+}
@@ -23,6 +23,7 @@ import io.trino.cost.CostCalculator;
 import io.trino.cost.CostCalculatorUsingExchanges;
 import io.trino.cost.CostCalculatorWithEstimatedExchanges;
 import io.trino.cost.CostComparator;
+import io.trino.cost.JoinSizeHistory;
 import io.trino.cost.ScalarStatsCalculator;
 import io.trino.cost.TaskCountEstimator;
 import io.trino.execution.QueryManagerConfig;
@@ -438,7 +439,8 @@ public abstract class AbstractTestQueryFramework
                 new CostCalculatorWithEstimatedExchanges(costCalculator, taskCountEstimator),
                 new CostComparator(featuresConfig),
                 taskCountEstimator,
-                queryRunner.getNodePartitioningManager()).get();
+                queryRunner.getNodePartitioningManager(),
+                new JoinSizeHistory(metadata, featuresConfig)).get();
         return new QueryExplainer(
                 optimizers,
                 new PlanFragmenter(metadata, queryRunner.getNodePartitioningManager(), new QueryManagerConfig()),
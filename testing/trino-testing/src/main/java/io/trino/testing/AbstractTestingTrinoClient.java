@@ -172,7 +172,9 @@ public abstract class AbstractTestingTrinoClient<T>
                 session.getIdentity().getExtraCredentials(),
                 session.getTransactionId().map(Object::toString).orElse(null),
                 clientRequestTimeout,
-                true);
+                true,
+                false,
+                false);
     }
 
     public List<QualifiedObjectName> listTables(Session session, String catalog, String schema)
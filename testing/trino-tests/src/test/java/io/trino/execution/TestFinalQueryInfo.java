@@ -83,7 +83,9 @@ public class TestFinalQueryInfo
                     ImmutableMap.of(),
                     null,
                     new Duration(2, MINUTES),
-                    true);
+                    true,
+                    false,
+                    false);
 
             // start query
             StatementClient client = newStatementClient(httpClient, clientSession, sql);
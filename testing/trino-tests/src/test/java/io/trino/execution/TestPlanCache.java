@@ -0,0 +1,233 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Key;
+import io.trino.Session;
+import io.trino.execution.plancache.PlanCache;
+import io.trino.metadata.QualifiedObjectName;
+import io.trino.spi.security.Identity;
+import io.trino.spi.security.ViewExpression;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.MaterializedResult;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.trino.SystemSessionProperties.PLAN_CACHE_ENABLED;
+import static io.trino.execution.TestQueryRunnerUtil.createQueryRunner;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+@Test(singleThreaded = true)
+public class TestPlanCache
+{
+    private DistributedQueryRunner queryRunner;
+    private PlanCache planCache;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        queryRunner = createQueryRunner(ImmutableMap.of("query.plan-cache.enabled", "true"));
+        planCache = queryRunner.getCoordinator().getInstance(Key.get(PlanCache.class));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        queryRunner.close();
+        queryRunner = null;
+        planCache = null;
+    }
+
+    @BeforeMethod
+    public void invalidateCache()
+    {
+        planCache.invalidateAll();
+    }
+
+    @Test
+    public void testRepeatedQueryReusesPlan()
+    {
+        String sql = "SELECT orderstatus, count(*) FROM tpch.tiny.orders GROUP BY orderstatus";
+        MaterializedResult first = execute(defaultSession(), sql);
+        long hits = hitCount();
+        MaterializedResult second = execute(defaultSession(), sql);
+
+        assertEquals(hitCount(), hits + 1);
+        assertEquals(second.getMaterializedRows(), first.getMaterializedRows());
+    }
+
+    @Test
+    public void testPreparedStatementReusesPlanForSameParameters()
+    {
+        Session session = Session.builder(defaultSession())
+                .addPreparedStatement("lookup", "SELECT custkey FROM tpch.tiny.orders WHERE orderkey = ?")
+                .build();
+        MaterializedResult first = execute(session, "EXECUTE lookup USING 1");
+        long hits = hitCount();
+        assertEquals(execute(session, "EXECUTE lookup USING 1").getMaterializedRows(), first.getMaterializedRows());
+        assertEquals(hitCount(), hits + 1);
+    }
+
+    @Test
+    public void testPreparedStatementReusesPlanForDifferentParameters()
+    {
+        Session session = Session.builder(defaultSession())
+                .addPreparedStatement("lookup", "SELECT custkey FROM tpch.tiny.orders WHERE orderkey = ?")
+                .build();
+        execute(session, "EXECUTE lookup USING 1");
+        // the second execution verifies that the plan of the first one can be bound to other values
+        execute(session, "EXECUTE lookup USING 2");
+        long hits = hitCount();
+        long templateHits = planCache.getTemplateHits().getTotalCount();
+
+        MaterializedResult result = execute(session, "EXECUTE lookup USING 3");
+        assertEquals(hitCount(), hits + 1);
+        assertEquals(planCache.getTemplateHits().getTotalCount(), templateHits + 1);
+        assertEquals(result.getMaterializedRows(), execute(uncachedSession(), "SELECT custkey FROM tpch.tiny.orders WHERE orderkey = 3").getMaterializedRows());
+    }
+
+    @Test
+    public void testQueryReusesPlanForDifferentLiterals()
+    {
+        execute(defaultSession(), "SELECT custkey, totalprice * 2 FROM tpch.tiny.orders WHERE orderkey = 1");
+        execute(defaultSession(), "SELECT custkey, totalprice * 2 FROM tpch.tiny.orders WHERE orderkey = 2");
+        long hits = hitCount();
+
+        MaterializedResult result = execute(defaultSession(), "SELECT custkey, totalprice * 2 FROM tpch.tiny.orders WHERE orderkey = 3");
+        assertEquals(hitCount(), hits + 1);
+        assertEquals(result.getMaterializedRows(), execute(uncachedSession(), "SELECT custkey, totalprice * 2 FROM tpch.tiny.orders WHERE orderkey = 3").getMaterializedRows());
+    }
+
+    @Test
+    public void testEnforcedConstraintIsRebound()
+    {
+        Session session = Session.builder(defaultSession())
+                .addPreparedStatement("status", "SELECT count(*) FROM tpch.tiny.orders WHERE orderstatus = ?")
+                .build();
+        execute(session, "EXECUTE status USING 'F'");
+        execute(session, "EXECUTE status USING 'O'");
+        long hits = hitCount();
+
+        MaterializedResult result = execute(session, "EXECUTE status USING 'P'");
+        assertEquals(hitCount(), hits + 1);
+        assertEquals(result.getMaterializedRows(), execute(uncachedSession(), "SELECT count(*) FROM tpch.tiny.orders WHERE orderstatus = 'P'").getMaterializedRows());
+    }
+
+    @Test
+    public void testValuesOfDifferentTypesDoNotReusePlan()
+    {
+        execute(defaultSession(), "SELECT count(*) FROM tpch.tiny.orders WHERE orderkey = 1");
+        execute(defaultSession(), "SELECT count(*) FROM tpch.tiny.orders WHERE orderkey = 2");
+        long hits = hitCount();
+
+        // the literal is a bigint, and not an integer
+        execute(defaultSession(), "SELECT count(*) FROM tpch.tiny.orders WHERE orderkey = 10000000000");
+        assertEquals(hitCount(), hits);
+    }
+
+    @Test
+    public void testRowFilterChangeIsNotReused()
+    {
+        String sql = "SELECT count(*) FROM tpch.tiny.orders";
+        MaterializedResult unfiltered = execute(defaultSession(), sql);
+        long hits = hitCount();
+
+        queryRunner.getAccessControl().rowFilter(
+                new QualifiedObjectName("tpch", "tiny", "orders"),
+                defaultSession().getUser(),
+                new ViewExpression(defaultSession().getUser(), Optional.empty(), Optional.empty(), "orderkey < 10"));
+        try {
+            MaterializedResult filtered = execute(defaultSession(), sql);
+            assertEquals(hitCount(), hits);
+            assertNotEquals(filtered.getMaterializedRows(), unfiltered.getMaterializedRows());
+        }
+        finally {
+            queryRunner.getAccessControl().reset();
+        }
+    }
+
+    @Test
+    public void testDifferentGroupsDoNotReusePlan()
+    {
+        String sql = "SELECT count(*) FROM tpch.tiny.nation";
+        execute(defaultSession(), sql);
+        long hits = hitCount();
+
+        Session session = Session.builder(defaultSession())
+                .setIdentity(Identity.forUser(defaultSession().getUser())
+                        .withGroups(ImmutableSet.of("auditors"))
+                        .build())
+                .build();
+        execute(session, sql);
+        assertEquals(hitCount(), hits);
+    }
+
+    @Test
+    public void testQueryUsingCurrentTimeIsNotCached()
+    {
+        assertNotCached(defaultSession(), "SELECT orderkey, current_timestamp FROM tpch.tiny.orders LIMIT 10");
+        assertNotCached(defaultSession(), "SELECT orderkey FROM tpch.tiny.orders WHERE orderdate < current_date");
+    }
+
+    @Test
+    public void testSystemTablesAreNotCached()
+    {
+        assertNotCached(defaultSession(), "SELECT count(*) FROM system.runtime.nodes");
+    }
+
+    @Test
+    public void testDisabledBySessionProperty()
+    {
+        assertNotCached(uncachedSession(), "SELECT count(*) FROM tpch.tiny.nation");
+    }
+
+    private void assertNotCached(Session session, @Language("SQL") String sql)
+    {
+        execute(session, sql);
+        long hits = hitCount();
+        execute(session, sql);
+        assertEquals(hitCount(), hits);
+    }
+
+    private MaterializedResult execute(Session session, @Language("SQL") String sql)
+    {
+        return queryRunner.execute(session, sql);
+    }
+
+    private long hitCount()
+    {
+        return planCache.getHits().getTotalCount();
+    }
+
+    private Session uncachedSession()
+    {
+        return Session.builder(defaultSession())
+                .setSystemProperty(PLAN_CACHE_ENABLED, "false")
+                .build();
+    }
+
+    private Session defaultSession()
+    {
+        return queryRunner.getDefaultSession();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.execution;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Key;
+import io.trino.Session;
+import io.trino.execution.resultcache.QueryResultCache;
+import io.trino.spi.QueryId;
+import io.trino.spi.security.Identity;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.ResultWithQueryId;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static io.trino.SystemSessionProperties.QUERY_RESULT_CACHE_ENABLED;
+import static io.trino.execution.TestQueryRunnerUtil.createQueryRunner;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestQueryResultCache
+{
+    private DistributedQueryRunner queryRunner;
+    private QueryResultCache queryResultCache;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        queryRunner = createQueryRunner(ImmutableMap.of("query.result-cache.enabled", "true"));
+        queryResultCache = queryRunner.getCoordinator().getInstance(Key.get(QueryResultCache.class));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        queryRunner.close();
+        queryRunner = null;
+        queryResultCache = null;
+    }
+
+    @BeforeMethod
+    public void invalidateCache()
+    {
+        queryResultCache.invalidateAll();
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache()
+    {
+        String sql = "SELECT orderstatus, count(*) FROM tpch.tiny.orders GROUP BY orderstatus";
+        ResultWithQueryId<MaterializedResult> first = execute(defaultSession(), sql);
+        ResultWithQueryId<MaterializedResult> second = execute(defaultSession(), sql);
+
+        assertFalse(isServedFromCache(first.getQueryId()));
+        assertTrue(isServedFromCache(second.getQueryId()));
+        assertEquals(second.getResult().getMaterializedRows(), first.getResult().getMaterializedRows());
+        assertEquals(second.getResult().getColumnNames(), first.getResult().getColumnNames());
+    }
+
+    @Test
+    public void testEmptyResultIsServedFromCache()
+    {
+        String sql = "SELECT orderkey FROM tpch.tiny.orders WHERE orderkey < 0";
+        execute(defaultSession(), sql);
+        ResultWithQueryId<MaterializedResult> second = execute(defaultSession(), sql);
+
+        assertTrue(isServedFromCache(second.getQueryId()));
+        assertEquals(second.getResult().getRowCount(), 0);
+    }
+
+    @Test
+    public void testNonDeterministicQueryIsNotCached()
+    {
+        assertNotCached(defaultSession(), "SELECT orderkey, random() FROM tpch.tiny.orders LIMIT 10");
+        assertNotCached(defaultSession(), "SELECT orderkey, current_timestamp FROM tpch.tiny.orders LIMIT 10");
+    }
+
+    @Test
+    public void testSystemTablesAreNotCached()
+    {
+        assertNotCached(defaultSession(), "SELECT count(*) FROM system.runtime.nodes");
+    }
+
+    @Test
+    public void testDisabledBySessionProperty()
+    {
+        Session session = Session.builder(defaultSession())
+                .setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "false")
+                .build();
+        assertNotCached(session, "SELECT count(*) FROM tpch.tiny.nation");
+    }
+
+    @Test
+    public void testDifferentUsersDoNotShareResults()
+    {
+        String sql = "SELECT count(*) FROM tpch.tiny.region";
+        execute(defaultSession(), sql);
+        Session otherUser = testSessionBuilder()
+                .setIdentity(Identity.ofUser("other"))
+                .build();
+        assertFalse(isServedFromCache(execute(otherUser, sql).getQueryId()));
+    }
+
+    private void assertNotCached(Session session, @Language("SQL") String sql)
+    {
+        execute(session, sql);
+        assertFalse(isServedFromCache(execute(session, sql).getQueryId()));
+    }
+
+    private ResultWithQueryId<MaterializedResult> execute(Session session, @Language("SQL") String sql)
+    {
+        return queryRunner.executeWithQueryId(session, sql);
+    }
+
+    private boolean isServedFromCache(QueryId queryId)
+    {
+        // results served from the cache are not produced by any stage
+        return queryRunner.getCoordinator().getQueryManager().getFullQueryInfo(queryId).getOutputStage().isEmpty();
+    }
+
+    private Session defaultSession()
+    {
+        return queryRunner.getDefaultSession();
+    }
+}
@@ -104,7 +104,9 @@ public class TestUserImpersonationAccessControl
                     ImmutableMap.of(),
                     null,
                     new Duration(2, MINUTES),
-                    true);
+                    true,
+                    false,
+                    false);
 
             // start query
             StatementClient client = newStatementClient(httpClient, clientSession, "SELECT * FROM tpch.tiny.nation");
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.tests;
+
+import io.trino.Session;
+import io.trino.operator.DynamicRowFilterOperator;
+import io.trino.operator.OperatorStats;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.testing.AbstractTestQueryFramework;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.QueryRunner;
+import io.trino.testing.ResultWithQueryId;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.SystemSessionProperties.ENABLE_DYNAMIC_ROW_FILTERING;
+import static io.trino.plugin.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static io.trino.testing.QueryAssertions.assertEqualsIgnoreOrder;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestDynamicRowFiltering
+        extends AbstractTestQueryFramework
+{
+    @Override
+    protected QueryRunner createQueryRunner()
+            throws Exception
+    {
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema(TINY_SCHEMA_NAME)
+                .build();
+        DistributedQueryRunner queryRunner = DistributedQueryRunner.builder(session).build();
+        try {
+            queryRunner.installPlugin(new TpchPlugin());
+            queryRunner.createCatalog("tpch", "tpch");
+        }
+        catch (RuntimeException e) {
+            queryRunner.close();
+            throw e;
+        }
+        return queryRunner;
+    }
+
+    @Test
+    public void testJoinOnAggregation()
+    {
+        // the probe column is produced by an aggregation, so the dynamic filter cannot be pushed into the scan of lineitem
+        @Language("SQL") String sql = "" +
+                "SELECT l.orderkey, l.line_count " +
+                "FROM (SELECT orderkey, count(*) AS line_count FROM lineitem GROUP BY orderkey) l " +
+                "JOIN nation n ON l.line_count = n.nationkey " +
+                "WHERE n.name = 'ARGENTINA'";
+
+        MaterializedResult expected = computeActual(withDynamicRowFiltering(false), sql);
+        assertThat(expected.getRowCount()).isGreaterThan(0);
+
+        ResultWithQueryId<MaterializedResult> result = getDistributedQueryRunner().executeWithQueryId(withDynamicRowFiltering(true), sql);
+        assertEqualsIgnoreOrder(result.getResult().getMaterializedRows(), expected.getMaterializedRows());
+
+        List<OperatorStats> rowFilters = getDistributedQueryRunner().getCoordinator()
+                .getQueryManager()
+                .getFullQueryInfo(result.getQueryId())
+                .getQueryStats()
+                .getOperatorSummaries().stream()
+                .filter(stats -> stats.getOperatorType().equals(DynamicRowFilterOperator.class.getSimpleName()))
+                .collect(toImmutableList());
+        assertThat(rowFilters).isNotEmpty();
+        long inputPositions = rowFilters.stream().mapToLong(OperatorStats::getInputPositions).sum();
+        long outputPositions = rowFilters.stream().mapToLong(OperatorStats::getOutputPositions).sum();
+        assertThat(outputPositions).isLessThan(inputPositions);
+    }
+
+    private Session withDynamicRowFiltering(boolean enabled)
+    {
+        return Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_ROW_FILTERING, Boolean.toString(enabled))
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.tests;
+
+import com.google.common.collect.ImmutableMap;
+import io.trino.Session;
+import io.trino.execution.StageInfo;
+import io.trino.execution.TaskInfo;
+import io.trino.operator.TaskStats;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.spi.QueryId;
+import io.trino.testing.AbstractTestQueryFramework;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.MaterializedResult;
+import io.trino.testing.QueryRunner;
+import io.trino.testing.ResultWithQueryId;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.trino.SystemSessionProperties.LEAF_RESULT_CACHE_ENABLED;
+import static io.trino.plugin.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static io.trino.testing.QueryAssertions.assertEqualsIgnoreOrder;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+
+public class TestLeafResultCacheQueries
+        extends AbstractTestQueryFramework
+{
+    @Override
+    protected QueryRunner createQueryRunner()
+            throws Exception
+    {
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema(TINY_SCHEMA_NAME)
+                .setSystemProperty(LEAF_RESULT_CACHE_ENABLED, "true")
+                .build();
+        DistributedQueryRunner queryRunner = DistributedQueryRunner.builder(session)
+                .setExtraProperties(ImmutableMap.of("leaf-result-cache.enabled", "true"))
+                .build();
+        try {
+            queryRunner.installPlugin(new TpchPlugin());
+            queryRunner.createCatalog("tpch", "tpch");
+        }
+        catch (RuntimeException e) {
+            queryRunner.close();
+            throw e;
+        }
+        return queryRunner;
+    }
+
+    @Test
+    public void testPartialAggregationReused()
+    {
+        String query = "SELECT orderstatus, count(*), sum(totalprice) FROM orders WHERE orderkey % 3 = 0 GROUP BY orderstatus";
+
+        ResultWithQueryId<MaterializedResult> first = getDistributedQueryRunner().executeWithQueryId(getSession(), query);
+        assertEquals(getLeafResultCacheHits(first.getQueryId()), 0);
+
+        ResultWithQueryId<MaterializedResult> second = getDistributedQueryRunner().executeWithQueryId(getSession(), query);
+        assertThat(getLeafResultCacheHits(second.getQueryId())).isGreaterThan(0);
+        assertEqualsIgnoreOrder(second.getResult().getMaterializedRows(), first.getResult().getMaterializedRows());
+    }
+
+    private long getLeafResultCacheHits(QueryId queryId)
+    {
+        StageInfo outputStage = getDistributedQueryRunner().getCoordinator()
+                .getQueryManager()
+                .getFullQueryInfo(queryId)
+                .getOutputStage()
+                .orElseThrow();
+        return StageInfo.getAllStages(Optional.of(outputStage)).stream()
+                .flatMap(stage -> stage.getTasks().stream())
+                .map(TaskInfo::getStats)
+                .mapToLong(TaskStats::getLeafResultCacheHits)
+                .sum();
+    }
+}
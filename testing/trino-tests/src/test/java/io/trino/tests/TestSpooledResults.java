@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.trino.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Key;
+import io.airlift.units.Duration;
+import io.trino.client.ClientSession;
+import io.trino.client.QueryData;
+import io.trino.client.StatementClient;
+import io.trino.metadata.InternalNodeManager;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.server.testing.TestingTrinoServer;
+import io.trino.testing.DistributedQueryRunner;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.trino.SessionTestUtils.TEST_SESSION;
+import static io.trino.client.StatementClientFactory.newStatementClient;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestSpooledResults
+{
+    private Path spoolDirectory;
+    private DistributedQueryRunner queryRunner;
+    private OkHttpClient httpClient;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        spoolDirectory = Files.createTempDirectory("spooled-results");
+        queryRunner = DistributedQueryRunner.builder(TEST_SESSION)
+                .setNodeCount(2)
+                // the output stage runs on a worker, which serves the segments
+                .setCoordinatorProperties(ImmutableMap.of("node-scheduler.include-coordinator", "false"))
+                .setExtraProperties(ImmutableMap.<String, String>builder()
+                        .put("protocol.spooling.enabled", "true")
+                        .put("protocol.spooling.directory", spoolDirectory.toString())
+                        .put("protocol.spooling.segment-size", "1MB")
+                        .put("protocol.spooling.max-segments-per-response", "2")
+                        .build())
+                .build();
+        queryRunner.installPlugin(new TpchPlugin());
+        queryRunner.createCatalog("tpch", "tpch");
+        httpClient = new OkHttpClient();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        if (httpClient != null) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+            httpClient = null;
+        }
+        if (queryRunner != null) {
+            queryRunner.close();
+            queryRunner = null;
+        }
+        deleteRecursively(spoolDirectory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testSpooledResults()
+    {
+        String sql = "SELECT orderkey, linenumber, comment FROM tpch.tiny.lineitem";
+        List<List<Object>> expected = execute(sql, false);
+        assertEquals(expected.size(), 60175);
+        assertEquals(execute(sql, true), expected);
+    }
+
+    @Test
+    public void testSegmentsWrittenByOutputStage()
+            throws IOException
+    {
+        execute("SELECT orderkey, comment FROM tpch.tiny.orders", true);
+
+        // the directory of a query stays until it expires, after the client acknowledged its segments
+        assertThat(listQueryDirectories(queryRunner.getCoordinator())).isEmpty();
+        long workerQueryDirectories = 0;
+        for (TestingTrinoServer server : queryRunner.getServers()) {
+            if (!server.isCoordinator()) {
+                workerQueryDirectories += listQueryDirectories(server).size();
+            }
+        }
+        assertThat(workerQueryDirectories).isGreaterThan(0);
+    }
+
+    @Test
+    public void testSegmentRequiresToken()
+            throws IOException
+    {
+        // without the token issued by the coordinator, the segment ID is not enough to read a segment
+        String segmentUri = queryRunner.getCoordinator().getBaseUrl() + "/v1/spooled/query/0123456789abcdef0123456789abcdef";
+        try (Response response = httpClient.newCall(new Request.Builder().url(segmentUri).build()).execute()) {
+            assertEquals(response.code(), 403);
+        }
+        try (Response response = httpClient.newCall(new Request.Builder().url(segmentUri + "?token=invalid").delete().build()).execute()) {
+            assertEquals(response.code(), 403);
+        }
+    }
+
+    private List<Path> listQueryDirectories(TestingTrinoServer server)
+            throws IOException
+    {
+        String nodeId = server.getInstance(Key.get(InternalNodeManager.class)).getCurrentNode().getNodeIdentifier();
+        try (Stream<Path> paths = Files.list(spoolDirectory.resolve(nodeId))) {
+            return paths.collect(toImmutableList());
+        }
+    }
+
+    private List<List<Object>> execute(String sql, boolean spooledResultsEnabled)
+    {
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        try (StatementClient client = newStatementClient(httpClient, createClientSession(spooledResultsEnabled), sql)) {
+            while (client.isRunning()) {
+                QueryData data = client.currentData();
+                if (data.getData() != null) {
+                    data.getData().forEach(rows::add);
+                }
+                client.advance();
+            }
+            assertNull(client.finalStatusInfo().getError());
+        }
+        return rows.build();
+    }
+
+    private ClientSession createClientSession(boolean spooledResultsEnabled)
+    {
+        return new ClientSession(
+                queryRunner.getCoordinator().getBaseUrl(),
+                "user",
+                Optional.empty(),
+                "source",
+                Optional.empty(),
+                ImmutableSet.of(),
+                null,
+                null,
+                null,
+                null,
+                ZoneId.of("America/Los_Angeles"),
+                Locale.ENGLISH,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                null,
+                new Duration(2, MINUTES),
+                false,
+                false,
+                spooledResultsEnabled);
+    }
+}